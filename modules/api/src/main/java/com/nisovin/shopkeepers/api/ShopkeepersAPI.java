@@ -71,6 +71,26 @@ public final class ShopkeepersAPI {
 		return getPlugin().hasCreatePermission(player);
 	}
 
+	/**
+	 * Invalidates the cached maximum shops limit of the given player.
+	 * 
+	 * @param player
+	 *            the player, not <code>null</code>
+	 * @see ShopkeepersPlugin#invalidateMaxShopsLimit(Player)
+	 */
+	public static void invalidateMaxShopsLimit(Player player) {
+		getPlugin().invalidateMaxShopsLimit(player);
+	}
+
+	/**
+	 * Invalidates the cached maximum shops limits of all players.
+	 * 
+	 * @see ShopkeepersPlugin#invalidateMaxShopsLimits()
+	 */
+	public static void invalidateMaxShopsLimits() {
+		getPlugin().invalidateMaxShopsLimits();
+	}
+
 	// SHOP TYPES
 
 	/**
@@ -180,6 +180,14 @@ public interface ShopkeepersPlugin extends Plugin {
 	 * The <code>shopkeeper.snapshot</code> permission.
 	 */
 	public static final String SNAPSHOT_PERMISSION = "shopkeeper.snapshot";
+	/**
+	 * The <code>shopkeeper.export</code> permission.
+	 */
+	public static final String EXPORT_PERMISSION = "shopkeeper.export";
+	/**
+	 * The <code>shopkeeper.trade-stats</code> permission.
+	 */
+	public static final String TRADE_STATS_PERMISSION = "shopkeeper.trade-stats";
 	/**
 	 * The <code>shopkeeper.edit-villagers</code> permission.
 	 */
@@ -237,6 +245,30 @@ public interface ShopkeepersPlugin extends Plugin {
 	 */
 	public boolean hasCreatePermission(Player player);
 
+	/**
+	 * Invalidates the cached maximum shops limit of the given player.
+	 * <p>
+	 * The maximum number of shops that a player can own is derived from the player's permissions
+	 * and then cached for a short duration. Permission plugins can invoke this method when the
+	 * permissions of the player have changed so that the player's new limit takes effect
+	 * immediately.
+	 * <p>
+	 * This method can be invoked from any thread.
+	 * 
+	 * @param player
+	 *            the player, not <code>null</code>
+	 */
+	public void invalidateMaxShopsLimit(Player player);
+
+	/**
+	 * Invalidates the cached maximum shops limits of all players.
+	 * <p>
+	 * This method can be invoked from any thread.
+	 * 
+	 * @see #invalidateMaxShopsLimit(Player)
+	 */
+	public void invalidateMaxShopsLimits();
+
 	// SHOP TYPES
 
 	/**
@@ -1,15 +1,19 @@
 package com.nisovin.shopkeepers.api.shopkeeper;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.api.events.ShopkeeperRemoveEvent;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObject;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
@@ -34,8 +38,73 @@ public interface ShopkeeperRegistry {
 	public Shopkeeper createShopkeeper(ShopCreationData creationData)
 			throws ShopkeeperCreateException;
 
+	/**
+	 * Creates shopkeepers from the given creation data and spawns them into the world.
+	 * <p>
+	 * In comparison to creating each shopkeeper individually via
+	 * {@link #createShopkeeper(ShopCreationData)}, this groups the shopkeepers by chunk, spreads
+	 * their creation over several ticks to avoid performance drops, and triggers a single save of
+	 * the shopkeepers once all shopkeepers have been created, if any shopkeepers were created.
+	 * <p>
+	 * Creation data for which no shopkeeper can be created is skipped and a warning is logged.
+	 * <p>
+	 * The returned future is completed on the server's main thread once all shopkeepers have been
+	 * created. If the plugin is disabled in the meantime, the remaining shopkeepers are not created
+	 * and the future is cancelled.
+	 * 
+	 * @param creationData
+	 *            the shop creation data, not <code>null</code>
+	 * @return a future that provides the created shopkeepers
+	 */
+	public CompletableFuture<List<? extends Shopkeeper>> createShopkeepers(
+			Collection<? extends ShopCreationData> creationData
+	);
+
+	// SHOPKEEPER DELETION
+
+	/**
+	 * Persistently removes the given shopkeepers.
+	 * <p>
+	 * In comparison to deleting each shopkeeper individually via {@link Shopkeeper#delete(Player)},
+	 * this groups the shopkeepers by chunk, closes the UIs of the shopkeepers in batches, spreads
+	 * the deletions over several ticks to avoid performance drops, and triggers a single save of the
+	 * shopkeepers once all shopkeepers have been deleted, if any shopkeepers were deleted.
+	 * <p>
+	 * The shopkeepers are deleted in batches: The {@link ShopkeeperRemoveEvent}s are called for all
+	 * shopkeepers of a batch before any of these shopkeepers are removed.
+	 * <p>
+	 * Shopkeepers that are no longer {@link Shopkeeper#isValid() valid} by the time they are about
+	 * to be deleted are skipped.
+	 * <p>
+	 * The returned future is completed on the server's main thread once all shopkeepers have been
+	 * deleted. If the plugin is disabled in the meantime, the remaining shopkeepers are not deleted
+	 * and the future is cancelled.
+	 * 
+	 * @param shopkeepers
+	 *            the shopkeepers, not <code>null</code>
+	 * @param player
+	 *            the player responsible for the deletion, can be <code>null</code>
+	 * @return a future that provides the number of deleted shopkeepers
+	 */
+	public CompletableFuture<Integer> deleteShopkeepers(
+			Collection<? extends Shopkeeper> shopkeepers,
+			@Nullable Player player
+	);
+
 	// QUERYING
 
+	/**
+	 * Gets the latest published {@link ShopkeeperRegistrySnapshot}.
+	 * <p>
+	 * Unlike the other methods of this registry, this method can be called from any thread. The
+	 * returned snapshot is immutable and can be queried concurrently without any further
+	 * synchronization. The registry publishes a new snapshot after each batch of changes, i.e. the
+	 * returned snapshot might not yet reflect the most recent changes of the current tick.
+	 * 
+	 * @return the latest snapshot, not <code>null</code>
+	 */
+	public ShopkeeperRegistrySnapshot getSnapshot();
+
 	/**
 	 * Gets all shopkeepers.
 	 * 
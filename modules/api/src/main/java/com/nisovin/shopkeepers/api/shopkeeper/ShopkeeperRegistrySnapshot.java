@@ -0,0 +1,228 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+
+/**
+ * An immutable snapshot of the shopkeepers inside the {@link ShopkeeperRegistry}.
+ * <p>
+ * Unlike the shopkeeper registry and the shopkeepers themselves, which can only be accessed from
+ * the server's main thread, snapshots can be queried concurrently from any thread. The registry
+ * publishes a new snapshot after each batch of changes, i.e. snapshots can lag slightly behind the
+ * current state of the registry. See {@link ShopkeeperRegistry#getSnapshot()}.
+ * <p>
+ * Instead of the shopkeepers, snapshots provide immutable {@link Entry entries} that capture the
+ * basic information of the shopkeepers at the time the snapshot was created.
+ */
+public interface ShopkeeperRegistrySnapshot {
+
+	/**
+	 * Immutable information about a shopkeeper at the time its snapshot was created.
+	 */
+	public interface Entry {
+
+		/**
+		 * Gets the shopkeeper's {@link Shopkeeper#getId() id}.
+		 *
+		 * @return the shopkeeper id
+		 */
+		public int getId();
+
+		/**
+		 * Gets the shopkeeper's {@link Shopkeeper#getUniqueId() unique id}.
+		 *
+		 * @return the unique id, not <code>null</code>
+		 */
+		public UUID getUniqueId();
+
+		/**
+		 * Gets the identifier of the shopkeeper's {@link Shopkeeper#getType() shop type}.
+		 *
+		 * @return the shop type identifier, not <code>null</code>
+		 */
+		public String getShopTypeId();
+
+		/**
+		 * Gets the identifier of the type of the shopkeeper's shop object.
+		 *
+		 * @return the shop object type identifier, not <code>null</code>
+		 */
+		public String getShopObjectTypeId();
+
+		/**
+		 * Gets the shopkeeper's {@link Shopkeeper#getName() name}.
+		 *
+		 * @return the name, can be empty, not <code>null</code>
+		 */
+		public String getName();
+
+		/**
+		 * Checks if the shopkeeper is a {@link PlayerShopkeeper}.
+		 *
+		 * @return <code>true</code> if the shopkeeper is a player shopkeeper
+		 */
+		public boolean isPlayerShop();
+
+		/**
+		 * Gets the {@link PlayerShopkeeper#getOwnerUUID() owner unique id} of a player shopkeeper.
+		 *
+		 * @return the owner unique id, or <code>null</code> if the shopkeeper is not a player
+		 *         shopkeeper
+		 */
+		public @Nullable UUID getOwnerUUID();
+
+		/**
+		 * Gets the {@link PlayerShopkeeper#getOwnerName() owner name} of a player shopkeeper.
+		 *
+		 * @return the owner name, or <code>null</code> if the shopkeeper is not a player shopkeeper
+		 */
+		public @Nullable String getOwnerName();
+
+		/**
+		 * Checks if the shopkeeper is {@link Shopkeeper#isVirtual() virtual}.
+		 *
+		 * @return <code>true</code> if the shopkeeper is virtual
+		 */
+		public boolean isVirtual();
+
+		/**
+		 * Gets the name of the shopkeeper's world.
+		 *
+		 * @return the world name, or <code>null</code> if the shopkeeper is virtual
+		 */
+		public @Nullable String getWorldName();
+
+		/**
+		 * Gets the shopkeeper's x coordinate.
+		 *
+		 * @return the x coordinate, or <code>0</code> if the shopkeeper is virtual
+		 */
+		public int getX();
+
+		/**
+		 * Gets the shopkeeper's y coordinate.
+		 *
+		 * @return the y coordinate, or <code>0</code> if the shopkeeper is virtual
+		 */
+		public int getY();
+
+		/**
+		 * Gets the shopkeeper's z coordinate.
+		 *
+		 * @return the z coordinate, or <code>0</code> if the shopkeeper is virtual
+		 */
+		public int getZ();
+
+		/**
+		 * Gets the coordinates of the shopkeeper's chunk.
+		 *
+		 * @return the chunk coordinates, or <code>null</code> if the shopkeeper is virtual
+		 */
+		public @Nullable ChunkCoords getChunkCoords();
+	}
+
+	/**
+	 * Gets the version of this snapshot.
+	 * <p>
+	 * Every published snapshot has a higher version than the previously published snapshots.
+	 *
+	 * @return the version
+	 */
+	public long getVersion();
+
+	/**
+	 * Gets all shopkeepers.
+	 *
+	 * @return an unmodifiable collection of all shopkeepers
+	 */
+	public Collection<? extends Entry> getAllShopkeepers();
+
+	/**
+	 * Gets the shopkeeper by its unique id.
+	 *
+	 * @param shopkeeperUniqueId
+	 *            the shopkeeper's unique id
+	 * @return the shopkeeper for the given unique id, or <code>null</code>
+	 */
+	public @Nullable Entry getShopkeeperByUniqueId(UUID shopkeeperUniqueId);
+
+	/**
+	 * Gets the shopkeeper by its id.
+	 *
+	 * @param shopkeeperId
+	 *            the shopkeeper's id
+	 * @return the shopkeeper for the given id, or <code>null</code>
+	 */
+	public @Nullable Entry getShopkeeperById(int shopkeeperId);
+
+	/**
+	 * Gets the player shopkeepers owned by the specified player.
+	 *
+	 * @param ownerUUID
+	 *            the owner uuid
+	 * @return an unmodifiable collection of the player shopkeepers
+	 */
+	public Collection<? extends Entry> getPlayerShopkeepersByOwner(UUID ownerUUID);
+
+	/**
+	 * Gets the shopkeepers with the given name.
+	 * <p>
+	 * Similar to {@link ShopkeeperRegistry#getShopkeepersByName(String)}, the names are compared
+	 * after stripping any color codes and normalizing them.
+	 *
+	 * @param shopName
+	 *            the shop name
+	 * @return an unmodifiable collection of the matching shopkeepers
+	 */
+	public Collection<? extends Entry> getShopkeepersByName(String shopName);
+
+	/**
+	 * Gets the names of all worlds that contain shopkeepers.
+	 *
+	 * @return an unmodifiable collection of the world names
+	 */
+	public Collection<? extends String> getWorldsWithShopkeepers();
+
+	/**
+	 * Gets the shopkeepers in the specified world.
+	 *
+	 * @param worldName
+	 *            the world name
+	 * @return an unmodifiable collection of the shopkeepers
+	 */
+	public Collection<? extends Entry> getShopkeepersInWorld(String worldName);
+
+	/**
+	 * Gets the shopkeepers in the specified chunk.
+	 *
+	 * @param chunkCoords
+	 *            the chunk coordinates
+	 * @return an unmodifiable collection of the shopkeepers
+	 */
+	public Collection<? extends Entry> getShopkeepersInChunk(ChunkCoords chunkCoords);
+
+	/**
+	 * Gets the shopkeepers at the specified block coordinates.
+	 *
+	 * @param worldName
+	 *            the world name
+	 * @param x
+	 *            the block x coordinate
+	 * @param y
+	 *            the block y coordinate
+	 * @param z
+	 *            the block z coordinate
+	 * @return an unmodifiable collection of the shopkeepers
+	 */
+	public Collection<? extends Entry> getShopkeepersAtLocation(
+			String worldName,
+			int x,
+			int y,
+			int z
+	);
+}
@@ -31,11 +31,13 @@ import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.lib.ConfigLoadException;
 import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
 import com.nisovin.shopkeepers.container.protection.RemoveShopOnContainerBreak;
+import com.nisovin.shopkeepers.container.tracking.ShopContainerTracker;
 import com.nisovin.shopkeepers.debug.Debug;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.debug.events.EventDebugger;
 import com.nisovin.shopkeepers.debug.trades.TradingCountListener;
 import com.nisovin.shopkeepers.dependencies.worldguard.WorldGuardDependency;
+import com.nisovin.shopkeepers.export.ShopkeeperDataExporter;
 import com.nisovin.shopkeepers.input.chat.ChatInput;
 import com.nisovin.shopkeepers.input.interaction.InteractionInput;
 import com.nisovin.shopkeepers.internals.SKApiInternals;
@@ -130,6 +132,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	private final TradeNotifications tradeNotifications = new TradeNotifications(
 			Unsafe.initialized(this)
 	);
+	private final ShopkeeperDataExporter shopkeeperDataExporter = new ShopkeeperDataExporter(
+			Unsafe.initialized(this)
+	);
 	private final EventDebugger eventDebugger = new EventDebugger(Unsafe.initialized(this));
 
 	private final PlayerShops playerShops = new PlayerShops(Unsafe.initialized(this));
@@ -137,6 +142,10 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	private final ProtectedContainers protectedContainers = new ProtectedContainers(
 			Unsafe.initialized(this)
 	);
+	private final ShopContainerTracker shopContainerTracker = new ShopContainerTracker(
+			Unsafe.initialized(this),
+			protectedContainers
+	);
 	private final ShopkeeperCreation shopkeeperCreation = new ShopkeeperCreation(
 			Unsafe.initialized(this),
 			shopkeeperRegistry,
@@ -366,6 +375,7 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Enable container protection:
 		protectedContainers.enable();
 		removeShopOnContainerBreak.onEnable();
+		shopContainerTracker.onEnable();
 
 		// Register events:
 		PluginManager pm = Bukkit.getPluginManager();
@@ -444,6 +454,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Trade notifications:
 		tradeNotifications.onEnable();
 
+		// Shopkeeper data exports:
+		shopkeeperDataExporter.onEnable();
+
 		// Save all updated shopkeeper data (e.g. after data migrations):
 		shopkeeperStorage.saveIfDirty();
 
@@ -456,6 +469,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 
 	@Override
 	public void onDisable() {
+		// Cancel any running shopkeeper data export (its writer task would otherwise block):
+		shopkeeperDataExporter.onDisable();
+
 		// Wait for async tasks to complete:
 		SchedulerUtils.awaitAsyncTasksCompletion(
 				this,
@@ -482,6 +498,7 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Disable protected containers:
 		protectedContainers.disable();
 		removeShopOnContainerBreak.onDisable();
+		shopContainerTracker.onDisable();
 
 		// Disable shopkeeper registry: Unloads all shopkeepers.
 		shopkeeperRegistry.onDisable();
@@ -656,6 +673,12 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return protectedContainers;
 	}
 
+	// SHOP CONTAINER TRACKING
+
+	public ShopContainerTracker getShopContainerTracker() {
+		return shopContainerTracker;
+	}
+
 	// SHOPKEEPER REMOVAL ON CONTAINER BREAKING
 
 	public RemoveShopOnContainerBreak getRemoveShopOnContainerBreak() {
@@ -756,9 +779,31 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return playerShops;
 	}
 
+	@Override
+	public void invalidateMaxShopsLimit(Player player) {
+		playerShops.getPlayerShopsLimit().invalidateMaxShopsLimit(player);
+	}
+
+	@Override
+	public void invalidateMaxShopsLimits() {
+		playerShops.getPlayerShopsLimit().invalidateMaxShopsLimits();
+	}
+
+	// TRADE LOGGING
+
+	public TradeLoggers getTradeLoggers() {
+		return tradeLoggers;
+	}
+
 	// TRADE NOTIFICATIONS
 
 	public TradeNotifications getTradeNotifications() {
 		return tradeNotifications;
 	}
+
+	// SHOPKEEPER DATA EXPORTS
+
+	public ShopkeeperDataExporter getShopkeeperDataExporter() {
+		return shopkeeperDataExporter;
+	}
 }
@@ -1,13 +1,12 @@
 package com.nisovin.shopkeepers.commands.arguments;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
 
 import org.bukkit.command.CommandSender;
 
-import com.nisovin.shopkeepers.api.ShopkeepersAPI;
-import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.commands.lib.CommandInput;
 import com.nisovin.shopkeepers.commands.lib.argument.filter.ArgumentFilter;
@@ -16,6 +15,7 @@ import com.nisovin.shopkeepers.commands.lib.arguments.ObjectIdArgument;
 import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
 import com.nisovin.shopkeepers.commands.util.ShopkeeperArgumentUtils;
 import com.nisovin.shopkeepers.commands.util.ShopkeeperArgumentUtils.TargetShopkeeperFilter;
+import com.nisovin.shopkeepers.shopkeeper.registry.ShopkeeperCompletionIndex;
 import com.nisovin.shopkeepers.util.java.ConversionUtils;
 
 /**
@@ -74,7 +74,8 @@ public class ShopkeeperIdArgument extends ObjectIdArgument<Integer> {
 	 * @param filter
 	 *            only suggestions for shopkeepers accepted by this filter are included, not
 	 *            <code>null</code>
-	 * @return the shopkeeper id completion suggestions
+	 * @return the shopkeeper id completion suggestions, at most
+	 *         {@link #MAX_SUGGESTIONS}
 	 */
 	public static Iterable<? extends Integer> getDefaultCompletionSuggestions(
 			CommandInput input,
@@ -95,26 +96,32 @@ public class ShopkeeperIdArgument extends ObjectIdArgument<Integer> {
 				TargetShopkeeperFilter.ANY
 		);
 
+		// Note: No normalization required.
+		List<Integer> suggestions = new ArrayList<>();
+		for (Shopkeeper shopkeeper : targetedShopkeepers) {
+			if (suggestions.size() >= MAX_SUGGESTIONS) break;
+			if (!filter.test(input, context, shopkeeper)) continue;
+			int id = shopkeeper.getId();
+			if (String.valueOf(id).startsWith(idPrefix)) {
+				suggestions.add(id);
+			}
+		}
+
 		// Only provide other suggestions if there is a minimum length input:
-		Stream<Shopkeeper> shopkeepersStream;
 		if (idPrefix.length() >= minimumCompletionInput) {
-			shopkeepersStream = Stream.concat(
-					targetedShopkeepers.stream(),
-					ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers().stream()
-							.filter(shopkeeper -> !targetedShopkeepers.contains(shopkeeper))
-			);
-		} else {
-			// TODO CheckerFramework complains when using a wildcard Stream here.
-			shopkeepersStream = Unsafe.castNonNull(targetedShopkeepers.stream());
+			// TODO Prefer short ids (e.g. input "2", suggest "20", "21", "22",.. instead of "200",
+			// "201", "202",..)
+			ShopkeeperCompletionIndex completionIndex = SKShopkeepersPlugin.getInstance()
+					.getShopkeeperRegistry()
+					.getCompletionIndex();
+			completionIndex.getShopkeepersByIdPrefix(
+					idPrefix,
+					shopkeeper -> !targetedShopkeepers.contains(shopkeeper)
+							&& filter.test(input, context, shopkeeper),
+					MAX_SUGGESTIONS - suggestions.size()
+			).forEach(shopkeeper -> suggestions.add(shopkeeper.getId()));
 		}
-
-		// Note: No normalization required.
-		// TODO Prefer short ids (e.g. input "2", suggest "20", "21", "22",.. instead of "200",
-		// "201", "202",..)
-		return shopkeepersStream
-				.filter(shopkeeper -> filter.test(input, context, shopkeeper))
-				.mapToInt(Shopkeeper::getId)
-				.filter(id -> String.valueOf(id).startsWith(idPrefix))::iterator;
+		return suggestions;
 	}
 
 	@Override
@@ -1,14 +1,13 @@
 package com.nisovin.shopkeepers.commands.arguments;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
-import java.util.stream.Stream;
 
 import org.bukkit.command.CommandSender;
 
-import com.nisovin.shopkeepers.api.ShopkeepersAPI;
-import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.commands.lib.CommandInput;
 import com.nisovin.shopkeepers.commands.lib.argument.filter.ArgumentFilter;
@@ -16,6 +15,7 @@ import com.nisovin.shopkeepers.commands.lib.arguments.ObjectUUIDArgument;
 import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
 import com.nisovin.shopkeepers.commands.util.ShopkeeperArgumentUtils;
 import com.nisovin.shopkeepers.commands.util.ShopkeeperArgumentUtils.TargetShopkeeperFilter;
+import com.nisovin.shopkeepers.shopkeeper.registry.ShopkeeperCompletionIndex;
 
 /**
  * Provides suggestions for the UUIDs of existing shopkeepers.
@@ -67,7 +67,8 @@ public class ShopkeeperUUIDArgument extends ObjectUUIDArgument {
 	 * @param filter
 	 *            only suggestions for shopkeepers accepted by this filter are included, not
 	 *            <code>null</code>
-	 * @return the shopkeeper uuid completion suggestions
+	 * @return the shopkeeper uuid completion suggestions, at most
+	 *         {@link #MAX_SUGGESTIONS}
 	 */
 	public static Iterable<? extends UUID> getDefaultCompletionSuggestions(
 			CommandInput input,
@@ -84,27 +85,30 @@ public class ShopkeeperUUIDArgument extends ObjectUUIDArgument {
 				TargetShopkeeperFilter.ANY
 		);
 
+		List<UUID> suggestions = new ArrayList<>();
+		for (Shopkeeper shopkeeper : targetedShopkeepers) {
+			if (suggestions.size() >= MAX_SUGGESTIONS) break;
+			if (!filter.test(input, context, shopkeeper)) continue;
+			UUID uniqueId = shopkeeper.getUniqueId();
+			// Assumption: UUID#toString is already lowercase (normalized)
+			if (uniqueId.toString().startsWith(normalizedUUIDPrefix)) {
+				suggestions.add(uniqueId);
+			}
+		}
+
 		// Only provide other suggestions if there is a minimum length input:
-		Stream<Shopkeeper> shopkeepersStream;
 		if (uuidPrefix.length() >= minimumCompletionInput) {
-			// TODO Improve by using a TreeMap for the prefix matching?
-			shopkeepersStream = Stream.concat(
-					targetedShopkeepers.stream(),
-					ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers().stream()
-							.filter(shopkeeper -> !targetedShopkeepers.contains(shopkeeper))
-			);
-		} else {
-			// TODO CheckerFramework complains when using a wildcard Stream here.
-			shopkeepersStream = Unsafe.castNonNull(targetedShopkeepers.stream());
+			ShopkeeperCompletionIndex completionIndex = SKShopkeepersPlugin.getInstance()
+					.getShopkeeperRegistry()
+					.getCompletionIndex();
+			completionIndex.getShopkeepersByUniqueIdPrefix(
+					normalizedUUIDPrefix,
+					shopkeeper -> !targetedShopkeepers.contains(shopkeeper)
+							&& filter.test(input, context, shopkeeper),
+					MAX_SUGGESTIONS - suggestions.size()
+			).forEach(shopkeeper -> suggestions.add(shopkeeper.getUniqueId()));
 		}
-
-		return shopkeepersStream
-				.filter(shopkeeper -> filter.test(input, context, shopkeeper))
-				.map(Shopkeeper::getUniqueId)
-				.filter(uuid -> {
-					// Assumption: UUID#toString is already lowercase (normalized)
-					return uuid.toString().startsWith(normalizedUUIDPrefix);
-				})::iterator;
+		return suggestions;
 	}
 
 	@Override
@@ -28,12 +28,19 @@ import com.nisovin.shopkeepers.commands.lib.arguments.FirstOfArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.LiteralArgument;
 import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.itemconversion.ConvertedItemCache;
+import com.nisovin.shopkeepers.itemconversion.ItemConversions;
+import com.nisovin.shopkeepers.playershops.PlayerShopsLimit;
+import com.nisovin.shopkeepers.playershops.ShopOwnerNameUpdates;
 import com.nisovin.shopkeepers.shopkeeper.activation.ShopkeeperChunkActivator;
+import com.nisovin.shopkeepers.shopkeeper.offers.OfferItems;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawner;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
+import com.nisovin.shopkeepers.shopobjects.living.PacketEntityTracker;
 import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
 import com.nisovin.shopkeepers.util.timer.Timings;
 
@@ -104,6 +111,32 @@ class CommandCheck extends Command {
 		sender.sendMessage("  Pending shopkeeper spawns | max: " + spawnQueueStatistics.getPendingCount()
 				+ " | " + spawnQueueStatistics.getMaxPendingCount());
 
+		ShopOwnerNameUpdates shopOwnerNameUpdates = plugin.getPlayerShops()
+				.getShopOwnerNameUpdates();
+		TaskQueueStatistics ownerNameUpdateQueueStatistics = shopOwnerNameUpdates
+				.getUpdateQueueStatistics();
+		sender.sendMessage("  Pending owner name updates | max: "
+				+ ownerNameUpdateQueueStatistics.getPendingCount()
+				+ " | " + ownerNameUpdateQueueStatistics.getMaxPendingCount());
+		sender.sendMessage("  Known shop owners: " + shopOwnerNameUpdates.getKnownShopOwnerCount());
+
+		PlayerShopsLimit playerShopsLimit = plugin.getPlayerShops().getPlayerShopsLimit();
+		sender.sendMessage("  Max shops limit cache (size | hits | misses): "
+				+ playerShopsLimit.getCacheSize() + " | " + playerShopsLimit.getCacheHits()
+				+ " | " + playerShopsLimit.getCacheMisses());
+
+		// Each reused item is an offer item that did not require its own item copy:
+		ItemStackInterner offerItemInterner = OfferItems.getInterner();
+		sender.sendMessage("  Interned offer items (size | reused | copied): "
+				+ offerItemInterner.getSize() + " | " + offerItemInterner.getHits()
+				+ " | " + offerItemInterner.getMisses());
+
+		ConvertedItemCache convertedItemCache = ItemConversions.getConvertedItemCache();
+		sender.sendMessage("  Item conversion cache (size | hits | conversions | changed): "
+				+ convertedItemCache.getSize() + " | " + convertedItemCache.getHits()
+				+ " | " + convertedItemCache.getConversions()
+				+ " | " + convertedItemCache.getChangedItems());
+
 		Timings chunkActivationTimings = chunkActivator.getChunkActivationTimings();
 		double avgChunkActivationTimings = chunkActivationTimings.getAverageTimeMillis();
 		double maxChunkActivationTimings = chunkActivationTimings.getMaxTimeMillis();
@@ -141,6 +174,19 @@ class CommandCheck extends Command {
 				+ TextUtils.format(avgAITimings) + " ms"
 				+ " | " + TextUtils.format(maxAITiming) + " ms");
 
+		PacketEntityTracker packetEntityTracker = plugin.getLivingShops().getPacketEntityTracker();
+		if (packetEntityTracker.isEnabled()) {
+			double avgPacketEntityTimings = packetEntityTracker.getTotalTimings().getAverageTimeMillis();
+			double maxPacketEntityTiming = packetEntityTracker.getTotalTimings().getMaxTimeMillis();
+			sender.sendMessage("  Packet entities | viewing players: "
+					+ packetEntityTracker.getEntityCount()
+					+ " | " + packetEntityTracker.getViewerCount());
+			sender.sendMessage("    Packet entity timings (per " + Settings.mobBehaviorTickPeriod
+					+ " ticks) (avg | max): "
+					+ TextUtils.format(avgPacketEntityTimings) + " ms"
+					+ " | " + TextUtils.format(maxPacketEntityTiming) + " ms");
+		}
+
 		for (World world : Bukkit.getWorlds()) {
 			String worldName = world.getName();
 			Chunk[] worldLoadedChunks = world.getLoadedChunks();
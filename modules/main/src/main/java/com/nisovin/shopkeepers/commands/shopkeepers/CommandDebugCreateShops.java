@@ -1,5 +1,8 @@
 package com.nisovin.shopkeepers.commands.shopkeepers;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -13,6 +16,7 @@ import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.DefaultShopTypes;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopType;
@@ -90,19 +94,16 @@ class CommandDebugCreateShops extends PlayerCommand {
 				DefaultShopObjectTypes.LIVING().get(EntityType.VILLAGER)
 		);
 
-		int created = 0;
+		List<ShopCreationData> creationData = new ArrayList<>(shopCount);
 		Location currrentSpawnLocation = player.getLocation();
 		for (int i = 0; i < shopCount; i++) {
-			Shopkeeper shopkeeper = plugin.handleShopkeeperCreation(AdminShopCreationData.create(
+			creationData.add(AdminShopCreationData.create(
 					player,
 					shopType,
 					shopObjectType,
 					currrentSpawnLocation.clone(),
 					null
 			));
-			if (shopkeeper != null) {
-				created++;
-			}
 
 			currrentSpawnLocation.add(
 					stepSize * blockFace.getModX(),
@@ -110,8 +111,12 @@ class CommandDebugCreateShops extends PlayerCommand {
 					stepSize * blockFace.getModZ()
 			);
 		}
-		player.sendMessage(ChatColor.GREEN + "Done! Created " + ChatColor.YELLOW + created
-				+ ChatColor.GREEN + " shopkeepers!");
+
+		// The shopkeepers are created in batches over the course of several ticks:
+		plugin.getShopkeeperRegistry().createShopkeepers(creationData).thenAccept(created -> {
+			player.sendMessage(ChatColor.GREEN + "Done! Created " + ChatColor.YELLOW
+					+ created.size() + ChatColor.GREEN + " shopkeepers!");
+		});
 	}
 
 	private void spawnEquipmentTest(Player player) {
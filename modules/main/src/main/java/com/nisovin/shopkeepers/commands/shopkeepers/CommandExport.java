@@ -0,0 +1,78 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.util.concurrent.CancellationException;
+
+import org.bukkit.command.CommandSender;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.EnumArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.export.ExportFormat;
+import com.nisovin.shopkeepers.export.ShopkeeperDataExport;
+import com.nisovin.shopkeepers.export.ShopkeeperDataExporter;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.util.bukkit.PluginUtils;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+class CommandExport extends Command {
+
+	private static final String ARGUMENT_FORMAT = "format";
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandExport(SKShopkeepersPlugin plugin) {
+		super("export");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.EXPORT_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionExport);
+
+		// Arguments:
+		this.addArgument(new EnumArgument<>(ARGUMENT_FORMAT, ExportFormat.class)
+				.orDefaultValue(ExportFormat.NDJSON));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		ExportFormat format = context.get(ARGUMENT_FORMAT);
+
+		ShopkeeperDataExporter exporter = plugin.getShopkeeperDataExporter();
+		if (exporter.getActiveExport() != null) {
+			TextUtils.sendMessage(sender, Messages.exportAlreadyRunning);
+			return;
+		}
+
+		int shopsCount = plugin.getShopkeeperRegistry().getAllShopkeepers().size();
+		ShopkeeperDataExport export = exporter.startExport(format);
+		String fileName = PluginUtils.relativize(plugin, export.getFile()).toString();
+		TextUtils.sendMessage(sender, Messages.exportStarted,
+				"count", shopsCount,
+				"file", fileName
+		);
+
+		// Invoked on the main thread:
+		export.getFuture().whenComplete((exportedShopkeepers, error) -> {
+			if (error instanceof CancellationException) return; // Plugin is being disabled
+			if (error != null) {
+				Log.severe("Export of the shopkeeper data failed!", error);
+				TextUtils.sendMessage(sender, Messages.exportFailed);
+				return;
+			}
+
+			Log.info("Exported " + exportedShopkeepers + " shopkeepers to " + fileName);
+			TextUtils.sendMessage(sender, Messages.exportCompleted,
+					"count", exportedShopkeepers,
+					"file", fileName
+			);
+		});
+	}
+}
@@ -9,6 +9,7 @@ import java.util.UUID;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.PlayerDeleteShopkeeperEvent;
@@ -46,17 +47,11 @@ class CommandRemoveAll extends Command {
 	private static final String ARGUMENT_ALL_ADMIN_SHOPS = "all-admin";
 	private static final String ARGUMENT_ALL_ADMIN_SHOPS_DISPLAY_NAME = "admin";
 
-	private final ShopkeepersPlugin plugin;
 	private final ShopkeeperRegistry shopkeeperRegistry;
 	private final Confirmations confirmations;
 
-	CommandRemoveAll(
-			ShopkeepersPlugin plugin,
-			ShopkeeperRegistry shopkeeperRegistry,
-			Confirmations confirmations
-	) {
+	CommandRemoveAll(ShopkeeperRegistry shopkeeperRegistry, Confirmations confirmations) {
 		super("removeAll", Arrays.asList("deleteAll"));
-		this.plugin = plugin;
 		this.shopkeeperRegistry = shopkeeperRegistry;
 		this.confirmations = confirmations;
 
@@ -217,7 +212,7 @@ class CommandRemoveAll extends Command {
 			// Remove shops:
 			int invalidShops = 0;
 			int cancelledDeletions = 0;
-			int actualShopCount = 0;
+			List<Shopkeeper> shopsToDelete = new ArrayList<>(affectedShops.size());
 			for (Shopkeeper shopkeeper : affectedShops) {
 				// Skip the shopkeeper if it no longer exists:
 				if (!shopkeeper.isValid()) {
@@ -237,44 +232,30 @@ class CommandRemoveAll extends Command {
 					}
 				}
 
-				shopkeeper.delete(senderPlayer);
-				actualShopCount += 1;
+				shopsToDelete.add(shopkeeper);
 			}
 
-			// Trigger save:
-			plugin.getShopkeeperStorage().save();
-
-			// Print the result messages:
-			if (invalidShops > 0) {
-				TextUtils.sendMessage(sender, Messages.shopsAlreadyRemoved,
-						"shopsCount", invalidShops
-				);
-			}
-			if (cancelledDeletions > 0) {
-				TextUtils.sendMessage(sender, Messages.shopRemovalsCancelled,
-						"shopsCount", cancelledDeletions
-				);
-			}
-			if (allAdmin) {
-				// Removed all admin shops:
-				TextUtils.sendMessage(sender, Messages.adminShopsRemoved,
-						"shopsCount", actualShopCount
-				);
-			} else if (allPlayers) {
-				// Removed all player shops:
-				TextUtils.sendMessage(sender, Messages.playerShopsRemoved,
-						"shopsCount", actualShopCount
-				);
-			} else {
-				// Removed all shops of the specified player:
-				TextUtils.sendMessage(sender, Messages.shopsOfPlayerRemoved,
-						"player", TextUtils.getPlayerText(
-								finalTargetPlayerName,
-								finalTargetPlayerUUID
-						),
-						"shopsCount", actualShopCount
+			// The shops are deleted over the course of several ticks. This also triggers a save
+			// once all shops have been deleted.
+			int finalInvalidShops = invalidShops;
+			int finalCancelledDeletions = cancelledDeletions;
+			shopkeeperRegistry.deleteShopkeepers(
+					shopsToDelete,
+					senderPlayer
+			).thenAccept(deletedCount -> {
+				// Shops that were removed while the deletion was in progress:
+				int invalidShopsTotal = finalInvalidShops + (shopsToDelete.size() - deletedCount);
+				this.sendResultMessages(
+						sender,
+						allAdmin,
+						allPlayers,
+						finalTargetPlayerUUID,
+						finalTargetPlayerName,
+						invalidShopsTotal,
+						finalCancelledDeletions,
+						deletedCount
 				);
-			}
+			});
 		});
 
 		// Inform the sender about required confirmation:
@@ -305,4 +286,46 @@ class CommandRemoveAll extends Command {
 		// TODO Add clickable command suggestion?
 		TextUtils.sendMessage(sender, Messages.confirmationRequired);
 	}
+
+	private void sendResultMessages(
+			CommandSender sender,
+			boolean allAdmin,
+			boolean allPlayers,
+			@Nullable UUID targetPlayerUUID,
+			@Nullable String targetPlayerName,
+			int invalidShops,
+			int cancelledDeletions,
+			int actualShopCount
+	) {
+		if (invalidShops > 0) {
+			TextUtils.sendMessage(sender, Messages.shopsAlreadyRemoved,
+					"shopsCount", invalidShops
+			);
+		}
+		if (cancelledDeletions > 0) {
+			TextUtils.sendMessage(sender, Messages.shopRemovalsCancelled,
+					"shopsCount", cancelledDeletions
+			);
+		}
+		if (allAdmin) {
+			// Removed all admin shops:
+			TextUtils.sendMessage(sender, Messages.adminShopsRemoved,
+					"shopsCount", actualShopCount
+			);
+		} else if (allPlayers) {
+			// Removed all player shops:
+			TextUtils.sendMessage(sender, Messages.playerShopsRemoved,
+					"shopsCount", actualShopCount
+			);
+		} else {
+			// Removed all shops of the specified player:
+			TextUtils.sendMessage(sender, Messages.shopsOfPlayerRemoved,
+					"player", TextUtils.getPlayerText(
+							targetPlayerName,
+							targetPlayerUUID
+					),
+					"shopsCount", actualShopCount
+			);
+		}
+	}
 }
@@ -30,7 +30,6 @@ import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
-import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
 import com.nisovin.shopkeepers.shopobjects.living.types.VillagerShop;
 import com.nisovin.shopkeepers.util.bukkit.MerchantUtils;
 import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
@@ -39,6 +38,13 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 class CommandReplaceAllWithVanillaVillagers extends Command {
 
+	// Counts the shopkeepers that were replaced with vanilla villagers.
+	private static class ReplacementResult {
+
+		private int replacedAdminShopsCount = 0;
+		private int replacedPlayerShopsCount = 0;
+	}
+
 	private final SKShopkeepersPlugin plugin;
 	private final SKShopkeeperRegistry shopkeeperRegistry;
 	private final Confirmations confirmations;
@@ -101,9 +107,8 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 		}
 
 		int invalidShops = 0;
-		int deletedAdminShopsCount = 0;
-		int deletedPlayerShopsCount = 0;
 		int skippedShopsCount = 0;
+		List<AbstractShopkeeper> shopkeepersToReplace = new ArrayList<>(shopkeepers.size());
 		for (AbstractShopkeeper shopkeeper : shopkeepers) {
 			// Skip the shopkeeper if it no longer exists:
 			if (!shopkeeper.isValid()) {
@@ -111,63 +116,88 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 				continue;
 			}
 
-			// Note: No need to call a PlayerDeleteShopkeeperEvent here, or pass the sender player
-			// to shopkeeper.delete(): This action is run by an admin with the intention to
-			// delete/replace all shopkeepers. There is no need to perform additional deletion logic
-			// (e.g. returning shop creation items, etc.).
-
-			// Try to spawn a corresponding vanilla villager:
 			// A villager is spawned regardless of the object type (sign, NPC, other mob type,
-			// etc.).
-			if (!this.spawnVanillaVillager(sender, shopkeeper)) {
+			// etc.). But shopkeepers without a location are skipped.
+			if (!this.canReplace(sender, shopkeeper)) {
 				skippedShopsCount++;
 				continue;
 			}
 
-			// Delete the shopkeeper:
-			shopkeeper.delete();
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				deletedPlayerShopsCount++;
-			} else {
-				deletedAdminShopsCount++;
-			}
+			shopkeepersToReplace.add(shopkeeper);
 		}
 
-		// Trigger save:
-		plugin.getShopkeeperStorage().save();
+		// Note: No need to call a PlayerDeleteShopkeeperEvent here, or pass the sender player to
+		// the deletion: This action is run by an admin with the intention to delete/replace all
+		// shopkeepers. There is no need to perform additional deletion logic (e.g. returning shop
+		// creation items, etc.).
+
+		// Delete the shopkeepers and replace them with vanilla villagers:
+		// The shopkeepers are deleted in batches over the course of several ticks. This also
+		// triggers a save once all shopkeepers have been deleted. The villagers are only spawned
+		// for the shopkeepers that are actually deleted by this operation, once their shop objects
+		// have been despawned: Shopkeepers that are respawned before their deletion are therefore
+		// not duplicated, and shopkeepers that are removed by someone else in the meantime are not
+		// replaced.
+		ReplacementResult result = new ReplacementResult();
+		int finalInvalidShops = invalidShops;
+		int finalSkippedShopsCount = skippedShopsCount;
+		shopkeeperRegistry.deleteShopkeepers(shopkeepersToReplace, null, shopkeeper -> {
+			if (!this.spawnVanillaVillager(sender, shopkeeper)) return;
 
-		// Print the result messages:
-		if (invalidShops > 0) {
-			TextUtils.sendMessage(sender, Messages.shopsAlreadyRemoved,
-					"shopsCount", invalidShops
+			if (shopkeeper instanceof PlayerShopkeeper) {
+				result.replacedPlayerShopsCount++;
+			} else {
+				result.replacedAdminShopsCount++;
+			}
+		}).thenAccept(deletedCount -> {
+			// Also includes the shopkeepers that have been removed during the deletion:
+			int removedShops = finalInvalidShops + (shopkeepersToReplace.size() - deletedCount);
+
+			// Print the result messages:
+			if (removedShops > 0) {
+				TextUtils.sendMessage(sender, Messages.shopsAlreadyRemoved,
+						"shopsCount", removedShops
+				);
+			}
+			TextUtils.sendMessage(sender, Messages.allShopsReplacedWithVanillaVillagers,
+					"adminShopsCount", result.replacedAdminShopsCount,
+					"playerShopsCount", result.replacedPlayerShopsCount,
+					"skippedShopsCount", finalSkippedShopsCount
 			);
+		});
+	}
+
+	private void sendSkipMessage(CommandSender sender, String message) {
+		if (!(sender instanceof ConsoleCommandSender)) {
+			Log.debug(message);
 		}
-		TextUtils.sendMessage(sender, Messages.allShopsReplacedWithVanillaVillagers,
-				"adminShopsCount", deletedAdminShopsCount,
-				"playerShopsCount", deletedPlayerShopsCount,
-				"skippedShopsCount", skippedShopsCount
-		);
+		TextUtils.sendMessage(sender, message);
 	}
 
-	private boolean spawnVanillaVillager(CommandSender sender, AbstractShopkeeper shopkeeper) {
+	private boolean canReplace(CommandSender sender, AbstractShopkeeper shopkeeper) {
 		assert shopkeeper.isValid();
 		if (shopkeeper.isVirtual()) {
-			String message = shopkeeper.getLogPrefix() + "Skipping virtual shopkeeper.";
-			if (!(sender instanceof ConsoleCommandSender)) {
-				Log.debug(message);
-			}
-			TextUtils.sendMessage(sender, message);
+			this.sendSkipMessage(sender, shopkeeper.getLogPrefix() + "Skipping virtual shopkeeper.");
+			return false;
+		}
+
+		if (shopkeeper.getLocation() == null) {
+			this.sendSkipMessage(sender, shopkeeper.getLogPrefix()
+					+ "Skipping shopkeeper without location."
+					+ " Is world '" + shopkeeper.getWorldName() + "' loaded?");
 			return false;
 		}
+		return true;
+	}
 
+	// The shopkeeper has already been deleted at this point.
+	private boolean spawnVanillaVillager(CommandSender sender, AbstractShopkeeper shopkeeper) {
+		assert !shopkeeper.isVirtual();
 		Location spawnLocation = shopkeeper.getLocation();
 		if (spawnLocation == null) {
-			String message = shopkeeper.getLogPrefix() + "Skipping shopkeeper without location."
-					+ " Is world '" + shopkeeper.getWorldName() + "' loaded?";
-			if (!(sender instanceof ConsoleCommandSender)) {
-				Log.debug(message);
-			}
-			TextUtils.sendMessage(sender, message);
+			this.sendSkipMessage(sender, shopkeeper.getLogPrefix()
+					+ "Deleted shopkeeper, but could not spawn the corresponding vanilla villager."
+					+ " Is world '" + shopkeeper.getWorldName() + "' loaded?");
 			return false;
 		}
 
@@ -175,16 +205,11 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 		// TODO Adjust similar to villager shopkeepers.
 		spawnLocation.add(0.5D, 0.0D, 0.5D);
 
-		AbstractShopObject shopObject = shopkeeper.getShopObject();
-		boolean isShopkeeperSpawned = shopObject.isSpawned();
-
 		Class<? extends Entity> entityClass = Unsafe.assertNonNull(EntityType.VILLAGER.getEntityClass());
 		World world = Unsafe.assertNonNull(spawnLocation.getWorld());
 		try {
-			// Despawn the shopkeeper first to not interfere with the spawning of the replacement
-			// villager:
-			shopObject.despawn();
-
+			// The shop object of the deleted shopkeeper has already been despawned, so it does not
+			// interfere with the spawning of the replacement villager.
 			world.spawn(spawnLocation, entityClass, entity -> {
 				assert entity != null;
 				// Note: This callback is run after the entity has been prepared (this includes the
@@ -200,17 +225,11 @@ class CommandReplaceAllWithVanillaVillagers extends Command {
 			});
 		} catch (Exception e) {
 			String message = shopkeeper.getLogPrefix()
-					+ "Failed to spawn corresponding vanilla villager.";
+					+ "Deleted shopkeeper, but failed to spawn the corresponding vanilla villager.";
 			if (!(sender instanceof ConsoleCommandSender)) {
 				Log.debug(e, () -> message);
 			}
 			TextUtils.sendMessage(sender, message);
-
-			// Try to respawn the shopkeeper:
-			if (isShopkeeperSpawned) {
-				shopObject.spawn();
-			}
-
 			return false;
 		}
 
@@ -0,0 +1,124 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.command.CommandSender;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.EnumArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PositiveIntegerArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics.Entry;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics.Grouping;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.ConversionUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+class CommandTradeStats extends Command {
+
+	private static final String ARGUMENT_GROUPING = "grouping";
+	private static final String ARGUMENT_DAYS = "days";
+	private static final String ARGUMENT_PAGE = "page";
+
+	private static final int ENTRIES_PER_PAGE = 10;
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandTradeStats(SKShopkeepersPlugin plugin) {
+		super("tradeStats");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TRADE_STATS_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionTradeStats);
+
+		// Arguments:
+		this.addArgument(new EnumArgument<>(ARGUMENT_GROUPING, Grouping.class)
+				.orDefaultValue(Grouping.SHOP));
+		this.addArgument(new PositiveIntegerArgument(ARGUMENT_DAYS).orDefaultValue(7));
+		this.addArgument(new PositiveIntegerArgument(ARGUMENT_PAGE).orDefaultValue(1));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		Grouping grouping = context.get(ARGUMENT_GROUPING);
+		int days = context.get(ARGUMENT_DAYS);
+		int page = context.get(ARGUMENT_PAGE);
+
+		SQLiteTradeStatistics statistics = plugin.getTradeLoggers().getTradeStatistics();
+		if (statistics == null) {
+			TextUtils.sendMessage(sender, Messages.tradeStatsUnavailable);
+			return;
+		}
+
+		String groupingName = grouping.name().toLowerCase();
+		// Invoked on the main thread:
+		statistics.query(grouping, days, page, ENTRIES_PER_PAGE).whenComplete((result, error) -> {
+			if (error != null) {
+				Log.severe("Failed to query the trade statistics!", error);
+				TextUtils.sendMessage(sender, Messages.tradeStatsFailed);
+				return;
+			}
+
+			TextUtils.sendMessage(sender, Messages.tradeStatsHeader,
+					"grouping", groupingName,
+					"days", days,
+					"page", page
+			);
+
+			List<? extends Entry> entries = result.getEntries();
+			if (entries.isEmpty()) {
+				TextUtils.sendMessage(sender, Messages.tradeStatsNoEntries);
+			}
+
+			int rank = (page - 1) * ENTRIES_PER_PAGE;
+			for (Entry entry : entries) {
+				rank++;
+				String key = entry.getKey();
+				if (grouping == Grouping.SHOP) {
+					key = this.getShopDisplayName(key);
+				}
+				TextUtils.sendMessage(sender, Messages.tradeStatsEntry,
+						"rank", rank,
+						"key", key,
+						"trades", entry.getTradeCount(),
+						"items", entry.getResultItemCount()
+				);
+			}
+
+			if (result.hasNextPage()) {
+				TextUtils.sendMessage(sender, Messages.tradeStatsNextPage,
+						"grouping", groupingName,
+						"days", days,
+						"nextPage", page + 1
+				);
+			}
+		});
+	}
+
+	// Falls back to the shop's unique id if the shop no longer exists.
+	private String getShopDisplayName(String shopUniqueId) {
+		UUID uniqueId = ConversionUtils.parseUUID(shopUniqueId);
+		if (uniqueId == null) return shopUniqueId;
+
+		@Nullable Shopkeeper shopkeeper = plugin.getShopkeeperRegistry().getShopkeeperByUniqueId(
+				uniqueId
+		);
+		if (shopkeeper == null) return shopUniqueId;
+
+		String shopName = shopkeeper.getName(); // Can be empty
+		return shopkeeper.getId() + (shopName.isEmpty() ? "" : " " + shopName);
+	}
+}
@@ -77,7 +77,7 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandNotify());
 		childCommands.register(new CommandList(shopkeeperRegistry));
 		childCommands.register(new CommandRemove(confirmations));
-		childCommands.register(new CommandRemoveAll(plugin, shopkeeperRegistry, confirmations));
+		childCommands.register(new CommandRemoveAll(shopkeeperRegistry, confirmations));
 		childCommands.register(new CommandGive());
 		childCommands.register(new CommandGiveCurrency());
 		childCommands.register(new CommandSetCurrency());
@@ -91,6 +91,8 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandSetTradedCommand());
 		childCommands.register(new CommandSetForHire());
 		childCommands.register(new CommandSnapshot(confirmations));
+		childCommands.register(new CommandExport(plugin));
+		childCommands.register(new CommandTradeStats(plugin));
 		childCommands.register(new CommandEditVillager());
 		// Hidden commands:
 		childCommands.register(new CommandConfirm(confirmations));
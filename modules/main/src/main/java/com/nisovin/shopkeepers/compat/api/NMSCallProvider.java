@@ -1,5 +1,8 @@
 package com.nisovin.shopkeepers.compat.api;
 
+import java.util.Collection;
+
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -95,6 +98,58 @@ public interface NMSCallProvider {
 	// (https://github.com/SpigotMC/BungeeCord/issues/3688).
 	public @Nullable String getItemSNBT(@ReadOnly ItemStack itemStack);
 
+	// Checks if the item stack's Bukkit persistent data contains an entry with the given key,
+	// without copying the item's metadata. Unlike PersistentDataContainer#has(key, type), this does
+	// not validate the data type of the entry. Returns null if not supported for the given item
+	// stack.
+	public default @Nullable Boolean hasPersistentDataKey(
+			@ReadOnly ItemStack itemStack,
+			NamespacedKey key
+	) {
+		return null;
+	}
+
+	// Computes a hash code of the item stack's type and item data that is consistent with
+	// ItemStack#isSimilar, without copying the item's metadata. Returns null if not supported for
+	// the given item stack.
+	public default @Nullable Integer getItemDataHash(@ReadOnly ItemStack itemStack) {
+		return null;
+	}
+
+	// PACKET ENTITIES
+
+	// Whether entities can be shown to players as client-side only entities via the following
+	// packet-based methods. These entities are expected to not have been added to any world (e.g.
+	// created via World#createEntity).
+	public default boolean supportsPacketEntities() {
+		return false;
+	}
+
+	// Sends the spawn, entity data, and equipment packets of the entity to the player.
+	public default void showPacketEntity(Player player, Entity entity) {
+	}
+
+	public default void hidePacketEntity(Player player, Entity entity) {
+	}
+
+	// Sends any dirty entity data to the given players and clears the entity's dirty state. If
+	// fullUpdate is true, this sends all non-default entity data and the entity's equipment
+	// instead.
+	public default void updatePacketEntity(
+			Collection<? extends Player> players,
+			Entity entity,
+			boolean fullUpdate
+	) {
+	}
+
+	public default void setPacketEntityHeadRotation(
+			Collection<? extends Player> players,
+			Entity entity,
+			float yaw,
+			float pitch
+	) {
+	}
+
 	// MC 1.21+ TODO Can be removed once we only support Bukkit 1.21+
 
 	public boolean isDestroyingBlocks(EntityExplodeEvent event);
@@ -40,6 +40,7 @@ import com.nisovin.shopkeepers.playershops.MaxShopsPermission;
 import com.nisovin.shopkeepers.playershops.PlayerShopsLimit;
 import com.nisovin.shopkeepers.shopcreation.ShopCreationItem;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.shopkeeper.TradingRecipesCache;
 import com.nisovin.shopkeepers.shopobjects.living.types.MagmaCubeShop;
 import com.nisovin.shopkeepers.shopobjects.living.types.SlimeShop;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
@@ -73,6 +74,8 @@ public class Settings extends Config {
 	 * Shopkeeper Data
 	 */
 	public static boolean saveInstantly = true;
+	public static boolean compressSaveFile = false;
+	public static int saveFileCompressionLevel = 6;
 
 	public static boolean convertPlayerItems = false;
 	public static boolean convertAllPlayerItems = true;
@@ -224,6 +227,9 @@ public class Settings extends Config {
 	// period of 3 (maybe due to some interpolation artifact by the client).
 	public static int mobBehaviorTickPeriod = 3;
 
+	public static boolean mobShopsAsPacketEntities = false;
+	public static int packetEntityViewDistance = 48;
+
 	public static boolean shulkerPeekIfPlayerNearby = true;
 	public static float shulkerPeekHeight = 0.3F;
 
@@ -372,6 +378,8 @@ public class Settings extends Config {
 
 	public static boolean logItemMetadata = false;
 
+	public static boolean tradeLogStatistics = false;
+
 	/*
 	 * Currencies
 	 */
@@ -742,6 +750,9 @@ public class Settings extends Config {
 		Currencies.load();
 		DerivedSettings.setup();
 
+		// The trading recipes might depend on the settings (e.g. the currency items):
+		TradingRecipesCache.invalidateAll();
+
 		// Refresh async settings cache:
 		AsyncSettings.refresh();
 	}
@@ -842,6 +853,11 @@ public class Settings extends Config {
 
 	@Override
 	protected void validateSettings() {
+		if (saveFileCompressionLevel < 0 || saveFileCompressionLevel > 9) {
+			Log.warning(this.getLogPrefix()
+					+ "'save-file-compression-level' must be between 0 and 9.");
+			saveFileCompressionLevel = MathUtils.trim(saveFileCompressionLevel, 0, 9);
+		}
 		if (maxContainerDistance > 50) {
 			Log.warning(this.getLogPrefix() + "'max-container-distance' can be at most 50.");
 			maxContainerDistance = 50;
@@ -854,6 +870,10 @@ public class Settings extends Config {
 			Log.warning(this.getLogPrefix() + "'mob-behavior-tick-period' has to be positive.");
 			mobBehaviorTickPeriod = 1;
 		}
+		if (packetEntityViewDistance < 8 || packetEntityViewDistance > 128) {
+			Log.warning(this.getLogPrefix() + "'packet-entity-view-distance' must be between 8 and 128.");
+			packetEntityViewDistance = MathUtils.trim(packetEntityViewDistance, 8, 128);
+		}
 		if (shulkerPeekHeight < 0 || shulkerPeekHeight > 1) {
 			Log.warning(this.getLogPrefix() + "'shulker-peek-height' must be between 0.0 and 1.0.");
 			shulkerPeekHeight = (shulkerPeekHeight < 0 ? 0 : 1);
@@ -0,0 +1,215 @@
+package com.nisovin.shopkeepers.container;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * An immutable summary of the items inside a shop container.
+ * <p>
+ * Similar items are combined into a single entry with their total amount. This allows the stock of
+ * the container to be checked without copying and searching through all container contents again.
+ * <p>
+ * The entries are grouped by their item type, and items are compared via
+ * {@link ItemStack#isSimilar(ItemStack)}. We do not rely on {@link ItemStack#hashCode()} for this,
+ * because the hash codes of similar items do not necessarily match across the different
+ * {@link ItemStack} implementations (e.g. for Bukkit item stacks and CraftItemStacks).
+ * <p>
+ * Summaries do not implement {@link Object#equals(Object)}: A new summary is created whenever the
+ * container contents might have changed. The identity of the summary can therefore be used to
+ * detect changes of the container contents.
+ */
+public final class ContainerStockSummary {
+
+	/**
+	 * An empty summary, e.g. for containers that could not be found.
+	 */
+	public static final ContainerStockSummary EMPTY = new ContainerStockSummary(
+			Collections.emptyMap(),
+			Collections.emptyMap()
+	);
+
+	/**
+	 * Creates a summary of the given container contents.
+	 *
+	 * @param contents
+	 *            the container contents, not <code>null</code>, not modified
+	 * @return the summary, not <code>null</code>
+	 */
+	public static ContainerStockSummary of(@ReadOnly @Nullable ItemStack @ReadOnly [] contents) {
+		Validate.notNull(contents, "contents is null");
+		// Linked Map: Preserves the order of the encountered items.
+		// The keys are copies with an amount of 1.
+		Map<ItemStack, Integer> amounts = new LinkedHashMap<>();
+		Map<Material, List<ItemStack>> itemsByType = new HashMap<>();
+		for (ItemStack itemStack : contents) {
+			if (itemStack == null) continue;
+			if (ItemUtils.isEmpty(itemStack)) continue;
+			int amount = itemStack.getAmount();
+			List<ItemStack> items = itemsByType.computeIfAbsent(
+					itemStack.getType(),
+					type -> new ArrayList<>(1)
+			);
+			assert items != null;
+			ItemStack key = findSimilar(items, itemStack);
+			if (key == null) {
+				key = ItemUtils.copySingleItem(itemStack);
+				items.add(key);
+			}
+			amounts.merge(key, amount, Integer::sum);
+		}
+		if (amounts.isEmpty()) return EMPTY;
+		return new ContainerStockSummary(amounts, itemsByType);
+	}
+
+	private static @Nullable ItemStack findSimilar(
+			List<? extends ItemStack> items,
+			@ReadOnly ItemStack itemStack
+	) {
+		for (ItemStack item : items) {
+			if (item.isSimilar(itemStack)) return item;
+		}
+		return null;
+	}
+
+	private final Map<? extends ItemStack, Integer> amounts;
+	private final Map<? extends ItemStack, Integer> amountsView;
+	// Item type -> distinct items of that type
+	private final Map<Material, ? extends List<? extends ItemStack>> itemsByType;
+
+	private ContainerStockSummary(
+			Map<? extends ItemStack, Integer> amounts,
+			Map<Material, ? extends List<? extends ItemStack>> itemsByType
+	) {
+		assert amounts != null && itemsByType != null;
+		this.amounts = amounts;
+		this.amountsView = Collections.unmodifiableMap(amounts);
+		this.itemsByType = itemsByType;
+	}
+
+	/**
+	 * Checks if the container is empty.
+	 *
+	 * @return <code>true</code> if the container is empty or could not be found
+	 */
+	public boolean isEmpty() {
+		return amounts.isEmpty();
+	}
+
+	/**
+	 * Gets the distinct items of the container, in the order in which they were first encountered.
+	 * <p>
+	 * Each item has an amount of <code>1</code>. The items must not be modified.
+	 *
+	 * @return an unmodifiable view on the items, not <code>null</code>
+	 */
+	public Collection<? extends @ReadOnly ItemStack> getItems() {
+		return amountsView.keySet();
+	}
+
+	/**
+	 * Gets the distinct items of the container, mapped to their total amounts.
+	 * <p>
+	 * Each item has an amount of <code>1</code>. The items must not be modified.
+	 *
+	 * @return an unmodifiable view on the item amounts, not <code>null</code>
+	 */
+	public Map<? extends @ReadOnly ItemStack, Integer> getAmounts() {
+		return amountsView;
+	}
+
+	/**
+	 * Gets the total amount of the items that are {@link ItemStack#isSimilar(ItemStack) similar}
+	 * to the given item.
+	 *
+	 * @param itemStack
+	 *            the item, not <code>null</code>
+	 * @return the total amount
+	 */
+	public int getAmount(@ReadOnly ItemStack itemStack) {
+		Validate.notNull(itemStack, "itemStack is null");
+		List<? extends ItemStack> items = itemsByType.get(itemStack.getType());
+		if (items == null) return 0;
+
+		int totalAmount = 0;
+		for (ItemStack item : items) {
+			if (item.isSimilar(itemStack)) {
+				totalAmount += Unsafe.assertNonNull(amounts.get(item));
+			}
+		}
+		return totalAmount;
+	}
+
+	/**
+	 * Gets the total amount of the items that are
+	 * {@link UnmodifiableItemStack#isSimilar(ItemStack) similar} to the given item.
+	 *
+	 * @param itemStack
+	 *            the item, not <code>null</code>
+	 * @return the total amount
+	 */
+	public int getAmount(UnmodifiableItemStack itemStack) {
+		Validate.notNull(itemStack, "itemStack is null");
+		return this.getAmount(ItemUtils.asItemStack(itemStack));
+	}
+
+	/**
+	 * Gets the total amount of the items that match the given {@link Predicate}.
+	 *
+	 * @param predicate
+	 *            the predicate, not <code>null</code>
+	 * @return the total amount
+	 */
+	public int getAmount(Predicate<@ReadOnly ? super ItemStack> predicate) {
+		Validate.notNull(predicate, "predicate is null");
+		int totalAmount = 0;
+		for (Map.Entry<? extends ItemStack, Integer> entry : amounts.entrySet()) {
+			if (predicate.test(entry.getKey())) {
+				totalAmount += entry.getValue();
+			}
+		}
+		return totalAmount;
+	}
+
+	/**
+	 * Checks if the container contains at least the specified amount of items that are
+	 * {@link UnmodifiableItemStack#isSimilar(ItemStack) similar} to the given item.
+	 *
+	 * @param itemStack
+	 *            the item, not <code>null</code>
+	 * @param amount
+	 *            the amount of items to check for
+	 * @return <code>true</code> if at least the specified amount of items was found
+	 */
+	public boolean containsAtLeast(UnmodifiableItemStack itemStack, int amount) {
+		if (amount <= 0) return true;
+		return this.getAmount(itemStack) >= amount;
+	}
+
+	/**
+	 * Checks if the container contains any items of the given type.
+	 *
+	 * @param type
+	 *            the item type, not <code>null</code>
+	 * @return <code>true</code> if an item of the given type was found
+	 */
+	public boolean contains(Material type) {
+		Validate.notNull(type, "type is null");
+		return itemsByType.containsKey(type);
+	}
+}
@@ -0,0 +1,94 @@
+package com.nisovin.shopkeepers.container.tracking;
+
+import java.util.List;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+
+import com.nisovin.shopkeepers.container.ShopContainers;
+
+/**
+ * Detects changes to the contents of shop containers.
+ */
+class ShopContainerChangeListener implements Listener {
+
+	private final ShopContainerTracker tracker;
+
+	ShopContainerChangeListener(ShopContainerTracker tracker) {
+		assert tracker != null;
+		this.tracker = tracker;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryClick(InventoryClickEvent event) {
+		// Clicks inside the player inventory can also move items into or out of the container (e.g.
+		// shift clicks), so we check the top inventory regardless of the clicked inventory:
+		this.onInventoryChanged(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryDrag(InventoryDragEvent event) {
+		this.onInventoryChanged(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryMoveItem(InventoryMoveItemEvent event) {
+		this.onInventoryChanged(event.getSource());
+		this.onInventoryChanged(event.getDestination());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockBreak(BlockBreakEvent event) {
+		this.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onEntityExplosion(EntityExplodeEvent event) {
+		this.onBlocksChanged(event.blockList());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockExplosion(BlockExplodeEvent event) {
+		this.onBlocksChanged(event.blockList());
+	}
+
+	private void onInventoryChanged(Inventory inventory) {
+		assert inventory != null;
+		// Quick check that skips player inventories and most other inventories:
+		InventoryType inventoryType = inventory.getType();
+		if (inventoryType != InventoryType.CHEST
+				&& inventoryType != InventoryType.BARREL
+				&& inventoryType != InventoryType.SHULKER_BOX) {
+			return;
+		}
+
+		// Note: We avoid calling Inventory#getHolder here for performance reasons. For block
+		// inventories this creates a snapshot of the block's BlockState.
+		Location inventoryLocation = inventory.getLocation(); // Can be null
+		if (inventoryLocation == null) return;
+		this.onBlockChanged(inventoryLocation.getBlock());
+	}
+
+	private void onBlocksChanged(List<? extends Block> blocks) {
+		for (Block block : blocks) {
+			this.onBlockChanged(block);
+		}
+	}
+
+	private void onBlockChanged(Block block) {
+		if (!ShopContainers.isSupportedContainer(block.getType())) return;
+		// Also checks for connected chests (double chests):
+		tracker.onContainerChanged(block);
+	}
+}
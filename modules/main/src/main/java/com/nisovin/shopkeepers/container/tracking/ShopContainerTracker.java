@@ -0,0 +1,203 @@
+package com.nisovin.shopkeepers.container.tracking;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.event.HandlerList;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
+import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Keeps track of changes to the contents of shop containers.
+ * <p>
+ * For each shop container, we keep a version counter that is incremented whenever the container
+ * contents might have changed, and a {@link ContainerStockSummary} that is lazily derived from the
+ * container contents and reused until the next change. The changes are detected via inventory
+ * clicks, drags, item movements (e.g. by hoppers), container breakage, and the trades of the
+ * shopkeepers themselves.
+ * <p>
+ * Since the inventory events are called before the container contents are actually changed, the
+ * version is incremented again during the next tick.
+ * <p>
+ * Other plugins can change the container contents without any events. To limit the effect of such
+ * undetected changes, the summaries also expire after a short time. This is acceptable, because the
+ * summaries are only used to determine the stock of shops: The trades themselves are always checked
+ * against the actual container contents.
+ */
+public class ShopContainerTracker {
+
+	private static final long MAX_SUMMARY_AGE_NANOS = TimeUnit.SECONDS.toNanos(5L);
+
+	private static final class ContainerState {
+
+		private int version = 0;
+		private @Nullable ContainerStockSummary summary = null;
+		private int summaryVersion = 0;
+		private long summaryNanos = 0L;
+	}
+
+	private final Plugin plugin;
+	private final ProtectedContainers protectedContainers;
+	private final ShopContainerChangeListener listener = new ShopContainerChangeListener(Unsafe.initialized(this));
+	// Container location -> state
+	private final Map<BlockLocation, ContainerState> containers = new HashMap<>();
+	// The containers whose version is incremented again during the next tick:
+	private final Set<BlockLocation> pendingChanges = new LinkedHashSet<>();
+	private @Nullable BukkitTask pendingChangesTask = null;
+
+	public ShopContainerTracker(
+			Plugin plugin,
+			ProtectedContainers protectedContainers
+	) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(protectedContainers, "protectedContainers is null");
+		this.plugin = plugin;
+		this.protectedContainers = protectedContainers;
+	}
+
+	public void onEnable() {
+		Bukkit.getPluginManager().registerEvents(listener, plugin);
+	}
+
+	public void onDisable() {
+		HandlerList.unregisterAll(listener);
+		if (pendingChangesTask != null) {
+			pendingChangesTask.cancel();
+			pendingChangesTask = null;
+		}
+		pendingChanges.clear();
+		containers.clear();
+	}
+
+	/**
+	 * Gets the {@link ContainerStockSummary} of the container of the given shopkeeper.
+	 * <p>
+	 * The summary is reused until the container contents might have changed. A new summary is
+	 * created for every change, so the identity of the returned summary can be used to detect
+	 * changes of the container contents.
+	 *
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 * @return the summary, not <code>null</code>
+	 */
+	public ContainerStockSummary getStockSummary(AbstractPlayerShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		// The shopkeeper's container location is immutable:
+		return this.getStockSummary(
+				shopkeeper.getContainerLocation(),
+				shopkeeper::getContainerContents
+		);
+	}
+
+	// The container contents are only retrieved if the summary needs to be created.
+	ContainerStockSummary getStockSummary(
+			BlockLocation containerLocation,
+			Supplier<@Nullable ItemStack[]> containerContents
+	) {
+		ContainerState state = containers.computeIfAbsent(
+				containerLocation,
+				key -> new ContainerState()
+		);
+		assert state != null;
+
+		long nowNanos = System.nanoTime();
+		ContainerStockSummary summary = state.summary;
+		if (summary != null
+				&& state.summaryVersion == state.version
+				&& nowNanos - state.summaryNanos < MAX_SUMMARY_AGE_NANOS) {
+			return summary;
+		}
+
+		// Empty if the container is not found:
+		summary = ContainerStockSummary.of(containerContents.get());
+		state.summary = summary;
+		state.summaryVersion = state.version;
+		state.summaryNanos = nowNanos;
+		return summary;
+	}
+
+	/**
+	 * This needs to be called when a shopkeeper no longer uses the specified container.
+	 *
+	 * @param containerLocation
+	 *            the container location, not <code>null</code>
+	 */
+	public void onContainerRemoved(BlockLocation containerLocation) {
+		Validate.notNull(containerLocation, "containerLocation is null");
+		// If the container is still used by other shopkeepers, its state is recreated on demand:
+		containers.remove(containerLocation);
+		pendingChanges.remove(containerLocation);
+	}
+
+	/**
+	 * Informs this tracker that the contents of the specified shop container have changed, or are
+	 * about to change.
+	 *
+	 * @param containerLocation
+	 *            the container location, not <code>null</code>
+	 */
+	public void onContainerChanged(BlockLocation containerLocation) {
+		Validate.notNull(containerLocation, "containerLocation is null");
+		ContainerState state = containers.get(containerLocation);
+		if (state == null) return; // Not tracked yet
+
+		state.version++;
+		state.summary = null;
+
+		// The change might only be applied after the current event:
+		if (pendingChanges.add(containerLocation) && pendingChangesTask == null) {
+			pendingChangesTask = SchedulerUtils.runTaskOrOmit(plugin, this::applyPendingChanges);
+		}
+	}
+
+	/**
+	 * Informs this tracker that the contents of the given container block, or of a connected chest,
+	 * might have changed.
+	 * <p>
+	 * This has no effect if the block is not used by any shopkeepers.
+	 *
+	 * @param containerBlock
+	 *            the container block, not <code>null</code>
+	 */
+	public void onContainerChanged(Block containerBlock) {
+		Validate.notNull(containerBlock, "containerBlock is null");
+		if (containers.isEmpty()) return;
+
+		// Also includes the shopkeepers using a connected chest:
+		List<? extends PlayerShopkeeper> shopkeepers = protectedContainers.getShopkeepersUsingContainer(
+				containerBlock
+		);
+		for (PlayerShopkeeper shopkeeper : shopkeepers) {
+			this.onContainerChanged(((AbstractPlayerShopkeeper) shopkeeper).getContainerLocation());
+		}
+	}
+
+	private void applyPendingChanges() {
+		pendingChangesTask = null;
+		for (BlockLocation containerLocation : pendingChanges) {
+			ContainerState state = containers.get(containerLocation);
+			if (state == null) continue;
+			state.version++;
+			state.summary = null;
+		}
+		pendingChanges.clear();
+	}
+}
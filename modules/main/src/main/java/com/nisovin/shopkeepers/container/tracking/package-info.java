@@ -0,0 +1,2 @@
+@org.eclipse.jdt.annotation.NonNullByDefault
+package com.nisovin.shopkeepers.container.tracking;
@@ -0,0 +1,361 @@
+package com.nisovin.shopkeepers.currency;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.annotations.ReadWrite;
+import com.nisovin.shopkeepers.util.inventory.ItemData;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Plans the removal and addition of currency items for the given container contents, e.g. for the
+ * trades of player shops.
+ * <p>
+ * Each slot of the contents is classified only once: Whether its item matches or is similar to
+ * the base or high currency, its amount, and its max stack size. The removal and addition of
+ * currency items, including any change that needs to be added back, are then planned based on
+ * this classification, without checking the slot items again. Once planned, the changes are
+ * written to the contents in a single pass via {@link #apply()}.
+ * <p>
+ * The planned changes are equivalent to removing the currency items slot by slot: The removal
+ * first removes base currency items from partial stacks, then from full stacks, and then
+ * analogously removes high currency items, if the base currency items are not sufficient. Any
+ * resulting change is added back as base currency items into empty slots. The addition first adds
+ * as many high currency items as possible, if the amount exceeds
+ * {@link Settings#highCurrencyMinCost}, and then adds the remaining amount as base currency items.
+ * Items are added to similar partial stacks first and then to empty slots.
+ * <p>
+ * Removed items are matched via {@link ItemData#matches(ItemStack)}, whereas added items are only
+ * stacked onto {@link ItemStack#isSimilar(ItemStack) similar} items.
+ */
+public final class CurrencyTransactionPlanner {
+
+	// Slot flags:
+	private static final int MATCHES_BASE = 1;
+	private static final int SIMILAR_BASE = 2;
+	private static final int MATCHES_HIGH = 4;
+	private static final int SIMILAR_HIGH = 8;
+
+	// The item to insert into a changed slot:
+	private static final byte ORIGINAL_ITEM = 0;
+	private static final byte NEW_BASE_ITEM = 1;
+	private static final byte NEW_HIGH_ITEM = 2;
+
+	private final @ReadOnly @Nullable ItemStack @ReadWrite [] contents;
+	private final Currency baseCurrency;
+	private final @Nullable Currency highCurrency;
+
+	private final int[] flags;
+	// 0 for empty slots:
+	private final int[] amounts;
+	// Only set for slots with currency items:
+	private final int[] maxStackSizes;
+	private final boolean[] changed;
+	private final byte[] newItems;
+
+	// Lazily determined flags of new currency item stacks, or -1 if not yet determined:
+	private int newBaseItemFlags = -1;
+	private int newHighItemFlags = -1;
+
+	/**
+	 * Creates a new {@link CurrencyTransactionPlanner} for the given contents and the currently
+	 * configured {@link Currencies}.
+	 *
+	 * @param contents
+	 *            the contents, not <code>null</code>, only modified by {@link #apply()}
+	 */
+	public CurrencyTransactionPlanner(@ReadOnly @Nullable ItemStack @ReadWrite [] contents) {
+		this(contents, Currencies.getBase(), Currencies.getHighOrNull());
+	}
+
+	CurrencyTransactionPlanner(
+			@ReadOnly @Nullable ItemStack @ReadWrite [] contents,
+			Currency baseCurrency,
+			@Nullable Currency highCurrency
+	) {
+		Validate.notNull(contents, "contents is null");
+		Validate.notNull(baseCurrency, "baseCurrency is null");
+		this.contents = contents;
+		this.baseCurrency = baseCurrency;
+		this.highCurrency = highCurrency;
+
+		int size = contents.length;
+		this.flags = new int[size];
+		this.amounts = new int[size];
+		this.maxStackSizes = new int[size];
+		this.changed = new boolean[size];
+		this.newItems = new byte[size];
+
+		Material baseType = baseCurrency.getItemData().getType();
+		@Nullable Material highType = null;
+		if (highCurrency != null) {
+			highType = highCurrency.getItemData().getType();
+		}
+		for (int slot = 0; slot < size; slot++) {
+			ItemStack itemStack = contents[slot];
+			if (ItemUtils.isEmpty(itemStack)) continue;
+			assert itemStack != null;
+
+			amounts[slot] = itemStack.getAmount();
+			// Only items of the same type can match the currency items:
+			Material type = itemStack.getType();
+			if (type != baseType && type != highType) continue;
+
+			int slotFlags = this.classify(itemStack);
+			flags[slot] = slotFlags;
+			if (slotFlags != 0) {
+				maxStackSizes[slot] = itemStack.getMaxStackSize();
+			}
+		}
+	}
+
+	private int classify(@ReadOnly ItemStack itemStack) {
+		int slotFlags = getFlags(itemStack, baseCurrency, MATCHES_BASE, SIMILAR_BASE);
+		if (highCurrency != null) {
+			slotFlags |= getFlags(itemStack, highCurrency, MATCHES_HIGH, SIMILAR_HIGH);
+		}
+		return slotFlags;
+	}
+
+	private static int getFlags(
+			@ReadOnly ItemStack itemStack,
+			Currency currency,
+			int matchesFlag,
+			int similarFlag
+	) {
+		ItemData itemData = currency.getItemData();
+		if (itemStack.getType() != itemData.getType()) return 0;
+
+		int flags = 0;
+		if (itemData.matches(itemStack)) {
+			flags |= matchesFlag;
+		}
+		if (itemData.isSimilar(itemStack)) {
+			flags |= similarFlag;
+		}
+		return flags;
+	}
+
+	private int getNewItemFlags(byte newItem) {
+		if (newItem == NEW_BASE_ITEM) {
+			if (newBaseItemFlags == -1) {
+				newBaseItemFlags = this.classify(baseCurrency.getItemData().createItemStack());
+			}
+			return newBaseItemFlags;
+		} else {
+			assert newItem == NEW_HIGH_ITEM && highCurrency != null;
+			if (newHighItemFlags == -1) {
+				Currency highCurrency = this.highCurrency;
+				assert highCurrency != null;
+				newHighItemFlags = this.classify(highCurrency.getItemData().createItemStack());
+			}
+			return newHighItemFlags;
+		}
+	}
+
+	private void setAmount(int slot, int amount) {
+		amounts[slot] = amount;
+		changed[slot] = true;
+		if (amount == 0) {
+			flags[slot] = 0;
+			newItems[slot] = ORIGINAL_ITEM;
+		}
+	}
+
+	private void setNewItem(int slot, byte newItem, Currency currency, int amount) {
+		assert amounts[slot] == 0 && amount > 0;
+		amounts[slot] = amount;
+		changed[slot] = true;
+		newItems[slot] = newItem;
+		flags[slot] = this.getNewItemFlags(newItem);
+		maxStackSizes[slot] = currency.getMaxStackSize();
+	}
+
+	/**
+	 * Plans the removal of currency items of the given total value.
+	 *
+	 * @param amount
+	 *            the currency value to remove, not negative
+	 * @return the currency value that could not be removed, <code>0</code> on full success, or a
+	 *         negative value if too much was removed, because there was not enough space to add
+	 *         the change back
+	 */
+	public int planRemoval(int amount) {
+		Validate.isTrue(amount >= 0, "amount cannot be negative");
+		if (amount == 0) return 0;
+
+		int remaining = this.removeItems(MATCHES_BASE, amount);
+		if (remaining == 0) return 0;
+
+		Currency highCurrency = this.highCurrency;
+		if (highCurrency == null) {
+			// We couldn't remove all currency:
+			return remaining;
+		}
+
+		int highCurrencyValue = highCurrency.getValue();
+		int remainingHigh = (int) Math.ceil((double) remaining / highCurrencyValue);
+		// We rounded the high currency up, so if this is negative now, it represents the remaining
+		// change which needs to be added back:
+		remaining -= (remainingHigh * highCurrencyValue);
+		assert remaining <= 0;
+
+		remainingHigh = this.removeItems(MATCHES_HIGH, remainingHigh);
+		remaining += (remainingHigh * highCurrencyValue);
+		if (remaining >= 0) {
+			return remaining;
+		}
+
+		// Add the remaining change into empty slots (all partial slots have already been cleared
+		// above):
+		int change = -remaining;
+		change = this.addToEmptySlots(baseCurrency, NEW_BASE_ITEM, change);
+		// We removed too much, represent as negative value:
+		return -change;
+	}
+
+	// First pass: Remove as many items as available from partial stacks.
+	// Second pass: Remove as many items as available from full stacks.
+	// Returns the amount of items that could not be removed.
+	private int removeItems(int matchesFlag, int amount) {
+		assert amount > 0;
+		int remaining = amount;
+		for (int pass = 0; pass < 2; pass++) {
+			for (int slot = 0; slot < amounts.length; slot++) {
+				if ((flags[slot] & matchesFlag) == 0) continue;
+
+				int itemAmount = amounts[slot];
+				if (pass == 1 || itemAmount < maxStackSizes[slot]) {
+					int newAmount = (itemAmount - remaining);
+					if (newAmount > 0) {
+						this.setAmount(slot, newAmount);
+						return 0;
+					} else {
+						this.setAmount(slot, 0);
+						remaining = -newAmount;
+						if (newAmount == 0) {
+							return 0;
+						}
+					}
+				}
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Plans the addition of currency items of the given total value.
+	 *
+	 * @param amount
+	 *            the currency value to add
+	 * @return the currency value that could not be added, or <code>0</code> on full success
+	 */
+	public int planAddition(int amount) {
+		if (amount <= 0) return 0;
+
+		int remaining = amount;
+		Currency highCurrency = this.highCurrency;
+		if (highCurrency != null && remaining > Settings.highCurrencyMinCost) {
+			int highCurrencyValue = highCurrency.getValue();
+			// Note: This rounds down, so the remaining amount cannot end up negative after
+			// subtracting the high currency value.
+			int highCurrencyAmount = (remaining / highCurrencyValue);
+			if (highCurrencyAmount > 0) {
+				int remainingHighCurrency = this.addItems(
+						highCurrency,
+						SIMILAR_HIGH,
+						NEW_HIGH_ITEM,
+						highCurrencyAmount
+				);
+				assert remainingHighCurrency >= 0 && remainingHighCurrency <= highCurrencyAmount;
+				remaining -= (highCurrencyAmount - remainingHighCurrency) * highCurrencyValue;
+				assert remaining >= 0;
+				if (remaining <= 0) return 0;
+			}
+		}
+
+		return this.addItems(baseCurrency, SIMILAR_BASE, NEW_BASE_ITEM, remaining);
+	}
+
+	// First fills similar partial stacks, and then empty slots.
+	// Returns the amount of items that could not be added.
+	private int addItems(Currency currency, int similarFlag, byte newItem, int amount) {
+		assert amount > 0;
+		int remaining = amount;
+		int maxStackSize = currency.getMaxStackSize();
+		for (int slot = 0; slot < amounts.length; slot++) {
+			if ((flags[slot] & similarFlag) == 0) continue;
+
+			int slotAmount = amounts[slot];
+			if (slotAmount >= maxStackSize) continue;
+
+			int newAmount = slotAmount + remaining;
+			if (newAmount <= maxStackSize) {
+				// The remaining amount fully fits into this stack:
+				this.setAmount(slot, newAmount);
+				return 0;
+			} else {
+				this.setAmount(slot, maxStackSize);
+				remaining -= (maxStackSize - slotAmount);
+				assert remaining != 0;
+			}
+		}
+
+		return this.addToEmptySlots(currency, newItem, remaining);
+	}
+
+	// Returns the amount of items that could not be added.
+	private int addToEmptySlots(Currency currency, byte newItem, int amount) {
+		assert amount > 0;
+		int remaining = amount;
+		int maxStackSize = currency.getMaxStackSize();
+		for (int slot = 0; slot < amounts.length; slot++) {
+			if (amounts[slot] != 0) continue;
+
+			int stackSize = Math.min(remaining, maxStackSize);
+			this.setNewItem(slot, newItem, currency, stackSize);
+			remaining -= stackSize;
+			if (remaining == 0) return 0;
+		}
+		return remaining;
+	}
+
+	/**
+	 * Writes the planned changes to the contents.
+	 * <p>
+	 * Item stacks whose amount changed are copied before they are modified. The original item
+	 * stacks in the contents are not modified.
+	 */
+	public void apply() {
+		for (int slot = 0; slot < contents.length; slot++) {
+			if (!changed[slot]) continue;
+
+			int amount = amounts[slot];
+			byte newItem = newItems[slot];
+			if (amount == 0) {
+				contents[slot] = null;
+			} else if (newItem == NEW_BASE_ITEM) {
+				contents[slot] = baseCurrency.getItemData().createItemStack(amount);
+			} else if (newItem == NEW_HIGH_ITEM) {
+				Currency highCurrency = this.highCurrency;
+				assert highCurrency != null;
+				contents[slot] = highCurrency.getItemData().createItemStack(amount);
+			} else {
+				ItemStack itemStack = contents[slot];
+				assert itemStack != null;
+				// Copy the item before modifying it:
+				itemStack = itemStack.clone();
+				itemStack.setAmount(amount);
+				contents[slot] = itemStack;
+			}
+
+			// The contents contain the planned items now:
+			changed[slot] = false;
+			newItems[slot] = ORIGINAL_ITEM;
+		}
+	}
+}
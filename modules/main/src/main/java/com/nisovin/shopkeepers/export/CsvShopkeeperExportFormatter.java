@@ -0,0 +1,136 @@
+package com.nisovin.shopkeepers.export;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistrySnapshot.Entry;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.ItemRecord;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.OfferRecord;
+import com.nisovin.shopkeepers.util.csv.CsvFormatter;
+import com.nisovin.shopkeepers.util.yaml.YamlUtils;
+
+/**
+ * Formats each offer of a shopkeeper as a separate CSV record.
+ * <p>
+ * Shopkeepers without offers are represented by a single record with empty offer fields. The stock
+ * fields are empty if the shopkeeper is not a player shop, or if its stock is unknown.
+ */
+class CsvShopkeeperExportFormatter implements ShopkeeperExportFormatter {
+
+	private static final List<? extends String> CSV_HEADER = Collections.unmodifiableList(Arrays.asList(
+			"shop_id",
+			"shop_uuid",
+			"shop_type",
+			"shop_object_type",
+			"shop_name",
+			"shop_world",
+			"shop_x",
+			"shop_y",
+			"shop_z",
+			"shop_owner_uuid",
+			"shop_owner_name",
+			"offer_index",
+			"item1_type",
+			"item1_amount",
+			"item1_metadata",
+			"item2_type",
+			"item2_amount",
+			"item2_metadata",
+			"result_item_type",
+			"result_item_amount",
+			"result_item_metadata",
+			"out_of_stock",
+			"result_item_stock"
+	));
+
+	// See CsvTradeLogger: We expect each record to only span a single line.
+	private final CsvFormatter csv = new CsvFormatter()
+			.escapeNewlines(false)
+			.warnOnNewlines();
+
+	CsvShopkeeperExportFormatter() {
+	}
+
+	@Override
+	public @Nullable String getHeader() {
+		return csv.formatRecord(CSV_HEADER);
+	}
+
+	@Override
+	public String format(ShopkeeperExportRecord record) {
+		List<? extends OfferRecord> offers = record.getOffers();
+		if (offers.isEmpty()) {
+			return this.toCSVRecord(record, -1, null);
+		}
+
+		StringBuilder builder = new StringBuilder();
+		for (int offerIndex = 0; offerIndex < offers.size(); offerIndex++) {
+			builder.append(this.toCSVRecord(record, offerIndex, offers.get(offerIndex)));
+		}
+		return builder.toString();
+	}
+
+	private String toCSVRecord(
+			ShopkeeperExportRecord record,
+			int offerIndex,
+			@Nullable OfferRecord offer
+	) {
+		Entry entry = record.getEntry();
+		UUID ownerUUID = entry.getOwnerUUID();
+
+		@Nullable Object[] itemFields = new @Nullable Object[9];
+		@Nullable Object outOfStock = null;
+		@Nullable Object resultItemStock = null;
+		if (offer != null) {
+			setItemFields(itemFields, 0, offer.getItem1());
+			setItemFields(itemFields, 3, offer.getItem2());
+			setItemFields(itemFields, 6, offer.getResultItem());
+			// Null if the stock is unknown:
+			outOfStock = offer.isOutOfStock();
+			resultItemStock = offer.getResultItemStock();
+		}
+
+		return csv.formatRecord(Arrays.asList(
+				entry.getId(), // shop_id
+				entry.getUniqueId(), // shop_uuid
+				entry.getShopTypeId(), // shop_type
+				entry.getShopObjectTypeId(), // shop_object_type
+				entry.getName(), // shop_name
+				entry.getWorldName(), // shop_world
+				entry.getX(), // shop_x
+				entry.getY(), // shop_y
+				entry.getZ(), // shop_z
+				ownerUUID, // shop_owner_uuid
+				entry.getOwnerName(), // shop_owner_name
+				(offer != null) ? offerIndex : null, // offer_index
+				itemFields[0], // item1_type
+				itemFields[1], // item1_amount
+				itemFields[2], // item1_metadata
+				itemFields[3], // item2_type
+				itemFields[4], // item2_amount
+				itemFields[5], // item2_metadata
+				itemFields[6], // result_item_type
+				itemFields[7], // result_item_amount
+				itemFields[8], // result_item_metadata
+				outOfStock, // out_of_stock
+				resultItemStock // result_item_stock
+		));
+	}
+
+	// Sets the type, amount, and metadata fields of the given item, starting at the given index.
+	private static void setItemFields(
+			@Nullable Object[] fields,
+			int index,
+			@Nullable ItemRecord item
+	) {
+		if (item == null) return;
+		fields[index] = item.getType();
+		fields[index + 1] = item.getAmount();
+		// Similar to TradeLogUtils#getItemMetadata:
+		fields[index + 2] = YamlUtils.toCompactYaml(item.getMetadata());
+	}
+}
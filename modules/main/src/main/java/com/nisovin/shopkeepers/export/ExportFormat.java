@@ -0,0 +1,33 @@
+package com.nisovin.shopkeepers.export;
+
+/**
+ * The available formats of {@link ShopkeeperDataExport shopkeeper data exports}.
+ */
+public enum ExportFormat {
+
+	/**
+	 * Newline-delimited Json: One Json object per shopkeeper.
+	 * <p>
+	 * Includes the complete shopkeeper data.
+	 */
+	NDJSON("ndjson"),
+	/**
+	 * CSV: One record per offer, or a single record for shopkeepers without offers.
+	 */
+	CSV("csv");
+
+	private final String fileExtension;
+
+	private ExportFormat(String fileExtension) {
+		this.fileExtension = fileExtension;
+	}
+
+	/**
+	 * Gets the file extension of this format.
+	 *
+	 * @return the file extension, without the leading dot
+	 */
+	public String getFileExtension() {
+		return fileExtension;
+	}
+}
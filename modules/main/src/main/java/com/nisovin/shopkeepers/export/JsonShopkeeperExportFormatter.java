@@ -0,0 +1,81 @@
+package com.nisovin.shopkeepers.export;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistrySnapshot.Entry;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.ItemRecord;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.OfferRecord;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.StockRecord;
+import com.nisovin.shopkeepers.util.json.JsonUtils;
+
+/**
+ * Formats each shopkeeper as a single line Json object.
+ * <p>
+ * Items are represented by their serialized data, similar to how they are saved to Yaml.
+ */
+class JsonShopkeeperExportFormatter implements ShopkeeperExportFormatter {
+
+	JsonShopkeeperExportFormatter() {
+	}
+
+	@Override
+	public @Nullable String getHeader() {
+		return null;
+	}
+
+	@Override
+	public String format(ShopkeeperExportRecord record) {
+		Entry entry = record.getEntry();
+		Map<String, @Nullable Object> json = new LinkedHashMap<>();
+		json.put("id", entry.getId());
+		json.put("uuid", entry.getUniqueId().toString());
+		json.put("type", entry.getShopTypeId());
+		json.put("object_type", entry.getShopObjectTypeId());
+		json.put("name", entry.getName());
+		UUID ownerUUID = entry.getOwnerUUID();
+		json.put("owner_uuid", (ownerUUID != null) ? ownerUUID.toString() : null);
+		json.put("owner_name", entry.getOwnerName());
+		json.put("world", entry.getWorldName());
+		json.put("x", entry.getX());
+		json.put("y", entry.getY());
+		json.put("z", entry.getZ());
+
+		List<Map<String, @Nullable Object>> offers = new ArrayList<>(record.getOffers().size());
+		for (OfferRecord offerRecord : record.getOffers()) {
+			Map<String, @Nullable Object> offer = new LinkedHashMap<>();
+			offer.put("item1", offerRecord.getItem1().getData());
+			ItemRecord item2 = offerRecord.getItem2();
+			offer.put("item2", (item2 != null) ? item2.getData() : null);
+			offer.put("result_item", offerRecord.getResultItem().getData());
+			// Omitted if the stock is unknown:
+			@Nullable Boolean outOfStock = offerRecord.isOutOfStock();
+			if (outOfStock != null) {
+				offer.put("out_of_stock", outOfStock);
+			}
+			offers.add(offer);
+		}
+		json.put("offers", offers);
+
+		List<? extends StockRecord> stock = record.getStock();
+		if (stock != null) {
+			List<Map<String, Object>> stockItems = new ArrayList<>(stock.size());
+			for (StockRecord stockRecord : stock) {
+				Map<String, Object> stockItem = new LinkedHashMap<>();
+				stockItem.put("item", stockRecord.getItem().getData());
+				stockItem.put("amount", stockRecord.getAmount());
+				stockItems.add(stockItem);
+			}
+			json.put("stock", stockItems);
+		}
+
+		// Does not include the offers:
+		json.put("data", record.getShopkeeperData());
+		return JsonUtils.toJson(json) + "\n";
+	}
+}
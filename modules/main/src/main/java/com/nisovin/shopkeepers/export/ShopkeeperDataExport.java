@@ -0,0 +1,296 @@
+package com.nisovin.shopkeepers.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Exports the data of shopkeepers to a file.
+ * <p>
+ * The shopkeeper data is captured on the main thread in small batches over the course of several
+ * ticks: Each tick, shopkeepers are captured until the {@link #TICK_BUDGET_NANOS time budget} is
+ * used up. The captured {@link ShopkeeperExportRecord records} are handed over to an async task,
+ * which formats them and streams them to the export file. Only a limited number of records is
+ * buffered at any time: If the writer falls behind, the capturing pauses until the writer has
+ * caught up. The shopkeeper data is therefore never copied into memory all at once.
+ * <p>
+ * The data is first written to a temporary file, which replaces the export file once the export has
+ * completed.
+ */
+public final class ShopkeeperDataExport {
+
+	// The main thread time that is spent per tick on capturing shopkeeper data:
+	private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+	// The maximum number of captured records that have not yet been written:
+	private static final int MAX_PENDING_RECORDS = 1000;
+	private static final long POLL_TIMEOUT_MILLIS = 50L;
+
+	private final Plugin plugin;
+	private final ExportFormat format;
+	private final Path file;
+	// Only accessed on the main thread:
+	private final Iterator<? extends AbstractShopkeeper> shopkeepers;
+	// Returns null to skip the shopkeeper:
+	private final Function<AbstractShopkeeper, @Nullable ShopkeeperExportRecord> recordCapture;
+	// Only used by the writer:
+	private final ShopkeeperExportFormatter formatter;
+	private final BlockingQueue<ShopkeeperExportRecord> pendingRecords = new ArrayBlockingQueue<>(
+			MAX_PENDING_RECORDS
+	);
+	private final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+	private boolean started = false;
+	private @Nullable BukkitTask captureTask = null;
+	private volatile boolean captureCompleted = false;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Creates a new export.
+	 * <p>
+	 * Only the references to the given shopkeepers are copied. Shopkeepers that are no longer valid
+	 * once their turn comes up are skipped.
+	 *
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 * @param shopkeepers
+	 *            the shopkeepers to export, not <code>null</code>
+	 * @param format
+	 *            the export format, not <code>null</code>
+	 * @param file
+	 *            the export file, not <code>null</code>
+	 */
+	ShopkeeperDataExport(
+			Plugin plugin,
+			Collection<? extends AbstractShopkeeper> shopkeepers,
+			ExportFormat format,
+			Path file
+	) {
+		this(
+				plugin,
+				shopkeepers,
+				format,
+				file,
+				shopkeeper -> captureRecord(shopkeeper, format),
+				ShopkeeperExportFormatter.create(Validate.notNull(format, "format is null"))
+		);
+	}
+
+	// Visible for testing:
+	ShopkeeperDataExport(
+			Plugin plugin,
+			Collection<? extends AbstractShopkeeper> shopkeepers,
+			ExportFormat format,
+			Path file,
+			Function<AbstractShopkeeper, @Nullable ShopkeeperExportRecord> recordCapture,
+			ShopkeeperExportFormatter formatter
+	) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(shopkeepers, "shopkeepers is null");
+		Validate.notNull(format, "format is null");
+		Validate.notNull(file, "file is null");
+		Validate.notNull(recordCapture, "recordCapture is null");
+		Validate.notNull(formatter, "formatter is null");
+		this.plugin = plugin;
+		// The registry's collections cannot be iterated across several ticks:
+		this.shopkeepers = new ArrayList<>(shopkeepers).iterator();
+		this.format = format;
+		this.file = file;
+		this.recordCapture = recordCapture;
+		this.formatter = formatter;
+	}
+
+	private static @Nullable ShopkeeperExportRecord captureRecord(
+			AbstractShopkeeper shopkeeper,
+			ExportFormat format
+	) {
+		// Skip shopkeepers that have been removed in the meantime:
+		if (!shopkeeper.isValid()) return null;
+
+		try {
+			return ShopkeeperExportRecord.capture(shopkeeper, format == ExportFormat.NDJSON);
+		} catch (Exception e) {
+			Log.warning(shopkeeper.getLogPrefix()
+					+ "Failed to capture the data for the export!", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the export format.
+	 *
+	 * @return the export format, not <code>null</code>
+	 */
+	public ExportFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Gets the export file.
+	 *
+	 * @return the export file, not <code>null</code>
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets a {@link CompletableFuture} that is completed on the main thread once the export has
+	 * completed.
+	 * <p>
+	 * The future provides the number of exported shopkeepers. If the export fails, the future is
+	 * completed exceptionally. If the export is {@link #cancel() cancelled}, the future is
+	 * cancelled.
+	 *
+	 * @return the future, not <code>null</code>
+	 */
+	public CompletableFuture<Integer> getFuture() {
+		return future;
+	}
+
+	/**
+	 * Starts the export.
+	 * <p>
+	 * The first batch of shopkeepers is captured immediately.
+	 */
+	void start() {
+		Validate.State.isTrue(!started, "Already started!");
+		started = true;
+
+		if (SchedulerUtils.runAsyncTaskOrOmit(plugin, this::write) == null) {
+			future.completeExceptionally(new IllegalStateException("Plugin is disabled!"));
+			return;
+		}
+
+		this.captureBatch();
+		if (captureCompleted) return;
+
+		captureTask = Bukkit.getScheduler().runTaskTimer(plugin, this::captureBatch, 1L, 1L);
+	}
+
+	/**
+	 * Cancels the export.
+	 * <p>
+	 * Any partially written data is discarded.
+	 */
+	void cancel() {
+		if (future.isDone()) return;
+		cancelled = true;
+		this.stopCapturing();
+		future.cancel(false);
+	}
+
+	// Also releases the captured records that are no longer written.
+	private void stopCapturing() {
+		this.stopCaptureTask();
+		pendingRecords.clear();
+	}
+
+	private void stopCaptureTask() {
+		if (captureTask != null) {
+			captureTask.cancel();
+			captureTask = null;
+		}
+	}
+
+	private void captureBatch() {
+		if (cancelled) return;
+
+		long startNanos = System.nanoTime();
+		while (shopkeepers.hasNext()) {
+			// Continue next tick if the writer has fallen behind, or if the time budget is used up:
+			if (pendingRecords.remainingCapacity() == 0) return;
+			if (System.nanoTime() - startNanos >= TICK_BUDGET_NANOS) return;
+
+			AbstractShopkeeper shopkeeper = shopkeepers.next();
+			ShopkeeperExportRecord record = recordCapture.apply(shopkeeper);
+			if (record == null) continue;
+
+			// We checked the remaining capacity above, and only the main thread adds records:
+			pendingRecords.add(record);
+		}
+
+		this.stopCaptureTask();
+		captureCompleted = true;
+	}
+
+	// Runs async.
+	private void write() {
+		Path tempFile = FileUtils.getTempSibling(file);
+		int exportedShopkeepers = 0;
+		try {
+			FileUtils.createParentDirectories(tempFile);
+			try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+				String header = formatter.getHeader();
+				if (header != null) {
+					writer.write(header);
+				}
+
+				while (true) {
+					if (cancelled) throw new CancellationException();
+
+					ShopkeeperExportRecord record = pendingRecords.poll(
+							POLL_TIMEOUT_MILLIS,
+							TimeUnit.MILLISECONDS
+					);
+					if (record == null) {
+						// Assert: All captured records are visible once the capturing has completed.
+						if (captureCompleted && pendingRecords.isEmpty()) break;
+						continue;
+					}
+
+					writer.write(formatter.format(record));
+					exportedShopkeepers++;
+				}
+			}
+
+			FileUtils.moveFile(tempFile, file, Log.getLogger());
+		} catch (Exception e) {
+			this.deleteTempFile(tempFile);
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			if (cancelled) return;
+
+			// Stops the capturing, since the captured data is no longer written:
+			cancelled = true;
+			SchedulerUtils.runTaskOrOmit(plugin, () -> {
+				this.stopCapturing();
+				future.completeExceptionally(e);
+			});
+			return;
+		}
+
+		int exported = exportedShopkeepers;
+		SchedulerUtils.runTaskOrOmit(plugin, () -> future.complete(exported));
+	}
+
+	private void deleteTempFile(Path tempFile) {
+		try {
+			FileUtils.deleteIfExists(tempFile);
+		} catch (IOException e) {
+			Log.warning("Failed to delete temporary export file: " + tempFile, e);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.nisovin.shopkeepers.export;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Manages {@link ShopkeeperDataExport exports} of the shopkeeper data.
+ * <p>
+ * Only one export can run at a time. The export files are written to the plugin's
+ * {@link #EXPORTS_FOLDER exports folder}.
+ */
+public class ShopkeeperDataExporter {
+
+	private static final String EXPORTS_FOLDER = "exports";
+	private static final String FILE_NAME_PREFIX = "shopkeepers-";
+	private static final DateTimeFormatter FILE_NAME_DATE_FORMAT = DateTimeFormatter.ofPattern(
+			"yyyy-MM-dd_HH-mm-ss"
+	);
+
+	private final SKShopkeepersPlugin plugin;
+	private final Path exportsFolder;
+	private @Nullable ShopkeeperDataExport activeExport = null;
+
+	public ShopkeeperDataExporter(SKShopkeepersPlugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+		this.exportsFolder = plugin.getDataFolder().toPath().resolve(EXPORTS_FOLDER);
+	}
+
+	public void onEnable() {
+	}
+
+	public void onDisable() {
+		// The export's writer task would otherwise keep waiting for more shopkeeper data:
+		ShopkeeperDataExport export = activeExport;
+		if (export != null) {
+			export.cancel();
+			activeExport = null;
+		}
+	}
+
+	/**
+	 * Gets the currently running export.
+	 *
+	 * @return the running export, or <code>null</code> if there is none
+	 */
+	public @Nullable ShopkeeperDataExport getActiveExport() {
+		return activeExport;
+	}
+
+	/**
+	 * Starts a new export of all currently loaded shopkeepers.
+	 *
+	 * @param format
+	 *            the export format, not <code>null</code>
+	 * @return the started export, not <code>null</code>
+	 * @throws IllegalStateException
+	 *             if another export is already running
+	 */
+	public ShopkeeperDataExport startExport(ExportFormat format) {
+		Validate.notNull(format, "format is null");
+		Validate.State.isTrue(activeExport == null, "Another export is already running!");
+
+		String fileName = FILE_NAME_PREFIX + LocalDateTime.now().format(FILE_NAME_DATE_FORMAT)
+				+ "." + format.getFileExtension();
+		ShopkeeperDataExport export = new ShopkeeperDataExport(
+				plugin,
+				plugin.getShopkeeperRegistry().getAllShopkeepers(),
+				format,
+				exportsFolder.resolve(fileName)
+		);
+		activeExport = export;
+		// Invoked on the main thread:
+		export.getFuture().whenComplete((exportedShopkeepers, error) -> {
+			if (activeExport == export) {
+				activeExport = null;
+			}
+		});
+		export.start();
+		return export;
+	}
+}
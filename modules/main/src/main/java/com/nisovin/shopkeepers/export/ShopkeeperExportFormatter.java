@@ -0,0 +1,46 @@
+package com.nisovin.shopkeepers.export;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Formats {@link ShopkeeperExportRecord}s.
+ * <p>
+ * Formatters are only used by the thread that writes the export file.
+ */
+interface ShopkeeperExportFormatter {
+
+	/**
+	 * Creates a new formatter for the given format.
+	 *
+	 * @param format
+	 *            the export format, not <code>null</code>
+	 * @return the formatter, not <code>null</code>
+	 */
+	static ShopkeeperExportFormatter create(ExportFormat format) {
+		switch (format) {
+		case NDJSON:
+			return new JsonShopkeeperExportFormatter();
+		case CSV:
+			return new CsvShopkeeperExportFormatter();
+		default:
+			throw new IllegalArgumentException("Unsupported export format: " + format);
+		}
+	}
+
+	/**
+	 * Gets the text that is written at the beginning of the export file.
+	 *
+	 * @return the header, including any trailing newline, or <code>null</code> if there is no
+	 *         header
+	 */
+	public @Nullable String getHeader();
+
+	/**
+	 * Formats the given record.
+	 *
+	 * @param record
+	 *            the record, not <code>null</code>
+	 * @return the formatted record, including the trailing newline, not <code>null</code>
+	 */
+	public String format(ShopkeeperExportRecord record);
+}
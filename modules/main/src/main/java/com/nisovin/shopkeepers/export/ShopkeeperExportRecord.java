@@ -0,0 +1,430 @@
+package com.nisovin.shopkeepers.export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistrySnapshot.Entry;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistrySnapshot.SKEntry;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
+import com.nisovin.shopkeepers.util.data.container.DataContainer;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+/**
+ * The data of a single shopkeeper, captured on the main thread for the export.
+ * <p>
+ * The captured data only consists of immutable objects, and of plain Maps, Lists, and primitive
+ * values that are not modified after they have been captured. In particular, the captured data
+ * does not contain any Bukkit objects such as item stacks. It can therefore be formatted
+ * asynchronously.
+ */
+final class ShopkeeperExportRecord {
+
+	// The data keys of the offers of the built-in shop types. The offers are already exported
+	// separately.
+	private static final Set<String> OFFERS_DATA_KEYS = Set.of("offers", "recipes");
+
+	/**
+	 * Captures the current data of the given shopkeeper.
+	 * <p>
+	 * This has to be called on the server's main thread.
+	 * <p>
+	 * To not load any chunks, the stock of player shops is only captured if the chunk of their
+	 * container is currently loaded. Otherwise, the offers are captured without their stock.
+	 *
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 * @param includeShopkeeperData
+	 *            <code>true</code> to also capture the shopkeeper data
+	 * @return the record, not <code>null</code>
+	 */
+	static ShopkeeperExportRecord capture(
+			AbstractShopkeeper shopkeeper,
+			boolean includeShopkeeperData
+	) {
+		assert shopkeeper != null;
+		SKEntry entry = SKEntry.of(shopkeeper);
+
+		@Nullable Map<String, @Nullable Object> shopkeeperData = null;
+		if (includeShopkeeperData) {
+			// Does not include the shopkeeper's id, location, and snapshots. The id and location are
+			// already part of the entry.
+			ShopkeeperData data = ShopkeeperData.ofNonNull(DataContainer.create());
+			shopkeeper.saveDynamicState(data, true);
+			shopkeeperData = toExportedShopkeeperData(data.getValues());
+		}
+
+		List<? extends TradingRecipe> offers;
+		@Nullable ContainerStockSummary stock = null;
+		if (shopkeeper instanceof AbstractPlayerShopkeeper) {
+			AbstractPlayerShopkeeper playerShop = (AbstractPlayerShopkeeper) shopkeeper;
+			if (isChunkLoaded(playerShop.getContainerLocation())) {
+				stock = playerShop.getContainerStockSummary();
+				offers = playerShop.getCachedTradingRecipes(null);
+			} else {
+				offers = playerShop.createTradingRecipes(ContainerStockSummary.EMPTY);
+			}
+		} else {
+			offers = shopkeeper.getCachedTradingRecipes(null);
+		}
+
+		List<OfferRecord> offerRecords = new ArrayList<>(offers.size());
+		for (TradingRecipe offer : offers) {
+			offerRecords.add(OfferRecord.capture(offer, stock));
+		}
+
+		@Nullable List<StockRecord> stockRecords = null;
+		if (stock != null) {
+			Map<? extends ItemStack, Integer> stockAmounts = stock.getAmounts();
+			stockRecords = new ArrayList<>(stockAmounts.size());
+			for (Map.Entry<? extends ItemStack, Integer> stockEntry : stockAmounts.entrySet()) {
+				stockRecords.add(new StockRecord(
+						ItemRecord.capture(stockEntry.getKey()),
+						stockEntry.getValue()
+				));
+			}
+		}
+		return new ShopkeeperExportRecord(entry, shopkeeperData, offerRecords, stockRecords);
+	}
+
+	private static boolean isChunkLoaded(BlockLocation location) {
+		World world = location.getWorld();
+		if (world == null) return false;
+		return world.isChunkLoaded(location.getX() >> 4, location.getZ() >> 4);
+	}
+
+	/**
+	 * Converts the given saved shopkeeper data into plain data, and omits the offers.
+	 *
+	 * @param shopkeeperData
+	 *            the saved shopkeeper data, not <code>null</code>, not modified
+	 * @return the exported shopkeeper data, not <code>null</code>
+	 */
+	static Map<String, @Nullable Object> toExportedShopkeeperData(Map<?, ?> shopkeeperData) {
+		assert shopkeeperData != null;
+		Map<String, @Nullable Object> exportedData = toPlainMap(shopkeeperData);
+		exportedData.keySet().removeAll(OFFERS_DATA_KEYS);
+		return exportedData;
+	}
+
+	// Recursively converts the given data into Maps, Lists, and primitive values. Serializable
+	// objects are represented by their serialized data, similar to how they are saved to Yaml.
+	private static @Nullable Object toPlainData(@Nullable Object data) {
+		if (data instanceof UnmodifiableItemStack) {
+			return toPlainData(ItemUtils.asItemStack((UnmodifiableItemStack) data));
+		} else if (data instanceof ConfigurationSerializable) {
+			return toPlainMap(ConfigUtils.serialize((ConfigurationSerializable) data));
+		} else if (data instanceof DataContainer) {
+			return toPlainMap(((DataContainer) data).getValues());
+		} else if (data instanceof ConfigurationSection) {
+			return toPlainMap(ConfigUtils.getValues((ConfigurationSection) data));
+		} else if (data instanceof Map) {
+			return toPlainMap((Map<?, ?>) data);
+		} else if (data instanceof Collection) {
+			Collection<?> collection = (Collection<?>) data;
+			List<@Nullable Object> list = new ArrayList<>(collection.size());
+			for (Object element : collection) {
+				list.add(toPlainData(element));
+			}
+			return list;
+		} else if (data instanceof Object[]) {
+			return toPlainData(Arrays.asList((Object[]) data));
+		} else {
+			return data;
+		}
+	}
+
+	private static Map<String, @Nullable Object> toPlainMap(Map<?, ?> map) {
+		// Linked Map: Preserves the order of the entries.
+		Map<String, @Nullable Object> plainMap = new LinkedHashMap<>();
+		map.forEach((key, value) -> {
+			plainMap.put(String.valueOf(key), toPlainData(value));
+		});
+		return plainMap;
+	}
+
+	/**
+	 * The captured data of an item stack.
+	 */
+	static final class ItemRecord {
+
+		/**
+		 * Captures the data of the given item stack.
+		 * <p>
+		 * This has to be called on the server's main thread.
+		 *
+		 * @param itemStack
+		 *            the item stack, not <code>null</code>
+		 * @return the item record, not <code>null</code>
+		 */
+		static ItemRecord capture(ItemStack itemStack) {
+			assert itemStack != null;
+			return new ItemRecord(
+					itemStack.getType().name(),
+					itemStack.getAmount(),
+					toPlainMap(ConfigUtils.serialize(itemStack))
+			);
+		}
+
+		/**
+		 * Captures the data of the given item stack.
+		 * <p>
+		 * This has to be called on the server's main thread.
+		 *
+		 * @param itemStack
+		 *            the item stack, can be <code>null</code>
+		 * @return the item record, or <code>null</code> if the item stack is <code>null</code>
+		 */
+		static @Nullable ItemRecord capture(@Nullable UnmodifiableItemStack itemStack) {
+			if (itemStack == null) return null;
+			return capture(ItemUtils.asItemStack(itemStack));
+		}
+
+		private final String type;
+		private final int amount;
+		private final Map<? extends String, ? extends @Nullable Object> data;
+
+		ItemRecord(String type, int amount, Map<? extends String, ? extends @Nullable Object> data) {
+			this.type = type;
+			this.amount = amount;
+			this.data = Collections.unmodifiableMap(data);
+		}
+
+		/**
+		 * Gets the name of the item type.
+		 *
+		 * @return the item type name, not <code>null</code>
+		 */
+		String getType() {
+			return type;
+		}
+
+		/**
+		 * Gets the item amount.
+		 *
+		 * @return the amount
+		 */
+		int getAmount() {
+			return amount;
+		}
+
+		/**
+		 * Gets the serialized item data.
+		 * <p>
+		 * This includes the serialized type key, the item type, and the amount.
+		 *
+		 * @return an unmodifiable view on the serialized item data, not <code>null</code>
+		 */
+		Map<? extends String, ? extends @Nullable Object> getData() {
+			return data;
+		}
+
+		/**
+		 * Gets the serialized item data without the serialized type key, the item type, and the
+		 * amount.
+		 * <p>
+		 * Similar to the item metadata that is logged by the trade loggers, this also includes the
+		 * data version of the item.
+		 *
+		 * @return the item metadata, not <code>null</code>
+		 */
+		Map<String, @Nullable Object> getMetadata() {
+			Map<String, @Nullable Object> metadata = new LinkedHashMap<>(data);
+			metadata.remove(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+			metadata.remove("type");
+			metadata.remove("amount");
+			return metadata;
+		}
+	}
+
+	/**
+	 * The captured data of an offer.
+	 */
+	static final class OfferRecord {
+
+		// The stock is null if it is unknown.
+		private static OfferRecord capture(
+				TradingRecipe offer,
+				@Nullable ContainerStockSummary stock
+		) {
+			UnmodifiableItemStack resultItem = offer.getResultItem();
+			@Nullable Boolean outOfStock = null;
+			@Nullable Integer resultItemStock = null;
+			if (stock != null) {
+				outOfStock = offer.isOutOfStock();
+				resultItemStock = stock.getAmount(resultItem);
+			}
+			return new OfferRecord(
+					Unsafe.assertNonNull(ItemRecord.capture(offer.getItem1())),
+					ItemRecord.capture(offer.getItem2()),
+					Unsafe.assertNonNull(ItemRecord.capture(resultItem)),
+					outOfStock,
+					resultItemStock
+			);
+		}
+
+		private final ItemRecord item1;
+		private final @Nullable ItemRecord item2;
+		private final ItemRecord resultItem;
+		private final @Nullable Boolean outOfStock;
+		private final @Nullable Integer resultItemStock;
+
+		OfferRecord(
+				ItemRecord item1,
+				@Nullable ItemRecord item2,
+				ItemRecord resultItem,
+				@Nullable Boolean outOfStock,
+				@Nullable Integer resultItemStock
+		) {
+			this.item1 = item1;
+			this.item2 = item2;
+			this.resultItem = resultItem;
+			this.outOfStock = outOfStock;
+			this.resultItemStock = resultItemStock;
+		}
+
+		ItemRecord getItem1() {
+			return item1;
+		}
+
+		@Nullable
+		ItemRecord getItem2() {
+			return item2;
+		}
+
+		ItemRecord getResultItem() {
+			return resultItem;
+		}
+
+		/**
+		 * Checks if the offer is out of stock.
+		 *
+		 * @return whether the offer is out of stock, or <code>null</code> if the stock is unknown
+		 */
+		@Nullable
+		Boolean isOutOfStock() {
+			return outOfStock;
+		}
+
+		/**
+		 * Gets the amount of result items in the shop container.
+		 *
+		 * @return the result item stock, or <code>null</code> if the stock is unknown
+		 */
+		@Nullable
+		Integer getResultItemStock() {
+			return resultItemStock;
+		}
+	}
+
+	/**
+	 * The total amount of a distinct item inside the shop container.
+	 */
+	static final class StockRecord {
+
+		private final ItemRecord item;
+		private final int amount;
+
+		StockRecord(ItemRecord item, int amount) {
+			this.item = item;
+			this.amount = amount;
+		}
+
+		/**
+		 * Gets the item.
+		 *
+		 * @return the item, with an amount of <code>1</code>, not <code>null</code>
+		 */
+		ItemRecord getItem() {
+			return item;
+		}
+
+		/**
+		 * Gets the total amount of the item.
+		 *
+		 * @return the total amount
+		 */
+		int getAmount() {
+			return amount;
+		}
+	}
+
+	private final Entry entry;
+	private final @Nullable Map<? extends String, ? extends @Nullable Object> shopkeeperData;
+	private final List<? extends OfferRecord> offers;
+	private final @Nullable List<? extends StockRecord> stock;
+
+	ShopkeeperExportRecord(
+			Entry entry,
+			@Nullable Map<? extends String, ? extends @Nullable Object> shopkeeperData,
+			List<? extends OfferRecord> offers,
+			@Nullable List<? extends StockRecord> stock
+	) {
+		this.entry = entry;
+		this.shopkeeperData = shopkeeperData;
+		this.offers = offers;
+		this.stock = stock;
+	}
+
+	/**
+	 * Gets the basic information about the shopkeeper.
+	 *
+	 * @return the entry, not <code>null</code>
+	 */
+	Entry getEntry() {
+		return entry;
+	}
+
+	/**
+	 * Gets the serialized shopkeeper data.
+	 * <p>
+	 * The data does not include the shopkeeper's offers, because these are already captured
+	 * separately.
+	 *
+	 * @return the serialized shopkeeper data, or <code>null</code> if it was not captured
+	 */
+	@Nullable
+	Map<? extends String, ? extends @Nullable Object> getShopkeeperData() {
+		return shopkeeperData;
+	}
+
+	/**
+	 * Gets the shopkeeper's offers.
+	 *
+	 * @return the offers, not <code>null</code>
+	 */
+	List<? extends OfferRecord> getOffers() {
+		return offers;
+	}
+
+	/**
+	 * Gets the contents of the shop container.
+	 *
+	 * @return the container contents, or <code>null</code> if the shopkeeper is not a player shop,
+	 *         or if the stock is unknown
+	 */
+	@Nullable
+	List<? extends StockRecord> getStock() {
+		return stock;
+	}
+}
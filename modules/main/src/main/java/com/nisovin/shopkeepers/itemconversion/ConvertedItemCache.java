@@ -0,0 +1,146 @@
+package com.nisovin.shopkeepers.itemconversion;
+
+import java.util.Map;
+
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.compat.NMSManager;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Remembers item stacks that are already known to be in Spigot's internal data format, i.e. that
+ * are not changed by {@link ItemConversion#convertItem(ItemStack)}.
+ * <p>
+ * Item stacks are looked up via a hash code of their type, amount, and item data, and via their
+ * equality. This is considerably cheaper than converting the item, which involves serializing and
+ * deserializing the item's metadata, copying the item, and comparing the result. Since players
+ * usually open shops repeatedly with mostly unchanged inventories, most items can skip the
+ * conversion.
+ * <p>
+ * {@link ItemStack#hashCode()} would create a copy of the item's metadata for each lookup. The hash
+ * code is therefore computed from the server's internal item data if possible. The item stacks
+ * cannot be looked up by their identity instead: The inventory contents are retrieved as new item
+ * stack instances each time, and the server's internal item stacks are mutable.
+ * <p>
+ * The cache is limited in size and discards the least recently used items first.
+ */
+public final class ConvertedItemCache {
+
+	private static final int DEFAULT_MAX_SIZE = 2048;
+
+	// Looks up cached item stacks without copying their item metadata if possible.
+	private static final class ItemKey {
+
+		private final ItemStack itemStack;
+		private final int hash;
+
+		ItemKey(ItemStack itemStack) {
+			this.itemStack = itemStack;
+			Integer itemDataHash = NMSManager.getProvider().getItemDataHash(itemStack);
+			if (itemDataHash != null) {
+				this.hash = 31 * itemDataHash + itemStack.getAmount();
+			} else {
+				// Copies the item meta:
+				this.hash = itemStack.hashCode();
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof ItemKey)) return false;
+			ItemKey other = (ItemKey) obj;
+			if (hash != other.hash) return false;
+			// Compares the server's internal item data if both item stacks are server item stacks:
+			return itemStack.equals(other.itemStack);
+		}
+	}
+
+	// Only the keys are used:
+	private final Map<ItemKey, Boolean> convertedItems;
+
+	private long hits = 0L;
+	private long conversions = 0L;
+	private long changedItems = 0L;
+
+	public ConvertedItemCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	public ConvertedItemCache(int maxSize) {
+		Validate.isTrue(maxSize > 0, "maxSize has to be positive");
+		this.convertedItems = new LRUCache<>(maxSize);
+	}
+
+	/**
+	 * Checks if the given item stack is known to be already converted.
+	 * <p>
+	 * This also updates the cache statistics.
+	 *
+	 * @param itemStack
+	 *            the item stack, not <code>null</code>
+	 * @return <code>true</code> if the item stack is known to be already converted
+	 */
+	public boolean isConverted(@ReadOnly ItemStack itemStack) {
+		Validate.notNull(itemStack, "itemStack is null");
+		// Also updates the LRU order:
+		if (convertedItems.get(new ItemKey(itemStack)) != null) {
+			hits++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Informs this cache about the result of an item conversion.
+	 *
+	 * @param convertedItem
+	 *            the converted item stack, not <code>null</code>, not modified and copied if
+	 *            stored
+	 * @param changed
+	 *            <code>true</code> if the conversion changed the item
+	 */
+	public void onConverted(@ReadOnly ItemStack convertedItem, boolean changed) {
+		Validate.notNull(convertedItem, "convertedItem is null");
+		conversions++;
+		if (changed) {
+			changedItems++;
+		}
+		// Copied, so that subsequent changes to the given item stack do not affect the cache:
+		convertedItems.put(new ItemKey(convertedItem.clone()), Boolean.TRUE);
+	}
+
+	public void clear() {
+		convertedItems.clear();
+		hits = 0L;
+		conversions = 0L;
+		changedItems = 0L;
+	}
+
+	public int getSize() {
+		return convertedItems.size();
+	}
+
+	// The number of items that skipped the conversion.
+	public long getHits() {
+		return hits;
+	}
+
+	// The number of items that were actually converted.
+	public long getConversions() {
+		return conversions;
+	}
+
+	// The number of converted items that were changed by the conversion.
+	public long getChangedItems() {
+		return changedItems;
+	}
+}
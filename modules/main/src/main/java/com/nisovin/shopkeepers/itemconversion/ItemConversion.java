@@ -44,9 +44,47 @@ public final class ItemConversion {
 		return convertedItemStack;
 	}
 
+	// Returns the converted item if it was changed by the conversion, or null otherwise.
+	private static @Nullable ItemStack convertItem(
+			@ReadOnly ItemStack itemStack,
+			@Nullable ConvertedItemCache cache
+	) {
+		// Skip items that are known to be already converted:
+		if (cache != null && cache.isConverted(itemStack)) return null;
+
+		ItemStack convertedItem = Unsafe.assertNonNull(convertItem(itemStack));
+		boolean changed = !itemStack.isSimilar(convertedItem);
+		if (cache != null) {
+			cache.onConverted(convertedItem, changed);
+		}
+		return changed ? convertedItem : null;
+	}
+
 	public static int convertItems(
 			@ReadOnly @Nullable ItemStack @ReadWrite [] contents,
 			Predicate<@ReadOnly ? super ItemStack> filter
+	) {
+		return convertItems(contents, filter, null);
+	}
+
+	/**
+	 * Converts the items that match the given filter.
+	 * <p>
+	 * If a {@link ConvertedItemCache} is given, items that are known to be already converted are
+	 * skipped, and the results of the item conversions are recorded in the cache.
+	 * 
+	 * @param contents
+	 *            the items to convert, the converted items are written back into this array
+	 * @param filter
+	 *            the filter that determines the affected items
+	 * @param cache
+	 *            the cache, or <code>null</code>
+	 * @return the number of item stacks that were changed by the conversion
+	 */
+	public static int convertItems(
+			@ReadOnly @Nullable ItemStack @ReadWrite [] contents,
+			Predicate<@ReadOnly ? super ItemStack> filter,
+			@Nullable ConvertedItemCache cache
 	) {
 		Validate.notNull(contents, "contents is null");
 		Validate.notNull(filter, "filter is null");
@@ -57,8 +95,8 @@ public final class ItemConversion {
 			slotItem = Unsafe.assertNonNull(slotItem);
 			if (!filter.test(slotItem)) continue;
 
-			ItemStack convertedItem = convertItem(slotItem);
-			if (!slotItem.isSimilar(convertedItem)) {
+			ItemStack convertedItem = convertItem(slotItem, cache);
+			if (convertedItem != null) {
 				contents[slot] = convertedItem;
 				convertedStacks += 1;
 			}
@@ -70,13 +108,22 @@ public final class ItemConversion {
 			Inventory inventory,
 			Predicate<@ReadOnly ? super ItemStack> filter,
 			boolean updateViewers
+	) {
+		return convertItems(inventory, filter, updateViewers, null);
+	}
+
+	public static int convertItems(
+			Inventory inventory,
+			Predicate<@ReadOnly ? super ItemStack> filter,
+			boolean updateViewers,
+			@Nullable ConvertedItemCache cache
 	) {
 		Validate.notNull(inventory, "inventory is null");
 		Validate.notNull(filter, "filter is null");
 
 		// Convert inventory contents (includes armor and off hand slots for player inventories):
 		@Nullable ItemStack[] contents = Unsafe.castNonNull(inventory.getContents());
-		int convertedStacks = convertItems(contents, filter);
+		int convertedStacks = convertItems(contents, filter, cache);
 		if (convertedStacks > 0) {
 			// Apply changes back to the inventory:
 			InventoryUtils.setContents(inventory, contents);
@@ -87,8 +134,8 @@ public final class ItemConversion {
 			Player player = Unsafe.castNonNull(((PlayerInventory) inventory).getHolder());
 			ItemStack cursor = player.getItemOnCursor();
 			if (!ItemUtils.isEmpty(cursor) && filter.test(cursor)) {
-				ItemStack convertedCursor = convertItem(cursor);
-				if (!cursor.isSimilar(convertedCursor)) {
+				ItemStack convertedCursor = convertItem(cursor, cache);
+				if (convertedCursor != null) {
 					convertedStacks += 1;
 				}
 			}
@@ -26,6 +26,10 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 public class ItemConversions {
 
+	// Shared by all automatic item conversions: Whether an item is in Spigot's internal data format
+	// does not depend on the player or shop.
+	private static final ConvertedItemCache CONVERTED_ITEM_CACHE = new ConvertedItemCache();
+
 	private final ShopkeepersPlugin plugin;
 	private final ItemConversionListener listener = new ItemConversionListener();
 
@@ -40,6 +44,11 @@ public class ItemConversions {
 
 	public void onDisable() {
 		HandlerList.unregisterAll(listener);
+		CONVERTED_ITEM_CACHE.clear();
+	}
+
+	public static ConvertedItemCache getConvertedItemCache() {
+		return CONVERTED_ITEM_CACHE;
 	}
 
 	/////
@@ -100,7 +109,7 @@ public class ItemConversions {
 						() -> shopkeeper.getLogPrefix() + "Player '" + player.getName()
 								+ "' triggered the conversion of " + convertedContainerStacks
 								+ " affected item stacks inside the shop container (took "
-								+ durationMillis + " ms)."
+								+ durationMillis + " ms). " + getCacheStatistics()
 				);
 				convertedStacks += convertedContainerStacks;
 			}
@@ -128,18 +137,30 @@ public class ItemConversions {
 		Log.debug(DebugOptions.itemConversions,
 				() -> "Converted " + convertedStacks
 						+ " affected item stacks in the inventory of player '" + player.getName()
-						+ "' (took " + durationMillis + " ms)."
+						+ "' (took " + durationMillis + " ms). " + getCacheStatistics()
 		);
 		return convertedStacks;
 	}
 
+	private static String getCacheStatistics() {
+		ConvertedItemCache cache = CONVERTED_ITEM_CACHE;
+		return "Conversion cache (size | hits | conversions | changed): " + cache.getSize()
+				+ " | " + cache.getHits() + " | " + cache.getConversions()
+				+ " | " + cache.getChangedItems();
+	}
+
 	private static int convertAffectedItems(Inventory inventory) {
 		Validate.notNull(inventory, "inventory is null");
 		int convertedStacks = 0;
 		Predicate<@Nullable ItemStack> affectedItemsFilter = affectedItemsFilter();
 		if (affectedItemsFilter != NO_ITEMS_AFFECTED) {
 			// Convert items and update viewers if there have been changes:
-			convertedStacks = ItemConversion.convertItems(inventory, affectedItemsFilter, true);
+			convertedStacks = ItemConversion.convertItems(
+					inventory,
+					affectedItemsFilter,
+					true,
+					CONVERTED_ITEM_CACHE
+			);
 		}
 		return convertedStacks;
 	}
@@ -408,6 +408,16 @@ public class Messages extends Config {
 	public static Text currencyItemSetToMainHandItem = Text.parse("&aThe currency item '&e{currencyId}&a' has been set to the &eitem in your main hand&a!");
 	public static Text itemsConverted = Text.parse("&aConverted &e{count}&a item stack(s)!");
 	public static Text itemsUpdated = Text.parse("&aUpdated &e{count}&a item(s)!");
+	public static Text exportStarted = Text.parse("&aExporting &e{count}&a shop(s) to '&e{file}&a' ...");
+	public static Text exportAlreadyRunning = Text.parse("&cAn export of the shop data is already running!");
+	public static Text exportCompleted = Text.parse("&aExported &e{count}&a shop(s) to '&e{file}&a'!");
+	public static Text exportFailed = Text.parse("&cThe export of the shop data failed! Check the server log for details.");
+	public static Text tradeStatsUnavailable = Text.parse("&cThe trade statistics are not available! They require the SQLite trade log with enabled trade statistics.");
+	public static Text tradeStatsHeader = Text.parse("&9Trades of the last &e{days}&9 day(s) per &e{grouping}&9: &e(Page {page})");
+	public static Text tradeStatsEntry = Text.parse("  &e{rank}) &7{key}&8: &a{trades}&8 trades, &a{items}&8 result items");
+	public static Text tradeStatsNoEntries = Text.parse("  &7No trades found.");
+	public static Text tradeStatsNextPage = Text.parse("&7Next page: &e/shopkeeper tradeStats {grouping} {days} {nextPage}");
+	public static Text tradeStatsFailed = Text.parse("&cCould not query the trade statistics! Check the server log for details.");
 	public static String unknownBookAuthor = c("Unknown");
 
 	public static Text tradePermSet = Text.parse("&aThe shop's trading permission has been set to '&e{perm}&a'!");
@@ -825,6 +835,8 @@ public class Messages extends Config {
 	public static Text commandDescriptionSnapshotRestore = Text.parse("Restores a specific shop snapshot.");
 	public static Text commandDescriptionEditVillager = Text.parse("Opens the editor for the target villager.");
 	public static Text commandDescriptionReplaceAllWithVanillaVillagers = Text.parse("Replaces all shopkeepers with vanilla villagers without AI.");
+	public static Text commandDescriptionExport = Text.parse("Exports the data of all shops to a file (NDJSON or CSV).");
+	public static Text commandDescriptionTradeStats = Text.parse("Shows the logged trades per shop, item, or day.");
 
 	/////
 
@@ -15,7 +15,7 @@ public class PlayerShops {
 
 	public PlayerShops(SKShopkeepersPlugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
-		this.playerShopsLimit = new PlayerShopsLimit();
+		this.playerShopsLimit = new PlayerShopsLimit(plugin);
 		this.playerInactivity = new PlayerInactivity(plugin);
 		this.shopOwnerNameUpdates = new ShopOwnerNameUpdates(plugin);
 	}
@@ -2,25 +2,104 @@ package com.nisovin.shopkeepers.playershops;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
 import com.nisovin.shopkeepers.util.java.Validate;
 
-public class PlayerShopsLimit {
+/**
+ * Determines the maximum number of shops that players can own.
+ * <p>
+ * Resolving a player's maximum shops limit requires checking the player's maximum shops
+ * permissions, which can be costly with permission plugins that dynamically resolve the
+ * permissions of players based on their current context. We therefore cache the resolved limit of
+ * each player. The cached limits are invalidated when players join, quit, or change worlds, when
+ * the maximum shops permissions are updated after a config reload, and when requested via the API,
+ * e.g. by permission plugins when the permissions of a player have changed. Otherwise, the cached
+ * limits expire after a short duration, so that other permission changes also take effect
+ * eventually.
+ * <p>
+ * The limits are resolved on the server's main thread. However, since permission plugins may
+ * update the permissions of players asynchronously, the cached limits can be invalidated from any
+ * thread.
+ */
+public class PlayerShopsLimit implements Listener {
 
-	public PlayerShopsLimit() {
+	private static final long CACHE_DURATION_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	// Incremented whenever the maximum shops permissions are updated, which implicitly invalidates
+	// all previously cached limits. Only updated on the main thread during config reloads.
+	private static volatile int maxShopsPermissionsVersion = 0;
+
+	private static class CachedLimit {
+
+		private final int maxShops;
+		private final int maxShopsPermissionsVersion;
+		private final long expirationNanos;
+
+		CachedLimit(int maxShops, int maxShopsPermissionsVersion, long expirationNanos) {
+			this.maxShops = maxShops;
+			this.maxShopsPermissionsVersion = maxShopsPermissionsVersion;
+			this.expirationNanos = expirationNanos;
+		}
+
+		boolean isValid(long nanoTime) {
+			return maxShopsPermissionsVersion == PlayerShopsLimit.maxShopsPermissionsVersion
+					&& nanoTime - expirationNanos < 0L;
+		}
+	}
+
+	private final Plugin plugin;
+	private final LongSupplier nanoTimeSource;
+	private final Map<UUID, CachedLimit> cachedLimits = new ConcurrentHashMap<>();
+	// Incremented by every invalidation. Used to detect invalidations that happen concurrently while
+	// a limit is resolved.
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheMisses = new AtomicLong();
+
+	public PlayerShopsLimit(Plugin plugin) {
+		this(plugin, System::nanoTime);
+	}
+
+	// The time source can be replaced for testing purposes.
+	PlayerShopsLimit(Plugin plugin, LongSupplier nanoTimeSource) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(nanoTimeSource, "nanoTimeSource is null");
+		this.plugin = plugin;
+		this.nanoTimeSource = nanoTimeSource;
 	}
 
 	public void onEnable() {
 		registerMaxShopsPermissions();
+		Bukkit.getPluginManager().registerEvents(this, plugin);
 	}
 
 	public void onDisable() {
+		HandlerList.unregisterAll(this);
+		this.invalidateMaxShopsLimits();
+		cacheHits.set(0L);
+		cacheMisses.set(0L);
 	}
 
 	/**
@@ -54,6 +133,9 @@ public class PlayerShopsLimit {
 
 		// Sort the permissions in descending order:
 		maxShopsPermissions.sort(Unsafe.assertNonNull(Collections.reverseOrder()));
+
+		// Invalidate all cached maximum shops limits:
+		maxShopsPermissionsVersion++;
 	}
 
 	/**
@@ -79,13 +161,51 @@ public class PlayerShopsLimit {
 	 * Gets the player's maximum shops limit.
 	 * <p>
 	 * This is calculated based on the configured default maximum shops limit, and the player's
-	 * specific maximum shops permissions.
+	 * specific maximum shops permissions. The result is cached for a short duration.
+	 * <p>
+	 * This is expected to be called on the server's main thread.
+	 * 
+	 * @param player
+	 *            the player, not <code>null</code>
+	 * @return the player's maximum shops limit, or {@link Integer#MAX_VALUE} if there is no limit
+	 */
+	public int getMaxShopsLimit(Player player) {
+		Validate.notNull(player, "player is null");
+		UUID playerId = player.getUniqueId();
+		long nanoTime = nanoTimeSource.getAsLong();
+		CachedLimit cachedLimit = cachedLimits.get(playerId);
+		if (cachedLimit != null && cachedLimit.isValid(nanoTime)) {
+			cacheHits.incrementAndGet();
+			return cachedLimit.maxShops;
+		}
+
+		cacheMisses.incrementAndGet();
+		long invalidationsBefore = invalidations.get();
+		int permissionsVersion = maxShopsPermissionsVersion;
+		int maxShops = calculateMaxShopsLimit(player);
+		CachedLimit newCachedLimit = new CachedLimit(
+				maxShops,
+				permissionsVersion,
+				nanoTime + CACHE_DURATION_NANOS
+		);
+		cachedLimits.put(playerId, newCachedLimit);
+		// If the limits have been invalidated in the meantime, the resolved limit might already be
+		// outdated:
+		if (invalidations.get() != invalidationsBefore) {
+			cachedLimits.remove(playerId, newCachedLimit);
+		}
+		return maxShops;
+	}
+
+	/**
+	 * Calculates the player's maximum shops limit, without using or updating the cached limit.
 	 * 
 	 * @param player
 	 *            the player, not <code>null</code>
 	 * @return the player's maximum shops limit, or {@link Integer#MAX_VALUE} if there is no limit
+	 * @see #getMaxShopsLimit(Player)
 	 */
-	public static int getMaxShopsLimit(Player player) {
+	public static int calculateMaxShopsLimit(Player player) {
 		if (Settings.maxShopsPerPlayer == -1) {
 			return Integer.MAX_VALUE; // No limit by default
 		}
@@ -103,4 +223,60 @@ public class PlayerShopsLimit {
 		}
 		return maxShops;
 	}
+
+	/**
+	 * Invalidates the cached maximum shops limit of the given player.
+	 * <p>
+	 * This can be called from any thread.
+	 * 
+	 * @param player
+	 *            the player, not <code>null</code>
+	 */
+	public void invalidateMaxShopsLimit(Player player) {
+		Validate.notNull(player, "player is null");
+		invalidations.incrementAndGet();
+		cachedLimits.remove(player.getUniqueId());
+	}
+
+	/**
+	 * Invalidates the cached maximum shops limits of all players.
+	 * <p>
+	 * This can be called from any thread.
+	 */
+	public void invalidateMaxShopsLimits() {
+		invalidations.incrementAndGet();
+		cachedLimits.clear();
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	void onPlayerJoin(PlayerJoinEvent event) {
+		this.invalidateMaxShopsLimit(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		this.invalidateMaxShopsLimit(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+		// Permission plugins may resolve the permissions of players based on their current world:
+		this.invalidateMaxShopsLimit(event.getPlayer());
+	}
+
+	// CACHE STATISTICS
+
+	public int getCacheSize() {
+		return cachedLimits.size();
+	}
+
+	// The number of limit lookups that used a cached limit.
+	public long getCacheHits() {
+		return cacheHits.get();
+	}
+
+	// The number of limit lookups that had to resolve the player's permissions.
+	public long getCacheMisses() {
+		return cacheMisses.get();
+	}
 }
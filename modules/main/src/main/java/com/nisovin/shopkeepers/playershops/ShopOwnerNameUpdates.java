@@ -1,6 +1,10 @@
 package com.nisovin.shopkeepers.playershops;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -9,27 +13,132 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
-import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.user.User;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.dependencies.citizens.CitizensUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
+import com.nisovin.shopkeepers.util.taskqueue.TaskQueue;
+import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
 
+/**
+ * Updates the stored owner names of player shops when their owners join the server with a
+ * different name.
+ * <p>
+ * To quickly skip players that don't own any shops or whose name has not changed, we keep track of
+ * the owner name that is stored by the shops of each shop owner. Only the players whose name does
+ * not match this known owner name are added to a queue, which then updates their shops over the
+ * course of several ticks.
+ * <p>
+ * Player shops report when they are added or removed, and when their owner changes. We also track
+ * the number of shops of each owner, so that we can forget about owners once they no longer own
+ * any shops.
+ */
 public class ShopOwnerNameUpdates implements Listener {
 
-	private final SKShopkeepersPlugin plugin;
+	// With this configuration we can update the shops of around 20 players per second.
+	static final int UPDATE_TASK_PERIOD_TICKS = 5;
+	static final int UPDATES_PER_EXECUTION = 5;
+
+	/**
+	 * A queue for load balancing the updates of the owner names of player shops.
+	 * <p>
+	 * Updating the owner names of a player requires searching through all player shops. In order
+	 * to avoid performance drops when many players join at the same time (e.g. after a server
+	 * restart), we use this queue to distribute these updates over several ticks.
+	 */
+	private final class UpdateQueue extends TaskQueue<UUID> {
+
+		// The player names to apply for the pending players:
+		private final Map<UUID, String> pendingNames = new HashMap<>();
+
+		UpdateQueue(Plugin plugin) {
+			super(plugin, UPDATE_TASK_PERIOD_TICKS, UPDATES_PER_EXECUTION);
+		}
+
+		void add(UUID playerId, String playerName) {
+			assert playerId != null && playerName != null;
+			if (pendingNames.put(playerId, playerName) != null) {
+				// The player is already pending. We only updated the name to apply.
+				return;
+			}
+			this.add(playerId);
+		}
+
+		@Override
+		protected void onRemoval(UUID playerId) {
+			super.onRemoval(playerId);
+			pendingNames.remove(playerId);
+		}
+
+		@Override
+		public void shutdown() {
+			super.shutdown();
+			pendingNames.clear();
+		}
+
+		@Override
+		protected void process(UUID playerId) {
+			String playerName = pendingNames.remove(playerId);
+			if (playerName == null) return; // Unexpected
+
+			updateShopkeepersForPlayer(playerId, playerName);
+		}
+	}
+
+	private static final class ShopOwner {
+
+		// The owner name that is stored by all of the owner's shops, or null if unknown, e.g. if
+		// the stored owner names are inconsistent among their shops.
+		private @Nullable String ownerName;
+		private int shopCount = 0;
+
+		ShopOwner(String ownerName) {
+			this.ownerName = ownerName;
+		}
+	}
+
+	private final Plugin plugin;
+	private final Function<UUID, Collection<? extends PlayerShopkeeper>> shopsByOwner;
+	// Triggers a delayed save after owner names were updated:
+	private final Runnable saveDelayed;
+	private final UpdateQueue updateQueue;
+	// Shop owner unique id -> shop owner. Players without an entry don't own any shops.
+	private final Map<UUID, ShopOwner> shopOwners = new HashMap<>();
 
 	public ShopOwnerNameUpdates(SKShopkeepersPlugin plugin) {
+		this(
+				plugin,
+				playerId -> plugin.getShopkeeperRegistry().getPlayerShopkeepersByOwner(playerId),
+				() -> plugin.getShopkeeperStorage().saveDelayed()
+		);
+	}
+
+	// Visible for testing:
+	ShopOwnerNameUpdates(
+			Plugin plugin,
+			Function<UUID, Collection<? extends PlayerShopkeeper>> shopsByOwner,
+			Runnable saveDelayed
+	) {
 		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(shopsByOwner, "shopsByOwner is null");
+		Validate.notNull(saveDelayed, "saveDelayed is null");
 		this.plugin = plugin;
+		this.shopsByOwner = shopsByOwner;
+		this.saveDelayed = saveDelayed;
+		this.updateQueue = new UpdateQueue(plugin);
 	}
 
 	public void onEnable() {
+		// The shopkeepers have already been loaded and reported their owners at this point.
+		this.startUpdateQueue();
 		Bukkit.getPluginManager().registerEvents(this, plugin);
 
 		// Update the owner information of all shops owned by players that are already online:
@@ -38,12 +147,67 @@ public class ShopOwnerNameUpdates implements Listener {
 			if (CitizensUtils.isNPC(player)) continue;
 			UUID playerId = player.getUniqueId();
 			String playerName = Unsafe.assertNonNull(player.getName());
-			this.updateShopkeepersForPlayer(playerId, playerName);
+			this.queueUpdateIfRequired(playerId, playerName);
 		}
 	}
 
+	// Visible for testing: Does not register the event handlers.
+	void startUpdateQueue() {
+		updateQueue.start();
+	}
+
 	public void onDisable() {
 		HandlerList.unregisterAll(this);
+		updateQueue.shutdown();
+		shopOwners.clear();
+	}
+
+	public TaskQueueStatistics getUpdateQueueStatistics() {
+		return updateQueue;
+	}
+
+	/**
+	 * This needs to be called whenever a player shop is added, or for the new owner when the owner
+	 * of a player shop is changed.
+	 *
+	 * @param owner
+	 *            the shop owner, not <code>null</code>
+	 */
+	public void onShopOwnerAdded(User owner) {
+		Validate.notNull(owner, "owner is null");
+		UUID ownerId = owner.getUniqueId();
+		String ownerName = owner.getLastKnownName();
+		ShopOwner shopOwner = shopOwners.computeIfAbsent(ownerId, key -> new ShopOwner(ownerName));
+		if (!ownerName.equals(shopOwner.ownerName)) {
+			// The owner names stored by the player's shops might be inconsistent now:
+			shopOwner.ownerName = null;
+		}
+		shopOwner.shopCount++;
+	}
+
+	/**
+	 * This needs to be called whenever a player shop is removed, or for the previous owner when the
+	 * owner of a player shop is changed.
+	 *
+	 * @param owner
+	 *            the previous shop owner, not <code>null</code>
+	 */
+	public void onShopOwnerRemoved(User owner) {
+		Validate.notNull(owner, "owner is null");
+		UUID ownerId = owner.getUniqueId();
+		ShopOwner shopOwner = shopOwners.get(ownerId);
+		if (shopOwner == null) return; // Unknown owner, e.g. if shops are removed during shutdown
+
+		shopOwner.shopCount--;
+		if (shopOwner.shopCount <= 0) {
+			// The player no longer owns any shops:
+			shopOwners.remove(ownerId);
+		}
+	}
+
+	// The number of players that own shops.
+	public int getKnownShopOwnerCount() {
+		return shopOwners.size();
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -56,7 +220,21 @@ public class ShopOwnerNameUpdates implements Listener {
 
 		// Update the owner information of all shops owned by this player:
 		String playerName = Unsafe.assertNonNull(player.getName());
-		this.updateShopkeepersForPlayer(player.getUniqueId(), playerName);
+		this.queueUpdateIfRequired(player.getUniqueId(), playerName);
+	}
+
+	private void queueUpdateIfRequired(UUID playerId, String playerName) {
+		ShopOwner shopOwner = shopOwners.get(playerId);
+		if (shopOwner == null) {
+			// The player does not own any shops.
+			return;
+		}
+		if (playerName.equals(shopOwner.ownerName)) {
+			// The stored owner names are up-to-date.
+			return;
+		}
+
+		updateQueue.add(playerId, playerName);
 	}
 
 	// Updates owner names for the shopkeepers of the specified player:
@@ -65,8 +243,7 @@ public class ShopOwnerNameUpdates implements Listener {
 				+ TextUtils.getPlayerString(playerName, playerId));
 
 		boolean dirty = false;
-		ShopkeeperRegistry shopkeeperRegistry = plugin.getShopkeeperRegistry();
-		for (PlayerShopkeeper playerShop : shopkeeperRegistry.getPlayerShopkeepersByOwner(playerId)) {
+		for (PlayerShopkeeper playerShop : shopsByOwner.apply(playerId)) {
 			String ownerName = playerShop.getOwnerName();
 			if (!ownerName.equals(playerName)) {
 				// Update the stored name, because the player must have changed it:
@@ -74,21 +251,19 @@ public class ShopOwnerNameUpdates implements Listener {
 						+ "Updating owner name '" + ownerName + "' to '" + playerName + "'.");
 				playerShop.setOwner(playerId, playerName);
 				dirty = true;
-			} else if (!dirty) { // Dirty if we already found a shop with mismatching name
-				// The stored owner name matches the player's current name.
-				// Since we assume that the stored owner names among all shopkeepers are consistent,
-				// we can abort checking the remaining shops of this player.
-				Log.debug(DebugOptions.ownerNameUpdates, () -> playerShop.getLogPrefix()
-						+ "Owner name '" + ownerName + "' is up-to-date. "
-						+ "Assuming the owner names of all shopkeepers are consistent, "
-						+ "we skip checking all other shopkeepers.");
-				return;
 			}
 		}
 
+		// All shops of the player store the player's current name now:
+		ShopOwner shopOwner = shopOwners.get(playerId);
+		if (shopOwner != null) {
+			shopOwner.ownerName = playerName;
+		}
+
 		// Save:
+		// The save is delayed so that the updates of several players can be saved together.
 		if (dirty) {
-			plugin.getShopkeeperStorage().save();
+			saveDelayed.run();
 		}
 	}
 }
@@ -2,10 +2,12 @@ package com.nisovin.shopkeepers.playershops.inactivity;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
@@ -15,19 +17,22 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.PlayerInactiveEvent;
-import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.api.user.User;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
-import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
  * Identifies and deletes the shops that are owned by inactive players.
+ * <p>
+ * Shop owners that are online, or that were recently seen according to the
+ * {@link PlayerLastSeenIndex}, are ruled out in memory. Only the last played times of the remaining
+ * shop owners are queried asynchronously. The shops of the inactive players are then deleted via
+ * a bulk deletion of the shopkeeper registry, which spreads the deletions across several ticks.
  */
 class DeleteShopsOfInactivePlayersProcedure {
 
@@ -51,20 +56,35 @@ class DeleteShopsOfInactivePlayersProcedure {
 
 	private final SKShopkeepersPlugin plugin;
 	private final SKShopkeeperRegistry shopkeeperRegistry;
+	private final PlayerLastSeenIndex lastSeenIndex;
 	private final int playerInactivityDays;
 
 	private boolean started = false;
 	// Retrieved once and then reused for all inactivity checks of this procedure:
 	private final long currentTimeMillis = System.currentTimeMillis();
-	private final Map<User, @Nullable InactivePlayerData> inactivePlayers = new HashMap<>();
-
-	public DeleteShopsOfInactivePlayersProcedure(SKShopkeepersPlugin plugin) {
+	// Players that were last seen after this time are not inactive:
+	private final long inactivityThresholdMillis;
+	// The shop owners that could not be ruled out as inactive via the last seen index, and their
+	// last seen times according to the index (0 if unknown):
+	private final Map<User, Long> inactivityCandidates = new HashMap<>();
+	// The last played times retrieved for the inactivity candidates (only known times):
+	private final Map<UUID, Long> lastPlayedTimes = new HashMap<>();
+	private final Map<User, InactivePlayerData> inactivePlayers = new LinkedHashMap<>();
+
+	public DeleteShopsOfInactivePlayersProcedure(
+			SKShopkeepersPlugin plugin,
+			PlayerLastSeenIndex lastSeenIndex
+	) {
 		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(lastSeenIndex, "lastSeenIndex is null");
 		this.plugin = plugin;
 		this.shopkeeperRegistry = plugin.getShopkeeperRegistry();
+		this.lastSeenIndex = lastSeenIndex;
 		// Local copy, because this setting might change while we use it, and we might access it
 		// asynchronously:
 		this.playerInactivityDays = Settings.playerShopkeeperInactiveDays;
+		this.inactivityThresholdMillis = currentTimeMillis
+				- TimeUnit.DAYS.toMillis(playerInactivityDays);
 	}
 
 	/**
@@ -80,36 +100,54 @@ class DeleteShopsOfInactivePlayersProcedure {
 
 		Log.info("Checking for shopkeepers of inactive players.");
 
-		this.collectShopOwners();
-		if (inactivePlayers.isEmpty()) {
-			return; // There are no player shops
+		this.collectInactivityCandidates();
+		if (inactivityCandidates.isEmpty()) {
+			return; // There are no player shops, or all shop owners are active
 		}
 
-		this.asyncCheckInactivityOfAllShopOwnersAndContinue();
+		this.asyncCheckInactivityOfCandidatesAndContinue();
 	}
 
-	// This initially collects all shop owners into the inactivePlayers Map, which is subsequently
-	// pruned from shop owners that are not actually inactive.
-	private void collectShopOwners() {
+	// Collects the shop owners that cannot be ruled out as inactive via the last seen index.
+	private void collectInactivityCandidates() {
+		Set<User> shopOwners = new HashSet<>();
 		shopkeeperRegistry.getAllPlayerShopkeepers().forEach(playerShop -> {
-			// In this first step, we only collect the existing shop owners, and don't store their
-			// shopkeepers yet. Later, we collect the shopkeepers of only the inactive shop owners.
-			inactivePlayers.put(playerShop.getOwnerUser(), null);
+			shopOwners.add(playerShop.getOwnerUser());
+		});
+
+		shopOwners.forEach(user -> {
+			// Online players are not inactive:
+			if (user.isOnline()) return;
+
+			// Recently seen players are not inactive:
+			if (lastSeenIndex.isSeenAfter(user.getUniqueId(), inactivityThresholdMillis)) return;
+
+			// The index is not authoritative: The player's last played time is checked as well.
+			long lastSeen = lastSeenIndex.getLastSeen(user.getUniqueId());
+			inactivityCandidates.put(user, lastSeen);
 		});
+
+		Log.debug(() -> "Found " + inactivityCandidates.size() + " of " + shopOwners.size()
+				+ " shop owners that might be inactive.");
+	}
+
+	private int getDaysSince(long timestampMillis) {
+		long millisSince = currentTimeMillis - timestampMillis;
+		return (int) TimeUnit.MILLISECONDS.toDays(millisSince);
+	}
+
+	private boolean isInactive(long lastSeenMillis) {
+		return this.getDaysSince(lastSeenMillis) >= playerInactivityDays;
 	}
 
-	private void asyncCheckInactivityOfAllShopOwnersAndContinue() {
+	private void asyncCheckInactivityOfCandidatesAndContinue() {
 		// We retrieve the OfflinePlayers and their 'last played' times asynchronously:
 		new BukkitRunnable() {
 			@Override
 			public void run() {
-				// Set up the data for all inactive shop owners, and remove all shop owners that are
-				// not inactive:
+				// Set up the data for all inactive shop owners:
 				setUpInactiveShopOwners();
 
-				// Abort if no inactive players were found:
-				if (inactivePlayers.isEmpty()) return;
-
 				// Abort if the task has been cancelled in the meantime (e.g. if the plugin has been
 				// disabled or reloaded):
 				if (this.isCancelled()) return;
@@ -120,27 +158,19 @@ class DeleteShopsOfInactivePlayersProcedure {
 	}
 
 	// This may be called asynchronously.
-	// Sets up the data for all inactive shop owners, and removes all shop owners that are not
-	// inactive.
+	// Sets up the data for all inactive shop owners.
 	private void setUpInactiveShopOwners() {
-		Iterator<Entry<User, @Nullable InactivePlayerData>> iterator = inactivePlayers.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Entry<User, @Nullable InactivePlayerData> entry = iterator.next();
-			User user = entry.getKey();
-			InactivePlayerData data = this.setUpIfInactive(user);
-			if (data == null) {
-				// The user is not inactive:
-				iterator.remove();
-			} else {
-				entry.setValue(data);
+		inactivityCandidates.forEach((user, lastSeen) -> {
+			InactivePlayerData data = this.setUpIfInactive(user, lastSeen);
+			if (data != null) {
+				inactivePlayers.put(user, data);
 			}
-		}
-		assert !CollectionUtils.containsNull(inactivePlayers.values());
+		});
 	}
 
 	// This may be called asynchronously.
 	// Returns null if the given user is not inactive.
-	private @Nullable InactivePlayerData setUpIfInactive(User user) {
+	private @Nullable InactivePlayerData setUpIfInactive(User user, long lastSeen) {
 		assert user != null;
 		OfflinePlayer offlinePlayer = user.getOfflinePlayer();
 		// Some servers may delete player data files, either regularly for all players (which breaks
@@ -152,17 +182,25 @@ class DeleteShopsOfInactivePlayersProcedure {
 		long lastPlayedMillis = offlinePlayer.getLastPlayed();
 		if (lastPlayedMillis == 0) return null; // 0 if unknown (see reasoning above)
 
-		long millisSinceLastPlayed = currentTimeMillis - lastPlayedMillis;
-		int daysSinceLastPlayed = (int) TimeUnit.MILLISECONDS.toDays(millisSinceLastPlayed);
-		if (daysSinceLastPlayed < playerInactivityDays) return null;
+		// Remembered to update the last seen index:
+		lastPlayedTimes.put(user.getUniqueId(), lastPlayedMillis);
 
-		return new InactivePlayerData(daysSinceLastPlayed);
+		// Use the more recent of both times:
+		long lastSeenMillis = Math.max(lastSeen, lastPlayedMillis);
+		if (!this.isInactive(lastSeenMillis)) return null;
+
+		return new InactivePlayerData(this.getDaysSince(lastSeenMillis));
 	}
 
 	private void continueWithInactiveShopOwners() {
 		assert Bukkit.isPrimaryThread();
-		assert !inactivePlayers.isEmpty();
-		assert !CollectionUtils.containsNull(inactivePlayers.values());
+		// Add the retrieved last played times to the index, so that subsequent checks can rule out
+		// these players in memory until they are actually inactive:
+		lastPlayedTimes.forEach(lastSeenIndex::update);
+
+		// Abort if no inactive players were found:
+		if (inactivePlayers.isEmpty()) return;
+
 		this.collectShopsOfInactivePlayers();
 		this.deleteShopsOfInactivePlayers();
 	}
@@ -181,50 +219,92 @@ class DeleteShopsOfInactivePlayersProcedure {
 	}
 
 	private void deleteShopsOfInactivePlayers() {
-		inactivePlayers.forEach((user, nullableInactivePlayerData) -> {
-			InactivePlayerData inactivePlayerData = Unsafe.assertNonNull(nullableInactivePlayerData);
-			List<? extends PlayerShopkeeper> shopkeepers = inactivePlayerData.getShopkeepers();
-			if (shopkeepers.isEmpty()) {
-				// We initially found this shop owner and identified them as inactive, but were then
-				// subsequently no longer able to find any shopkeepers that are still owned by them.
-				return;
-			}
-
-			int originalShopkeepersCount = shopkeepers.size();
-
-			// Call event:
-			PlayerInactiveEvent event = new PlayerInactiveEvent(user, shopkeepers);
-			Bukkit.getPluginManager().callEvent(event);
+		// Preserves the order of the shops:
+		Map<PlayerShopkeeper, InactivePlayerData> shopsToDelete = new LinkedHashMap<>();
+		inactivePlayers.forEach((user, inactivePlayerData) -> {
+			List<? extends PlayerShopkeeper> shopkeepers = this.prepareDeletion(
+					user,
+					inactivePlayerData
+			);
+			if (shopkeepers == null) return;
 
-			if (event.isCancelled() || shopkeepers.isEmpty()) {
-				Log.debug(() -> "Ignoring inactive player " + TextUtils.getPlayerString(user)
-						+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo() + " days ago)"
-						+ " and their " + originalShopkeepersCount + " shopkeepers"
-						+ (shopkeepers.size() != originalShopkeepersCount
-								? " (reduced to " + shopkeepers.size() + ")" : "")
-						+ ": Cancelled by a plugin.");
-				return;
-			}
-
-			// Delete the shopkeepers:
 			shopkeepers.forEach(playerShop -> {
-				if (!playerShop.isValid()) {
-					// The shopkeeper has already been removed in the meantime.
-					Log.debug(() -> playerShop.getUniqueIdLogPrefix()
-							+ "Deletion due to inactivity of owner " + playerShop.getOwnerString()
-							+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo()
-							+ " days ago)" + " skipped: The shopkeeper has already been removed.");
-					return;
+				if (this.prepareShopDeletion(playerShop, inactivePlayerData)) {
+					shopsToDelete.put(playerShop, inactivePlayerData);
 				}
-
-				Log.info(playerShop.getUniqueIdLogPrefix() + "Deletion due to inactivity of owner "
-						+ playerShop.getOwnerString() + " (last seen "
-						+ inactivePlayerData.getLastSeenDaysAgo() + " days ago).");
-				playerShop.delete();
 			});
 		});
+		if (shopsToDelete.isEmpty()) return;
+
+		// The shops are deleted in batches over the course of several ticks. This also triggers a
+		// save once all shops have been deleted.
+		shopkeeperRegistry.deleteShopkeepers(shopsToDelete.keySet(), null).thenAccept(
+				deletedShopkeepers -> this.onShopsDeleted(shopsToDelete, deletedShopkeepers)
+		);
+	}
+
+	private void onShopsDeleted(
+			Map<PlayerShopkeeper, InactivePlayerData> deletedShops,
+			int deletedShopkeepers
+	) {
+		deletedShops.forEach((playerShop, inactivePlayerData) -> {
+			// Skip shops that have not been deleted, e.g. because they were already removed before
+			// it was their turn:
+			if (playerShop.isValid()) return;
+
+			Log.info(playerShop.getUniqueIdLogPrefix() + "Deleted due to inactivity of owner "
+					+ playerShop.getOwnerString() + " (last seen "
+					+ inactivePlayerData.getLastSeenDaysAgo() + " days ago).");
+		});
+		if (deletedShopkeepers > 0) {
+			Log.info("Deleted " + deletedShopkeepers + " shopkeepers of inactive players.");
+		}
+	}
 
-		// Save if necessary:
-		plugin.getShopkeeperStorage().saveIfDirty();
+	// Returns null if the shops of the given inactive player are not deleted.
+	private @Nullable List<? extends PlayerShopkeeper> prepareDeletion(
+			User user,
+			InactivePlayerData inactivePlayerData
+	) {
+		List<? extends PlayerShopkeeper> shopkeepers = inactivePlayerData.getShopkeepers();
+		if (shopkeepers.isEmpty()) {
+			// We initially found this shop owner and identified them as inactive, but were then
+			// subsequently no longer able to find any shopkeepers that are still owned by them.
+			return null;
+		}
+
+		int originalShopkeepersCount = shopkeepers.size();
+
+		// Call event:
+		PlayerInactiveEvent event = new PlayerInactiveEvent(user, shopkeepers);
+		Bukkit.getPluginManager().callEvent(event);
+
+		if (event.isCancelled() || shopkeepers.isEmpty()) {
+			Log.debug(() -> "Ignoring inactive player " + TextUtils.getPlayerString(user)
+					+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo() + " days ago)"
+					+ " and their " + originalShopkeepersCount + " shopkeepers"
+					+ (shopkeepers.size() != originalShopkeepersCount
+							? " (reduced to " + shopkeepers.size() + ")" : "")
+					+ ": Cancelled by a plugin.");
+			return null;
+		}
+
+		return shopkeepers;
+	}
+
+	// Returns true if the shopkeeper is to be deleted.
+	private boolean prepareShopDeletion(
+			PlayerShopkeeper playerShop,
+			InactivePlayerData inactivePlayerData
+	) {
+		if (!playerShop.isValid()) {
+			// The shopkeeper has already been removed in the meantime.
+			Log.debug(() -> playerShop.getUniqueIdLogPrefix()
+					+ "Deletion due to inactivity of owner " + playerShop.getOwnerString()
+					+ " (last seen " + inactivePlayerData.getLastSeenDaysAgo()
+					+ " days ago)" + " skipped: The shopkeeper has already been removed.");
+			return false;
+		}
+		return true;
 	}
 }
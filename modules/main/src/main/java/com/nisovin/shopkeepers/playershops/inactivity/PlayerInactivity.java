@@ -16,15 +16,20 @@ import com.nisovin.shopkeepers.util.java.Validate;
 public class PlayerInactivity {
 
 	private final SKShopkeepersPlugin plugin;
+	private final PlayerLastSeenIndex lastSeenIndex;
 	private final DeleteInactivePlayerShopsTask task;
 
 	public PlayerInactivity(SKShopkeepersPlugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
 		this.plugin = plugin;
+		this.lastSeenIndex = new PlayerLastSeenIndex(plugin);
 		this.task = new DeleteInactivePlayerShopsTask(plugin);
 	}
 
 	public void onEnable() {
+		// The last seen index is also kept up-to-date while the feature is disabled:
+		lastSeenIndex.onEnable();
+
 		if (Settings.playerShopkeeperInactiveDays <= 0) return; // Feature is disabled
 
 		// Delete inactive player shops, once shortly after plugin startup, and then periodically:
@@ -33,6 +38,11 @@ public class PlayerInactivity {
 
 	public void onDisable() {
 		task.stop();
+		lastSeenIndex.onDisable();
+	}
+
+	public PlayerLastSeenIndex getLastSeenIndex() {
+		return lastSeenIndex;
 	}
 
 	/**
@@ -42,7 +52,7 @@ public class PlayerInactivity {
 	 * The task is also run shortly after being started.
 	 * <p>
 	 * Since we measure player inactivity in granularity of days, and since the checking for
-	 * inactive players is relatively performance-intensive, we run this task very infrequently. It
+	 * inactive players can be performance-intensive, we run this task very infrequently. It
 	 * is also not required that this task runs exactly in the specified interval, which is
 	 * unlikely, because server lag can noticeably influence the exact interval duration. The
 	 * primary purpose of this task is to account for servers that keep running for very long
@@ -84,6 +94,6 @@ public class PlayerInactivity {
 	// TODO Also add a command to manually detect and then optionally delete inactive player shops?
 	public void deleteShopsOfInactivePlayers() {
 		if (Settings.playerShopkeeperInactiveDays <= 0) return; // Feature is disabled
-		new DeleteShopsOfInactivePlayersProcedure(plugin).start();
+		new DeleteShopsOfInactivePlayersProcedure(plugin, lastSeenIndex).start();
 	}
 }
@@ -0,0 +1,270 @@
+package com.nisovin.shopkeepers.playershops.inactivity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.dependencies.citizens.CitizensUtils;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.bukkit.Ticks;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Keeps track of when players were last seen on the server.
+ * <p>
+ * This index is updated when players join or leave the server, and is persisted to a compact file
+ * next to the shopkeeper save data. This allows the detection of inactive shop owners to mostly
+ * avoid querying the players' last played times, which requires loading the player data files from
+ * disk.
+ * <p>
+ * Players are tracked regardless of whether the inactivity feature is enabled, so that the index is
+ * up-to-date when the feature is enabled later. However, the index may still be incomplete or
+ * outdated, for example if the plugin was not installed for some time. The index is therefore only
+ * used to quickly rule out active players, but not to decide that a player is inactive.
+ * <p>
+ * The index is saved asynchronously. Each save writes a snapshot of the index that is taken on the
+ * main thread. Snapshots that are older than the last written snapshot are not written, so that a
+ * delayed save cannot overwrite more recent data. If a save fails, the index is saved again during
+ * the next save.
+ */
+public class PlayerLastSeenIndex implements Listener {
+
+	private static final String DATA_FOLDER = "data";
+	private static final String FILE_NAME = "last-seen.txt";
+
+	// ~5 minutes
+	static final long SAVE_INTERVAL_TICKS = Ticks.PER_SECOND * 60 * 5L;
+
+	private final Plugin plugin;
+	private final Path file;
+	// Player unique id -> last seen timestamp (in milliseconds since epoch)
+	private final Map<UUID, Long> lastSeenByPlayer = new HashMap<>();
+	private boolean dirty = false;
+	private @Nullable BukkitTask saveTask = null;
+	// The id of the last snapshot that was taken for a save:
+	private long lastSnapshotId = 0L;
+	// Used to synchronize writes to the file:
+	private final Object fileLock = new Object();
+	// Guarded by the file lock:
+	private long lastWrittenSnapshotId = 0L;
+
+	public PlayerLastSeenIndex(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+		this.file = plugin.getDataFolder().toPath().resolve(DATA_FOLDER).resolve(FILE_NAME);
+	}
+
+	public void onEnable() {
+		this.load();
+
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+
+		// Players that are already online (e.g. after a reload) are seen now:
+		long now = System.currentTimeMillis();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			assert player != null;
+			if (CitizensUtils.isNPC(player)) continue;
+			this.update(player.getUniqueId(), now);
+		}
+
+		saveTask = Bukkit.getScheduler().runTaskTimer(
+				plugin,
+				() -> this.saveIfDirty(true),
+				SAVE_INTERVAL_TICKS,
+				SAVE_INTERVAL_TICKS
+		);
+	}
+
+	public void onDisable() {
+		HandlerList.unregisterAll(this);
+		if (saveTask != null) {
+			saveTask.cancel();
+			saveTask = null;
+		}
+
+		// Players that are still online are seen now:
+		long now = System.currentTimeMillis();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			assert player != null;
+			if (CitizensUtils.isNPC(player)) continue;
+			this.update(player.getUniqueId(), now);
+		}
+
+		this.saveIfDirty(false);
+		lastSeenByPlayer.clear();
+		dirty = false;
+	}
+
+	/**
+	 * Gets the time at which the specified player was last seen.
+	 * <p>
+	 * This does not account for whether the player is currently online.
+	 *
+	 * @param playerId
+	 *            the player's unique id
+	 * @return the last seen timestamp in milliseconds since epoch, or <code>0</code> if unknown
+	 */
+	public long getLastSeen(UUID playerId) {
+		Validate.notNull(playerId, "playerId is null");
+		Long lastSeen = lastSeenByPlayer.get(playerId);
+		return (lastSeen != null) ? lastSeen : 0L;
+	}
+
+	/**
+	 * Updates the time at which the specified player was last seen.
+	 * <p>
+	 * This has no effect if the given timestamp is older than the currently stored timestamp.
+	 *
+	 * @param playerId
+	 *            the player's unique id
+	 * @param lastSeen
+	 *            the last seen timestamp in milliseconds since epoch, <code>0</code> is ignored
+	 */
+	public void update(UUID playerId, long lastSeen) {
+		Validate.notNull(playerId, "playerId is null");
+		if (lastSeen <= 0) return;
+		Long previous = lastSeenByPlayer.get(playerId);
+		if (previous != null && previous >= lastSeen) return;
+
+		lastSeenByPlayer.put(playerId, lastSeen);
+		dirty = true;
+	}
+
+	/**
+	 * Checks if the specified player was last seen after the given time.
+	 * <p>
+	 * Players that are unknown to this index are not seen after any time.
+	 *
+	 * @param playerId
+	 *            the player's unique id
+	 * @param timestamp
+	 *            the timestamp in milliseconds since epoch
+	 * @return <code>true</code> if the player was last seen after the given time
+	 */
+	public boolean isSeenAfter(UUID playerId, long timestamp) {
+		return this.getLastSeen(playerId) > timestamp;
+	}
+
+	public int getSize() {
+		return lastSeenByPlayer.size();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerJoin(PlayerJoinEvent event) {
+		Player player = event.getPlayer();
+		if (CitizensUtils.isNPC(player)) return;
+		this.update(player.getUniqueId(), System.currentTimeMillis());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		Player player = event.getPlayer();
+		if (CitizensUtils.isNPC(player)) return;
+		this.update(player.getUniqueId(), System.currentTimeMillis());
+	}
+
+	// LOADING AND SAVING
+
+	// Format: One '<uuid> <last-seen-millis>' entry per line.
+	// Visible for testing:
+	void load() {
+		lastSeenByPlayer.clear();
+		dirty = false;
+
+		int invalidEntries = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) continue;
+				int separatorIndex = line.indexOf(' ');
+				if (separatorIndex == -1) {
+					invalidEntries++;
+					continue;
+				}
+
+				try {
+					UUID playerId = UUID.fromString(line.substring(0, separatorIndex));
+					long lastSeen = Long.parseLong(line.substring(separatorIndex + 1));
+					this.update(playerId, lastSeen);
+				} catch (IllegalArgumentException e) { // Also includes NumberFormatException
+					invalidEntries++;
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// The index has not been saved yet.
+		} catch (IOException e) {
+			Log.warning("Failed to load the player last seen index from '"
+					+ FileUtils.relativize(plugin.getDataFolder().toPath(), file) + "'!", e);
+		}
+
+		if (invalidEntries > 0) {
+			Log.warning("Ignored " + invalidEntries + " invalid entries of the player last seen"
+					+ " index.");
+		}
+		// The loaded data matches the file:
+		dirty = false;
+	}
+
+	// Visible for testing:
+	void saveIfDirty(boolean async) {
+		if (!dirty) return;
+		dirty = false;
+
+		// Prepare the file contents on the main thread:
+		StringBuilder content = new StringBuilder(lastSeenByPlayer.size() * 52);
+		lastSeenByPlayer.forEach((playerId, lastSeen) -> {
+			content.append(playerId).append(' ').append(lastSeen).append('\n');
+		});
+		String data = content.toString();
+		long snapshotId = ++lastSnapshotId;
+
+		if (async) {
+			SchedulerUtils.runAsyncTaskOrOmit(plugin, () -> this.saveToFile(snapshotId, data));
+		} else {
+			this.saveToFile(snapshotId, data);
+		}
+	}
+
+	// This may be called asynchronously.
+	private void saveToFile(long snapshotId, String data) {
+		synchronized (fileLock) {
+			// Skip the snapshot if a more recent snapshot has already been written:
+			if (snapshotId <= lastWrittenSnapshotId) return;
+
+			try {
+				FileUtils.writeSafely(
+						file,
+						data,
+						StandardCharsets.UTF_8,
+						Log.getLogger(),
+						plugin.getDataFolder().toPath()
+				);
+				lastWrittenSnapshotId = snapshotId;
+			} catch (IOException e) {
+				Log.warning("Failed to save the player last seen index!", e);
+				// Save the index again during the next save:
+				SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> dirty = true);
+			}
+		}
+	}
+}
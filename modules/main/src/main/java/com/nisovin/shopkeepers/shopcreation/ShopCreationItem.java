@@ -9,6 +9,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
@@ -38,10 +39,14 @@ public final class ShopCreationItem {
 		return isShopCreationItem(ItemUtils.asItemStackOrNull(itemStack));
 	}
 
+	// This is called very frequently, e.g. for every player interaction. The item data matching
+	// rejects items of a different type, and items without any item data if the shop creation item
+	// has item data, before it retrieves any item metadata.
 	public static boolean isShopCreationItem(@ReadOnly @Nullable ItemStack itemStack) {
 		if (Settings.identifyShopCreationItemByTag) {
 			return hasTag(itemStack);
 		} else {
+			if (ItemUtils.isEmpty(itemStack)) return false;
 			return Settings.shopCreationItem.matches(itemStack);
 		}
 	}
@@ -50,6 +55,14 @@ public final class ShopCreationItem {
 		if (ItemUtils.isEmpty(itemStack)) return false;
 		assert itemStack != null;
 
+		// Fast paths: Avoid copying the item metadata if the item cannot have the tag.
+		if (!itemStack.hasItemMeta()) return false;
+		Boolean hasKey = NMSManager.getProvider().hasPersistentDataKey(
+				itemStack,
+				KEY_SHOP_CREATION_ITEM
+		);
+		if (hasKey != null && !hasKey) return false;
+
 		ItemMeta meta = Unsafe.assertNonNull(itemStack.getItemMeta());
 		PersistentDataContainer dataContainer = meta.getPersistentDataContainer();
 		// TODO Use has(NamespacedKey) without the data type validation once we depend on 1.20.4+?
@@ -173,6 +173,8 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	// UI type identifier -> UI handler
 	private final Map<String, UIHandler> uiHandlers = new HashMap<>();
 
+	private final TradingRecipesCache tradingRecipesCache = new TradingRecipesCache();
+
 	// Internally used for load balancing purposes:
 	private final int tickingGroup = ShopkeeperTicker.nextTickingGroup();
 
@@ -226,6 +228,23 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 		this.commonSetup();
 	}
 
+	// Visible for testing: Initializes the shopkeeper with only the given data and without a shop
+	// object, because creating or loading shopkeepers via their shop type requires a running
+	// plugin. These shopkeepers can be stored by location and ticked, but not much else.
+	final void initForTesting(int id, UUID uniqueId, BlockLocation location, String name) {
+		Validate.notNull(uniqueId, "uniqueId is null");
+		Validate.notNull(location, "location is null");
+		Validate.isTrue(location.hasWorldName(), "location has no world name");
+		Validate.notNull(name, "name is null");
+		this.initialize();
+
+		this.id = id;
+		this.uniqueId = uniqueId;
+		this.location = location.immutable();
+		this.updateChunkCoords();
+		this.name = name;
+	}
+
 	private void initialize() {
 		Validate.State.isTrue(!initialized, "The shopkeeper has already been initialized!");
 		initialized = true;
@@ -578,11 +597,16 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	 */
 	public final void markDirty() {
 		dirty = true;
+		// Any data change might affect the trading recipes:
+		tradingRecipesCache.invalidate();
 		// Inform the storage that the shopkeeper is dirty:
 		if (this.isValid()) {
 			// If the shopkeeper is marked as dirty during creation or loading (while it is not yet
 			// valid), the storage is informed once the shopkeeper becomes valid.
-			SKShopkeepersPlugin.getInstance().getShopkeeperStorage().markDirty(this);
+			SKShopkeepersPlugin plugin = SKShopkeepersPlugin.getInstance();
+			plugin.getShopkeeperStorage().markDirty(this);
+			// Update the shopkeeper's entry in the registry snapshots:
+			plugin.getShopkeeperRegistry().onShopkeeperChanged(this);
 		}
 	}
 
@@ -804,12 +828,24 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 		this.delete(null);
 	}
 
-	// TODO Make this final and provide the involved player to the onDeletion method somehow.
 	@Override
-	public void delete(@Nullable Player player) {
+	public final void delete(@Nullable Player player) {
+		this.prepareDeletion(player);
 		SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().deleteShopkeeper(this);
 	}
 
+	/**
+	 * This is called when the shopkeeper is about to be deleted, possibly by a player.
+	 * <p>
+	 * This is called before the {@link ShopkeeperRemoveEvent} is called, both for shopkeepers that
+	 * are deleted individually and for shopkeepers that are deleted in bulk.
+	 * 
+	 * @param player
+	 *            the player who deletes the shopkeeper, or <code>null</code>
+	 */
+	public void prepareDeletion(@Nullable Player player) {
+	}
+
 	/**
 	 * This is called when the shopkeeper is about to be permanently deleted.
 	 * <p>
@@ -1526,6 +1562,70 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	@Override
 	public abstract List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player);
 
+	/**
+	 * Whether the trading recipes of this shopkeeper can be cached.
+	 * <p>
+	 * This requires that the trading recipes do not depend on the trading player, and that they
+	 * only change when the shopkeeper's data changes (i.e. when the shopkeeper is
+	 * {@link #markDirty() marked dirty}), when the settings change, or when the
+	 * {@link #getTradingRecipesCacheState() cache state} changes.
+	 * <p>
+	 * By default, this returns <code>false</code>.
+	 * 
+	 * @return <code>true</code> if the trading recipes can be cached
+	 */
+	protected boolean isTradingRecipesCacheable() {
+		return false;
+	}
+
+	/**
+	 * Gets any additional state that the trading recipes of this shopkeeper depend on.
+	 * <p>
+	 * The cached trading recipes are discarded if this state is no longer
+	 * {@link Object#equals(Object) equal} to the state at the time the trading recipes were
+	 * cached.
+	 * <p>
+	 * By default, this returns <code>null</code>.
+	 * 
+	 * @return the cache state, can be <code>null</code>
+	 */
+	protected @Nullable Object getTradingRecipesCacheState() {
+		return null;
+	}
+
+	/**
+	 * Gets the trading recipes for the given player, similar to
+	 * {@link #getTradingRecipes(Player)}, but reuses the previously created trading recipes if they
+	 * are still valid.
+	 * 
+	 * @param player
+	 *            the trading player, can be <code>null</code>
+	 * @return the trading recipes, not <code>null</code>, not to be modified
+	 * @see #isTradingRecipesCacheable()
+	 */
+	public final List<? extends TradingRecipe> getCachedTradingRecipes(@Nullable Player player) {
+		if (!this.isTradingRecipesCacheable()) {
+			return this.getTradingRecipes(player);
+		}
+
+		Object state = this.getTradingRecipesCacheState();
+		List<? extends TradingRecipe> recipes = tradingRecipesCache.getRecipes(state);
+		if (recipes == null) {
+			recipes = this.getTradingRecipes(player);
+			tradingRecipesCache.setRecipes(recipes, state);
+		}
+		return recipes;
+	}
+
+	/**
+	 * Gets the {@link TradingRecipesCache} of this shopkeeper.
+	 * 
+	 * @return the trading recipes cache, not <code>null</code>
+	 */
+	public final TradingRecipesCache getTradingRecipesCache() {
+		return tradingRecipesCache;
+	}
+
 	// USER INTERFACES
 
 	@Override
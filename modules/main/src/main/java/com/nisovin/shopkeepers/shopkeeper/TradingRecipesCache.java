@@ -0,0 +1,119 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.bukkit.inventory.MerchantRecipe;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Caches the trading recipes of a shopkeeper, and the {@link MerchantRecipe}s that were created
+ * from them.
+ * <p>
+ * The cached trading recipes are only reused as long as the shopkeeper provides an equal cache
+ * state (see {@link AbstractShopkeeper#getTradingRecipesCacheState()}), and as long as neither the
+ * cache of this shopkeeper nor the caches of all shopkeepers (e.g. due to a settings change) have
+ * been invalidated.
+ */
+public final class TradingRecipesCache {
+
+	// Incremented whenever the caches of all shopkeepers become invalid:
+	private static int globalGeneration = 0;
+
+	/**
+	 * Invalidates the cached trading recipes of all shopkeepers.
+	 * <p>
+	 * This needs to be called whenever there are changes that might affect the trading recipes of
+	 * all shopkeepers, for example when the settings have changed.
+	 */
+	public static void invalidateAll() {
+		globalGeneration++;
+	}
+
+	// Null if not cached:
+	private @Nullable List<? extends TradingRecipe> recipes = null;
+	private @Nullable Object state = null;
+	private int generation = 0;
+	// Created from the cached trading recipes. Null if not cached:
+	private @Nullable List<? extends MerchantRecipe> merchantRecipes = null;
+
+	TradingRecipesCache() {
+	}
+
+	/**
+	 * Gets the cached trading recipes, if they are still valid for the given cache state.
+	 *
+	 * @param state
+	 *            the current cache state
+	 * @return the cached trading recipes, or <code>null</code> if not cached or no longer valid
+	 */
+	@Nullable
+	List<? extends TradingRecipe> getRecipes(@Nullable Object state) {
+		if (recipes == null) return null;
+		if (generation != globalGeneration || !Objects.equals(this.state, state)) {
+			this.invalidate();
+			return null;
+		}
+		return recipes;
+	}
+
+	void setRecipes(List<? extends TradingRecipe> recipes, @Nullable Object state) {
+		Validate.notNull(recipes, "recipes is null");
+		this.recipes = recipes;
+		this.state = state;
+		this.generation = globalGeneration;
+		this.merchantRecipes = null;
+	}
+
+	/**
+	 * Gets the cached merchant recipes, if they have been created from the given trading recipes.
+	 * <p>
+	 * The returned merchant recipes must not be modified.
+	 *
+	 * @param recipes
+	 *            the trading recipes
+	 * @return the cached merchant recipes, or <code>null</code> if not cached
+	 */
+	public @Nullable List<? extends MerchantRecipe> getMerchantRecipes(
+			List<? extends TradingRecipe> recipes
+	) {
+		// Only valid if the given recipes are the currently cached trading recipes:
+		if (recipes != this.recipes) return null;
+		return merchantRecipes;
+	}
+
+	/**
+	 * Caches the given merchant recipes.
+	 * <p>
+	 * This has no effect if the given trading recipes are not the currently cached trading
+	 * recipes.
+	 *
+	 * @param recipes
+	 *            the trading recipes
+	 * @param merchantRecipes
+	 *            the merchant recipes that were created from the trading recipes, not modified
+	 *            afterwards
+	 */
+	public void setMerchantRecipes(
+			List<? extends TradingRecipe> recipes,
+			List<? extends MerchantRecipe> merchantRecipes
+	) {
+		Validate.notNull(merchantRecipes, "merchantRecipes is null");
+		if (recipes != this.recipes) return;
+		this.merchantRecipes = Collections.unmodifiableList(new ArrayList<>(merchantRecipes));
+	}
+
+	/**
+	 * Invalidates the cached recipes.
+	 */
+	public void invalidate() {
+		recipes = null;
+		state = null;
+		merchantRecipes = null;
+	}
+}
@@ -27,8 +27,9 @@ import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawner;
 import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTicker;
-import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.ChunkKeys;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.Long2ObjectMap;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 import com.nisovin.shopkeepers.util.timer.Timer;
@@ -60,7 +61,6 @@ public class ShopkeeperChunkActivator {
 	private static final Predicate<AbstractShopkeeper> SHOPKEEPER_IS_INACTIVE = Unsafe.assertNonNull(SHOPKEEPER_IS_ACTIVE.negate());
 
 	private static final Location sharedLocation = new Location(null, 0, 0, 0);
-	private static final MutableChunkCoords sharedChunkCoords = new MutableChunkCoords();
 
 	private final SKShopkeepersPlugin plugin;
 	private final SKShopkeeperRegistry shopkeeperRegistry;
@@ -68,7 +68,8 @@ public class ShopkeeperChunkActivator {
 	private final ShopkeeperSpawner shopkeeperSpawner;
 	private final ChunkActivationListener listener = new ChunkActivationListener(Unsafe.initialized(this));
 
-	private final Map<ChunkCoords, ChunkData> chunks = new HashMap<>();
+	// World name -> chunk key (see ChunkKeys) -> chunk data:
+	private final Map<String, Long2ObjectMap<ChunkData>> chunksByWorld = new HashMap<>();
 
 	private boolean chunkActivationInProgress = false;
 	// This does not consider pending delayed chunk activation tasks, but only tracks actual
@@ -113,9 +114,9 @@ public class ShopkeeperChunkActivator {
 	}
 
 	private void ensureEmpty() {
-		if (!chunks.isEmpty()) {
+		if (!chunksByWorld.isEmpty()) {
 			Log.warning("Some chunk entries were not properly removed from the chunk activator!");
-			chunks.clear();
+			chunksByWorld.clear();
 		}
 		if (!deferredChunkActivations.isEmpty()) {
 			Log.warning("Some deferred chunk activations were not properly removed from the chunk activator!");
@@ -127,32 +128,49 @@ public class ShopkeeperChunkActivator {
 
 	private @Nullable ChunkData getChunkData(Chunk chunk) {
 		assert chunk != null;
-		sharedChunkCoords.set(chunk);
-		return this.getChunkData(sharedChunkCoords);
+		return this.getChunkData(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
 	}
 
+	// Returns null if there is no data for the specified chunk, i.e. if there are no shopkeepers in
+	// this chunk.
 	private @Nullable ChunkData getChunkData(String worldName, int chunkX, int chunkZ) {
-		sharedChunkCoords.set(worldName, chunkX, chunkZ);
-		return this.getChunkData(sharedChunkCoords);
+		Long2ObjectMap<ChunkData> worldChunks = chunksByWorld.get(worldName);
+		if (worldChunks == null) return null;
+		return worldChunks.get(ChunkKeys.getKey(chunkX, chunkZ));
 	}
 
-	// Returns null if there is no data for the specified chunk, i.e. if there are no shopkeepers in
-	// this chunk.
 	private @Nullable ChunkData getChunkData(ChunkCoords chunkCoords) {
 		assert chunkCoords != null;
-		return chunks.get(chunkCoords);
+		return this.getChunkData(
+				chunkCoords.getWorldName(),
+				chunkCoords.getChunkX(),
+				chunkCoords.getChunkZ()
+		);
 	}
 
 	private ChunkData getOrCreateChunkData(ChunkCoords chunkCoords) {
 		assert chunkCoords != null;
-		ChunkData chunkData = chunks.computeIfAbsent(chunkCoords, ChunkData::new);
-		assert chunkData != null;
-		return chunkData;
+		Long2ObjectMap<ChunkData> worldChunks = chunksByWorld.computeIfAbsent(
+				chunkCoords.getWorldName(),
+				worldName -> new Long2ObjectMap<>()
+		);
+		assert worldChunks != null;
+		return worldChunks.computeIfAbsent(
+				ChunkKeys.getKey(chunkCoords),
+				chunkKey -> new ChunkData(chunkCoords)
+		);
 	}
 
 	private @Nullable ChunkData removeChunkData(ChunkCoords chunkCoords) {
 		assert chunkCoords != null;
-		ChunkData chunkData = chunks.remove(chunkCoords);
+		String worldName = chunkCoords.getWorldName();
+		Long2ObjectMap<ChunkData> worldChunks = chunksByWorld.get(worldName);
+		if (worldChunks == null) return null;
+
+		ChunkData chunkData = worldChunks.remove(ChunkKeys.getKey(chunkCoords));
+		if (worldChunks.isEmpty()) {
+			chunksByWorld.remove(worldName);
+		}
 		if (chunkData != null) {
 			this.cancelDeferredActivation(chunkData);
 			chunkData.cleanUp();
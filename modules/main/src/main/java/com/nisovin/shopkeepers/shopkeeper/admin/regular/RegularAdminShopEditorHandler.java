@@ -1,6 +1,5 @@
 package com.nisovin.shopkeepers.shopkeeper.admin.regular;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.bukkit.entity.Player;
@@ -16,6 +15,7 @@ import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.ui.SKDefaultUITypes;
 import com.nisovin.shopkeepers.ui.editor.DefaultTradingRecipesAdapter;
 import com.nisovin.shopkeepers.ui.editor.EditorHandler;
+import com.nisovin.shopkeepers.ui.editor.LazyTradingRecipeDrafts;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 
@@ -33,19 +33,15 @@ public class RegularAdminShopEditorHandler extends EditorHandler {
 		@Override
 		public List<TradingRecipeDraft> getTradingRecipes() {
 			// Add the shopkeeper's offers:
-			List<? extends TradeOffer> offers = shopkeeper.getOffers();
-			// With heuristic initial capacity:
-			List<TradingRecipeDraft> recipes = new ArrayList<>(offers.size() + 8);
-			offers.forEach(offer -> {
+			// The drafts are only created once they are accessed by the editor.
+			return new LazyTradingRecipeDrafts<>(shopkeeper::getOffers, offer -> {
 				// The offer returns immutable items, so there is no need to copy them.
-				TradingRecipeDraft recipe = new TradingRecipeDraft(
+				return new TradingRecipeDraft(
 						offer.getResultItem(),
 						offer.getItem1(),
 						offer.getItem2()
 				);
-				recipes.add(recipe);
 			});
-			return recipes;
 		}
 
 		@Override
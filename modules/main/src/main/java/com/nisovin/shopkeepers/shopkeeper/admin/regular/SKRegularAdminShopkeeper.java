@@ -105,6 +105,12 @@ public class SKRegularAdminShopkeeper
 		return offersView;
 	}
 
+	@Override
+	protected boolean isTradingRecipesCacheable() {
+		// The offers only change when the shopkeeper is marked dirty:
+		return true;
+	}
+
 	// OFFERS
 
 	private static final String DATA_KEY_OFFERS = "recipes";
@@ -0,0 +1,60 @@
+package com.nisovin.shopkeepers.shopkeeper.offers;
+
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.PolyNull;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
+
+/**
+ * Interns the items of offers.
+ * <p>
+ * Large servers often have many shopkeepers that trade the same items, e.g. when shopkeepers are
+ * copied between regions. Offers with equal items share a single {@link UnmodifiableItemStack}
+ * instance, regardless of whether the offers were loaded or created via the API.
+ */
+public final class OfferItems {
+
+	// Shared by all shopkeepers:
+	private static final ItemStackInterner INTERNER = new ItemStackInterner();
+
+	public static ItemStackInterner getInterner() {
+		return INTERNER;
+	}
+
+	/**
+	 * Gets the shared {@link UnmodifiableItemStack} for the given item stack.
+	 * <p>
+	 * See {@link ItemStackInterner#intern(ItemStack)}.
+	 *
+	 * @param itemStack
+	 *            the item stack, can be <code>null</code>, not modified
+	 * @return the shared unmodifiable item stack, or <code>null</code> if the given item stack is
+	 *         <code>null</code>
+	 */
+	public static @PolyNull UnmodifiableItemStack intern(
+			@ReadOnly @PolyNull ItemStack itemStack
+	) {
+		return INTERNER.intern(itemStack);
+	}
+
+	/**
+	 * Gets the shared {@link UnmodifiableItemStack} for the given unmodifiable item stack.
+	 * <p>
+	 * See {@link ItemStackInterner#intern(UnmodifiableItemStack)}.
+	 *
+	 * @param itemStack
+	 *            the unmodifiable item stack, can be <code>null</code>
+	 * @return the shared unmodifiable item stack, or <code>null</code> if the given item stack is
+	 *         <code>null</code>
+	 */
+	public static @PolyNull UnmodifiableItemStack intern(
+			@PolyNull UnmodifiableItemStack itemStack
+	) {
+		return INTERNER.intern(itemStack);
+	}
+
+	private OfferItems() {
+	}
+}
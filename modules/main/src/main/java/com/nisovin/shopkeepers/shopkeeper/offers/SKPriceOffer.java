@@ -35,28 +35,30 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 public class SKPriceOffer implements PriceOffer {
 
-	private final UnmodifiableItemStack item; // Not null or empty, assumed immutable
+	private final UnmodifiableItemStack item; // Not null or empty, interned
 	private final int price; // > 0
 
 	/**
 	 * Creates a new {@link SKPriceOffer}.
 	 * <p>
-	 * The given item stack is copied before it is stored by the price offer.
+	 * The given item stack is not modified. The price offer stores a copy of it that is
+	 * {@link OfferItems interned}.
 	 * 
 	 * @param item
 	 *            the item being traded, not <code>null</code> or empty
 	 * @param price
 	 *            the price, has to be positive
 	 */
-	public SKPriceOffer(ItemStack item, int price) {
-		this(ItemUtils.nonNullUnmodifiableClone(item), price);
+	public SKPriceOffer(@ReadOnly ItemStack item, int price) {
+		// The item is only copied if it is not yet interned:
+		this(UnmodifiableItemStack.ofNonNull(item), price);
 	}
 
 	/**
 	 * Creates a new {@link SKPriceOffer}.
 	 * <p>
-	 * The given item stack is assumed to be immutable and therefore not copied before it is stored
-	 * by the price offer.
+	 * The price offer stores the {@link OfferItems interned} instance of the given item stack. The
+	 * given item stack is only copied if it is not yet interned.
 	 * 
 	 * @param item
 	 *            the item being traded, not <code>null</code> or empty
@@ -66,7 +68,7 @@ public class SKPriceOffer implements PriceOffer {
 	public SKPriceOffer(UnmodifiableItemStack item, int price) {
 		Validate.isTrue(!ItemUtils.isEmpty(item), "item is empty");
 		Validate.isTrue(price > 0, "price has to be positive");
-		this.item = item;
+		this.item = OfferItems.intern(item);
 		this.price = price;
 	}
 
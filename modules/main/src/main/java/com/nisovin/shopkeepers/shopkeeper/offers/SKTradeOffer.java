@@ -39,7 +39,8 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 	/**
 	 * Creates a new {@link SKTradeOffer}.
 	 * <p>
-	 * The given item stacks are copied before they are stored by the trade offer.
+	 * The given item stacks are not modified. The trade offer stores copies of them that are
+	 * {@link OfferItems interned}.
 	 * 
 	 * @param resultItem
 	 *            the result item, not empty
@@ -53,14 +54,19 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 			@ReadOnly ItemStack item1,
 			@ReadOnly @Nullable ItemStack item2
 	) {
-		super(resultItem, item1, item2);
+		// The items are only copied if they are not yet interned:
+		this(
+				UnmodifiableItemStack.of(resultItem),
+				UnmodifiableItemStack.of(item1),
+				UnmodifiableItemStack.of(item2)
+		);
 	}
 
 	/**
 	 * Creates a new {@link SKTradeOffer}.
 	 * <p>
-	 * The given item stacks are assumed to be immutable and therefore not copied before they are
-	 * stored by the trade offer.
+	 * The trade offer stores the {@link OfferItems interned} instances of the given item stacks.
+	 * The given item stacks are only copied if they are not yet interned.
 	 * 
 	 * @param resultItem
 	 *            the result item, not empty
@@ -74,7 +80,11 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 			UnmodifiableItemStack item1,
 			@Nullable UnmodifiableItemStack item2
 	) {
-		super(resultItem, item1, item2);
+		super(
+				OfferItems.intern(resultItem),
+				OfferItems.intern(item1),
+				OfferItems.intern(item2)
+		);
 	}
 
 	@Override
@@ -80,7 +80,9 @@ public abstract class AbstractPlayerShopType<T extends AbstractPlayerShopkeeper>
 			return false;
 		}
 
-		int maxShopsLimit = PlayerShopsLimit.getMaxShopsLimit(creator);
+		PlayerShopsLimit playerShopsLimit = SKShopkeepersPlugin.getInstance().getPlayerShops()
+				.getPlayerShopsLimit();
+		int maxShopsLimit = playerShopsLimit.getMaxShopsLimit(creator);
 		// Call event:
 		PlayerCreatePlayerShopkeeperEvent createEvent = new PlayerCreatePlayerShopkeeperEvent(
 				shopCreationData,
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.shopkeeper.player;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.function.Supplier;
@@ -31,14 +33,17 @@ import com.nisovin.shopkeepers.api.user.User;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
 import com.nisovin.shopkeepers.container.ShopContainers;
 import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+import com.nisovin.shopkeepers.container.tracking.ShopContainerTracker;
 import com.nisovin.shopkeepers.currency.Currencies;
 import com.nisovin.shopkeepers.currency.Currency;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.items.ItemUpdates;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.naming.ShopkeeperNaming;
+import com.nisovin.shopkeepers.playershops.ShopOwnerNameUpdates;
 import com.nisovin.shopkeepers.shopcreation.ShopCreationItem;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKTradingRecipe;
@@ -182,6 +187,8 @@ public abstract class AbstractPlayerShopkeeper
 
 		// Enable the container protection:
 		this.protectContainer();
+
+		this.getShopOwnerNameUpdates().onShopOwnerAdded(owner);
 	}
 
 	@Override
@@ -190,10 +197,14 @@ public abstract class AbstractPlayerShopkeeper
 
 		// Disable the container protection:
 		this.unprotectContainer();
+
+		this.getShopOwnerNameUpdates().onShopOwnerRemoved(owner);
 	}
 
 	@Override
-	public void delete(@Nullable Player player) {
+	public void prepareDeletion(@Nullable Player player) {
+		super.prepareDeletion(player);
+
 		// Return the shop creation item:
 		if (Settings.deletingPlayerShopReturnsCreationItem && player != null && this.isOwner(player)) {
 			ItemStack shopCreationItem = ShopCreationItem.create();
@@ -215,8 +226,6 @@ public abstract class AbstractPlayerShopkeeper
 				world.dropItem(dropLocation, shopCreationItem);
 			}
 		}
-
-		super.delete(player);
 	}
 
 	@Override
@@ -341,10 +350,21 @@ public abstract class AbstractPlayerShopkeeper
 
 	private void _setOwner(User owner) {
 		Validate.notNull(owner, "owner is null");
+		User previousOwner = this.owner;
 		this.owner = owner;
 
 		// Inform the shop object:
 		this.getShopObject().onShopOwnerChanged();
+
+		if (this.isValid()) {
+			ShopOwnerNameUpdates shopOwnerNameUpdates = this.getShopOwnerNameUpdates();
+			shopOwnerNameUpdates.onShopOwnerRemoved(previousOwner);
+			shopOwnerNameUpdates.onShopOwnerAdded(owner);
+		} // Else: Handled once the shopkeeper is added.
+	}
+
+	private ShopOwnerNameUpdates getShopOwnerNameUpdates() {
+		return SKShopkeepersPlugin.getInstance().getPlayerShops().getShopOwnerNameUpdates();
 	}
 
 	public User getOwnerUser() {
@@ -560,8 +580,9 @@ public abstract class AbstractPlayerShopkeeper
 	}
 
 	private void unprotectContainer() {
-		ProtectedContainers protectedContainers = SKShopkeepersPlugin.getInstance().getProtectedContainers();
-		protectedContainers.removeContainer(container, this);
+		SKShopkeepersPlugin plugin = SKShopkeepersPlugin.getInstance();
+		plugin.getProtectedContainers().removeContainer(container, this);
+		plugin.getShopContainerTracker().onContainerRemoved(container);
 	}
 
 	protected void _setContainer(int containerX, int containerY, int containerZ) {
@@ -644,21 +665,78 @@ public abstract class AbstractPlayerShopkeeper
 		}
 	}
 
+	/**
+	 * Gets a summary of the current contents of the shop container.
+	 * <p>
+	 * The summary is reused until the container contents might have changed (see
+	 * {@link ShopContainerTracker}).
+	 * 
+	 * @return the summary, empty if the container could not be found, not <code>null</code>
+	 */
+	public ContainerStockSummary getContainerStockSummary() {
+		ShopContainerTracker shopContainerTracker = SKShopkeepersPlugin.getInstance().getShopContainerTracker();
+		return shopContainerTracker.getStockSummary(this);
+	}
+
 	@Override
 	public int getCurrencyInContainer() {
-		int totalCurrency = 0;
 		// Empty if the container is not found:
-		@Nullable ItemStack[] contents = this.getContainerContents();
-		for (ItemStack itemStack : contents) {
-			if (itemStack == null) continue;
-			Currency currency = Currencies.match(itemStack);
+		return getCurrencyValue(this.getContainerStockSummary());
+	}
+
+	/**
+	 * Gets the total value of the currency items in the given container contents.
+	 * 
+	 * @param containerStock
+	 *            the container contents, not <code>null</code>
+	 * @return the total currency value
+	 */
+	protected static int getCurrencyValue(ContainerStockSummary containerStock) {
+		int totalCurrency = 0;
+		for (Entry<? extends ItemStack, Integer> entry : containerStock.getAmounts().entrySet()) {
+			Currency currency = Currencies.match(entry.getKey());
 			if (currency != null) {
-				totalCurrency += (itemStack.getAmount() * currency.getValue());
+				totalCurrency += (entry.getValue() * currency.getValue());
 			}
 		}
 		return totalCurrency;
 	}
 
+	@Override
+	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+		// Empty if the container is not found:
+		return this.createTradingRecipes(this.getContainerStockSummary());
+	}
+
+	/**
+	 * Creates the trading recipes of this shopkeeper based on the given container contents.
+	 * <p>
+	 * Unlike {@link #getTradingRecipes(Player)}, this does not access the shop container. This can
+	 * for example be used to get the offered trades of shopkeepers whose container is not loaded,
+	 * by passing {@link ContainerStockSummary#EMPTY}. The {@link TradingRecipe#isOutOfStock()
+	 * out-of-stock} state of the returned recipes then reflects the given container contents.
+	 * 
+	 * @param containerStock
+	 *            the container contents, not <code>null</code>
+	 * @return an unmodifiable view on the trading recipes, not <code>null</code>
+	 */
+	public abstract List<? extends TradingRecipe> createTradingRecipes(
+			ContainerStockSummary containerStock
+	);
+
+	// The trading recipes of player shops depend on the container contents, which can change
+	// without the shopkeeper being marked dirty.
+	@Override
+	protected boolean isTradingRecipesCacheable() {
+		return true;
+	}
+
+	@Override
+	protected @Nullable Object getTradingRecipesCacheState() {
+		// A new summary is created whenever the container contents might have changed:
+		return this.getContainerStockSummary();
+	}
+
 	// Returns null (and logs a warning) if the price cannot be represented correctly by currency
 	// items.
 	protected final @Nullable TradingRecipe createSellingRecipe(
@@ -124,7 +124,9 @@ public class PlayerShopHiringHandler extends HiringHandler {
 			}
 
 			// Call event:
-			int maxShopsLimit = PlayerShopsLimit.getMaxShopsLimit(player);
+			PlayerShopsLimit playerShopsLimit = SKShopkeepersPlugin.getInstance().getPlayerShops()
+					.getPlayerShopsLimit();
+			int maxShopsLimit = playerShopsLimit.getMaxShopsLimit(player);
 			PlayerShopkeeperHireEvent hireEvent = new PlayerShopkeeperHireEvent(
 					shopkeeper,
 					player,
@@ -1,10 +1,12 @@
 package com.nisovin.shopkeepers.shopkeeper.player;
 
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
@@ -116,6 +118,14 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 		// Apply container content changes:
 		if (containerInventory != null && newContainerContents != null) {
 			containerInventory.setContents(Unsafe.castNonNull(newContainerContents));
+
+			// Also updates the stock of other shopkeepers that use the same container:
+			Block containerBlock = this.getShopkeeper().getContainer();
+			if (containerBlock != null) {
+				SKShopkeepersPlugin.getInstance().getShopContainerTracker().onContainerChanged(
+						containerBlock
+				);
+			}
 		}
 	}
 
@@ -1,6 +1,5 @@
 package com.nisovin.shopkeepers.shopkeeper.player.book;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +18,7 @@ import com.nisovin.shopkeepers.currency.Currencies;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.shopkeeper.player.PlayerShopEditorHandler;
 import com.nisovin.shopkeepers.ui.editor.DefaultTradingRecipesAdapter;
+import com.nisovin.shopkeepers.ui.editor.LazyTradingRecipeDrafts;
 import com.nisovin.shopkeepers.ui.editor.EditorSession;
 import com.nisovin.shopkeepers.util.inventory.BookItems;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
@@ -41,23 +41,23 @@ public class BookPlayerShopEditorHandler extends PlayerShopEditorHandler {
 
 			// Add the shopkeeper's offers:
 			Map<? extends String, ? extends ItemStack> containerBooksByTitle = shopkeeper.getCopyableBooksFromContainer();
+			// The drafts are only created once they are accessed by the editor.
 			List<? extends BookOffer> offers = shopkeeper.getOffers();
-			List<TradingRecipeDraft> recipes = new ArrayList<>(Math.max(
-					offers.size(),
-					containerBooksByTitle.size()
-			));
-			offers.forEach(bookOffer -> {
-				String bookTitle = bookOffer.getBookTitle();
-				bookTitles.add(bookTitle);
-				ItemStack bookItem = containerBooksByTitle.get(bookTitle);
-				if (bookItem == null) {
-					bookItem = shopkeeper.createDummyBook(bookTitle);
-				} else {
-					bookItem = ItemUtils.copySingleItem(bookItem); // Also ensures a stack size of 1
-				}
-				TradingRecipeDraft recipe = createTradingRecipeDraft(bookItem, bookOffer.getPrice());
-				recipes.add(recipe);
-			});
+			List<TradingRecipeDraft> recipes = new LazyTradingRecipeDrafts<>(
+					shopkeeper::getOffers,
+					bookOffer -> {
+						String bookTitle = bookOffer.getBookTitle();
+						ItemStack bookItem = containerBooksByTitle.get(bookTitle);
+						if (bookItem == null) {
+							bookItem = shopkeeper.createDummyBook(bookTitle);
+						} else {
+							// Also ensures a stack size of 1:
+							bookItem = ItemUtils.copySingleItem(bookItem);
+						}
+						return createTradingRecipeDraft(bookItem, bookOffer.getPrice());
+					}
+			);
+			offers.forEach(bookOffer -> bookTitles.add(bookOffer.getBookTitle()));
 
 			// Add new empty recipe drafts for book items from the container without existing offer:
 			containerBooksByTitle.forEach((bookTitle, bookItem) -> {
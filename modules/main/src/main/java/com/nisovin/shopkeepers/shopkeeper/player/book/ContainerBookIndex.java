@@ -0,0 +1,97 @@
+package com.nisovin.shopkeepers.shopkeeper.player.book;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
+import com.nisovin.shopkeepers.util.inventory.BookItems;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Caches the {@link BookItems#isCopyableBook(ItemStack) copyable} written books of a shop
+ * container by their title.
+ * <p>
+ * Looking up the title of a book item requires a copy of its {@link BookMeta}, which can be costly
+ * for books with many pages. We therefore only look up the book titles again when the container
+ * contents might have changed.
+ * <p>
+ * A new {@link ContainerStockSummary} is created whenever the container contents might have
+ * changed, and also after a certain duration, even if the contents are still the same. We only
+ * look up the book titles again when the summary changes, i.e. we rely on the identity of the
+ * summary to detect changes. We do not compare the book items themselves: Their hash codes and
+ * equality checks would again require copies of their item meta.
+ */
+final class ContainerBookIndex {
+
+	// The summary that the cached books were last looked up for:
+	private @Nullable ContainerStockSummary containerStock = null;
+	private Map<? extends String, ? extends ItemStack> booksByTitle = Collections.emptyMap();
+
+	private long rebuilds = 0L;
+
+	ContainerBookIndex() {
+	}
+
+	/**
+	 * Gets the copyable written books of the given container contents by their title.
+	 * <p>
+	 * Book items without title are omitted. If multiple book items share the same title, only the
+	 * first encountered book item with that title is returned.
+	 * <p>
+	 * The returned book items must not be modified.
+	 *
+	 * @param containerStock
+	 *            the container contents, not <code>null</code>
+	 * @return an unmodifiable view on the book items mapped by their title, not <code>null</code>
+	 */
+	Map<? extends String, ? extends ItemStack> getBooksByTitle(
+			ContainerStockSummary containerStock
+	) {
+		Validate.notNull(containerStock, "containerStock is null");
+		// Empty contents, e.g. for containers that are not loaded, do not replace the cached
+		// books:
+		if (containerStock.isEmpty()) return Collections.emptyMap();
+		if (containerStock == this.containerStock) {
+			return booksByTitle;
+		}
+
+		this.containerStock = containerStock;
+		booksByTitle = indexBooks(containerStock);
+		rebuilds++;
+		return booksByTitle;
+	}
+
+	private static Map<? extends String, ? extends ItemStack> indexBooks(
+			ContainerStockSummary containerStock
+	) {
+		// Linked Map: Preserves the order of encountered items.
+		Map<String, ItemStack> booksByTitle = new LinkedHashMap<>();
+		for (ItemStack itemStack : containerStock.getItems()) {
+			// Avoids copying the item meta of other items:
+			if (itemStack.getType() != Material.WRITTEN_BOOK) continue;
+
+			BookMeta bookMeta = BookItems.getBookMeta(itemStack);
+			if (bookMeta == null) continue; // Not a written book
+			if (!BookItems.isCopyable(bookMeta)) continue;
+			String title = BookItems.getTitle(bookMeta);
+			if (title == null) continue;
+
+			// The item is ignored if we already encountered another book item with the same title
+			// before:
+			booksByTitle.putIfAbsent(title, itemStack);
+		}
+		if (booksByTitle.isEmpty()) return Collections.emptyMap();
+		return Collections.unmodifiableMap(booksByTitle);
+	}
+
+	// The number of times the book titles were looked up again.
+	long getRebuilds() {
+		return rebuilds;
+	}
+}
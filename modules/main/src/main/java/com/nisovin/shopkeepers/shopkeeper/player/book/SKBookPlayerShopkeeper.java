@@ -2,14 +2,12 @@ package com.nisovin.shopkeepers.shopkeeper.player.book;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.inventory.meta.BookMeta.Generation;
@@ -22,6 +20,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.player.book.BookPlayerShopkeeper;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKDefaultShopTypes;
@@ -47,6 +46,9 @@ public class SKBookPlayerShopkeeper
 	// Contains only one offer for a specific book (book title):
 	private final List<BookOffer> offers = new ArrayList<>();
 	private final List<? extends BookOffer> offersView = Collections.unmodifiableList(offers);
+	// Book title -> offer, kept in sync with the offers list:
+	private final Map<String, BookOffer> offersByTitle = new HashMap<>();
+	private final ContainerBookIndex containerBookIndex = new ContainerBookIndex();
 
 	/**
 	 * Creates a new and not yet initialized {@link SKBookPlayerShopkeeper}.
@@ -100,9 +102,11 @@ public class SKBookPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		Map<? extends String, ? extends ItemStack> containerBooksByTitle = this.getCopyableBooksFromContainer();
-		boolean hasBlankBooks = this.hasContainerBlankBooks();
+	public List<? extends TradingRecipe> createTradingRecipes(ContainerStockSummary containerStock) {
+		Validate.notNull(containerStock, "containerStock is null");
+		Map<? extends String, ? extends ItemStack> containerBooksByTitle
+				= this.getCopyableBooks(containerStock);
+		boolean hasBlankBooks = containerStock.contains(Material.WRITABLE_BOOK);
 		List<? extends BookOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(bookOffer -> {
@@ -140,27 +144,23 @@ public class SKBookPlayerShopkeeper
 	 * <p>
 	 * Book items without title are omitted. If multiple book items share the same title, only the
 	 * first encountered book item with that title is returned.
+	 * <p>
+	 * The returned book items must not be modified.
+	 * <p>
+	 * The book items are cached until the written books inside the container change.
 	 * 
 	 * @return the book items mapped by their title, or an empty Map if the container is not found
 	 */
 	protected Map<? extends String, ? extends ItemStack> getCopyableBooksFromContainer() {
-		// Linked Map: Preserves the order of encountered items.
-		Map<String, ItemStack> booksByTitle = new LinkedHashMap<>();
 		// Empty if the container is not found:
-		@Nullable ItemStack[] contents = this.getContainerContents();
-		for (ItemStack itemStack : contents) {
-			if (itemStack == null) continue;
-			BookMeta bookMeta = BookItems.getBookMeta(itemStack);
-			if (bookMeta == null) continue; // Not a written book
-			if (!BookItems.isCopyable(bookMeta)) continue;
-			String title = BookItems.getTitle(bookMeta);
-			if (title == null) continue;
-
-			// The item is ignored if we already encountered another book item with the same title
-			// before:
-			booksByTitle.putIfAbsent(title, itemStack);
-		}
-		return booksByTitle;
+		return this.getCopyableBooks(this.getContainerStockSummary());
+	}
+
+	// See getCopyableBooksFromContainer.
+	private Map<? extends String, ? extends ItemStack> getCopyableBooks(
+			ContainerStockSummary containerStock
+	) {
+		return containerBookIndex.getBooksByTitle(containerStock);
 	}
 
 	/**
@@ -170,9 +170,9 @@ public class SKBookPlayerShopkeeper
 	 * @return <code>true</code> if the container is found and contains blank books
 	 */
 	protected boolean hasContainerBlankBooks() {
-		Inventory containerInventory = this.getContainerInventory();
-		if (containerInventory == null) return false; // Container not found
-		return containerInventory.contains(Material.WRITABLE_BOOK);
+		// Empty if the container is not found:
+		ContainerStockSummary containerStock = this.getContainerStockSummary();
+		return containerStock.contains(Material.WRITABLE_BOOK);
 	}
 
 	/**
@@ -270,25 +270,31 @@ public class SKBookPlayerShopkeeper
 	@Override
 	public @Nullable BookOffer getOffer(String bookTitle) {
 		Validate.notNull(bookTitle, "bookTitle is null");
-		for (BookOffer offer : this.getOffers()) {
-			if (offer.getBookTitle().equals(bookTitle)) {
-				return offer;
-			}
-		}
-		return null;
+		return offersByTitle.get(bookTitle);
 	}
 
 	@Override
 	public void removeOffer(String bookTitle) {
 		Validate.notNull(bookTitle, "bookTitle is null");
-		Iterator<BookOffer> iterator = offers.iterator();
-		while (iterator.hasNext()) {
-			if (iterator.next().getBookTitle().equals(bookTitle)) {
-				iterator.remove();
-				this.markDirty();
+		if (this._removeOffer(bookTitle)) {
+			this.markDirty();
+		}
+	}
+
+	// Returns true if an offer was removed.
+	private boolean _removeOffer(String bookTitle) {
+		assert bookTitle != null;
+		BookOffer offer = offersByTitle.remove(bookTitle);
+		if (offer == null) return false;
+
+		// Identity based removal:
+		for (int i = 0; i < offers.size(); i++) {
+			if (offers.get(i) == offer) {
+				offers.remove(i);
 				break;
 			}
 		}
+		return true;
 	}
 
 	@Override
@@ -299,6 +305,7 @@ public class SKBookPlayerShopkeeper
 
 	private void _clearOffers() {
 		offers.clear();
+		offersByTitle.clear();
 	}
 
 	@Override
@@ -329,10 +336,11 @@ public class SKBookPlayerShopkeeper
 
 		// Remove any previous offer for the same book:
 		String bookTitle = offer.getBookTitle();
-		this.removeOffer(bookTitle);
+		this._removeOffer(bookTitle);
 
 		// Add the new offer:
 		offers.add(skOffer);
+		offersByTitle.put(bookTitle, skOffer);
 	}
 
 	@Override
@@ -12,12 +12,14 @@ import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
 import com.nisovin.shopkeepers.currency.Currencies;
 import com.nisovin.shopkeepers.currency.Currency;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.shopkeeper.player.PlaceholderItems;
 import com.nisovin.shopkeepers.shopkeeper.player.PlayerShopEditorHandler;
 import com.nisovin.shopkeepers.ui.editor.DefaultTradingRecipesAdapter;
+import com.nisovin.shopkeepers.ui.editor.LazyTradingRecipeDrafts;
 import com.nisovin.shopkeepers.ui.editor.EditorSession;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
@@ -37,27 +39,24 @@ public class BuyingPlayerShopEditorHandler extends PlayerShopEditorHandler {
 		@Override
 		public List<TradingRecipeDraft> getTradingRecipes() {
 			// Add the shopkeeper's offers:
-			List<? extends PriceOffer> offers = shopkeeper.getOffers();
-			// With heuristic initial capacity:
-			List<TradingRecipeDraft> recipes = new ArrayList<>(offers.size() + 8);
+			// The drafts are only created once they are accessed by the editor.
 			Currency baseCurrency = Currencies.getBase();
-			offers.forEach(offer -> {
-				UnmodifiableItemStack tradedItem = offer.getItem();
-				UnmodifiableItemStack currencyItem = baseCurrency.getItemData().createUnmodifiableItemStack(offer.getPrice());
-				TradingRecipeDraft recipe = new TradingRecipeDraft(currencyItem, tradedItem, null);
-				recipes.add(recipe);
-			});
+			List<TradingRecipeDraft> recipes = new LazyTradingRecipeDrafts<>(
+					shopkeeper::getOffers,
+					offer -> {
+						UnmodifiableItemStack tradedItem = offer.getItem();
+						UnmodifiableItemStack currencyItem = baseCurrency.getItemData().createUnmodifiableItemStack(offer.getPrice());
+						return new TradingRecipeDraft(currencyItem, tradedItem, null);
+					}
+			);
 
 			// Add new empty recipe drafts for items from the container without existing offer:
 			// We only add one recipe per similar item:
 			List<ItemStack> newRecipes = new ArrayList<>();
 			// Empty if the container is not found:
-			@Nullable ItemStack[] containerContents = shopkeeper.getContainerContents();
-			for (ItemStack containerItem : containerContents) {
-				// Ignore empty ItemStacks:
-				if (containerItem == null) continue;
-				if (ItemUtils.isEmpty(containerItem)) continue;
-
+			// The summary combines similar items and omits empty items.
+			ContainerStockSummary containerStock = shopkeeper.getContainerStockSummary();
+			for (ItemStack containerItem : containerStock.getItems()) {
 				// Replace placeholder item, if this is one:
 				containerItem = PlaceholderItems.replaceNonNull(containerItem);
 
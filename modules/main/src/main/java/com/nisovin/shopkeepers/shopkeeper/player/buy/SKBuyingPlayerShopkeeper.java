@@ -14,6 +14,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.player.buy.BuyingPlayerShopkeeper;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKDefaultShopTypes;
 import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
@@ -106,8 +107,9 @@ public class SKBuyingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		int currencyInContainer = this.getCurrencyInContainer();
+	public List<? extends TradingRecipe> createTradingRecipes(ContainerStockSummary containerStock) {
+		Validate.notNull(containerStock, "containerStock is null");
+		int currencyInContainer = getCurrencyValue(containerStock);
 		List<? extends PriceOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
@@ -14,6 +14,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.player.sell.SellingPlayerShopkeeper;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKDefaultShopTypes;
 import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
@@ -27,7 +28,6 @@ import com.nisovin.shopkeepers.util.annotations.ReadWrite;
 import com.nisovin.shopkeepers.util.data.property.BasicProperty;
 import com.nisovin.shopkeepers.util.data.property.Property;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
-import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -107,17 +107,15 @@ public class SKSellingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		// Empty if the container is not found:
-		@Nullable ItemStack[] containerContents = this.getContainerContents();
+	public List<? extends TradingRecipe> createTradingRecipes(ContainerStockSummary containerStock) {
+		Validate.notNull(containerStock, "containerStock is null");
 		List<? extends PriceOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
 			// Both the offer's and the trading recipe's items are immutable. So there is no need to
 			// copy the item.
 			UnmodifiableItemStack tradedItem = offer.getItem();
-			boolean outOfStock = !InventoryUtils.containsAtLeast(
-					containerContents,
+			boolean outOfStock = !containerStock.containsAtLeast(
 					tradedItem,
 					tradedItem.getAmount()
 			);
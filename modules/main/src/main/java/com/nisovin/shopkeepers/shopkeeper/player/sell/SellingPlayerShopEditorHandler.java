@@ -12,12 +12,14 @@ import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
 import com.nisovin.shopkeepers.currency.Currencies;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.shopkeeper.player.PlaceholderItems;
 import com.nisovin.shopkeepers.shopkeeper.player.PlayerShopEditorHandler;
 import com.nisovin.shopkeepers.ui.editor.DefaultTradingRecipesAdapter;
 import com.nisovin.shopkeepers.ui.editor.EditorSession;
+import com.nisovin.shopkeepers.ui.editor.LazyTradingRecipeDrafts;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 
@@ -35,25 +37,22 @@ public class SellingPlayerShopEditorHandler extends PlayerShopEditorHandler {
 		@Override
 		public List<TradingRecipeDraft> getTradingRecipes() {
 			// Add the shopkeeper's offers:
-			List<? extends PriceOffer> offers = shopkeeper.getOffers();
-			// With heuristic initial capacity:
-			List<TradingRecipeDraft> recipes = new ArrayList<>(offers.size() + 8);
-			offers.forEach(offer -> {
-				ItemStack tradedItem = ItemUtils.asItemStack(offer.getItem());
-				TradingRecipeDraft recipe = createTradingRecipeDraft(tradedItem, offer.getPrice());
-				recipes.add(recipe);
-			});
+			// The drafts are only created once they are accessed by the editor.
+			List<TradingRecipeDraft> recipes = new LazyTradingRecipeDrafts<>(
+					shopkeeper::getOffers,
+					offer -> {
+						ItemStack tradedItem = ItemUtils.asItemStack(offer.getItem());
+						return createTradingRecipeDraft(tradedItem, offer.getPrice());
+					}
+			);
 
 			// Add new empty recipe drafts for items from the container without existing offer:
 			// We only add one recipe per similar item:
 			List<ItemStack> newRecipes = new ArrayList<>();
 			// Empty if the container is not found:
-			@Nullable ItemStack[] containerContents = shopkeeper.getContainerContents();
-			for (ItemStack containerItem : containerContents) {
-				// Ignore empty ItemStacks:
-				if (containerItem == null) continue;
-				if (ItemUtils.isEmpty(containerItem)) continue;
-
+			// The summary combines similar items and omits empty items.
+			ContainerStockSummary containerStock = shopkeeper.getContainerStockSummary();
+			for (ItemStack containerItem : containerStock.getItems()) {
 				// Replace placeholder item, if this is one:
 				containerItem = PlaceholderItems.replaceNonNull(containerItem);
 
@@ -0,0 +1,153 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Processes a large number of inputs (e.g. shopkeepers to delete, or shop creation data) in
+ * batches over the course of several ticks.
+ * <p>
+ * The inputs are grouped by chunk, and each batch contains the inputs of a single chunk, so that
+ * the registry work of each batch (chunk map updates, shopkeeper activation, etc.) only affects a
+ * single chunk. Each tick, batches are processed until the {@link #TICK_BUDGET_NANOS tick budget}
+ * is used up. Once all inputs have been processed, the operation's future is completed.
+ *
+ * @param <I>
+ *            the input type
+ * @param <R>
+ *            the result type
+ */
+abstract class BulkShopkeeperOperation<I, R> {
+
+	// The time per tick that is spent on processing inputs:
+	static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+	// Limits how far a single batch can exceed the tick budget:
+	static final int MAX_BATCH_SIZE = 50;
+
+	private final Plugin plugin;
+	private final List<? extends I> inputs;
+	private final long tickBudgetNanos;
+	private final CompletableFuture<R> future = new CompletableFuture<>();
+	// Each batch contains the inputs of a single chunk:
+	private final List<List<I>> batches = new ArrayList<>();
+	private int nextBatchIndex = 0;
+	private boolean started = false;
+	private @Nullable BukkitTask task = null;
+
+	BulkShopkeeperOperation(Plugin plugin, List<? extends I> inputs) {
+		this(plugin, inputs, TICK_BUDGET_NANOS);
+	}
+
+	BulkShopkeeperOperation(Plugin plugin, List<? extends I> inputs, long tickBudgetNanos) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(inputs, "inputs is null");
+		Validate.isTrue(tickBudgetNanos >= 0L, "tickBudgetNanos is negative");
+		this.plugin = plugin;
+		this.inputs = inputs;
+		this.tickBudgetNanos = tickBudgetNanos;
+	}
+
+	final CompletableFuture<R> getFuture() {
+		return future;
+	}
+
+	/**
+	 * Gets the chunk of the given input.
+	 *
+	 * @param input
+	 *            the input
+	 * @return the chunk coordinates, or <code>null</code> if the input is not associated with any
+	 *         chunk
+	 */
+	protected abstract @Nullable ChunkCoords getChunkCoords(I input);
+
+	// The inputs of each batch are located in the same chunk.
+	protected abstract void processBatch(List<? extends I> batch);
+
+	protected abstract R getResult();
+
+	// Called once the operation has completed or has been cancelled.
+	protected void onEnd(boolean cancelled) {
+	}
+
+	/**
+	 * Starts the operation.
+	 * <p>
+	 * The first inputs are processed immediately.
+	 */
+	final void start() {
+		Validate.State.isTrue(!started, "Already started!");
+		started = true;
+
+		// Group the inputs by chunk, preserving the order in which the chunks are first
+		// encountered:
+		Map<@Nullable ChunkCoords, List<I>> inputsByChunk = new LinkedHashMap<>();
+		for (I input : inputs) {
+			inputsByChunk.computeIfAbsent(this.getChunkCoords(input), chunk -> new ArrayList<>())
+					.add(input);
+		}
+		for (List<I> chunkInputs : inputsByChunk.values()) {
+			int size = chunkInputs.size();
+			for (int startIndex = 0; startIndex < size; startIndex += MAX_BATCH_SIZE) {
+				int endIndex = Math.min(startIndex + MAX_BATCH_SIZE, size);
+				batches.add(chunkInputs.subList(startIndex, endIndex));
+			}
+		}
+
+		this.processNextBatches();
+		if (future.isDone()) return;
+
+		task = Bukkit.getScheduler().runTaskTimer(plugin, this::processNextBatches, 1L, 1L);
+	}
+
+	// Processes batches until the tick budget is used up. At least one batch is processed per
+	// tick, so that the operation always makes progress.
+	private void processNextBatches() {
+		long startNanos = System.nanoTime();
+		while (nextBatchIndex < batches.size()) {
+			List<I> batch = batches.get(nextBatchIndex);
+			nextBatchIndex++;
+			this.processBatch(batch);
+
+			// The operation might have been cancelled during the processing of the batch:
+			if (future.isDone()) return;
+
+			if (System.nanoTime() - startNanos >= tickBudgetNanos) break;
+		}
+
+		if (nextBatchIndex >= batches.size()) {
+			this.stopTask();
+			this.onEnd(false);
+			future.complete(this.getResult());
+		}
+	}
+
+	/**
+	 * Cancels the processing of any remaining inputs and cancels the operation's future.
+	 */
+	final void cancel() {
+		if (future.isDone()) return;
+		this.stopTask();
+		this.onEnd(true);
+		future.cancel(false);
+	}
+
+	private void stopTask() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+	}
+}
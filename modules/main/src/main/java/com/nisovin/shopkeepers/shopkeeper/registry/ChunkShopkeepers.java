@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Set;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -49,6 +50,21 @@ final class ChunkShopkeepers {
 		shopkeepersSnapshot = null; // Reset snapshot
 	}
 
+	// Returns the number of removed shopkeepers.
+	int removeShopkeepers(Set<? extends AbstractShopkeeper> shopkeepersToRemove) {
+		assert shopkeepersToRemove != null;
+		int previousCount = shopkeepers.size();
+		// Single pass over the chunk's shopkeepers:
+		shopkeepers.removeIf(shopkeeper -> {
+			if (!shopkeepersToRemove.contains(shopkeeper)) return false;
+			assert this.getChunkCoords().equals(shopkeeper.getLastChunkCoords());
+			shopkeeper.setLastChunkCoords(null);
+			return true;
+		});
+		shopkeepersSnapshot = null; // Reset snapshot
+		return previousCount - shopkeepers.size();
+	}
+
 	// QUERIES
 
 	public List<? extends AbstractShopkeeper> getShopkeepers() {
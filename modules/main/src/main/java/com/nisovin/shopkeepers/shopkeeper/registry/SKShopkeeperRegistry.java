@@ -12,6 +12,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.bukkit.Bukkit;
@@ -19,6 +21,8 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
@@ -137,8 +141,17 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private final ShopkeeperChunkActivator chunkActivator;
 	private final ActiveChunkQueries activeChunkQueries;
 
+	// Bulk creations and deletions that are still in progress:
+	private final Set<BulkShopkeeperOperation<?, ?>> bulkOperations = new LinkedHashSet<>();
+
+	// Read-only snapshots for other threads:
+	private final ShopkeeperRegistrySnapshots snapshots;
+	// Prefix lookups for command completions:
+	private final ShopkeeperCompletionIndex completionIndex = new ShopkeeperCompletionIndex();
+
 	public SKShopkeeperRegistry(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
+		this.snapshots = new ShopkeeperRegistrySnapshots(plugin);
 		this.chunkMap = new ShopkeeperChunkMap(chunkMapChangeListener);
 		this.shopkeeperTicker = new ShopkeeperTicker(plugin);
 		this.shopkeeperSpawner = new ShopkeeperSpawner(plugin, Unsafe.initialized(this));
@@ -159,12 +172,18 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	}
 
 	public void onDisable() {
+		// Abort any bulk operations that are still in progress:
+		new ArrayList<>(bulkOperations).forEach(BulkShopkeeperOperation::cancel);
+		assert bulkOperations.isEmpty();
+
 		// Unload all shopkeepers:
 		this.unloadAllShopkeepers();
 		assert this.getAllShopkeepers().isEmpty();
 
 		// Reset all (just in case):
 		this.ensureEmpty();
+		snapshots.onDisable();
+		completionIndex.clear();
 
 		shopkeeperTicker.onDisable();
 		shopkeeperSpawner.onDisable();
@@ -192,6 +211,10 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return chunkActivator;
 	}
 
+	public ShopkeeperTicker getShopkeeperTicker() {
+		return shopkeeperTicker;
+	}
+
 	// SHOPKEEPER CREATION
 
 	private SKShopkeeperStorage getShopkeeperStorage() {
@@ -229,6 +252,74 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return shopkeeper;
 	}
 
+	@Override
+	public CompletableFuture<List<? extends Shopkeeper>> createShopkeepers(
+			Collection<? extends ShopCreationData> creationData
+	) {
+		Validate.notNull(creationData, "creationData is null");
+		Validate.noNullElements(creationData, "creationData contains null");
+
+		List<AbstractShopkeeper> createdShopkeepers = new ArrayList<>(creationData.size());
+		BulkShopkeeperOperation<ShopCreationData, List<? extends Shopkeeper>> operation;
+		operation = new BulkShopkeeperOperation<>(
+				plugin,
+				new ArrayList<>(creationData)
+		) {
+			@Override
+			protected @Nullable ChunkCoords getChunkCoords(ShopCreationData input) {
+				Location spawnLocation = input.getSpawnLocation();
+				if (spawnLocation == null || spawnLocation.getWorld() == null) return null;
+				return new ChunkCoords(spawnLocation);
+			}
+
+			@Override
+			protected void processBatch(List<? extends ShopCreationData> batch) {
+				for (ShopCreationData input : batch) {
+					try {
+						createdShopkeepers.add(SKShopkeeperRegistry.this.createShopkeeper(input));
+					} catch (ShopkeeperCreateException e) {
+						Log.warning("Failed to create shopkeeper during bulk creation: "
+								+ e.getMessage());
+					}
+				}
+			}
+
+			@Override
+			protected List<? extends Shopkeeper> getResult() {
+				return Collections.unmodifiableList(createdShopkeepers);
+			}
+
+			@Override
+			protected void onEnd(boolean cancelled) {
+				SKShopkeeperRegistry.this.onBulkOperationEnded(
+						this,
+						cancelled,
+						!createdShopkeepers.isEmpty()
+				);
+			}
+		};
+		this.startBulkOperation(operation);
+		return operation.getFuture();
+	}
+
+	private void startBulkOperation(BulkShopkeeperOperation<?, ?> operation) {
+		bulkOperations.add(operation);
+		operation.start();
+	}
+
+	private void onBulkOperationEnded(
+			BulkShopkeeperOperation<?, ?> operation,
+			boolean cancelled,
+			boolean changed
+	) {
+		bulkOperations.remove(operation);
+		// Save all changes together. If cancelled (i.e. during plugin shutdown), the storage
+		// takes care of saving any pending changes.
+		if (!cancelled && changed) {
+			this.getShopkeeperStorage().save();
+		}
+	}
+
 	/**
 	 * Recreates a shopkeeper by loading its previously saved data from the given
 	 * {@link ShopkeeperData}.
@@ -305,6 +396,10 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			playerShopCount++;
 		}
 
+		// The snapshot entry is created once the next snapshot is published:
+		snapshots.onShopkeeperChanged(shopkeeper);
+		completionIndex.add(shopkeeper);
+
 		// Log a warning if either the shop type or the shop object type is disabled. The shopkeeper
 		// is still added (so containers are still protected), but it might not get spawned, and
 		// there is no guarantee that the shop still works as expected. Admins are advised to either
@@ -356,6 +451,24 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		// UI state and apply shopkeeper changes).
 		shopkeeper.abortUISessionsDelayed();
 
+		this.deactivateRemovedShopkeeper(shopkeeper, cause);
+		this.unindexRemovedShopkeeper(shopkeeper);
+
+		// Remove shopkeeper from chunk-based storage:
+		if (!shopkeeper.isVirtual()) {
+			chunkMap.removeShopkeeper(shopkeeper);
+		}
+
+		if (cause == ShopkeeperRemoveEvent.Cause.DELETE) {
+			// Remove shopkeeper from storage:
+			this.getShopkeeperStorage().deleteShopkeeper(shopkeeper);
+		}
+	}
+
+	private void deactivateRemovedShopkeeper(
+			AbstractShopkeeper shopkeeper,
+			ShopkeeperRemoveEvent.Cause cause
+	) {
 		// If necessary, deactivate the shopkeeper (stop ticking, despawn, etc.):
 		chunkActivator.deactivateShopkeeper(shopkeeper);
 
@@ -370,17 +483,17 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 					+ shopkeeper.getShopObject().getType().getIdentifier()
 					+ "' did not unregister itself during shopkeeper removal!");
 		}
+	}
 
+	// Removes the shopkeeper from all indices, except the chunk map.
+	private void unindexRemovedShopkeeper(AbstractShopkeeper shopkeeper) {
 		// Remove shopkeeper by unique id and session id:
 		UUID shopkeeperUniqueId = shopkeeper.getUniqueId();
 		shopkeepersByUUID.remove(shopkeeperUniqueId);
 		shopkeepersById.remove(shopkeeper.getId());
 
-		// Remove shopkeeper from chunk-based storage:
 		if (shopkeeper.isVirtual()) {
 			virtualShopkeepers.remove(shopkeeper);
-		} else {
-			chunkMap.removeShopkeeper(shopkeeper);
 		}
 
 		// Update player shop count:
@@ -388,10 +501,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			playerShopCount--;
 		}
 
-		if (cause == ShopkeeperRemoveEvent.Cause.DELETE) {
-			// Remove shopkeeper from storage:
-			this.getShopkeeperStorage().deleteShopkeeper(shopkeeper);
-		}
+		snapshots.onShopkeeperRemoved(shopkeeper);
+		completionIndex.remove(shopkeeper);
 	}
 
 	// This is not expected to be called for invalid or virtual shopkeepers.
@@ -402,6 +513,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 		ChunkCoords oldChunk = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
 
+		snapshots.onShopkeeperChanged(shopkeeper);
+
 		// Update the shopkeeper's location inside the chunk map:
 		if (!chunkMap.moveShopkeeper(shopkeeper)) {
 			// The shopkeeper's chunk did not change.
@@ -438,8 +551,168 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		new ArrayList<>(this.getAllShopkeepers()).forEach(this::deleteShopkeeper);
 	}
 
+	@Override
+	public CompletableFuture<Integer> deleteShopkeepers(
+			Collection<? extends Shopkeeper> shopkeepers,
+			@Nullable Player player
+	) {
+		return this.deleteShopkeepers(shopkeepers, player, shopkeeper -> { });
+	}
+
+	/**
+	 * Deletes the given shopkeepers like {@link #deleteShopkeepers(Collection, Player)}, and
+	 * informs the given callback about each shopkeeper that is deleted by this operation.
+	 * <p>
+	 * The callback is invoked once all shopkeepers of a batch have been deleted. Shopkeepers that
+	 * are skipped by this operation, for example because they have already been removed in the
+	 * meantime, are not passed to the callback.
+	 * 
+	 * @param shopkeepers
+	 *            the shopkeepers, not <code>null</code>
+	 * @param player
+	 *            the player responsible for the deletion, can be <code>null</code>
+	 * @param onDeleted
+	 *            the callback that is invoked for each deleted shopkeeper, not <code>null</code>
+	 * @return a future that provides the number of deleted shopkeepers
+	 */
+	public CompletableFuture<Integer> deleteShopkeepers(
+			Collection<? extends Shopkeeper> shopkeepers,
+			@Nullable Player player,
+			Consumer<? super AbstractShopkeeper> onDeleted
+	) {
+		Validate.notNull(shopkeepers, "shopkeepers is null");
+		Validate.noNullElements(shopkeepers, "shopkeepers contains null");
+		Validate.notNull(onDeleted, "onDeleted is null");
+
+		BulkShopkeeperOperation<Shopkeeper, Integer> operation = new BulkShopkeeperOperation<>(
+				plugin,
+				new ArrayList<>(shopkeepers)
+		) {
+			private int deletedCount = 0;
+
+			@Override
+			protected @Nullable ChunkCoords getChunkCoords(Shopkeeper input) {
+				return input.getChunkCoords();
+			}
+
+			@Override
+			protected void processBatch(List<? extends Shopkeeper> batch) {
+				List<? extends AbstractShopkeeper> deletedShopkeepers = SKShopkeeperRegistry.this
+						.deleteShopkeepersBatch(batch, player);
+				deletedCount += deletedShopkeepers.size();
+				deletedShopkeepers.forEach(onDeleted);
+			}
+
+			@Override
+			protected Integer getResult() {
+				return deletedCount;
+			}
+
+			@Override
+			protected void onEnd(boolean cancelled) {
+				SKShopkeeperRegistry.this.onBulkOperationEnded(this, cancelled, deletedCount > 0);
+			}
+		};
+		this.startBulkOperation(operation);
+		return operation.getFuture();
+	}
+
+	// Returns the deleted shopkeepers.
+	// This deletes the shopkeepers in the same way as deleteShopkeeper, but performs each step for
+	// all shopkeepers of the batch at once: In particular, the UI sessions are aborted together,
+	// and the shopkeepers are removed from the chunk map together.
+	private List<? extends AbstractShopkeeper> deleteShopkeepersBatch(
+			List<? extends Shopkeeper> batch,
+			@Nullable Player player
+	) {
+		Set<AbstractShopkeeper> shopkeepers = new LinkedHashSet<>();
+		for (Shopkeeper shopkeeper : batch) {
+			if (shopkeeper.isValid()) {
+				shopkeepers.add((AbstractShopkeeper) shopkeeper);
+			}
+		}
+		if (shopkeepers.isEmpty()) return Collections.emptyList();
+
+		// Delayed closing of the UI sessions of all shopkeepers of this batch at once:
+		plugin.getUIRegistry().abortUISessionsDelayed(shopkeepers);
+
+		// Shop type specific deletion behavior (e.g. returning the shop creation item):
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			// Skip shopkeepers that have been removed in the meantime:
+			if (!shopkeeper.isValid()) continue;
+			shopkeeper.prepareDeletion(player);
+		}
+
+		// Call the events: The shopkeepers are expected to still be registered at this point.
+		PluginManager pluginManager = Bukkit.getPluginManager();
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			if (!shopkeeper.isValid()) continue;
+			pluginManager.callEvent(new ShopkeeperRemoveEvent(
+					shopkeeper,
+					ShopkeeperRemoveEvent.Cause.DELETE
+			));
+		}
+
+		List<AbstractShopkeeper> deletedShopkeepers = new ArrayList<>(shopkeepers.size());
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			// Skip shopkeepers that have been removed during the events:
+			if (!shopkeeper.isValid()) continue;
+			this.deactivateRemovedShopkeeper(shopkeeper, ShopkeeperRemoveEvent.Cause.DELETE);
+			deletedShopkeepers.add(shopkeeper);
+		}
+
+		List<AbstractShopkeeper> chunkShopkeepers = new ArrayList<>(deletedShopkeepers.size());
+		for (AbstractShopkeeper shopkeeper : deletedShopkeepers) {
+			this.unindexRemovedShopkeeper(shopkeeper);
+			if (!shopkeeper.isVirtual()) {
+				chunkShopkeepers.add(shopkeeper);
+			}
+		}
+		chunkMap.removeShopkeepers(chunkShopkeepers);
+
+		// Remove the shopkeepers from storage:
+		SKShopkeeperStorage shopkeeperStorage = this.getShopkeeperStorage();
+		deletedShopkeepers.forEach(shopkeeperStorage::deleteShopkeeper);
+		return deletedShopkeepers;
+	}
+
 	///// QUERYING
 
+	// SNAPSHOTS
+
+	@Override
+	public SKShopkeeperRegistrySnapshot getSnapshot() {
+		return snapshots.getSnapshot();
+	}
+
+	/**
+	 * This needs to be called whenever the data of a shopkeeper has changed, so that the change is
+	 * reflected by the next published {@link #getSnapshot() snapshot}.
+	 * 
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 */
+	public void onShopkeeperChanged(AbstractShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		if (!shopkeeper.isValid()) return;
+		snapshots.onShopkeeperChanged(shopkeeper);
+		// Only updates the index if the shopkeeper's name has changed:
+		completionIndex.onNameChanged(shopkeeper);
+	}
+
+	// COMPLETIONS
+
+	/**
+	 * Gets the {@link ShopkeeperCompletionIndex} of the currently loaded shopkeepers.
+	 * 
+	 * @return the completion index, not <code>null</code>
+	 */
+	public ShopkeeperCompletionIndex getCompletionIndex() {
+		return completionIndex;
+	}
+
+	// ALL SHOPKEEPERS
+
 	@Override
 	public Collection<? extends AbstractShopkeeper> getAllShopkeepers() {
 		return allShopkeepersView;
@@ -619,8 +892,14 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		int z = location.getBlockZ();
 
 		List<AbstractShopkeeper> shopkeepers = new ArrayList<>();
-		ChunkCoords chunkCoords = ChunkCoords.fromBlock(worldName, x, z);
-		this.getShopkeepersInChunk(chunkCoords).forEach(shopkeeper -> {
+		ChunkShopkeepers chunkShopkeepers = chunkMap.getChunkShopkeepers(
+				worldName,
+				ChunkCoords.fromBlock(x),
+				ChunkCoords.fromBlock(z)
+		);
+		if (chunkShopkeepers == null) return shopkeepers;
+
+		chunkShopkeepers.getShopkeepers().forEach(shopkeeper -> {
 			assert worldName.equals(shopkeeper.getWorldName());
 			if (shopkeeper.getX() == x && shopkeeper.getY() == y && shopkeeper.getZ() == z) {
 				shopkeepers.add(shopkeeper);
@@ -0,0 +1,542 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistrySnapshot;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * An immutable snapshot of the shopkeeper registry.
+ * <p>
+ * All indexes are built when the snapshot is created, and are not modified afterwards. The
+ * snapshot can therefore be safely published to and queried by other threads.
+ * <p>
+ * The indexes are built per world. Snapshots that are derived from a previous snapshot via
+ * {@link #withChanges(long, Collection, Collection)} share the indexes of all worlds without
+ * changes. The shopkeepers are ordered by world, followed by the virtual shopkeepers.
+ */
+public final class SKShopkeeperRegistrySnapshot implements ShopkeeperRegistrySnapshot {
+
+	/**
+	 * Immutable information about a shopkeeper.
+	 */
+	public static final class SKEntry implements Entry {
+
+		/**
+		 * Captures the current information of the given shopkeeper.
+		 * <p>
+		 * This has to be called on the server's main thread.
+		 *
+		 * @param shopkeeper
+		 *            the shopkeeper, not <code>null</code>
+		 * @return the entry, not <code>null</code>
+		 */
+		public static SKEntry of(AbstractShopkeeper shopkeeper) {
+			Validate.notNull(shopkeeper, "shopkeeper is null");
+			return new SKEntry(shopkeeper);
+		}
+
+		private final int id;
+		private final UUID uniqueId;
+		private final String shopTypeId;
+		private final String shopObjectTypeId;
+		private final String name;
+		// Empty if the shopkeeper has no name:
+		private final String normalizedName;
+		private final @Nullable UUID ownerUUID;
+		private final @Nullable String ownerName;
+		private final @Nullable String worldName;
+		private final int x;
+		private final int y;
+		private final int z;
+		private final @Nullable ChunkCoords chunkCoords;
+
+		private SKEntry(AbstractShopkeeper shopkeeper) {
+			this(
+					shopkeeper.getId(),
+					shopkeeper.getUniqueId(),
+					shopkeeper.getType().getIdentifier(),
+					shopkeeper.getShopObject().getType().getIdentifier(),
+					shopkeeper.getName(),
+					(shopkeeper instanceof PlayerShopkeeper)
+							? ((PlayerShopkeeper) shopkeeper).getOwnerUUID()
+							: null,
+					(shopkeeper instanceof PlayerShopkeeper)
+							? ((PlayerShopkeeper) shopkeeper).getOwnerName()
+							: null,
+					shopkeeper.getWorldName(),
+					shopkeeper.getX(),
+					shopkeeper.getY(),
+					shopkeeper.getZ()
+			);
+		}
+
+		// Visible for testing:
+		SKEntry(
+				int id,
+				UUID uniqueId,
+				String shopTypeId,
+				String shopObjectTypeId,
+				String name,
+				@Nullable UUID ownerUUID,
+				@Nullable String ownerName,
+				@Nullable String worldName,
+				int x,
+				int y,
+				int z
+		) {
+			this.id = id;
+			this.uniqueId = uniqueId;
+			this.shopTypeId = shopTypeId;
+			this.shopObjectTypeId = shopObjectTypeId;
+			this.name = name;
+			this.normalizedName = normalizeName(name);
+			this.ownerUUID = ownerUUID;
+			this.ownerName = ownerName;
+			this.worldName = worldName;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			if (worldName != null) {
+				this.chunkCoords = ChunkCoords.fromBlock(worldName, x, z);
+			} else {
+				this.chunkCoords = null;
+			}
+		}
+
+		@Override
+		public int getId() {
+			return id;
+		}
+
+		@Override
+		public UUID getUniqueId() {
+			return uniqueId;
+		}
+
+		@Override
+		public String getShopTypeId() {
+			return shopTypeId;
+		}
+
+		@Override
+		public String getShopObjectTypeId() {
+			return shopObjectTypeId;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public boolean isPlayerShop() {
+			return (ownerUUID != null);
+		}
+
+		@Override
+		public @Nullable UUID getOwnerUUID() {
+			return ownerUUID;
+		}
+
+		@Override
+		public @Nullable String getOwnerName() {
+			return ownerName;
+		}
+
+		@Override
+		public boolean isVirtual() {
+			return (worldName == null);
+		}
+
+		@Override
+		public @Nullable String getWorldName() {
+			return worldName;
+		}
+
+		@Override
+		public int getX() {
+			return x;
+		}
+
+		@Override
+		public int getY() {
+			return y;
+		}
+
+		@Override
+		public int getZ() {
+			return z;
+		}
+
+		@Override
+		public @Nullable ChunkCoords getChunkCoords() {
+			return chunkCoords;
+		}
+
+		@Override
+		public String toString() {
+			return "SKEntry [id=" + id + ", uniqueId=" + uniqueId + ", shopTypeId=" + shopTypeId
+					+ ", worldName=" + worldName + ", x=" + x + ", y=" + y + ", z=" + z + "]";
+		}
+	}
+
+	// Returns an empty String if the name is empty after normalization.
+	private static String normalizeName(String name) {
+		if (name.isEmpty()) return name;
+		return StringUtils.normalize(TextUtils.stripColor(name));
+	}
+
+	public static final SKShopkeeperRegistrySnapshot EMPTY = new SKShopkeeperRegistrySnapshot(
+			0L,
+			Collections.emptyList()
+	);
+
+	/**
+	 * The immutable indexes of the shopkeepers of a single world, or of the virtual shopkeepers.
+	 * <p>
+	 * Snapshots share the indexes of the worlds whose shopkeepers did not change.
+	 */
+	private static final class WorldIndex {
+
+		// Linked Map: Preserves the order of the shopkeepers.
+		private final Map<Integer, SKEntry> byId;
+		private final Collection<SKEntry> entries;
+		private final Map<UUID, SKEntry> byUniqueId;
+		private final Map<UUID, List<SKEntry>> byOwner;
+		private final Map<String, List<SKEntry>> byName;
+		private final Map<ChunkCoords, List<SKEntry>> byChunk;
+
+		WorldIndex(Map<Integer, SKEntry> byId) {
+			this.byId = byId;
+			this.entries = Collections.unmodifiableCollection(byId.values());
+
+			Map<UUID, SKEntry> byUniqueId = new HashMap<>(byId.size() * 2);
+			Map<UUID, List<SKEntry>> byOwner = new HashMap<>();
+			Map<String, List<SKEntry>> byName = new HashMap<>();
+			Map<ChunkCoords, List<SKEntry>> byChunk = new HashMap<>();
+			for (SKEntry entry : byId.values()) {
+				byUniqueId.put(entry.getUniqueId(), entry);
+
+				UUID ownerUUID = entry.getOwnerUUID();
+				if (ownerUUID != null) {
+					addToIndex(byOwner, ownerUUID, entry);
+				}
+				if (!entry.normalizedName.isEmpty()) {
+					addToIndex(byName, entry.normalizedName, entry);
+				}
+				ChunkCoords chunkCoords = entry.getChunkCoords();
+				if (chunkCoords != null) {
+					addToIndex(byChunk, chunkCoords, entry);
+				}
+			}
+
+			this.byUniqueId = byUniqueId;
+			this.byOwner = byOwner;
+			this.byName = byName;
+			this.byChunk = byChunk;
+		}
+	}
+
+	// The changes of the entries of a single world:
+	private static final class WorldChanges {
+
+		private final Set<Integer> removedIds = new HashSet<>();
+		// Linked Map: Preserves the order in which the shopkeepers were added.
+		private final Map<Integer, SKEntry> updatedEntries = new LinkedHashMap<>();
+	}
+
+	private static <K> void addToIndex(Map<K, List<SKEntry>> index, K key, SKEntry entry) {
+		index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+	}
+
+	private final long version;
+	// Linked Map: Preserves the order of the worlds.
+	private final Map<String, WorldIndex> byWorld;
+	private final @Nullable WorldIndex virtualShopkeepers;
+	// The world indexes, followed by the virtual shopkeepers index:
+	private final List<WorldIndex> indexes;
+	private final Collection<? extends SKEntry> allShopkeepers;
+
+	/**
+	 * Creates a new snapshot.
+	 *
+	 * @param version
+	 *            the version
+	 * @param entries
+	 *            the entries, not <code>null</code>, copied
+	 */
+	public SKShopkeeperRegistrySnapshot(long version, Collection<? extends SKEntry> entries) {
+		this(version, Collections.emptyMap(), null, createChanges(entries));
+	}
+
+	private static Map<@Nullable String, WorldChanges> createChanges(
+			Collection<? extends SKEntry> entries
+	) {
+		Validate.notNull(entries, "entries is null");
+		// Linked Map: Preserves the order of the worlds.
+		Map<@Nullable String, WorldChanges> changes = new LinkedHashMap<>();
+		for (SKEntry entry : entries) {
+			getWorldChanges(changes, entry.getWorldName()).updatedEntries.put(entry.getId(), entry);
+		}
+		return changes;
+	}
+
+	private static WorldChanges getWorldChanges(
+			Map<@Nullable String, WorldChanges> changes,
+			@Nullable String worldName
+	) {
+		return changes.computeIfAbsent(worldName, key -> new WorldChanges());
+	}
+
+	// Shares the indexes of the worlds without changes.
+	private SKShopkeeperRegistrySnapshot(
+			long version,
+			Map<? extends String, WorldIndex> previousByWorld,
+			@Nullable WorldIndex previousVirtualShopkeepers,
+			Map<@Nullable String, WorldChanges> changes
+	) {
+		this.version = version;
+
+		Map<String, WorldIndex> byWorld = new LinkedHashMap<>(previousByWorld);
+		@Nullable WorldIndex virtualShopkeepers = previousVirtualShopkeepers;
+		for (Map.Entry<@Nullable String, WorldChanges> worldChanges : changes.entrySet()) {
+			@Nullable String worldName = worldChanges.getKey();
+			@Nullable WorldIndex previousIndex = (worldName != null)
+					? byWorld.get(worldName)
+					: previousVirtualShopkeepers;
+			@Nullable WorldIndex index = applyChanges(previousIndex, worldChanges.getValue());
+			if (worldName != null) {
+				if (index != null) {
+					byWorld.put(worldName, index);
+				} else {
+					byWorld.remove(worldName);
+				}
+			} else {
+				virtualShopkeepers = index;
+			}
+		}
+		this.byWorld = byWorld;
+		this.virtualShopkeepers = virtualShopkeepers;
+
+		List<WorldIndex> indexes = new ArrayList<>(byWorld.size() + 1);
+		indexes.addAll(byWorld.values());
+		if (virtualShopkeepers != null) {
+			indexes.add(virtualShopkeepers);
+		}
+		this.indexes = indexes;
+
+		int size = 0;
+		for (WorldIndex index : indexes) {
+			size += index.byId.size();
+		}
+		this.allShopkeepers = new EntriesView(indexes, size);
+	}
+
+	// Returns null if the resulting world index is empty.
+	private static @Nullable WorldIndex applyChanges(
+			@Nullable WorldIndex previousIndex,
+			WorldChanges changes
+	) {
+		Map<Integer, SKEntry> byId;
+		if (previousIndex != null) {
+			byId = new LinkedHashMap<>(previousIndex.byId);
+			byId.keySet().removeAll(changes.removedIds);
+		} else {
+			byId = new LinkedHashMap<>();
+		}
+		// Updated entries keep their position:
+		byId.putAll(changes.updatedEntries);
+		if (byId.isEmpty()) return null;
+		return new WorldIndex(byId);
+	}
+
+	// An unmodifiable view on the entries of the given indexes.
+	private static final class EntriesView extends AbstractCollection<SKEntry> {
+
+		private final List<? extends WorldIndex> indexes;
+		private final int size;
+
+		EntriesView(List<? extends WorldIndex> indexes, int size) {
+			this.indexes = indexes;
+			this.size = size;
+		}
+
+		@Override
+		public Iterator<SKEntry> iterator() {
+			return indexes.stream().flatMap(index -> index.entries.stream()).iterator();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * Creates a new snapshot that applies the given changes to this snapshot.
+	 * <p>
+	 * The new snapshot shares the indexes of all worlds without changes with this snapshot. Only
+	 * the indexes of the worlds with changes are rebuilt.
+	 *
+	 * @param version
+	 *            the version of the new snapshot
+	 * @param updatedEntries
+	 *            the entries of the added or changed shopkeepers, not <code>null</code>
+	 * @param removedIds
+	 *            the ids of the removed shopkeepers, not <code>null</code>
+	 * @return the new snapshot, not <code>null</code>
+	 */
+	public SKShopkeeperRegistrySnapshot withChanges(
+			long version,
+			Collection<? extends SKEntry> updatedEntries,
+			Collection<? extends Integer> removedIds
+	) {
+		Validate.notNull(updatedEntries, "updatedEntries is null");
+		Validate.notNull(removedIds, "removedIds is null");
+		Map<@Nullable String, WorldChanges> changes = new LinkedHashMap<>();
+		for (Integer removedId : removedIds) {
+			SKEntry previousEntry = this.getShopkeeperById(removedId);
+			if (previousEntry == null) continue;
+			getWorldChanges(changes, previousEntry.getWorldName()).removedIds.add(removedId);
+		}
+		for (SKEntry entry : updatedEntries) {
+			@Nullable String worldName = entry.getWorldName();
+			SKEntry previousEntry = this.getShopkeeperById(entry.getId());
+			if (previousEntry != null
+					&& !Objects.equals(previousEntry.getWorldName(), worldName)) {
+				// The shopkeeper has moved to another world:
+				getWorldChanges(changes, previousEntry.getWorldName()).removedIds.add(entry.getId());
+			}
+			getWorldChanges(changes, worldName).updatedEntries.put(entry.getId(), entry);
+		}
+		return new SKShopkeeperRegistrySnapshot(version, byWorld, virtualShopkeepers, changes);
+	}
+
+	// Combines the results of the given lookup across all worlds.
+	private Collection<? extends SKEntry> getIndexed(
+			Function<? super WorldIndex, ? extends @Nullable List<SKEntry>> lookup
+	) {
+		@Nullable List<SKEntry> result = null;
+		boolean copied = false;
+		for (WorldIndex index : indexes) {
+			List<SKEntry> entries = lookup.apply(index);
+			if (entries == null) continue;
+			if (result == null) {
+				result = entries;
+			} else {
+				if (!copied) {
+					result = new ArrayList<>(result);
+					copied = true;
+				}
+				result.addAll(entries);
+			}
+		}
+		if (result == null) return Collections.emptyList();
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public Collection<? extends SKEntry> getAllShopkeepers() {
+		return allShopkeepers;
+	}
+
+	@Override
+	public @Nullable SKEntry getShopkeeperByUniqueId(UUID shopkeeperUniqueId) {
+		Validate.notNull(shopkeeperUniqueId, "shopkeeperUniqueId is null");
+		for (WorldIndex index : indexes) {
+			SKEntry entry = index.byUniqueId.get(shopkeeperUniqueId);
+			if (entry != null) return entry;
+		}
+		return null;
+	}
+
+	@Override
+	public @Nullable SKEntry getShopkeeperById(int shopkeeperId) {
+		for (WorldIndex index : indexes) {
+			SKEntry entry = index.byId.get(shopkeeperId);
+			if (entry != null) return entry;
+		}
+		return null;
+	}
+
+	@Override
+	public Collection<? extends SKEntry> getPlayerShopkeepersByOwner(UUID ownerUUID) {
+		Validate.notNull(ownerUUID, "ownerUUID is null");
+		return this.getIndexed(index -> index.byOwner.get(ownerUUID));
+	}
+
+	@Override
+	public Collection<? extends SKEntry> getShopkeepersByName(String shopName) {
+		Validate.notNull(shopName, "shopName is null");
+		String normalizedShopName = normalizeName(shopName);
+		if (normalizedShopName.isEmpty()) return Collections.emptyList();
+		return this.getIndexed(index -> index.byName.get(normalizedShopName));
+	}
+
+	@Override
+	public Collection<? extends String> getWorldsWithShopkeepers() {
+		return Collections.unmodifiableSet(byWorld.keySet());
+	}
+
+	@Override
+	public Collection<? extends SKEntry> getShopkeepersInWorld(String worldName) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldIndex index = byWorld.get(worldName);
+		if (index == null) return Collections.emptyList();
+		return index.entries;
+	}
+
+	@Override
+	public Collection<? extends SKEntry> getShopkeepersInChunk(ChunkCoords chunkCoords) {
+		Validate.notNull(chunkCoords, "chunkCoords is null");
+		WorldIndex index = byWorld.get(chunkCoords.getWorldName());
+		if (index == null) return Collections.emptyList();
+		List<SKEntry> entries = index.byChunk.get(chunkCoords);
+		if (entries == null) return Collections.emptyList();
+		return Collections.unmodifiableList(entries);
+	}
+
+	@Override
+	public Collection<? extends SKEntry> getShopkeepersAtLocation(
+			String worldName,
+			int x,
+			int y,
+			int z
+	) {
+		Validate.notNull(worldName, "worldName is null");
+		ChunkCoords chunkCoords = ChunkCoords.fromBlock(worldName, x, z);
+		List<SKEntry> result = new ArrayList<>();
+		for (SKEntry entry : this.getShopkeepersInChunk(chunkCoords)) {
+			if (entry.getX() == x && entry.getY() == y && entry.getZ() == z) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+}
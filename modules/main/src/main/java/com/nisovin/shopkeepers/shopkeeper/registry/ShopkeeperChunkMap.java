@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.shopkeeper.registry;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -82,6 +83,16 @@ class ShopkeeperChunkMap {
 		return worldShopkeepers.getChunkShopkeepers(chunkCoords);
 	}
 
+	// Returns null if there are no shopkeepers in the specified chunk.
+	// Note: In contrast to the ChunkCoords based lookup, this does not require callers to allocate
+	// or set up ChunkCoords.
+	@Nullable
+	ChunkShopkeepers getChunkShopkeepers(String worldName, int chunkX, int chunkZ) {
+		WorldShopkeepers worldShopkeepers = this.getWorldShopkeepers(worldName);
+		if (worldShopkeepers == null) return null; // There are no shopkeepers in this world
+		return worldShopkeepers.getChunkShopkeepers(chunkX, chunkZ);
+	}
+
 	// Only called for non-virtual shopkeepers.
 	ChunkShopkeepers addShopkeeper(AbstractShopkeeper shopkeeper) {
 		assert shopkeeper != null && !shopkeeper.isVirtual();
@@ -141,6 +152,47 @@ class ShopkeeperChunkMap {
 		return chunkShopkeepers;
 	}
 
+	// Only called for non-virtual shopkeepers.
+	// In contrast to removing the shopkeepers one by one, this updates each affected chunk only
+	// once, and only checks once at the end whether the affected worlds are now empty.
+	void removeShopkeepers(Collection<? extends AbstractShopkeeper> shopkeepers) {
+		assert shopkeepers != null;
+		Map<ChunkCoords, Set<AbstractShopkeeper>> shopkeepersByChunk = new LinkedHashMap<>();
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			assert shopkeeper != null && !shopkeeper.isVirtual();
+			ChunkCoords lastChunkCoords = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
+			shopkeepersByChunk.computeIfAbsent(lastChunkCoords, chunk -> new HashSet<>())
+					.add(shopkeeper);
+		}
+
+		Map<String, WorldShopkeepers> affectedWorlds = new LinkedHashMap<>();
+		shopkeepersByChunk.forEach((chunkCoords, chunkRemovals) -> {
+			String worldName = chunkCoords.getWorldName();
+			WorldShopkeepers worldShopkeepers = shopkeepersByWorld.get(worldName);
+			if (worldShopkeepers == null) return; // Could not find the shopkeepers
+
+			affectedWorlds.put(worldName, worldShopkeepers);
+			ChunkShopkeepers chunkShopkeepers = worldShopkeepers.removeShopkeepers(
+					chunkCoords,
+					chunkRemovals
+			);
+
+			// Inform change listener:
+			chunkRemovals.forEach(shopkeeper -> {
+				changeListener.onShopkeeperRemoved(shopkeeper, chunkShopkeepers);
+			});
+			if (chunkShopkeepers.getShopkeepers().isEmpty()) {
+				changeListener.onChunkRemoved(chunkShopkeepers);
+			}
+		});
+
+		affectedWorlds.values().forEach(worldShopkeepers -> {
+			if (worldShopkeepers.getShopkeeperCount() > 0) return;
+			shopkeepersByWorld.remove(worldShopkeepers.getWorldName());
+			changeListener.onWorldRemoved(worldShopkeepers);
+		});
+	}
+
 	// Updates the shopkeeper's location inside the chunk map, moving it from its previous chunk to
 	// its current chunk.
 	// Returns true if the shopkeeper was moved to a different chunk.
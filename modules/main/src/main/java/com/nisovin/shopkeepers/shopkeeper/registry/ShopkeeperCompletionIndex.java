@@ -0,0 +1,227 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Sorted indices of the ids, unique ids, and normalized names of shopkeepers, for the efficient
+ * lookup of shopkeepers by the prefixes of these identifiers, e.g. for command completions.
+ * <p>
+ * The index lookups only iterate the shopkeepers that match the given prefix, and stop once the
+ * given limit of matching shopkeepers is reached.
+ */
+public final class ShopkeeperCompletionIndex {
+
+	// Separates the normalized name from the shopkeeper id in the name keys. Since this sorts
+	// before all other characters, shopkeepers with the same name are sorted by their id.
+	private static final char NAME_KEY_SEPARATOR = '\u0000';
+
+	/**
+	 * Normalizes the given shopkeeper name, or name prefix, for the lookup in this index.
+	 * <p>
+	 * This strips colors, normalizes whitespace, and converts the name to lowercase.
+	 *
+	 * @param name
+	 *            the name, not <code>null</code>
+	 * @return the normalized name
+	 */
+	public static String normalizeName(String name) {
+		return StringUtils.normalize(TextUtils.stripColor(name));
+	}
+
+	private static final class IndexedName {
+
+		private final String name;
+		private final @Nullable String nameKey; // Null if the name is empty
+
+		IndexedName(String name, @Nullable String nameKey) {
+			this.name = name;
+			this.nameKey = nameKey;
+		}
+	}
+
+	// Decimal id -> shopkeeper
+	private final NavigableMap<String, Shopkeeper> ids = new TreeMap<>();
+	// Unique id string (lowercase) -> shopkeeper
+	private final NavigableMap<String, Shopkeeper> uniqueIds = new TreeMap<>();
+	// Normalized name + separator + decimal id -> shopkeeper
+	private final NavigableMap<String, Shopkeeper> names = new TreeMap<>();
+	// The currently indexed names:
+	private final Map<Shopkeeper, IndexedName> indexedNames = new HashMap<>();
+
+	public ShopkeeperCompletionIndex() {
+	}
+
+	/**
+	 * Adds the given shopkeeper to this index.
+	 *
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 */
+	public void add(Shopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		ids.put(String.valueOf(shopkeeper.getId()), shopkeeper);
+		uniqueIds.put(shopkeeper.getUniqueId().toString(), shopkeeper);
+		this.updateName(shopkeeper);
+	}
+
+	/**
+	 * Removes the given shopkeeper from this index.
+	 *
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 */
+	public void remove(Shopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		ids.remove(String.valueOf(shopkeeper.getId()), shopkeeper);
+		uniqueIds.remove(shopkeeper.getUniqueId().toString(), shopkeeper);
+		IndexedName indexedName = indexedNames.remove(shopkeeper);
+		if (indexedName != null && indexedName.nameKey != null) {
+			names.remove(indexedName.nameKey, shopkeeper);
+		}
+	}
+
+	/**
+	 * Updates the indexed name of the given shopkeeper, if it has changed.
+	 * <p>
+	 * This has no effect if the shopkeeper has not been added to this index.
+	 *
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 */
+	public void onNameChanged(Shopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		IndexedName indexedName = indexedNames.get(shopkeeper);
+		if (indexedName == null) return; // Not indexed
+		if (indexedName.name.equals(shopkeeper.getName())) return; // Name not changed
+
+		if (indexedName.nameKey != null) {
+			names.remove(indexedName.nameKey, shopkeeper);
+		}
+		this.updateName(shopkeeper);
+	}
+
+	private void updateName(Shopkeeper shopkeeper) {
+		String name = shopkeeper.getName();
+		String normalizedName = normalizeName(name);
+		@Nullable String nameKey = null;
+		if (!normalizedName.isEmpty()) {
+			nameKey = normalizedName + NAME_KEY_SEPARATOR + shopkeeper.getId();
+			names.put(nameKey, shopkeeper);
+		}
+		indexedNames.put(shopkeeper, new IndexedName(name, nameKey));
+	}
+
+	/**
+	 * Removes all shopkeepers from this index.
+	 */
+	public void clear() {
+		ids.clear();
+		uniqueIds.clear();
+		names.clear();
+		indexedNames.clear();
+	}
+
+	/**
+	 * Gets the shopkeepers whose id starts with the given prefix.
+	 *
+	 * @param idPrefix
+	 *            the id prefix, not <code>null</code>
+	 * @param filter
+	 *            only shopkeepers accepted by this filter are included, not <code>null</code>
+	 * @param limit
+	 *            the maximum number of returned shopkeepers
+	 * @return the matching shopkeepers, sorted by their ids in lexicographic order, not
+	 *         <code>null</code>
+	 */
+	public List<? extends Shopkeeper> getShopkeepersByIdPrefix(
+			String idPrefix,
+			Predicate<? super Shopkeeper> filter,
+			int limit
+	) {
+		Validate.notNull(idPrefix, "idPrefix is null");
+		return findByPrefix(ids, idPrefix, filter, limit);
+	}
+
+	/**
+	 * Gets the shopkeepers whose unique id starts with the given prefix.
+	 *
+	 * @param uniqueIdPrefix
+	 *            the unique id prefix, not <code>null</code>, compared case-insensitively
+	 * @param filter
+	 *            only shopkeepers accepted by this filter are included, not <code>null</code>
+	 * @param limit
+	 *            the maximum number of returned shopkeepers
+	 * @return the matching shopkeepers, sorted by their unique ids, not <code>null</code>
+	 */
+	public List<? extends Shopkeeper> getShopkeepersByUniqueIdPrefix(
+			String uniqueIdPrefix,
+			Predicate<? super Shopkeeper> filter,
+			int limit
+	) {
+		Validate.notNull(uniqueIdPrefix, "uniqueIdPrefix is null");
+		// Assumption: UUID#toString is already lowercase (normalized)
+		return findByPrefix(uniqueIds, uniqueIdPrefix.toLowerCase(Locale.ROOT), filter, limit);
+	}
+
+	/**
+	 * Gets the shopkeepers whose {@link #normalizeName(String) normalized} name starts with the
+	 * given {@link #normalizeName(String) normalized} prefix.
+	 * <p>
+	 * Shopkeepers with empty names are not included.
+	 *
+	 * @param normalizedNamePrefix
+	 *            the normalized name prefix, not <code>null</code>
+	 * @param filter
+	 *            only shopkeepers accepted by this filter are included, not <code>null</code>
+	 * @param limit
+	 *            the maximum number of returned shopkeepers
+	 * @return the matching shopkeepers, sorted by their normalized names, not <code>null</code>
+	 */
+	public List<? extends Shopkeeper> getShopkeepersByNamePrefix(
+			String normalizedNamePrefix,
+			Predicate<? super Shopkeeper> filter,
+			int limit
+	) {
+		Validate.notNull(normalizedNamePrefix, "normalizedNamePrefix is null");
+		return findByPrefix(names, normalizedNamePrefix, filter, limit);
+	}
+
+	private static List<? extends Shopkeeper> findByPrefix(
+			NavigableMap<String, Shopkeeper> index,
+			String prefix,
+			Predicate<? super Shopkeeper> filter,
+			int limit
+	) {
+		Validate.notNull(filter, "filter is null");
+		Validate.isTrue(limit >= 0, "limit is negative");
+		List<Shopkeeper> result = new ArrayList<>(Math.min(limit, 16));
+		if (limit == 0) return result;
+
+		// The keys that start with the prefix are sorted directly after the prefix:
+		for (Entry<String, Shopkeeper> entry : index.tailMap(prefix, true).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) break; // No more matching keys
+
+			Shopkeeper shopkeeper = entry.getValue();
+			if (!filter.test(shopkeeper)) continue;
+
+			result.add(shopkeeper);
+			if (result.size() >= limit) break;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,107 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistrySnapshot.SKEntry;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Publishes {@link SKShopkeeperRegistrySnapshot read-only snapshots} of the shopkeeper registry for
+ * other threads.
+ * <p>
+ * All changes are recorded on the main thread. The snapshot entries are only recreated for the
+ * shopkeepers that actually changed, and a new snapshot is published at most once per tick, i.e.
+ * after each batch of changes. Each new snapshot is derived from the previous snapshot and only
+ * rebuilds the indexes of the worlds with changes. The latest snapshot is stored in a volatile
+ * field so that other threads can read it without any locking.
+ */
+class ShopkeeperRegistrySnapshots {
+
+	private final Plugin plugin;
+
+	// The shopkeepers whose entries need to be recreated:
+	private final Set<AbstractShopkeeper> dirtyShopkeepers = new LinkedHashSet<>();
+	// The ids of the removed shopkeepers that are contained in the current snapshot:
+	private final Set<Integer> removedIds = new HashSet<>();
+	// Whether there are changes that have not yet been published:
+	private boolean dirty = false;
+	private long version = 0L;
+	private @Nullable BukkitTask publishTask = null;
+
+	private volatile SKShopkeeperRegistrySnapshot snapshot = SKShopkeeperRegistrySnapshot.EMPTY;
+
+	ShopkeeperRegistrySnapshots(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	void onDisable() {
+		if (publishTask != null) {
+			publishTask.cancel();
+			publishTask = null;
+		}
+		dirtyShopkeepers.clear();
+		removedIds.clear();
+		dirty = false;
+		snapshot = new SKShopkeeperRegistrySnapshot(++version, Collections.emptyList());
+	}
+
+	// This can be called from any thread.
+	SKShopkeeperRegistrySnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	// This is called when the shopkeeper is added, and when its data or location has changed.
+	void onShopkeeperChanged(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		dirtyShopkeepers.add(shopkeeper);
+		this.markDirty();
+	}
+
+	void onShopkeeperRemoved(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		dirtyShopkeepers.remove(shopkeeper);
+		int shopkeeperId = shopkeeper.getId();
+		// Only called on the main thread, so the snapshot is not replaced concurrently:
+		if (snapshot.getShopkeeperById(shopkeeperId) != null) {
+			removedIds.add(shopkeeperId);
+			this.markDirty();
+		}
+	}
+
+	private void markDirty() {
+		dirty = true;
+		if (publishTask == null) {
+			publishTask = SchedulerUtils.runTaskOrOmit(plugin, this::publish);
+		}
+	}
+
+	// Publishes a new snapshot, if there are any unpublished changes.
+	void publish() {
+		publishTask = null;
+		if (!dirty) return;
+		dirty = false;
+
+		List<SKEntry> updatedEntries = new ArrayList<>(dirtyShopkeepers.size());
+		for (AbstractShopkeeper shopkeeper : dirtyShopkeepers) {
+			// Skip shopkeepers whose addition has been aborted:
+			if (!shopkeeper.isValid()) continue;
+			updatedEntries.add(SKEntry.of(shopkeeper));
+		}
+		dirtyShopkeepers.clear();
+
+		snapshot = snapshot.withChanges(++version, updatedEntries, removedIds);
+		removedIds.clear();
+	}
+}
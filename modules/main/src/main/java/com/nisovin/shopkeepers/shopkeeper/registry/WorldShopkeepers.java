@@ -3,7 +3,6 @@ package com.nisovin.shopkeepers.shopkeeper.registry;
 import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -15,12 +14,15 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.ChunkKeys;
+import com.nisovin.shopkeepers.util.java.Long2ObjectMap;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 final class WorldShopkeepers {
 
 	private final String worldName;
-	private final Map<ChunkCoords, ChunkShopkeepers> shopkeepersByChunk = new HashMap<>();
+	// By chunk key (see ChunkKeys): Avoids the allocation and hashing of ChunkCoords for lookups.
+	private final Long2ObjectMap<ChunkShopkeepers> shopkeepersByChunk = new Long2ObjectMap<>();
 	// Unmodifiable entries:
 	private final Map<ChunkCoords, List<? extends AbstractShopkeeper>> shopkeeperViewsByChunk = new LinkedHashMap<>();
 	// Unmodifiable map with unmodifiable entries:
@@ -59,7 +61,13 @@ final class WorldShopkeepers {
 	ChunkShopkeepers getChunkShopkeepers(ChunkCoords chunkCoords) {
 		assert chunkCoords != null;
 		assert chunkCoords.getWorldName().equals(this.getWorldName());
-		return shopkeepersByChunk.get(chunkCoords);
+		return this.getChunkShopkeepers(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
+	}
+
+	// Returns null if there are no shopkeepers in the specified chunk:
+	@Nullable
+	ChunkShopkeepers getChunkShopkeepers(int chunkX, int chunkZ) {
+		return shopkeepersByChunk.get(ChunkKeys.getKey(chunkX, chunkZ));
 	}
 
 	ChunkShopkeepers addShopkeeper(AbstractShopkeeper shopkeeper) {
@@ -67,15 +75,13 @@ final class WorldShopkeepers {
 		assert shopkeeper.getLastChunkCoords() == null;
 		ChunkCoords chunkCoords = Unsafe.assertNonNull(shopkeeper.getChunkCoords());
 		assert chunkCoords.getWorldName().equals(this.getWorldName());
-		ChunkShopkeepers chunkShopkeepers = shopkeepersByChunk.computeIfAbsent(
-				chunkCoords,
-				chkCoords -> {
-					ChunkShopkeepers newChunkShopkeepers = new ChunkShopkeepers(chkCoords);
-					shopkeeperViewsByChunk.put(chkCoords, newChunkShopkeepers.getShopkeepers());
-					return newChunkShopkeepers;
-				}
-		);
-		assert chunkShopkeepers != null;
+		long chunkKey = ChunkKeys.getKey(chunkCoords);
+		ChunkShopkeepers chunkShopkeepers = shopkeepersByChunk.get(chunkKey);
+		if (chunkShopkeepers == null) {
+			chunkShopkeepers = new ChunkShopkeepers(chunkCoords);
+			shopkeepersByChunk.put(chunkKey, chunkShopkeepers);
+			shopkeeperViewsByChunk.put(chunkCoords, chunkShopkeepers.getShopkeepers());
+		}
 		assert !chunkShopkeepers.getShopkeepers().contains(shopkeeper);
 		chunkShopkeepers.addShopkeeper(shopkeeper);
 		shopkeeperCount += 1;
@@ -86,12 +92,32 @@ final class WorldShopkeepers {
 		assert shopkeeper != null;
 		ChunkCoords chunkCoords = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
 		assert chunkCoords.getWorldName().equals(this.getWorldName());
-		ChunkShopkeepers chunkShopkeepers = Unsafe.assertNonNull(shopkeepersByChunk.get(chunkCoords));
+		long chunkKey = ChunkKeys.getKey(chunkCoords);
+		ChunkShopkeepers chunkShopkeepers = Unsafe.assertNonNull(shopkeepersByChunk.get(chunkKey));
 		assert chunkShopkeepers.getShopkeepers().contains(shopkeeper);
 		chunkShopkeepers.removeShopkeeper(shopkeeper);
 		shopkeeperCount -= 1;
 		if (chunkShopkeepers.getShopkeepers().isEmpty()) {
-			shopkeepersByChunk.remove(chunkCoords);
+			shopkeepersByChunk.remove(chunkKey);
+			shopkeeperViewsByChunk.remove(chunkCoords);
+		}
+		return chunkShopkeepers;
+	}
+
+	// Removes the given shopkeepers, which are all located in the specified chunk.
+	ChunkShopkeepers removeShopkeepers(
+			ChunkCoords chunkCoords,
+			Set<? extends AbstractShopkeeper> shopkeepers
+	) {
+		assert chunkCoords != null && shopkeepers != null;
+		assert chunkCoords.getWorldName().equals(this.getWorldName());
+		long chunkKey = ChunkKeys.getKey(chunkCoords);
+		ChunkShopkeepers chunkShopkeepers = Unsafe.assertNonNull(shopkeepersByChunk.get(chunkKey));
+		int removedCount = chunkShopkeepers.removeShopkeepers(shopkeepers);
+		assert removedCount == shopkeepers.size();
+		shopkeeperCount -= removedCount;
+		if (chunkShopkeepers.getShopkeepers().isEmpty()) {
+			shopkeepersByChunk.remove(chunkKey);
 			shopkeeperViewsByChunk.remove(chunkCoords);
 		}
 		return chunkShopkeepers;
@@ -1,22 +1,28 @@
 package com.nisovin.shopkeepers.shopkeeper.ticking;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.plugin.Plugin;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.util.java.CyclicCounter;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 
+/**
+ * Ticks the active shopkeepers.
+ * <p>
+ * The shopkeepers are ticked per world: Each world with ticking shopkeepers is ticked by its own
+ * {@link WorldTicker}, whose task is scheduled via the {@link WorldTickScheduler}.
+ * <p>
+ * All methods of this class, as well as the tasks of the world tickers, are expected to be invoked
+ * on the server's main thread.
+ */
 public class ShopkeeperTicker {
 
 	/**
@@ -46,57 +52,35 @@ public class ShopkeeperTicker {
 		return tickingGroupCounter.getAndIncrement();
 	}
 
-	private static final class TickingGroup {
+	private final Plugin plugin;
+	private final WorldTickScheduler scheduler;
+	// Triggers a delayed save after ticks in which shopkeepers were marked as dirty:
+	private final Runnable saveDelayed;
 
-		private final Set<AbstractShopkeeper> shopkeepers = new LinkedHashSet<>();
+	// World name -> world ticker:
+	// The world tickers are created when the first shopkeeper of the world starts ticking, and
+	// removed again once the world has no more ticking shopkeepers.
+	private final Map<String, WorldTicker> worldTickers = new HashMap<>();
+	// The world tickers of the ticking shopkeepers: Shopkeepers might have moved to another world
+	// by the time they stop ticking.
+	private final Map<AbstractShopkeeper, WorldTicker> shopkeeperWorldTickers = new HashMap<>();
 
-		TickingGroup() {
-		}
-
-		Collection<? extends AbstractShopkeeper> getShopkeepers() {
-			return shopkeepers;
-		}
-
-		void addShopkeeper(AbstractShopkeeper shopkeeper) {
-			assert shopkeeper != null;
-			shopkeepers.add(shopkeeper);
-		}
-
-		void removeShopkeeper(AbstractShopkeeper shopkeeper) {
-			assert shopkeeper != null;
-			shopkeepers.remove(shopkeeper);
-		}
-
-		void clear() {
-			shopkeepers.clear();
-		}
-	}
-
-	private final SKShopkeepersPlugin plugin;
-
-	private final List<? extends TickingGroup> tickingGroups;
-	{
-		List<TickingGroup> tickingGroups = new ArrayList<>(TICKING_GROUPS);
-		for (int i = 0; i < TICKING_GROUPS; i++) {
-			tickingGroups.add(new TickingGroup());
-		}
-		this.tickingGroups = tickingGroups;
+	public ShopkeeperTicker(SKShopkeepersPlugin plugin) {
+		this(
+				plugin,
+				WorldTickScheduler.MAIN_THREAD,
+				() -> plugin.getShopkeeperStorage().saveDelayed()
+		);
 	}
 
-	private final CyclicCounter activeTickingGroup = new CyclicCounter(TICKING_GROUPS);
-	private boolean currentlyTicking = false;
-	private boolean dirty;
-
-	// True: Ticking started, False: Ticking stopped
-	// Note: The start/stop-ticking callbacks for these pending changes have already been invoked
-	// and only the actual registration change is deferred, because if a shopkeeper changes its
-	// ticking state multiple times during the same tick we would otherwise lose the callbacks for
-	// the intermediate ticking state changes.
-	private final Map<AbstractShopkeeper, Boolean> pendingTickingChanges = new LinkedHashMap<>();
-
-	public ShopkeeperTicker(SKShopkeepersPlugin plugin) {
+	// Visible for testing:
+	ShopkeeperTicker(Plugin plugin, WorldTickScheduler scheduler, Runnable saveDelayed) {
 		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(scheduler, "scheduler is null");
+		Validate.notNull(saveDelayed, "saveDelayed is null");
 		this.plugin = plugin;
+		this.scheduler = scheduler;
+		this.saveDelayed = saveDelayed;
 	}
 
 	public void onEnable() {
@@ -105,10 +89,8 @@ public class ShopkeeperTicker {
 		// ensures that the particle colors of our tick visualization remain the same across reloads
 		// (avoids possible confusion for users).
 		tickingGroupCounter.reset();
-		activeTickingGroup.setValue(0);
 
-		// Start shopkeeper ticking task:
-		this.startShopkeeperTickTask();
+		// The world tickers are started once the first shopkeepers of their worlds start ticking.
 	}
 
 	public void onDisable() {
@@ -116,41 +98,35 @@ public class ShopkeeperTicker {
 		// since shopkeepers should stop their ticking automatically once they are deactivated.
 		// However, if the plugin is shut down during shopkeeper ticking, we can end up with still
 		// pending registration changes.
-		if (currentlyTicking) {
-			// Reset:
-			currentlyTicking = false;
-			dirty = false;
-			tickingGroups.forEach(TickingGroup::clear);
-			pendingTickingChanges.clear();
-		} else {
-			this.ensureEmpty();
-		}
-	}
-
-	private void ensureEmpty() {
-		boolean anyNonEmptyTickingGroup = tickingGroups.stream()
-				.anyMatch(tickingGroup -> !tickingGroup.getShopkeepers().isEmpty());
-		if (anyNonEmptyTickingGroup) {
-			Log.warning("Some ticking shopkeepers were not properly unregistered!");
-			tickingGroups.forEach(TickingGroup::clear);
-		}
-		if (!pendingTickingChanges.isEmpty()) {
-			Log.warning("Unexpected pending shopkeeper ticking changes!");
-			pendingTickingChanges.clear();
-		}
+		worldTickers.values().forEach(WorldTicker::reset);
+		worldTickers.clear();
+		shopkeeperWorldTickers.clear();
+	}
+
+	private WorldTicker getOrCreateWorldTicker(String worldName) {
+		return worldTickers.computeIfAbsent(worldName, key -> {
+			WorldTicker worldTicker = new WorldTicker(plugin, this, worldName);
+			worldTicker.start(scheduler);
+			Log.debug(DebugOptions.shopkeeperActivation,
+					() -> "Started ticking world '" + worldName + "'.");
+			return worldTicker;
+		});
 	}
 
-	private TickingGroup getTickingGroup(int tickingGroupIndex) {
-		assert tickingGroupIndex >= 0 && tickingGroupIndex < tickingGroups.size();
-		TickingGroup tickingGroup = tickingGroups.get(tickingGroupIndex);
-		assert tickingGroup != null;
-		return tickingGroup;
+	// Called by the world tickers after a tick in which shopkeepers were marked as dirty.
+	void saveDelayed() {
+		saveDelayed.run();
 	}
 
-	private TickingGroup getTickingGroup(AbstractShopkeeper shopkeeper) {
-		assert shopkeeper != null;
-		int tickingGroupIndex = shopkeeper.getTickingGroup();
-		return this.getTickingGroup(tickingGroupIndex);
+	// Called by the world ticker after a tick when it has no more ticking shopkeepers.
+	void onWorldTickerEmpty(WorldTicker worldTicker) {
+		assert worldTicker.isEmpty();
+		String worldName = worldTicker.getWorldName();
+		if (worldTickers.remove(worldName, worldTicker)) {
+			worldTicker.stop();
+			Log.debug(DebugOptions.shopkeeperActivation,
+					() -> "Stopped ticking world '" + worldName + "'.");
+		}
 	}
 
 	// TICKING START / STOP
@@ -160,15 +136,16 @@ public class ShopkeeperTicker {
 		assert shopkeeper != null;
 		if (shopkeeper.isTicking()) return; // Already ticking
 
+		// Only shopkeepers in active chunks are ticked:
+		ChunkCoords chunkCoords = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
+		WorldTicker worldTicker = this.getOrCreateWorldTicker(chunkCoords.getWorldName());
+		shopkeeperWorldTickers.put(shopkeeper, worldTicker);
+
 		Log.debug(DebugOptions.shopkeeperActivation, () -> shopkeeper.getLogPrefix()
-				+ "Ticking started." + (currentlyTicking ? " (Deferred registration)" : ""));
+				+ "Ticking started."
+				+ (worldTicker.isCurrentlyTicking() ? " (Deferred registration)" : ""));
 
-		if (currentlyTicking) {
-			// Defer registration until after ticking:
-			pendingTickingChanges.put(shopkeeper, true); // Replaces any previous value
-		} else {
-			this.addShopkeeper(shopkeeper);
-		}
+		worldTicker.startTicking(shopkeeper);
 
 		// Inform the shopkeeper:
 		try {
@@ -183,14 +160,14 @@ public class ShopkeeperTicker {
 		assert shopkeeper != null;
 		if (!shopkeeper.isTicking()) return; // Already not ticking
 
-		Log.debug(DebugOptions.shopkeeperActivation, () -> shopkeeper.getLogPrefix()
-				+ "Ticking stopped." + (currentlyTicking ? " (Deferred unregistration)" : ""));
+		WorldTicker worldTicker = shopkeeperWorldTickers.remove(shopkeeper);
+		if (worldTicker != null) {
+			Log.debug(DebugOptions.shopkeeperActivation, () -> shopkeeper.getLogPrefix()
+					+ "Ticking stopped."
+					+ (worldTicker.isCurrentlyTicking() ? " (Deferred unregistration)" : ""));
 
-		if (currentlyTicking) {
-			// Defer unregistration until after ticking:
-			pendingTickingChanges.put(shopkeeper, false); // Replaces any previous value
-		} else {
-			this.removeShopkeeper(shopkeeper);
+			worldTicker.stopTicking(shopkeeper);
+			// Empty world tickers are removed after their next tick.
 		}
 
 		// Inform the shopkeeper:
@@ -200,83 +177,4 @@ public class ShopkeeperTicker {
 			Log.severe(shopkeeper.getLogPrefix() + "Error during ticking stop!", e);
 		}
 	}
-
-	private void addShopkeeper(AbstractShopkeeper shopkeeper) {
-		assert shopkeeper != null;
-		TickingGroup tickingGroup = this.getTickingGroup(shopkeeper);
-		assert tickingGroup != null;
-		tickingGroup.addShopkeeper(shopkeeper);
-	}
-
-	private void removeShopkeeper(AbstractShopkeeper shopkeeper) {
-		assert shopkeeper != null;
-		TickingGroup tickingGroup = this.getTickingGroup(shopkeeper);
-		assert tickingGroup != null;
-		tickingGroup.removeShopkeeper(shopkeeper);
-	}
-
-	// TICKING
-
-	private void startShopkeeperTickTask() {
-		new ShopkeeperTickTask().start();
-	}
-
-	private final class ShopkeeperTickTask extends BukkitRunnable {
-
-		private static final int PERIOD = TICKING_PERIOD_TICKS / TICKING_GROUPS;
-
-		void start() {
-			this.runTaskTimer(plugin, PERIOD, PERIOD);
-		}
-
-		@Override
-		public void run() {
-			tickShopkeepers();
-		}
-	}
-
-	private void tickShopkeepers() {
-		dirty = false;
-
-		currentlyTicking = true;
-		TickingGroup tickingGroup = this.getTickingGroup(activeTickingGroup.getValue());
-		tickingGroup.getShopkeepers().forEach(this::tickShopkeeper);
-		currentlyTicking = false;
-
-		// Process pending shopkeeper ticking registration changes:
-		pendingTickingChanges.forEach((shopkeeper, isTicking) -> {
-			if (isTicking) {
-				this.addShopkeeper(shopkeeper);
-			} else {
-				this.removeShopkeeper(shopkeeper);
-			}
-		});
-		pendingTickingChanges.clear();
-
-		// Trigger a delayed save if any of the shopkeepers got marked as dirty:
-		if (dirty) {
-			plugin.getShopkeeperStorage().saveDelayed();
-		}
-
-		// Update the active ticking group:
-		activeTickingGroup.getAndIncrement();
-	}
-
-	private void tickShopkeeper(AbstractShopkeeper shopkeeper) {
-		assert shopkeeper != null;
-		// Skip if the shopkeeper is no longer ticking (e.g. if it got removed or deactivated while
-		// it was pending to be ticked):
-		if (!shopkeeper.isTicking()) return;
-
-		// Tick the shopkeeper:
-		try {
-			shopkeeper.tick();
-		} catch (Throwable e) {
-			Log.severe(shopkeeper.getLogPrefix() + "Error during ticking!", e);
-		}
-
-		if (shopkeeper.isDirty()) {
-			dirty = true;
-		}
-	}
 }
@@ -0,0 +1,63 @@
+package com.nisovin.shopkeepers.shopkeeper.ticking;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Schedules the tasks that tick the shopkeepers of individual worlds.
+ * <p>
+ * The {@link ShopkeeperTicker} and the ticked shopkeepers are not thread-safe: The scheduled tasks
+ * have to run on the server's main thread. The {@link #MAIN_THREAD default} scheduler is therefore
+ * used outside of tests.
+ * <p>
+ * This is not an extension point for region-threaded servers: Ticking the worlds on other threads
+ * would also require the shopkeeper activation, the shop object spawning, and the entity AI to be
+ * split per world, which they are not.
+ */
+@FunctionalInterface
+interface WorldTickScheduler {
+
+	/**
+	 * A scheduled task.
+	 */
+	@FunctionalInterface
+	public interface ScheduledTask {
+
+		/**
+		 * Cancels the task.
+		 */
+		public void cancel();
+	}
+
+	/**
+	 * Runs all tasks on the server's main thread.
+	 */
+	public static final WorldTickScheduler MAIN_THREAD = (plugin, worldName, task, delay, period) -> {
+		BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(plugin, task, delay, period);
+		return bukkitTask::cancel;
+	};
+
+	/**
+	 * Schedules a repeating task for the specified world.
+	 * 
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 * @param worldName
+	 *            the world name, not <code>null</code>
+	 * @param task
+	 *            the task, not <code>null</code>
+	 * @param delayTicks
+	 *            the delay in ticks before the first execution
+	 * @param periodTicks
+	 *            the period in ticks between subsequent executions
+	 * @return the scheduled task, not <code>null</code>
+	 */
+	public ScheduledTask runTaskTimer(
+			Plugin plugin,
+			String worldName,
+			Runnable task,
+			long delayTicks,
+			long periodTicks
+	);
+}
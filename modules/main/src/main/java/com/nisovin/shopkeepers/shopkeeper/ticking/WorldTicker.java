@@ -0,0 +1,247 @@
+package com.nisovin.shopkeepers.shopkeeper.ticking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.ticking.WorldTickScheduler.ScheduledTask;
+import com.nisovin.shopkeepers.util.java.CyclicCounter;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Ticks the active shopkeepers of a single world.
+ * <p>
+ * Each world is ticked by its own task, which is scheduled via the {@link WorldTickScheduler}.
+ * Worlds are therefore ticked independently of each other.
+ */
+final class WorldTicker {
+
+	private static final class TickingGroup {
+
+		private final Set<AbstractShopkeeper> shopkeepers = new LinkedHashSet<>();
+
+		TickingGroup() {
+		}
+
+		Collection<? extends AbstractShopkeeper> getShopkeepers() {
+			return shopkeepers;
+		}
+
+		boolean addShopkeeper(AbstractShopkeeper shopkeeper) {
+			assert shopkeeper != null;
+			return shopkeepers.add(shopkeeper);
+		}
+
+		boolean removeShopkeeper(AbstractShopkeeper shopkeeper) {
+			assert shopkeeper != null;
+			return shopkeepers.remove(shopkeeper);
+		}
+
+		void clear() {
+			shopkeepers.clear();
+		}
+	}
+
+	private static final int TICK_TASK_PERIOD = ShopkeeperTicker.TICKING_PERIOD_TICKS
+			/ ShopkeeperTicker.TICKING_GROUPS;
+
+	private final Plugin plugin;
+	private final ShopkeeperTicker ticker;
+	private final String worldName;
+
+	private final List<? extends TickingGroup> tickingGroups;
+	{
+		List<TickingGroup> tickingGroups = new ArrayList<>(ShopkeeperTicker.TICKING_GROUPS);
+		for (int i = 0; i < ShopkeeperTicker.TICKING_GROUPS; i++) {
+			tickingGroups.add(new TickingGroup());
+		}
+		this.tickingGroups = tickingGroups;
+	}
+	private int shopkeeperCount = 0;
+
+	private final CyclicCounter activeTickingGroup = new CyclicCounter(
+			ShopkeeperTicker.TICKING_GROUPS
+	);
+	private boolean currentlyTicking = false;
+	private boolean dirty;
+
+	// True: Ticking started, False: Ticking stopped
+	// Note: The start/stop-ticking callbacks for these pending changes have already been invoked
+	// and only the actual registration change is deferred, because if a shopkeeper changes its
+	// ticking state multiple times during the same tick we would otherwise lose the callbacks for
+	// the intermediate ticking state changes.
+	private final Map<AbstractShopkeeper, Boolean> pendingTickingChanges = new LinkedHashMap<>();
+
+	private @Nullable ScheduledTask tickTask = null;
+
+	WorldTicker(Plugin plugin, ShopkeeperTicker ticker, String worldName) {
+		assert plugin != null && ticker != null && worldName != null;
+		this.plugin = plugin;
+		this.ticker = ticker;
+		this.worldName = worldName;
+	}
+
+	String getWorldName() {
+		return worldName;
+	}
+
+	void start(WorldTickScheduler scheduler) {
+		assert tickTask == null;
+		tickTask = scheduler.runTaskTimer(
+				plugin,
+				worldName,
+				this::tickShopkeepers,
+				TICK_TASK_PERIOD,
+				TICK_TASK_PERIOD
+		);
+	}
+
+	void stop() {
+		if (tickTask != null) {
+			tickTask.cancel();
+			tickTask = null;
+		}
+	}
+
+	boolean isCurrentlyTicking() {
+		return currentlyTicking;
+	}
+
+	boolean isEmpty() {
+		return shopkeeperCount == 0 && pendingTickingChanges.isEmpty();
+	}
+
+	// Called when the plugin is disabled.
+	void reset() {
+		this.stop();
+		if (currentlyTicking) {
+			// The plugin is shut down during the shopkeeper ticking. We can end up with still
+			// pending registration changes.
+			currentlyTicking = false;
+			dirty = false;
+		} else {
+			if (shopkeeperCount != 0) {
+				Log.warning("Some ticking shopkeepers were not properly unregistered (world '"
+						+ worldName + "')!");
+			}
+			if (!pendingTickingChanges.isEmpty()) {
+				Log.warning("Unexpected pending shopkeeper ticking changes (world '"
+						+ worldName + "')!");
+			}
+		}
+		tickingGroups.forEach(TickingGroup::clear);
+		shopkeeperCount = 0;
+		pendingTickingChanges.clear();
+	}
+
+	private TickingGroup getTickingGroup(int tickingGroupIndex) {
+		assert tickingGroupIndex >= 0 && tickingGroupIndex < tickingGroups.size();
+		TickingGroup tickingGroup = tickingGroups.get(tickingGroupIndex);
+		assert tickingGroup != null;
+		return tickingGroup;
+	}
+
+	private TickingGroup getTickingGroup(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		int tickingGroupIndex = shopkeeper.getTickingGroup();
+		return this.getTickingGroup(tickingGroupIndex);
+	}
+
+	// TICKING START / STOP
+
+	void startTicking(AbstractShopkeeper shopkeeper) {
+		if (currentlyTicking) {
+			// Defer registration until after ticking:
+			pendingTickingChanges.put(shopkeeper, true); // Replaces any previous value
+		} else {
+			this.addShopkeeper(shopkeeper);
+		}
+	}
+
+	void stopTicking(AbstractShopkeeper shopkeeper) {
+		if (currentlyTicking) {
+			// Defer unregistration until after ticking:
+			pendingTickingChanges.put(shopkeeper, false); // Replaces any previous value
+		} else {
+			this.removeShopkeeper(shopkeeper);
+		}
+	}
+
+	private void addShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		TickingGroup tickingGroup = this.getTickingGroup(shopkeeper);
+		assert tickingGroup != null;
+		if (tickingGroup.addShopkeeper(shopkeeper)) {
+			shopkeeperCount++;
+		}
+	}
+
+	private void removeShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		TickingGroup tickingGroup = this.getTickingGroup(shopkeeper);
+		assert tickingGroup != null;
+		if (tickingGroup.removeShopkeeper(shopkeeper)) {
+			shopkeeperCount--;
+		}
+	}
+
+	// TICKING
+
+	private void tickShopkeepers() {
+		dirty = false;
+
+		currentlyTicking = true;
+		TickingGroup tickingGroup = this.getTickingGroup(activeTickingGroup.getValue());
+		tickingGroup.getShopkeepers().forEach(this::tickShopkeeper);
+		currentlyTicking = false;
+
+		// Process pending shopkeeper ticking registration changes:
+		pendingTickingChanges.forEach((shopkeeper, isTicking) -> {
+			if (isTicking) {
+				this.addShopkeeper(shopkeeper);
+			} else {
+				this.removeShopkeeper(shopkeeper);
+			}
+		});
+		pendingTickingChanges.clear();
+
+		// Trigger a delayed save if any of the shopkeepers got marked as dirty:
+		if (dirty) {
+			ticker.saveDelayed();
+		}
+
+		// Update the active ticking group:
+		activeTickingGroup.getAndIncrement();
+
+		// Stop ticking this world if there are no more ticking shopkeepers:
+		if (this.isEmpty()) {
+			ticker.onWorldTickerEmpty(this);
+		}
+	}
+
+	private void tickShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		// Skip if the shopkeeper is no longer ticking (e.g. if it got removed or deactivated while
+		// it was pending to be ticked):
+		if (!shopkeeper.isTicking()) return;
+
+		// Tick the shopkeeper:
+		try {
+			shopkeeper.tick();
+		} catch (Throwable e) {
+			Log.severe(shopkeeper.getLogPrefix() + "Error during ticking!", e);
+		}
+
+		if (shopkeeper.isDirty()) {
+			dirty = true;
+		}
+	}
+}
@@ -16,6 +16,9 @@ import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockExplodeEvent;
 import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
@@ -247,4 +250,90 @@ class BaseBlockShopListener implements Listener {
 		assert blockList != null;
 		blockList.removeIf(this::isProtectedBlock);
 	}
+
+	// Detect block changes that have not been prevented (e.g. because other plugins un-cancelled
+	// the events), so that the affected block shops are checked and respawned if necessary.
+	// Pistons are not prevented from moving the blocks of block shops or the blocks they are
+	// attached to: The affected block shops are respawned by these checks instead.
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockBreakMonitor(BlockBreakEvent event) {
+		this.queueBlockShopChecks(event.getBlock());
+	}
+
+	// Physics events are called very frequently. We therefore only check the block itself.
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockPhysicsMonitor(BlockPhysicsEvent event) {
+		Shopkeeper shopkeeper = shopkeeperRegistry.getShopkeeperByBlock(event.getBlock());
+		if (shopkeeper == null || !baseBlockShops.isBaseBlockShop(shopkeeper)) return;
+
+		this.queueBlockShopCheck(shopkeeper);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onEntityExplosionMonitor(EntityExplodeEvent event) {
+		event.blockList().forEach(this::queueBlockShopChecks);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockExplosionMonitor(BlockExplodeEvent event) {
+		event.blockList().forEach(this::queueBlockShopChecks);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onPistonExtendMonitor(BlockPistonExtendEvent event) {
+		this.queuePistonBlockShopChecks(event, event.getBlocks());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onPistonRetractMonitor(BlockPistonRetractEvent event) {
+		this.queuePistonBlockShopChecks(event, event.getBlocks());
+	}
+
+	private void queuePistonBlockShopChecks(
+			BlockPistonEvent event,
+			List<? extends Block> movedBlocks
+	) {
+		BlockFace direction = event.getDirection();
+		this.queueBlockShopChecks(event.getBlock().getRelative(direction));
+		for (Block block : movedBlocks) {
+			this.queueBlockShopChecks(block);
+			this.queueBlockShopChecks(block.getRelative(direction));
+		}
+	}
+
+	// Queues checks for the block shops at the given block and at its adjacent blocks, since these
+	// might be attached to the given block.
+	private void queueBlockShopChecks(Block block) {
+		String worldName = block.getWorld().getName();
+		int blockX = block.getX();
+		int blockY = block.getY();
+		int blockZ = block.getZ();
+		this.queueBlockShopCheck(worldName, blockX, blockY, blockZ);
+		for (BlockFace blockFace : BLOCK_SIDES) {
+			this.queueBlockShopCheck(
+					worldName,
+					blockX + blockFace.getModX(),
+					blockY + blockFace.getModY(),
+					blockZ + blockFace.getModZ()
+			);
+		}
+	}
+
+	private void queueBlockShopCheck(String worldName, int blockX, int blockY, int blockZ) {
+		Shopkeeper shopkeeper = shopkeeperRegistry.getShopkeeperByBlock(
+				worldName,
+				blockX,
+				blockY,
+				blockZ
+		);
+		if (shopkeeper == null || !baseBlockShops.isBaseBlockShop(shopkeeper)) return;
+
+		this.queueBlockShopCheck(shopkeeper);
+	}
+
+	private void queueBlockShopCheck(Shopkeeper shopkeeper) {
+		BaseBlockShopObject blockShop = (BaseBlockShopObject) shopkeeper.getShopObject();
+		baseBlockShops.getBlockShopChecks().queueCheck(blockShop);
+	}
 }
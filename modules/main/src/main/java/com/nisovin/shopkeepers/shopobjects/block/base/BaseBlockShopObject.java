@@ -11,6 +11,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopobjects.ShopkeeperMetadata;
@@ -132,11 +133,14 @@ public abstract class BaseBlockShopObject extends AbstractBlockShopObject {
 			return false;
 		}
 
-		// Cancel block physics for this placed block if needed:
-		blockShops.cancelNextBlockPhysics(spawnBlock);
-		spawnBlock.setBlockData(blockData, false); // Skip physics update
-		// Cleanup state if no block physics were triggered:
-		blockShops.cancelNextBlockPhysics(null);
+		// Skip the block update if the block is already in the expected state:
+		if (!blockData.equals(spawnBlock.getBlockData())) {
+			// Cancel block physics for this placed block if needed:
+			blockShops.cancelNextBlockPhysics(spawnBlock);
+			spawnBlock.setBlockData(blockData, false); // Skip physics update
+			// Cleanup state if no block physics were triggered:
+			blockShops.cancelNextBlockPhysics(null);
+		}
 
 		// Check if the block placement has failed for some reason:
 		if (!this.isValidBlockType(spawnBlock.getType())) {
@@ -147,6 +151,7 @@ public abstract class BaseBlockShopObject extends AbstractBlockShopObject {
 
 		// Remember the block (indicates that this shop object has been spawned):
 		this.block = spawnBlock;
+		blockShops.getBlockShopChecks().onSpawned(this, new ChunkCoords(spawnBlock));
 		// Assign metadata for easy identification by other plugins:
 		ShopkeeperMetadata.apply(block);
 
@@ -181,6 +186,7 @@ public abstract class BaseBlockShopObject extends AbstractBlockShopObject {
 
 		// Cleanup:
 		this.cleanUpBlock(block);
+		blockShops.getBlockShopChecks().onDespawned(this, new ChunkCoords(block));
 
 		// Remove the block:
 		block.setType(Material.AIR, false);
@@ -208,21 +214,35 @@ public abstract class BaseBlockShopObject extends AbstractBlockShopObject {
 	@Override
 	public void onTick() {
 		super.onTick();
-		if (!checkLimiter.request()) {
-			return;
-		}
+		// The blocks of spawned block shops are checked by the BlockShopChecks. We only
+		// periodically retry to spawn block shops whose spawning has failed. This does not require
+		// any block access while the block shop is spawned.
+		if (block != null) return;
+		if (!checkLimiter.request()) return;
+
+		// Indicate ticking activity for visualization:
+		this.indicateTickActivity();
+
+		this.checkBlock();
+	}
 
+	// BLOCK CHECKS
+
+	/**
+	 * Checks whether the block still exists, and respawns it otherwise.
+	 * <p>
+	 * The block of a spawned block shop is not checked during the shopkeeper ticks. Instead, the
+	 * {@link BlockShopChecks} invoke this after block changes, and if the periodic sweep across all
+	 * spawned block shops finds the block to be missing.
+	 */
+	void checkBlock() {
 		if (this.isSpawningScheduled()) {
 			Log.debug(DebugOptions.regularTickActivities, () -> shopkeeper.getLogPrefix()
 					+ "Spawning is scheduled. Skipping block check.");
 			return;
 		}
 
-		// Indicate ticking activity for visualization:
-		this.indicateTickActivity();
-
-		// This is only called for shopkeepers in active (i.e. loaded) chunks, and shopkeepers are
-		// despawned on chunk unload:
+		// Block shops are despawned on chunk unload:
 		assert Unsafe.assertNonNull(shopkeeper.getChunkCoords()).isChunkLoaded();
 
 		if (!this.isActive()) {
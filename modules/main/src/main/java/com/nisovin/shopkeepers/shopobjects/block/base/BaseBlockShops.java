@@ -19,11 +19,18 @@ public class BaseBlockShops {
 	private final SKShopkeepersPlugin plugin;
 	private final SKShopkeeperRegistry shopkeeperRegistry;
 	private final BaseBlockShopListener blockShopListener;
+	private final BlockShopChecks<BaseBlockShopObject> blockShopChecks;
 
 	public BaseBlockShops(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
 		this.shopkeeperRegistry = plugin.getShopkeeperRegistry();
 		this.blockShopListener = new BaseBlockShopListener(plugin, Unsafe.initialized(this));
+		this.blockShopChecks = new BlockShopChecks<>(
+				plugin,
+				BaseBlockShopObject::isSpawned,
+				BaseBlockShopObject::isActive,
+				BaseBlockShopObject::checkBlock
+		);
 	}
 
 	public void onEnable() {
@@ -32,6 +39,7 @@ public class BaseBlockShops {
 		if (!this.shallEnable()) return;
 
 		blockShopListener.onEnable();
+		blockShopChecks.onEnable();
 	}
 
 	private boolean shallEnable() {
@@ -46,6 +54,11 @@ public class BaseBlockShops {
 
 	public void onDisable() {
 		blockShopListener.onDisable();
+		blockShopChecks.onDisable();
+	}
+
+	BlockShopChecks<BaseBlockShopObject> getBlockShopChecks() {
+		return blockShopChecks;
 	}
 
 	/**
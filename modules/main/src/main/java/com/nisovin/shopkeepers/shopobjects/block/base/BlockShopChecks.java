@@ -0,0 +1,181 @@
+package com.nisovin.shopkeepers.shopobjects.block.base;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Checks whether the blocks of spawned {@link BaseBlockShopObject}s still exist, and respawns them
+ * otherwise.
+ * <p>
+ * Instead of each block shop periodically checking its block, block changes are usually detected
+ * via the block events that are handled by the {@link BaseBlockShopListener}. Since not all block
+ * changes can be detected this way (e.g. block changes by other plugins), all spawned block shops
+ * are additionally verified by a single sweep that is spread across {@link #SWEEP_PERIOD_TICKS}
+ * and that processes the block shops chunk by chunk.
+ * <p>
+ * Block shops whose block might be missing are queued for a check. At most
+ * {@link #MAX_CHECKS_PER_TICK} of these queued block shops are checked, and respawned if
+ * necessary, per tick.
+ * <p>
+ * The block shops are accessed via the given callbacks. This is usually
+ * {@link BaseBlockShopObject#isSpawned()}, {@link BaseBlockShopObject#isActive()}, and
+ * {@link BaseBlockShopObject#checkBlock()}.
+ *
+ * @param <S>
+ *            the type of the block shops
+ */
+class BlockShopChecks<S> {
+
+	static final int SWEEP_PERIOD_TICKS = 30 * 20; // 30 seconds
+	static final int MAX_CHECKS_PER_TICK = 5;
+
+	private final Plugin plugin;
+	private final Predicate<? super S> isSpawned;
+	private final Predicate<? super S> isActive;
+	private final Consumer<? super S> checkBlock;
+
+	// Chunk -> spawned block shops:
+	private final Map<ChunkCoords, Set<S>> spawnedBlockShops = new HashMap<>();
+	private int spawnedBlockShopsCount = 0;
+
+	// The chunks that remain to be verified during the current sweep:
+	private final Deque<ChunkCoords> sweepChunks = new ArrayDeque<>();
+	private int sweepTicks = 0;
+
+	// The block shops whose block might be missing:
+	private final Set<S> pendingChecks = new LinkedHashSet<>();
+
+	private @Nullable BukkitTask task = null;
+
+	BlockShopChecks(
+			Plugin plugin,
+			Predicate<? super S> isSpawned,
+			Predicate<? super S> isActive,
+			Consumer<? super S> checkBlock
+	) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(isSpawned, "isSpawned is null");
+		Validate.notNull(isActive, "isActive is null");
+		Validate.notNull(checkBlock, "checkBlock is null");
+		this.plugin = plugin;
+		this.isSpawned = isSpawned;
+		this.isActive = isActive;
+		this.checkBlock = checkBlock;
+	}
+
+	void onEnable() {
+		assert task == null;
+		task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+	}
+
+	void onDisable() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+		spawnedBlockShops.clear();
+		spawnedBlockShopsCount = 0;
+		sweepChunks.clear();
+		sweepTicks = 0;
+		pendingChecks.clear();
+	}
+
+	void onSpawned(S blockShop, ChunkCoords chunkCoords) {
+		Set<S> chunkBlockShops = spawnedBlockShops.computeIfAbsent(
+				chunkCoords,
+				key -> new LinkedHashSet<>()
+		);
+		if (chunkBlockShops.add(blockShop)) {
+			spawnedBlockShopsCount++;
+		}
+	}
+
+	void onDespawned(S blockShop, ChunkCoords chunkCoords) {
+		pendingChecks.remove(blockShop);
+
+		Set<S> chunkBlockShops = spawnedBlockShops.get(chunkCoords);
+		if (chunkBlockShops == null) return;
+		if (chunkBlockShops.remove(blockShop)) {
+			spawnedBlockShopsCount--;
+			if (chunkBlockShops.isEmpty()) {
+				spawnedBlockShops.remove(chunkCoords);
+			}
+		}
+	}
+
+	/**
+	 * Queues the given block shop to be checked during one of the next ticks.
+	 * <p>
+	 * Block events are called before the block is actually changed. The block is therefore not
+	 * checked right away.
+	 *
+	 * @param blockShop
+	 *            the block shop, not <code>null</code>
+	 */
+	void queueCheck(S blockShop) {
+		// Block shops that are not spawned are periodically checked during their ticking:
+		if (!isSpawned.test(blockShop)) return;
+		pendingChecks.add(blockShop);
+	}
+
+	private void tick() {
+		this.sweep();
+		this.processPendingChecks();
+	}
+
+	private void sweep() {
+		sweepTicks++;
+		if (sweepChunks.isEmpty()) {
+			// Wait for the current sweep period to end before we start the next sweep:
+			if (sweepTicks < SWEEP_PERIOD_TICKS) return;
+			sweepTicks = 0;
+			sweepChunks.addAll(spawnedBlockShops.keySet());
+		}
+
+		// Spread the sweep evenly across the sweep period:
+		int budget = Math.max(1, spawnedBlockShopsCount / SWEEP_PERIOD_TICKS);
+		int checked = 0;
+		while (checked < budget && !sweepChunks.isEmpty()) {
+			ChunkCoords chunkCoords = sweepChunks.poll();
+			Set<S> chunkBlockShops = spawnedBlockShops.get(chunkCoords);
+			if (chunkBlockShops == null) continue; // All block shops of this chunk despawned
+
+			// We only read the block types here and do not respawn any block shops. This does not
+			// modify the block shops of the chunk while we iterate them.
+			for (S blockShop : chunkBlockShops) {
+				if (!isActive.test(blockShop)) {
+					pendingChecks.add(blockShop);
+				}
+			}
+			checked += chunkBlockShops.size();
+		}
+	}
+
+	private void processPendingChecks() {
+		int remainingChecks = MAX_CHECKS_PER_TICK;
+		while (remainingChecks > 0 && !pendingChecks.isEmpty()) {
+			// The check can respawn the block shop, which modifies the pending checks:
+			Iterator<S> iterator = pendingChecks.iterator();
+			S blockShop = iterator.next();
+			iterator.remove();
+
+			checkBlock.accept(blockShop);
+			remainingChecks--;
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Collection;
 import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.Interaction;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Mob;
 import org.bukkit.entity.Monster;
@@ -152,8 +153,11 @@ class LivingEntityShopListener implements Listener {
 				+ ") " + (isInteractAtEvent ? "at " : "with ") + clickedEntity.getType()
 				+ " at " + clickedEntity.getLocation());
 
-		// We only deal with living entities here:
-		if (!(clickedEntity instanceof LivingEntity)) return;
+		// We only deal with living entities here, and the interaction entities that are used as
+		// hitboxes of packet entity shopkeepers:
+		if (!(clickedEntity instanceof LivingEntity) && !(clickedEntity instanceof Interaction)) {
+			return;
+		}
 
 		// Also checks for Citizens NPC shopkeepers:
 		AbstractShopkeeper shopkeeper = shopkeeperRegistry.getShopkeeperByEntity(clickedEntity);
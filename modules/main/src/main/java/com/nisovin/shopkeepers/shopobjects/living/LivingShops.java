@@ -76,11 +76,13 @@ public class LivingShops {
 			Unsafe.initialized(this)
 	);
 	private final LivingEntityAI livingEntityAI;
+	private final PacketEntityTracker packetEntityTracker;
 	private final LivingEntityShopListener livingEntityShopListener;
 
 	public LivingShops(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
 		livingEntityAI = new LivingEntityAI(plugin);
+		packetEntityTracker = new PacketEntityTracker(plugin);
 		livingEntityShopListener = new LivingEntityShopListener(plugin);
 	}
 
@@ -90,6 +92,7 @@ public class LivingShops {
 
 	public void onEnable() {
 		livingEntityAI.onEnable();
+		packetEntityTracker.onEnable();
 		livingEntityShopListener.onEnable();
 	}
 
@@ -98,6 +101,7 @@ public class LivingShops {
 
 		// Stop living entity AI:
 		livingEntityAI.onDisable();
+		packetEntityTracker.onDisable();
 	}
 
 	public SKLivingShopObjectTypes getLivingShopObjectTypes() {
@@ -108,6 +112,10 @@ public class LivingShops {
 		return livingEntityAI;
 	}
 
+	public PacketEntityTracker getPacketEntityTracker() {
+		return packetEntityTracker;
+	}
+
 	// Bypassing creature spawn blocking plugins (e.g. region protection plugins):
 	void forceCreatureSpawn(Location location, EntityType entityType) {
 		if (Settings.bypassSpawnBlocking) {
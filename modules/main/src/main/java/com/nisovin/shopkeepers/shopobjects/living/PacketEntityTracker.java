@@ -0,0 +1,443 @@
+package com.nisovin.shopkeepers.shopobjects.living;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.NumberConversions;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.compat.NMSManager;
+import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.java.RateLimiter;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.timer.Timer;
+import com.nisovin.shopkeepers.util.timer.Timings;
+
+/**
+ * Shows {@link SKLivingShopObject}s that are spawned as client-side only packet entities to nearby
+ * players, and handles their look-at-nearby-player behavior.
+ * <p>
+ * Shop objects must be {@link #addShopObject(SKLivingShopObject) added} when their packet entity
+ * has been created, and {@link #removeShopObject(SKLivingShopObject) removed} again when they are
+ * despawned. Similar to the {@link LivingEntityAI}, it is assumed that the packet entities don't
+ * change their location while they are added.
+ * <p>
+ * The visibility of the packet entities is periodically updated by only checking the chunks in the
+ * {@link Settings#packetEntityViewDistance view distance} around each online player. Any changes to
+ * the data of the packet entities (e.g. their name) are periodically sent to the players that
+ * currently see them.
+ */
+public class PacketEntityTracker implements Listener {
+
+	/**
+	 * Determines how often the visibility of packet entities is rechecked (every X ticks).
+	 */
+	public static final int VISIBILITY_UPDATE_TICK_RATE = 10;
+
+	// Temporarily re-used objects:
+	private static final Location sharedLocation = new Location(null, 0, 0, 0);
+	private static final Location sharedLocation2 = new Location(null, 0, 0, 0);
+	private static final MutableChunkCoords sharedChunkCoords = new MutableChunkCoords();
+
+	private static class EntityData {
+
+		private final LivingEntity entity;
+		private final ChunkCoords chunkCoords;
+		private final Location location;
+		// Players that currently see this entity:
+		private final Set<Player> viewers = new LinkedHashSet<>();
+		private final float initialYaw;
+		private float headYaw;
+		private float headPitch;
+
+		public EntityData(LivingEntity entity) {
+			this.entity = entity;
+			this.location = entity.getLocation();
+			this.chunkCoords = new ChunkCoords(location);
+			this.initialYaw = location.getYaw();
+			this.headYaw = initialYaw;
+			this.headPitch = 0.0F;
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	private final Supplier<? extends NMSCallProvider> nmsProvider;
+	private final Map<ChunkCoords, List<EntityData>> chunks = new HashMap<>();
+	// Index for fast removal: Shop object -> EntityData
+	private final Map<Object, EntityData> shopObjects = new HashMap<>();
+	// The entities currently shown to each player:
+	private final Map<Player, Set<EntityData>> viewedEntities = new HashMap<>();
+	// Re-used each tick: The entities that have already been updated during the current tick.
+	private final Set<EntityData> updatedEntities = new HashSet<>();
+
+	private @Nullable BukkitTask task = null;
+
+	// Statistics:
+	private final Timer totalTimings = new Timer();
+
+	public PacketEntityTracker(SKShopkeepersPlugin plugin) {
+		this(plugin, NMSManager::getProvider);
+	}
+
+	// Also used by tests.
+	PacketEntityTracker(
+			SKShopkeepersPlugin plugin,
+			Supplier<? extends NMSCallProvider> nmsProvider
+	) {
+		this.plugin = plugin;
+		this.nmsProvider = nmsProvider;
+	}
+
+	private NMSCallProvider getNMS() {
+		return nmsProvider.get();
+	}
+
+	public void onEnable() {
+		if (!this.isEnabled()) return;
+
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+		this.startTask();
+	}
+
+	public void onDisable() {
+		HandlerList.unregisterAll(this);
+		this.stopTask();
+		// Hide all entities again (e.g. in case of a plugin reload):
+		new ArrayList<>(shopObjects.keySet()).forEach(this::removeShopObject);
+		assert chunks.isEmpty() && viewedEntities.isEmpty();
+		totalTimings.reset();
+	}
+
+	/**
+	 * Checks whether mob shopkeepers shall be spawned as packet entities.
+	 * <p>
+	 * This depends on both the config and whether the current server version supports packet
+	 * entities.
+	 *
+	 * @return <code>true</code> if packet entities are used
+	 */
+	public boolean isEnabled() {
+		return Settings.mobShopsAsPacketEntities
+				&& this.getNMS().supportsPacketEntities();
+	}
+
+	// SHOP OBJECTS
+
+	public void addShopObject(SKLivingShopObject<?> shopObject) {
+		Validate.notNull(shopObject, "shopObject is null");
+		Validate.isTrue(!shopObjects.containsKey(shopObject), "shopObject is already added");
+		LivingEntity entity = shopObject.getEntity();
+		Validate.notNull(entity, "shopObject is not spawned currently!");
+		assert entity != null;
+		this.addEntity(shopObject, entity);
+	}
+
+	// The key identifies the entity when it is removed again. Also used by tests.
+	void addEntity(Object key, LivingEntity entity) {
+		EntityData entityData = new EntityData(entity);
+		shopObjects.put(key, entityData);
+		chunks.computeIfAbsent(entityData.chunkCoords, key -> new ArrayList<>(1)).add(entityData);
+
+		// Show the entity to nearby players right away:
+		World world = Unsafe.assertNonNull(entityData.location.getWorld());
+		for (Player player : world.getPlayers()) {
+			if (this.isInViewDistance(player, entityData)) {
+				this.show(player, entityData);
+			}
+		}
+	}
+
+	public void removeShopObject(SKLivingShopObject<?> shopObject) {
+		this.removeEntity(shopObject);
+	}
+
+	// Also used by tests.
+	void removeEntity(Object key) {
+		@Nullable EntityData entityData = shopObjects.remove(key);
+		if (entityData == null) return; // Shop object was not added
+
+		List<EntityData> chunkEntities = chunks.get(entityData.chunkCoords);
+		if (chunkEntities != null) {
+			chunkEntities.remove(entityData);
+			if (chunkEntities.isEmpty()) {
+				chunks.remove(entityData.chunkCoords);
+			}
+		}
+
+		NMSCallProvider nms = this.getNMS();
+		for (Player viewer : entityData.viewers) {
+			nms.hidePacketEntity(viewer, entityData.entity);
+			Set<EntityData> viewed = viewedEntities.get(viewer);
+			if (viewed != null) {
+				viewed.remove(entityData);
+				if (viewed.isEmpty()) {
+					viewedEntities.remove(viewer);
+				}
+			}
+		}
+		entityData.viewers.clear();
+	}
+
+	/**
+	 * Resends the complete state of the shop object's packet entity, including its equipment, to
+	 * all players that currently see it.
+	 * <p>
+	 * Changes to the entity's data (e.g. its name) are automatically sent to the players. However,
+	 * this needs to be called after changes to the entity's equipment.
+	 *
+	 * @param shopObject
+	 *            the shop object
+	 */
+	public void refresh(SKLivingShopObject<?> shopObject) {
+		@Nullable EntityData entityData = shopObjects.get(shopObject);
+		if (entityData == null) return;
+		this.getNMS().updatePacketEntity(entityData.viewers, entityData.entity, true);
+	}
+
+	public int getEntityCount() {
+		return shopObjects.size();
+	}
+
+	public int getViewerCount() {
+		return viewedEntities.size();
+	}
+
+	public Timings getTotalTimings() {
+		return totalTimings;
+	}
+
+	// VISIBILITY
+
+	private boolean isInViewDistance(Player player, EntityData entityData) {
+		Location playerLocation = Unsafe.assertNonNull(player.getLocation(sharedLocation));
+		boolean inRange = (playerLocation.getWorld() == entityData.location.getWorld())
+				&& playerLocation.distanceSquared(entityData.location) <= this.getViewDistanceSquared();
+		sharedLocation.setWorld(null); // Reset
+		return inRange;
+	}
+
+	private double getViewDistanceSquared() {
+		return NumberConversions.square(Settings.packetEntityViewDistance);
+	}
+
+	private void show(Player player, EntityData entityData) {
+		if (!entityData.viewers.add(player)) return; // Already shown
+		viewedEntities.computeIfAbsent(player, key -> new HashSet<>()).add(entityData);
+		this.getNMS().showPacketEntity(player, entityData.entity);
+	}
+
+	// Also used by tests.
+	void updateVisibility(Player player) {
+		World world = player.getWorld();
+		String worldName = world.getName();
+		Location playerLocation = Unsafe.assertNonNull(player.getLocation(sharedLocation2));
+		double viewDistanceSquared = this.getViewDistanceSquared();
+		NMSCallProvider nms = this.getNMS();
+
+		// Hide entities that are no longer in range:
+		Set<EntityData> viewed = viewedEntities.get(player);
+		if (viewed != null) {
+			viewed.removeIf(entityData -> {
+				if (entityData.location.getWorld() == world
+						&& playerLocation.distanceSquared(entityData.location) <= viewDistanceSquared) {
+					return false;
+				}
+				entityData.viewers.remove(player);
+				nms.hidePacketEntity(player, entityData.entity);
+				return true;
+			});
+			if (viewed.isEmpty()) {
+				viewedEntities.remove(player);
+			}
+		}
+
+		// Show entities in nearby chunks:
+		int chunkRadius = (Settings.packetEntityViewDistance >> 4) + 1;
+		int centerChunkX = ChunkCoords.fromBlock(playerLocation.getBlockX());
+		int centerChunkZ = ChunkCoords.fromBlock(playerLocation.getBlockZ());
+		for (int chunkX = centerChunkX - chunkRadius; chunkX <= centerChunkX + chunkRadius; chunkX++) {
+			for (int chunkZ = centerChunkZ - chunkRadius; chunkZ <= centerChunkZ + chunkRadius; chunkZ++) {
+				sharedChunkCoords.set(worldName, chunkX, chunkZ);
+				List<EntityData> chunkEntities = chunks.get(sharedChunkCoords);
+				if (chunkEntities == null) continue;
+
+				for (EntityData entityData : chunkEntities) {
+					if (playerLocation.distanceSquared(entityData.location) <= viewDistanceSquared) {
+						this.show(player, entityData);
+					}
+				}
+			}
+		}
+		sharedLocation2.setWorld(null); // Reset
+	}
+
+	// Also used by tests.
+	void hideAll(Player player) {
+		@Nullable Set<EntityData> viewed = viewedEntities.remove(player);
+		if (viewed == null) return;
+		// The client already discards all entities when the player changes the world or respawns.
+		// We therefore only need to reset our viewer state here.
+		viewed.forEach(entityData -> entityData.viewers.remove(player));
+	}
+
+	// TASK
+
+	private void startTask() {
+		if (task != null) return; // Already running
+
+		int tickPeriod = Settings.mobBehaviorTickPeriod;
+		task = Bukkit.getScheduler().runTaskTimer(plugin, new TickTask(), tickPeriod, tickPeriod);
+	}
+
+	private void stopTask() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+	}
+
+	private class TickTask implements Runnable {
+
+		private final RateLimiter visibilityUpdateLimiter = new RateLimiter(VISIBILITY_UPDATE_TICK_RATE);
+
+		TickTask() {
+		}
+
+		@Override
+		public void run() {
+			if (shopObjects.isEmpty()) return;
+
+			totalTimings.start();
+
+			if (visibilityUpdateLimiter.request(Settings.mobBehaviorTickPeriod)) {
+				for (Player player : Bukkit.getOnlinePlayers()) {
+					assert player != null;
+					updateVisibility(player);
+				}
+			}
+
+			updateEntities();
+
+			totalTimings.stop();
+		}
+	}
+
+	// Also used by tests.
+	void updateEntities() {
+		// Only entities that are seen by some player need to be updated:
+		NMSCallProvider nms = this.getNMS();
+		try {
+			for (Set<EntityData> viewed : viewedEntities.values()) {
+				for (EntityData entityData : viewed) {
+					// Entities that are seen by several players are only updated once:
+					if (!updatedEntities.add(entityData)) continue;
+
+					// Send any changed entity data (e.g. name changes):
+					nms.updatePacketEntity(entityData.viewers, entityData.entity, false);
+					this.updateHeadRotation(entityData);
+				}
+			}
+		} finally {
+			updatedEntities.clear();
+		}
+	}
+
+	// Looks at the nearest viewer in range, or otherwise rotates back to the initial orientation.
+	private void updateHeadRotation(EntityData entityData) {
+		Location entityLocation = entityData.location;
+		double eyeY = entityLocation.getY() + entityData.entity.getEyeHeight();
+		double lookRangeSquared = NumberConversions.square(LivingEntityAI.LOOK_RANGE);
+
+		@Nullable Player target = null;
+		double targetDistanceSquared = Double.MAX_VALUE;
+		for (Player viewer : entityData.viewers) {
+			Location viewerLocation = Unsafe.assertNonNull(viewer.getLocation(sharedLocation));
+			double distanceSquared = viewerLocation.distanceSquared(entityLocation);
+			if (distanceSquared <= lookRangeSquared && distanceSquared < targetDistanceSquared) {
+				target = viewer;
+				targetDistanceSquared = distanceSquared;
+			}
+		}
+		sharedLocation.setWorld(null); // Reset
+
+		float yaw;
+		float pitch;
+		if (target != null) {
+			Location targetEyeLocation = target.getEyeLocation();
+			double dx = targetEyeLocation.getX() - entityLocation.getX();
+			double dy = targetEyeLocation.getY() - eyeY;
+			double dz = targetEyeLocation.getZ() - entityLocation.getZ();
+			double horizontalDistance = Math.sqrt(dx * dx + dz * dz);
+			yaw = (float) Math.toDegrees(Math.atan2(dz, dx)) - 90.0F;
+			pitch = (float) -Math.toDegrees(Math.atan2(dy, horizontalDistance));
+		} else {
+			yaw = entityData.initialYaw;
+			pitch = 0.0F;
+		}
+
+		// Skip insignificant changes:
+		if (Math.abs(yaw - entityData.headYaw) < 1.0F && Math.abs(pitch - entityData.headPitch) < 1.0F) {
+			return;
+		}
+		entityData.headYaw = yaw;
+		entityData.headPitch = pitch;
+		this.getNMS().setPacketEntityHeadRotation(
+				entityData.viewers,
+				entityData.entity,
+				yaw,
+				pitch
+		);
+	}
+
+	// EVENT HANDLERS
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerJoin(PlayerJoinEvent event) {
+		Player player = event.getPlayer();
+		// Delayed until the server has completely handled the join:
+		Bukkit.getScheduler().runTask(plugin, () -> {
+			if (!player.isOnline()) return; // Player is no longer online
+			updateVisibility(player);
+		});
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		this.hideAll(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+		this.hideAll(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerRespawn(PlayerRespawnEvent event) {
+		this.hideAll(event.getPlayer());
+	}
+}
@@ -16,6 +16,7 @@ import org.bukkit.entity.Ageable;
 import org.bukkit.entity.Breedable;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Interaction;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Raider;
@@ -48,6 +49,7 @@ import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopobjects.ShopObjectData;
 import com.nisovin.shopkeepers.shopobjects.ShopkeeperMetadata;
 import com.nisovin.shopkeepers.shopobjects.entity.AbstractEntityShopObject;
+import com.nisovin.shopkeepers.shopobjects.entity.EntityShopObjectIds;
 import com.nisovin.shopkeepers.ui.editor.Button;
 import com.nisovin.shopkeepers.ui.editor.EditorSession;
 import com.nisovin.shopkeepers.ui.editor.ShopkeeperActionButton;
@@ -107,6 +109,8 @@ public class SKLivingShopObject<E extends LivingEntity>
 			.build(properties);
 
 	private @Nullable E entity;
+	// Only set if the entity is a client-side packet entity. Used for the interaction detection.
+	private @Nullable Interaction packetEntityHitbox = null;
 	private @Nullable Location lastSpawnLocation = null;
 	private int respawnAttempts = 0;
 	private boolean debuggingSpawn = false;
@@ -200,11 +204,48 @@ public class SKLivingShopObject<E extends LivingEntity>
 
 	// ACTIVATION
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the shopkeeper is {@link #isPacketEntity() spawned as packet entity}, the returned entity
+	 * only exists client-side and has not been added to the world.
+	 */
 	@Override
 	public @Nullable E getEntity() {
 		return entity;
 	}
 
+	/**
+	 * Checks if the entity of this shop object is currently spawned as a client-side only packet
+	 * entity.
+	 * <p>
+	 * See {@link PacketEntityTracker}.
+	 * 
+	 * @return <code>true</code> if the entity is a packet entity
+	 */
+	public final boolean isPacketEntity() {
+		return (packetEntityHitbox != null);
+	}
+
+	@Override
+	public boolean isActive() {
+		Interaction packetEntityHitbox = this.packetEntityHitbox;
+		if (packetEntityHitbox != null) {
+			return packetEntityHitbox.isValid();
+		}
+		return super.isActive();
+	}
+
+	@Override
+	public @Nullable Object getId() {
+		// Interactions with packet entities are detected via their hitbox entity:
+		Interaction packetEntityHitbox = this.packetEntityHitbox;
+		if (packetEntityHitbox != null) {
+			return EntityShopObjectIds.getObjectId(packetEntityHitbox);
+		}
+		return super.getId();
+	}
+
 	private @Nullable Location getSpawnLocation() {
 		Location spawnLocation = shopkeeper.getLocation();
 		if (spawnLocation == null) return null; // World not loaded
@@ -308,6 +349,21 @@ public class SKLivingShopObject<E extends LivingEntity>
 	protected void cleanUpEntity() {
 		Entity entity = Unsafe.assertNonNull(this.entity);
 
+		Interaction packetEntityHitbox = this.packetEntityHitbox;
+		if (packetEntityHitbox != null) {
+			// The packet entity only exists client-side and is not ticked by the AI:
+			livingShops.getPacketEntityTracker().removeShopObject(this);
+
+			ShopkeeperMetadata.remove(packetEntityHitbox);
+			if (!packetEntityHitbox.isDead()) {
+				packetEntityHitbox.remove();
+			}
+
+			this.packetEntityHitbox = null;
+			this.entity = null;
+			return;
+		}
+
 		// Disable AI:
 		this.cleanupAI();
 
@@ -336,6 +392,10 @@ public class SKLivingShopObject<E extends LivingEntity>
 		}
 		World world = Unsafe.assertNonNull(spawnLocation.getWorld());
 
+		if (livingShops.getPacketEntityTracker().isEnabled()) {
+			return this.spawnPacketEntity(spawnLocation);
+		}
+
 		// Spawn entity:
 		// TODO Check if the block is passable before spawning there?
 		EntityType entityType = this.getEntityType();
@@ -485,6 +545,62 @@ public class SKLivingShopObject<E extends LivingEntity>
 		return success;
 	}
 
+	// Creates the entity without adding it to the world, and only shows it to nearby players via
+	// packets. An invisible interaction entity with the size of the mob is spawned to detect player
+	// interactions with the shopkeeper.
+	@SuppressWarnings("unchecked")
+	private boolean spawnPacketEntity(Location spawnLocation) {
+		assert entity == null;
+		World world = Unsafe.assertNonNull(spawnLocation.getWorld());
+		EntityType entityType = this.getEntityType();
+		Class<? extends Entity> entityClass = Unsafe.assertNonNull(entityType.getEntityClass());
+
+		E entity = (E) world.createEntity(spawnLocation, entityClass);
+		this.prepareEntity(entity);
+		entity.setInvulnerable(true);
+		if (entity instanceof Ageable) {
+			Ageable ageable = (Ageable) entity;
+			ageable.setAdult();
+		}
+		if (Settings.silenceLivingShopEntities) {
+			entity.setSilent(true);
+		}
+
+		Interaction hitbox = world.spawn(spawnLocation, Interaction.class, interaction -> {
+			assert interaction != null;
+			ShopkeeperMetadata.apply(interaction);
+			interaction.setPersistent(false);
+			interaction.setInteractionWidth((float) entity.getWidth());
+			interaction.setInteractionHeight((float) entity.getHeight());
+			interaction.setResponsive(true);
+		});
+		if (!hitbox.isValid()) {
+			Log.debug(() -> shopkeeper.getLocatedLogPrefix()
+					+ "Failed to spawn the hitbox entity of the packet entity.");
+			ShopkeeperMetadata.remove(hitbox);
+			hitbox.remove();
+			return false;
+		}
+
+		this.entity = entity;
+		this.packetEntityHitbox = hitbox;
+		this.lastSpawnLocation = spawnLocation;
+
+		// Apply sub-type:
+		this.onSpawn();
+
+		livingShops.getPacketEntityTracker().addShopObject(this);
+
+		// Reset all state related to respawn throttling:
+		respawnAttempts = 0;
+		this.resetTickRate();
+		skipRespawnAttemptsIfPeaceful = false;
+
+		// Inform about the object id change:
+		this.onIdChanged();
+		return true;
+	}
+
 	/**
 	 * This method is called right after the entity was spawned.
 	 * <p>
@@ -569,6 +685,11 @@ public class SKLivingShopObject<E extends LivingEntity>
 		Entity entity = this.entity;
 		if (entity == null) return false; // Ignore if not spawned
 
+		if (this.isPacketEntity()) {
+			// The tracker assumes that packet entities don't move, so we respawn them instead:
+			return this.respawn();
+		}
+
 		Location spawnLocation = this.getSpawnLocation();
 		if (spawnLocation == null) return false;
 
@@ -619,7 +740,7 @@ public class SKLivingShopObject<E extends LivingEntity>
 	private void check() {
 		if (!this.isActive()) {
 			this.respawnInactiveEntity();
-		} else {
+		} else if (!this.isPacketEntity()) {
 			this.teleportBackIfMoved();
 			this.updatePotionEffects();
 		}
@@ -745,6 +866,7 @@ public class SKLivingShopObject<E extends LivingEntity>
 	public void teleportBack() {
 		@Nullable E entity = this.getEntity(); // Null if not spawned
 		if (entity == null) return;
+		if (this.isPacketEntity()) return; // Packet entities don't move
 
 		Location lastSpawnLocation = Unsafe.assertNonNull(this.lastSpawnLocation);
 		Location entityLoc = entity.getLocation();
@@ -950,6 +1072,11 @@ public class SKLivingShopObject<E extends LivingEntity>
 			@Nullable ItemStack item = ItemUtils.asItemStackOrNull(shopEquipment.getItem(slot));
 			this.setEquipment(entityEquipment, slot, item);
 		}
+
+		if (this.isPacketEntity()) {
+			// Equipment changes are not automatically sent to the players:
+			livingShops.getPacketEntityTracker().refresh(this);
+		}
 	}
 
 	// Can be overridden by sub-types to for example enforce specific equipment, or apply default
@@ -164,6 +164,8 @@ public class SKSignShopObject extends BaseBlockShopObject implements SignShopObj
 			.onValueChanged(Unsafe.initialized(this)::applyGlowingText)
 			.build(properties);
 
+	private final SignShopText signText = new SignShopText();
+
 	protected SKSignShopObject(
 			BaseBlockShops blockShops,
 			AbstractShopkeeper shopkeeper,
@@ -249,13 +251,16 @@ public class SKSignShopObject extends BaseBlockShopObject implements SignShopObj
 		if (sign == null) return; // Not spawned or no longer a sign
 
 		// Common sign setup (e.g. sign content):
-		SignShops.updateShopSign(sign, shopkeeper);
+		boolean changed = SignShops.updateShopSign(sign, shopkeeper, signText);
 
 		// Glowing text:
-		this.applyGlowingText(sign);
+		changed |= this.applyGlowingText(sign);
 
 		// Apply sign changes:
-		sign.update(false, false);
+		// Skipped if the sign is already up-to-date, to avoid unnecessary block updates.
+		if (changed) {
+			sign.update(false, false);
+		}
 	}
 
 	// TICKING
@@ -338,6 +343,8 @@ public class SKSignShopObject extends BaseBlockShopObject implements SignShopObj
 		// (e.g. sign contents), because they would otherwise be removed when changing the block's
 		// type.
 		BlockData blockData = Unsafe.assertNonNull(this.createBlockData());
+		if (blockData.equals(sign.getBlockData())) return; // Block is already up-to-date
+
 		sign.setBlockData(blockData); // Keeps sign data (e.g. text) the same
 		sign.update(true, false); // Force: Material has changed, skip physics update.
 	}
@@ -399,15 +406,16 @@ public class SKSignShopObject extends BaseBlockShopObject implements SignShopObj
 		Sign sign = this.getSign();
 		if (sign == null) return; // Not spawned or no longer a sign
 
-		this.applyGlowingText(sign);
+		if (!this.applyGlowingText(sign)) return; // Already up-to-date
 
 		// Sign block type is still the same (no force required), and we want to skip physics:
 		sign.update(false, false);
 	}
 
-	private void applyGlowingText(Sign sign) {
+	// Returns true if the sign has changed.
+	private boolean applyGlowingText(Sign sign) {
 		// Apply the glowing text to both sign sides:
-		SignUtils.setBothSidesGlowingText(sign, this.isGlowingText());
+		return SignUtils.setBothSidesGlowingText(sign, this.isGlowingText());
 	}
 
 	public void cycleGlowingText(boolean backwards) {
@@ -0,0 +1,108 @@
+package com.nisovin.shopkeepers.shopobjects.sign;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+
+/**
+ * The rendered text of a shop sign.
+ * <p>
+ * The sign lines are only rendered again if any of their inputs has changed: The shop name, the
+ * shop owner's name, the type of shop (admin or player shop), and the sign line formats of the
+ * language file.
+ */
+final class SignShopText {
+
+	private static final int LINES = 4;
+
+	// Null if the text has not yet been rendered:
+	private @Nullable String shopName = null;
+	// Null for admin shops:
+	private @Nullable String ownerName = null;
+	private final @Nullable String[] lineFormats = new @Nullable String[LINES];
+	private final @NonNull String[] lines = new @NonNull String[] { "", "", "", "" };
+
+	SignShopText() {
+	}
+
+	/**
+	 * Gets the sign lines for the given shopkeeper.
+	 * 
+	 * @param shopkeeper
+	 *            the shopkeeper, not <code>null</code>
+	 * @return the sign lines, not to be modified
+	 */
+	@NonNull String[] getLines(Shopkeeper shopkeeper) {
+		String shopName = shopkeeper.getName(); // Not null, can be empty
+		@Nullable String ownerName;
+		if (shopkeeper instanceof PlayerShopkeeper) {
+			ownerName = ((PlayerShopkeeper) shopkeeper).getOwnerName(); // Not null, can be empty
+			this.updateLineFormats(
+					Messages.playerSignShopLine1,
+					Messages.playerSignShopLine2,
+					Messages.playerSignShopLine3,
+					Messages.playerSignShopLine4
+			);
+		} else {
+			assert shopkeeper instanceof AdminShopkeeper;
+			ownerName = null;
+			this.updateLineFormats(
+					Messages.adminSignShopLine1,
+					Messages.adminSignShopLine2,
+					Messages.adminSignShopLine3,
+					Messages.adminSignShopLine4
+			);
+		}
+
+		if (shopName.equals(this.shopName) && Objects.equals(ownerName, this.ownerName)) {
+			return lines;
+		}
+		this.shopName = shopName;
+		this.ownerName = ownerName;
+		this.render(shopkeeper);
+		return lines;
+	}
+
+	// Resets the cached text if any of the line formats has changed.
+	private void updateLineFormats(String line1, String line2, String line3, String line4) {
+		if (line1.equals(lineFormats[0])
+				&& line2.equals(lineFormats[1])
+				&& line3.equals(lineFormats[2])
+				&& line4.equals(lineFormats[3])) {
+			return;
+		}
+		lineFormats[0] = line1;
+		lineFormats[1] = line2;
+		lineFormats[2] = line3;
+		lineFormats[3] = line4;
+		shopName = null;
+	}
+
+	private void render(Shopkeeper shopkeeper) {
+		Map<String, Object> arguments = new HashMap<>();
+		// Not null, can be empty:
+		arguments.put("shopName", Unsafe.assertNonNull(
+				shopkeeper.getShopObject().prepareName(shopkeeper.getName())
+		));
+		if (ownerName != null) {
+			arguments.put("owner", ownerName);
+		}
+
+		for (int i = 0; i < LINES; i++) {
+			lines[i] = StringUtils.replaceArguments(
+					Unsafe.assertNonNull(lineFormats[i]),
+					arguments
+			);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.storage;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -13,6 +14,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -74,6 +77,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 	private static final String DATA_FOLDER = "data";
 	private static final String SAVE_FILE_NAME = "save.yml";
+	private static final String COMPRESSED_SAVE_FILE_NAME = SAVE_FILE_NAME + ".gz";
 
 	private static final String DATA_VERSION_KEY = "data-version";
 
@@ -93,6 +97,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	private final SKShopkeepersPlugin plugin;
 
 	private final Path saveFile;
+	private final Path compressedSaveFile;
 
 	/* Data */
 	/*
@@ -140,6 +145,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		DataVersion.init();
 		this.plugin = plugin;
 		this.saveFile = Unsafe.initialized(this)._getSaveFile();
+		this.compressedSaveFile = Unsafe.initialized(this)._getCompressedSaveFile();
 		this.saveTask = new SaveTask(plugin);
 	}
 
@@ -155,6 +161,134 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		return this._getDataFolder().resolve(SAVE_FILE_NAME);
 	}
 
+	private Path _getCompressedSaveFile() {
+		return this._getDataFolder().resolve(COMPRESSED_SAVE_FILE_NAME);
+	}
+
+	// The save file that is written by the next save, depending on the current settings.
+	private Path getCurrentSaveFile() {
+		return Settings.compressSaveFile ? compressedSaveFile : saveFile;
+	}
+
+	// The save file that is replaced by the next save, depending on the current settings.
+	private Path getPreviousSaveFile() {
+		return Settings.compressSaveFile ? saveFile : compressedSaveFile;
+	}
+
+	/**
+	 * Determines the file to load the shopkeeper data from.
+	 * <p>
+	 * This prefers the given current save file, but also considers the given previous save file,
+	 * so that the save file can be switched between the compressed and the uncompressed format. If
+	 * both save files exist, e.g. because a previous save was interrupted before it could remove
+	 * the previous save file, the more recently modified save file is loaded.
+	 * <p>
+	 * If the current save file does not exist, but its temporary save file does, a save was
+	 * interrupted after it removed the current save file, but before it could rename the temporary
+	 * save file. The temporary save file is then loaded, unless the previous save file is more
+	 * recent. If neither save file exists, this falls back to their temporary save files.
+	 * 
+	 * @param currentSaveFile
+	 *            the current save file
+	 * @param previousSaveFile
+	 *            the previous save file
+	 * @return the file to load, or <code>null</code> if there is no save data
+	 */
+	static @Nullable Path findSaveFileToLoad(Path currentSaveFile, Path previousSaveFile) {
+		boolean currentExists = Files.exists(currentSaveFile);
+		boolean previousExists = Files.exists(previousSaveFile);
+		if (currentExists && previousExists) {
+			if (isModifiedAfter(previousSaveFile, currentSaveFile)) {
+				return previousSaveFile;
+			}
+			return currentSaveFile;
+		}
+		if (currentExists) return currentSaveFile;
+
+		var tempSaveFile = FileUtils.getTempSibling(currentSaveFile);
+		boolean tempExists = Files.exists(tempSaveFile);
+		if (previousExists) {
+			if (tempExists && isModifiedAfter(tempSaveFile, previousSaveFile)) {
+				return tempSaveFile;
+			}
+			return previousSaveFile;
+		}
+		if (tempExists) return tempSaveFile;
+
+		var previousTempSaveFile = FileUtils.getTempSibling(previousSaveFile);
+		if (Files.exists(previousTempSaveFile)) return previousTempSaveFile;
+		return null;
+	}
+
+	// Returns false if the modification times cannot be compared.
+	private static boolean isModifiedAfter(Path file, Path otherFile) {
+		try {
+			var modified = Files.getLastModifiedTime(file);
+			var otherModified = Files.getLastModifiedTime(otherFile);
+			return modified.compareTo(otherModified) > 0;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Prepares the switch from the given previous save file to the given current save file, if the
+	 * current save file does not exist yet.
+	 * <p>
+	 * If the previous save file contains the data that would currently be
+	 * {@link #findSaveFileToLoad(Path, Path) loaded}, it is renamed to the current save file. The
+	 * subsequent save then writes its data to a temporary save file and replaces the current save
+	 * file, like any other save. If the save is interrupted, the previous data is therefore still
+	 * loaded from the current save file. Since the format of the save file is detected during
+	 * loading, the current save file can temporarily use the format of the previous save file.
+	 * <p>
+	 * If instead the temporary save file of the current save file is more recent, it is kept, and
+	 * the subsequent save renames it to the current save file before it writes its data.
+	 * 
+	 * @param currentSaveFile
+	 *            the current save file
+	 * @param previousSaveFile
+	 *            the previous save file
+	 * @param logger
+	 *            the logger used to log warnings during the renaming of files
+	 * @throws IOException
+	 *             if the previous save file cannot be renamed
+	 */
+	static void prepareSaveFileSwitch(Path currentSaveFile, Path previousSaveFile, Logger logger)
+			throws IOException {
+		if (Files.exists(currentSaveFile)) return;
+		if (!previousSaveFile.equals(findSaveFileToLoad(currentSaveFile, previousSaveFile))) return;
+
+		FileUtils.moveFile(previousSaveFile, currentSaveFile, logger);
+		FileUtils.fsyncParentDirectory(currentSaveFile);
+	}
+
+	/**
+	 * Removes the given previous save file and its temporary save file, if they exist, after the
+	 * data has been successfully saved to the current save file.
+	 * <p>
+	 * This prevents that the previous save file is loaded if the save file format is switched back
+	 * later. If the files cannot be removed, this logs a warning: The save itself has succeeded,
+	 * and the current save file is more recent and therefore still preferred during loading.
+	 * 
+	 * @param previousSaveFile
+	 *            the previous save file
+	 * @param logger
+	 *            the logger used to log a warning if the files cannot be removed
+	 */
+	static void deletePreviousSaveFile(Path previousSaveFile, Logger logger) {
+		try {
+			boolean deleted = FileUtils.deleteIfExists(previousSaveFile);
+			deleted |= FileUtils.deleteIfExists(FileUtils.getTempSibling(previousSaveFile));
+			if (deleted) {
+				FileUtils.fsyncParentDirectory(previousSaveFile);
+			}
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Could not remove the previous save file ("
+					+ previousSaveFile + "): " + ThrowableUtils.getDescription(e), e);
+		}
+	}
+
 	public void onEnable() {
 		// Start periodic save task:
 		if (!Settings.saveInstantly) {
@@ -375,29 +509,33 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		shopkeeperRegistry.unloadAllShopkeepers();
 		this.clearSaveData();
 
-		Path saveFile = this.saveFile;
-		if (!Files.exists(saveFile)) {
-			var tempSaveFile = FileUtils.getTempSibling(saveFile);
-			if (Files.exists(tempSaveFile)) {
-				// Load from temporary save file instead:
-				Log.warning("Found no save file, but an existing temporary save file ("
-						+ PluginUtils.relativize(plugin, tempSaveFile) + ")!"
-						+ " This might indicate an issue during a previous saving attempt!"
-						+ " We try to load the Shopkeepers data from this temporary save file"
-						+ " instead!");
-				saveFile = tempSaveFile;
-			} else {
-				// No save file exists yet -> No shopkeeper data available.
-				// We silently set up the data version and abort:
-				saveData.set(DATA_VERSION_KEY, DataVersion.current().toString());
-				return true;
-			}
+		Path currentSaveFile = this.getCurrentSaveFile();
+		Path previousSaveFile = this.getPreviousSaveFile();
+		Path saveFile = findSaveFileToLoad(currentSaveFile, previousSaveFile);
+		if (saveFile == null) {
+			// No save file exists yet -> No shopkeeper data available.
+			// We silently set up the data version and abort:
+			saveData.set(DATA_VERSION_KEY, DataVersion.current().toString());
+			return true;
+		} else if (saveFile.equals(previousSaveFile)) {
+			Log.info("Loading the Shopkeepers data from "
+					+ PluginUtils.relativize(plugin, previousSaveFile)
+					+ ". This file is replaced with "
+					+ PluginUtils.relativize(plugin, currentSaveFile) + " during the next save.");
+		} else if (!saveFile.equals(currentSaveFile)) {
+			// Load from temporary save file instead:
+			Log.warning("Found no save file, but an existing temporary save file ("
+					+ PluginUtils.relativize(plugin, saveFile) + ")!"
+					+ " This might indicate an issue during a previous saving attempt!"
+					+ " We try to load the Shopkeepers data from this temporary save file"
+					+ " instead!");
 		}
 
 		boolean rawDataMigrated = false;
 
 		// Load the save data:
-		try (Reader reader = Files.newBufferedReader(saveFile, StandardCharsets.UTF_8)) {
+		// Compressed save files are detected based on their contents:
+		try (Reader reader = FileUtils.newDecompressingReader(saveFile, StandardCharsets.UTF_8)) {
 			var content = FileUtils.read(reader);
 
 			// Apply string-based migrations:
@@ -880,6 +1018,9 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		// synchronization with the save task's lock.
 		private boolean savingSucceeded = false;
 		private long lastSaveErrorMsgMillis = 0L;
+		// Captured from the settings during the save preparation:
+		private boolean compressSaveFile = false;
+		private int saveFileCompressionLevel = 0;
 
 		SaveTask(Plugin plugin) {
 			super(plugin);
@@ -918,6 +1059,10 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// is always up-to-date after we have saved the file.
 			saveData.getConfig().options().setHeader(HEADER);
 
+			// The settings might change while the save is processed asynchronously:
+			compressSaveFile = Settings.compressSaveFile;
+			saveFileCompressionLevel = Settings.saveFileCompressionLevel;
+
 			// Reset the pendingSaveRequest flag here (and not just after a successful save), so
 			// that we can track any save requests that occur in the meantime, which require another
 			// save later:
@@ -1045,7 +1190,13 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		 * <li>Rename temporary save file to save file (ideally atomic).
 		 * <li>Sync save file's parent directory (ensures that the rename operation is persisted to
 		 * disk).
+		 * <li>Remove the save file of the other format (compressed or uncompressed), if it exists.
+		 * Failing to remove it does not fail the save.
 		 * </ul>
+		 * <p>
+		 * If the save file is switched to the other format, the save file of the other format is
+		 * first renamed to the new save file, unless the temporary save file of the new format is
+		 * more recent (see {@link #prepareSaveFileSwitch(Path, Path, Logger)}).
 		 * 
 		 * @param data
 		 *            the formatted data
@@ -1054,17 +1205,34 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		 */
 		private void doSaveToFile(String data) throws ShopkeeperStorageSaveException {
 			assert data != null;
+			Path currentSaveFile = compressSaveFile ? compressedSaveFile : saveFile;
+			Path previousSaveFile = compressSaveFile ? saveFile : compressedSaveFile;
 			try {
-				FileUtils.writeSafely(
-						saveFile,
-						data,
-						StandardCharsets.UTF_8,
-						Log.getLogger(),
-						getPluginDataFolder()
-				);
+				prepareSaveFileSwitch(currentSaveFile, previousSaveFile, Log.getLogger());
+
+				if (compressSaveFile) {
+					FileUtils.writeSafelyCompressed(
+							currentSaveFile,
+							data,
+							StandardCharsets.UTF_8,
+							saveFileCompressionLevel,
+							Log.getLogger(),
+							getPluginDataFolder()
+					);
+				} else {
+					FileUtils.writeSafely(
+							currentSaveFile,
+							data,
+							StandardCharsets.UTF_8,
+							Log.getLogger(),
+							getPluginDataFolder()
+					);
+				}
 			} catch (Exception e) {
 				throw new ShopkeeperStorageSaveException(e.getMessage(), e);
 			}
+
+			deletePreviousSaveFile(previousSaveFile, Log.getLogger());
 		}
 
 		@Override
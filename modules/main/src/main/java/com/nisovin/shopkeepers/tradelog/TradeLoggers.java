@@ -17,6 +17,7 @@ import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
 import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeLogger;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.trading.MergedTrades;
 import com.nisovin.shopkeepers.util.trading.TradeMerger;
@@ -88,6 +89,21 @@ public class TradeLoggers implements Listener {
 		loggers.clear();
 	}
 
+	/**
+	 * Gets the {@link SQLiteTradeStatistics}, if trades are logged to an SQLite database and the
+	 * trade statistics are enabled.
+	 * 
+	 * @return the trade statistics, or <code>null</code> if not available
+	 */
+	public @Nullable SQLiteTradeStatistics getTradeStatistics() {
+		for (TradeLogger logger : loggers) {
+			if (logger instanceof SQLiteTradeLogger) {
+				return ((SQLiteTradeLogger) logger).getStatistics();
+			}
+		}
+		return null;
+	}
+
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onTradeCompleted(ShopkeeperTradeCompletedEvent event) {
 		if (loggers.isEmpty()) return; // Nothing to log
@@ -163,6 +163,16 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		pending.clear();
 	}
 
+	/**
+	 * Checks whether this trade logger is enabled, i.e. whether it has not been
+	 * {@link #disable(String) disabled}.
+	 * 
+	 * @return <code>true</code> if enabled
+	 */
+	protected final boolean isEnabled() {
+		return enabled;
+	}
+
 	@Override
 	public void logTrade(TradeRecord trade) {
 		if (!enabled) return;
@@ -3,15 +3,21 @@ package com.nisovin.shopkeepers.tradelog.sqlite;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
 
 import org.bukkit.plugin.Plugin;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.tradelog.base.AbstractFileTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
@@ -21,6 +27,15 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
  * Logs trades to an SQLite database.
+ * <p>
+ * If the {@link Settings#tradeLogStatistics trade statistics} are enabled, the trade table is
+ * indexed, and daily trade statistics per shop and result item type are maintained in a separate
+ * table. These statistics are updated together with the insertion of each trade and can be queried
+ * via {@link #getStatistics()}.
+ * <p>
+ * If the setup of the trade statistics fails, only the trade statistics are unavailable: The trades
+ * are still logged, but the statistics are no longer updated. Since the statistics might then be
+ * incomplete, we try to drop them, so that they are recalculated during the next setup.
  */
 public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 
@@ -63,27 +78,114 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 			+ "trade_count) "
 			+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
+	private static final List<String> INDEXES = Arrays.asList(
+			"trade_shop_uuid ON " + TABLE_NAME + " (shop_uuid)",
+			"trade_player_uuid ON " + TABLE_NAME + " (player_uuid)",
+			"trade_timestamp ON " + TABLE_NAME + " (timestamp)",
+			"trade_result_item_type ON " + TABLE_NAME + " (result_item_type)"
+	);
+
+	static final String STATS_TABLE_NAME = "trade_daily_shop_stats";
+	private static final String CREATE_STATS_TABLE = "CREATE TABLE " + STATS_TABLE_NAME + " ("
+			+ "day CHARACTER(10) NOT NULL, " // ISO 8601 UTC date
+			+ "shop_uuid CHARACTER(36) NOT NULL, "
+			+ "result_item_type VARCHAR(64) NOT NULL, "
+			+ "shop_owner_uuid CHARACTER(36), " // Latest shop owner, null for admin shops
+			+ "trade_count INTEGER NOT NULL, "
+			+ "result_item_count INTEGER NOT NULL, " // Sum of trade_count * result_item_amount
+			+ "PRIMARY KEY (day, shop_uuid, result_item_type)"
+			+ ");";
+	// Calculates the statistics of the already logged trades:
+	private static final String FILL_STATS_TABLE = "INSERT INTO " + STATS_TABLE_NAME
+			+ "(day, shop_uuid, result_item_type, shop_owner_uuid, trade_count, result_item_count) "
+			+ "SELECT substr(timestamp, 1, 10), shop_uuid, result_item_type, MAX(shop_owner_uuid), "
+			+ "SUM(trade_count), SUM(trade_count * result_item_amount) "
+			+ "FROM " + TABLE_NAME + " "
+			+ "GROUP BY substr(timestamp, 1, 10), shop_uuid, result_item_type";
+	private static final String UPDATE_STATS = "INSERT INTO " + STATS_TABLE_NAME
+			+ "(day, shop_uuid, result_item_type, shop_owner_uuid, trade_count, result_item_count) "
+			+ "VALUES(?, ?, ?, ?, ?, ?) "
+			+ "ON CONFLICT(day, shop_uuid, result_item_type) DO UPDATE SET "
+			+ "shop_owner_uuid = excluded.shop_owner_uuid, "
+			+ "trade_count = trade_count + excluded.trade_count, "
+			+ "result_item_count = result_item_count + excluded.result_item_count";
+
 	private final String connectionURL;
+	// This setting is only read once, because the statistics have to be kept consistent with the
+	// logged trades:
+	private final boolean statisticsEnabled;
+	final SQLiteTradeStatistics statistics; // Package-private for tests
 
 	private volatile @Nullable String setupFailureReason = null;
+	// Set if the setup of the trade statistics failed. This only disables the trade statistics, but
+	// not the logging of trades.
+	private volatile @Nullable String statisticsFailureReason = null;
+	// Only set on the main thread, once the setup of the trade statistics has completed
+	// successfully:
+	private volatile boolean statisticsAvailable = false;
 
 	public SQLiteTradeLogger(Plugin plugin) {
+		this(plugin, null, Settings.tradeLogStatistics);
+	}
+
+	// The connection URL is only specified by tests. By default, the database file inside the trade
+	// logs folder is used.
+	SQLiteTradeLogger(Plugin plugin, @Nullable String connectionURL, boolean statisticsEnabled) {
 		super(plugin, TradeLogStorageType.SQLITE);
 
-		this.connectionURL = "jdbc:sqlite:" + tradeLogsFolder.resolve(FILE_NAME);
+		this.connectionURL = (connectionURL != null)
+				? connectionURL
+				: "jdbc:sqlite:" + tradeLogsFolder.resolve(FILE_NAME);
+		this.statisticsEnabled = statisticsEnabled;
+		this.statistics = new SQLiteTradeStatistics(plugin, Unsafe.initialized(this));
 
 		this.createTable();
 	}
 
-	private Connection getConnection() throws SQLException {
+	Connection getConnection() throws SQLException {
 		return DriverManager.getConnection(connectionURL);
 	}
 
+	/**
+	 * Gets the {@link SQLiteTradeStatistics}.
+	 * 
+	 * @return the trade statistics, or <code>null</code> if the trade statistics are disabled, if
+	 *         their setup has not yet completed or failed, or if this trade logger has been
+	 *         disabled
+	 */
+	public @Nullable SQLiteTradeStatistics getStatistics() {
+		if (!this.isStatisticsAvailable()) return null;
+		return statistics;
+	}
+
+	/**
+	 * Checks if the trade statistics are enabled, have been successfully set up, and this trade
+	 * logger is still enabled.
+	 * 
+	 * @return <code>true</code> if the trade statistics can be queried
+	 */
+	boolean isStatisticsAvailable() {
+		return statisticsAvailable && this.isEnabled();
+	}
+
+	// Exposed for tests: Checks if trades are still logged.
+	boolean isLoggingTrades() {
+		return this.isEnabled();
+	}
+
+	// Whether the statistics are updated together with the logged trades.
+	private boolean isUpdatingStatistics() {
+		return statisticsEnabled && statisticsFailureReason == null;
+	}
+
 	@Override
 	protected void asyncSetup() {
 		super.asyncSetup();
 
 		this.createTable();
+		if (setupFailureReason == null) {
+			this.setupStatistics();
+		}
 	}
 
 	@Override
@@ -91,6 +193,15 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 		var setupFailureReason = this.setupFailureReason;
 		if (setupFailureReason != null) {
 			this.disable(setupFailureReason);
+			return;
+		}
+
+		var statisticsFailureReason = this.statisticsFailureReason;
+		if (statisticsFailureReason != null) {
+			Log.severe(logPrefix + "Trade statistics disabled (trades are still logged)! Reason: "
+					+ statisticsFailureReason);
+		} else {
+			statisticsAvailable = statisticsEnabled;
 		}
 	}
 
@@ -104,6 +215,64 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 		}
 	}
 
+	// Creating the indexes and calculating the statistics of the already logged trades can take a
+	// moment for large trade logs. This is therefore only done during the async setup.
+	private void setupStatistics() {
+		try (	Connection connection = this.getConnection();
+				Statement statement = connection.createStatement()) {
+			// Any changes that have not been committed are rolled back when the connection is
+			// closed:
+			connection.setAutoCommit(false);
+			if (statisticsEnabled) {
+				for (String index : INDEXES) {
+					statement.execute("CREATE INDEX IF NOT EXISTS " + index + ";");
+				}
+				if (!this.tableExists(connection, STATS_TABLE_NAME)) {
+					statement.execute(CREATE_STATS_TABLE);
+					int entries = statement.executeUpdate(FILL_STATS_TABLE);
+					Log.info(logPrefix + "Calculated the trade statistics of the already logged "
+							+ "trades (" + entries + " entries).");
+				}
+			} else {
+				// The statistics would otherwise become outdated. They are recalculated once the
+				// statistics are enabled again.
+				statement.execute("DROP TABLE IF EXISTS " + STATS_TABLE_NAME + ";");
+				for (String index : INDEXES) {
+					String indexName = index.substring(0, index.indexOf(' '));
+					statement.execute("DROP INDEX IF EXISTS " + indexName + ";");
+				}
+			}
+			connection.commit();
+		} catch (SQLException e) {
+			statisticsFailureReason = "Could not set up the trade statistics.";
+			Log.severe(logPrefix + statisticsFailureReason, e);
+			if (statisticsEnabled) {
+				this.dropStatisticsTable();
+			}
+		}
+	}
+
+	// The statistics are no longer updated and would therefore become outdated.
+	private void dropStatisticsTable() {
+		try (	Connection connection = this.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS " + STATS_TABLE_NAME + ";");
+		} catch (SQLException e) {
+			Log.severe(logPrefix + "Could not drop the outdated trade statistics.", e);
+		}
+	}
+
+	private boolean tableExists(Connection connection, String tableName) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?"
+		)) {
+			statement.setString(1, tableName);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next();
+			}
+		}
+	}
+
 	@Override
 	protected void writeTrades(SaveContext saveContext) throws Exception {
 		TradeRecord trade = saveContext.getNextUnsavedTrade();
@@ -112,9 +281,21 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 		boolean done = false;
 		// TODO Keep the connection open? Cache the PreparedStatement?
 		try (	Connection connection = this.getConnection();
-				PreparedStatement insertStatement = connection.prepareStatement(INSERT_TRADE)) {
+				PreparedStatement insertStatement = connection.prepareStatement(INSERT_TRADE);
+				@Nullable PreparedStatement updateStatsStatement = this.isUpdatingStatistics()
+						? connection.prepareStatement(UPDATE_STATS) : null) {
+			if (updateStatsStatement != null) {
+				// Each trade is inserted together with the update of the statistics. If a trade
+				// fails to be saved, the uncommitted changes are rolled back when the connection is
+				// closed.
+				connection.setAutoCommit(false);
+			}
 			do {
 				this.insertTrade(insertStatement, trade);
+				if (updateStatsStatement != null) {
+					this.updateStatistics(updateStatsStatement, trade);
+					connection.commit();
+				}
 
 				// Trade successfully saved:
 				saveContext.onTradeSuccessfullySaved();
@@ -196,4 +377,22 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger {
 
 		insertStatement.executeUpdate();
 	}
+
+	private void updateStatistics(PreparedStatement updateStatsStatement, TradeRecord trade)
+			throws SQLException {
+		String day = trade.getTimestamp().atOffset(ZoneOffset.UTC).toLocalDate().toString();
+		PlayerRecord shopOwner = trade.getShop().getOwner();
+		UnmodifiableItemStack resultItem = trade.getResultItem();
+		int tradeCount = trade.getTradeCount();
+
+		updateStatsStatement.setString(1, day); // day
+		updateStatsStatement.setString(2, trade.getShop().getUniqueId().toString()); // shop_uuid
+		updateStatsStatement.setString(3, resultItem.getType().name()); // result_item_type
+		updateStatsStatement.setString(4, // shop_owner_uuid
+				shopOwner != null ? shopOwner.getUniqueId().toString() : null);
+		updateStatsStatement.setInt(5, tradeCount); // trade_count
+		updateStatsStatement.setInt(6, tradeCount * resultItem.getAmount()); // result_item_count
+
+		updateStatsStatement.executeUpdate();
+	}
 }
@@ -0,0 +1,237 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.plugin.Plugin;
+
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Queries the daily trade statistics that are maintained by the {@link SQLiteTradeLogger}.
+ * <p>
+ * The queries are executed asynchronously, and their results are provided page by page.
+ */
+public class SQLiteTradeStatistics {
+
+	/**
+	 * The ways in which the trade statistics can be aggregated.
+	 */
+	public enum Grouping {
+
+		/**
+		 * Aggregates the trades per shop, identified by the shop's unique id. Sorted by the number
+		 * of trades.
+		 */
+		SHOP("shop_uuid", "trade_count DESC"),
+		/**
+		 * Aggregates the trades per result item type. Sorted by the number of traded result items.
+		 */
+		ITEM("result_item_type", "result_item_count DESC"),
+		/**
+		 * Aggregates the trades per day, in the format <code>yyyy-MM-dd</code> (UTC). Sorted by
+		 * day, starting with the most recent day.
+		 */
+		DAY("day", "day DESC");
+
+		private final String column;
+		private final String order;
+
+		private Grouping(String column, String order) {
+			this.column = column;
+			this.order = order;
+		}
+	}
+
+	/**
+	 * The aggregated trades of a single group.
+	 */
+	public static final class Entry {
+
+		private final String key;
+		private final long tradeCount;
+		private final long resultItemCount;
+
+		private Entry(String key, long tradeCount, long resultItemCount) {
+			this.key = key;
+			this.tradeCount = tradeCount;
+			this.resultItemCount = resultItemCount;
+		}
+
+		/**
+		 * Gets the key of the group, as specified by the {@link Grouping}.
+		 *
+		 * @return the key
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * Gets the number of trades.
+		 *
+		 * @return the number of trades
+		 */
+		public long getTradeCount() {
+			return tradeCount;
+		}
+
+		/**
+		 * Gets the total amount of traded result items.
+		 *
+		 * @return the total amount of result items
+		 */
+		public long getResultItemCount() {
+			return resultItemCount;
+		}
+	}
+
+	/**
+	 * A page of {@link Entry entries}.
+	 */
+	public static final class Page {
+
+		private final int page;
+		private final List<? extends Entry> entries;
+		private final boolean hasNextPage;
+
+		private Page(int page, List<? extends Entry> entries, boolean hasNextPage) {
+			this.page = page;
+			this.entries = Collections.unmodifiableList(entries);
+			this.hasNextPage = hasNextPage;
+		}
+
+		/**
+		 * Gets the page number, starting at <code>1</code>.
+		 *
+		 * @return the page number
+		 */
+		public int getPage() {
+			return page;
+		}
+
+		/**
+		 * Gets the entries on this page.
+		 *
+		 * @return an unmodifiable view on the entries, can be empty
+		 */
+		public List<? extends Entry> getEntries() {
+			return entries;
+		}
+
+		/**
+		 * Checks if there are further entries on the next page.
+		 *
+		 * @return <code>true</code> if there is a next page
+		 */
+		public boolean hasNextPage() {
+			return hasNextPage;
+		}
+	}
+
+	private final Plugin plugin;
+	private final SQLiteTradeLogger tradeLogger;
+
+	SQLiteTradeStatistics(Plugin plugin, SQLiteTradeLogger tradeLogger) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(tradeLogger, "tradeLogger is null");
+		this.plugin = plugin;
+		this.tradeLogger = tradeLogger;
+	}
+
+	/**
+	 * Aggregates the trades of the last days.
+	 * <p>
+	 * The query is executed asynchronously. The returned {@link CompletableFuture} is completed on
+	 * the server's main thread. If the query fails, or if the trade statistics are not available,
+	 * for example because their setup has not yet completed or failed, the future is completed
+	 * exceptionally.
+	 * <p>
+	 * Trades that have not yet been written to the database are not yet taken into account.
+	 *
+	 * @param grouping
+	 *            the grouping, not <code>null</code>
+	 * @param days
+	 *            the number of days to take into account, including the current day (UTC), positive
+	 * @param page
+	 *            the page number, starting at <code>1</code>
+	 * @param pageSize
+	 *            the maximum number of entries per page, positive
+	 * @return the future that provides the requested page, not <code>null</code>
+	 */
+	public CompletableFuture<Page> query(Grouping grouping, int days, int page, int pageSize) {
+		Validate.notNull(grouping, "grouping is null");
+		Validate.isTrue(days > 0, "days has to be positive");
+		Validate.isTrue(page > 0, "page has to be positive");
+		Validate.isTrue(pageSize > 0, "pageSize has to be positive");
+
+		String firstDay = LocalDate.now(ZoneOffset.UTC).minusDays(days - 1).toString();
+		CompletableFuture<Page> future = new CompletableFuture<>();
+		if (!tradeLogger.isStatisticsAvailable()) {
+			future.completeExceptionally(
+					new IllegalStateException("The trade statistics are not available!")
+			);
+			return future;
+		}
+
+		if (SchedulerUtils.runAsyncTaskOrOmit(plugin, () -> {
+			Page result;
+			try {
+				result = this.executeQuery(grouping, firstDay, page, pageSize);
+			} catch (Exception e) {
+				SchedulerUtils.runTaskOrOmit(plugin, () -> future.completeExceptionally(e));
+				return;
+			}
+			SchedulerUtils.runTaskOrOmit(plugin, () -> future.complete(result));
+		}) == null) {
+			future.completeExceptionally(new IllegalStateException("Plugin is disabled!"));
+		}
+		return future;
+	}
+
+	// Runs async.
+	private Page executeQuery(Grouping grouping, String firstDay, int page, int pageSize)
+			throws SQLException {
+		String sql = "SELECT " + grouping.column + ", "
+				+ "SUM(trade_count) AS trade_count, "
+				+ "SUM(result_item_count) AS result_item_count "
+				+ "FROM " + SQLiteTradeLogger.STATS_TABLE_NAME + " "
+				+ "WHERE day >= ? "
+				+ "GROUP BY " + grouping.column + " "
+				+ "ORDER BY " + grouping.order + ", " + grouping.column + " "
+				+ "LIMIT ? OFFSET ?";
+		try (	Connection connection = tradeLogger.getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setString(1, firstDay);
+			// We query one additional entry to determine whether there is a next page:
+			statement.setInt(2, pageSize + 1);
+			statement.setLong(3, (long) (page - 1) * pageSize);
+
+			List<Entry> entries = new ArrayList<>(pageSize);
+			boolean hasNextPage = false;
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					if (entries.size() == pageSize) {
+						hasNextPage = true;
+						break;
+					}
+					entries.add(new Entry(
+							resultSet.getString(1),
+							resultSet.getLong(2),
+							resultSet.getLong(3)
+					));
+				}
+			}
+			return new Page(page, entries, hasNextPage);
+		}
+	}
+}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -40,6 +42,11 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 	private final Map<UUID, SKUISession> uiSessions = new HashMap<>();
 	private final Collection<? extends SKUISession> uiSessionsView
 			= Collections.unmodifiableCollection(uiSessions.values());
+	// Secondary indices, kept in sync with the UI sessions:
+	// Shopkeeper -> UI sessions (only for UI sessions that are associated with a shopkeeper)
+	private final Map<Shopkeeper, Set<SKUISession>> uiSessionsByShopkeeper = new HashMap<>();
+	// UI type -> UI sessions
+	private final Map<UIType, Set<SKUISession>> uiSessionsByUIType = new HashMap<>();
 
 	public SKUIRegistry(ShopkeepersPlugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
@@ -183,9 +190,12 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 		assert additionalInventoryEvents != null;
 		additionalInventoryEvents.forEach(uiListener::registerEventType);
 
+		// The inventory event handlers are only registered while there are UI sessions:
+		uiListener.registerInventoryEventHandlers();
+
 		// Start a new UI session:
 		SKUISession session = new SKUISession(uiHandler, player, shopkeeper);
-		uiSessions.put(player.getUniqueId(), session);
+		this.addUISession(session);
 		this.onSessionStarted(session);
 
 		// Open the new UI:
@@ -204,16 +214,15 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 		return uiSessionsView;
 	}
 
+	// Note: The following methods return copies, because callers might end the returned UI
+	// sessions while iterating them.
+
 	@Override
 	public Collection<? extends SKUISession> getUISessions(Shopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getShopkeeper() == shopkeeper) {
-				sessions.add(uiSession);
-			}
-		});
-		return sessions;
+		Set<SKUISession> sessions = uiSessionsByShopkeeper.get(shopkeeper);
+		if (sessions == null) return Collections.emptyList();
+		return new ArrayList<>(sessions);
 	}
 
 	@Override
@@ -223,9 +232,11 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 	) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
 		Validate.notNull(uiType, "uiType is null");
+		Set<SKUISession> shopkeeperSessions = uiSessionsByShopkeeper.get(shopkeeper);
+		if (shopkeeperSessions == null) return Collections.emptyList();
 		List<SKUISession> sessions = new ArrayList<>();
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getShopkeeper() == shopkeeper && uiSession.getUIType() == uiType) {
+		shopkeeperSessions.forEach(uiSession -> {
+			if (uiSession.getUIType() == uiType) {
 				sessions.add(uiSession);
 			}
 		});
@@ -235,13 +246,18 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 	@Override
 	public Collection<? extends UISession> getUISessions(UIType uiType) {
 		Validate.notNull(uiType, "uiType is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getUIType() == uiType) {
-				sessions.add(uiSession);
-			}
-		});
-		return sessions;
+		Set<SKUISession> sessions = uiSessionsByUIType.get(uiType);
+		if (sessions == null) return Collections.emptyList();
+		return new ArrayList<>(sessions);
+	}
+
+	/**
+	 * Gets the number of currently open UI sessions.
+	 * 
+	 * @return the number of UI sessions
+	 */
+	public int getUISessionCount() {
+		return uiSessions.size();
 	}
 
 	@Override
@@ -271,12 +287,57 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 		this.endUISession(player, null);
 	}
 
+	private void addUISession(SKUISession session) {
+		assert session != null;
+		SKUISession previousSession = uiSessions.put(session.getPlayer().getUniqueId(), session);
+		if (previousSession != null) {
+			// Not expected to happen, since any previous UI session is ended before a new UI
+			// session is started. But if it happens, we keep the indices consistent:
+			removeFromIndex(uiSessionsByShopkeeper, previousSession.getShopkeeper(), previousSession);
+			removeFromIndex(uiSessionsByUIType, previousSession.getUIType(), previousSession);
+		}
+		addToIndex(uiSessionsByShopkeeper, session.getShopkeeper(), session);
+		addToIndex(uiSessionsByUIType, session.getUIType(), session);
+	}
+
+	private static <K> void addToIndex(
+			Map<K, Set<SKUISession>> index,
+			@Nullable K key,
+			SKUISession session
+	) {
+		if (key == null) return;
+		index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(session);
+	}
+
+	private static <K> void removeFromIndex(
+			Map<K, Set<SKUISession>> index,
+			@Nullable K key,
+			SKUISession session
+	) {
+		if (key == null) return;
+		Set<SKUISession> sessions = index.get(key);
+		if (sessions == null) return;
+		sessions.remove(session);
+		if (sessions.isEmpty()) {
+			index.remove(key);
+		}
+	}
+
 	// closeEvent can be null.
 	void endUISession(Player player, @Nullable InventoryCloseEvent closeEvent) {
 		assert player != null;
 		SKUISession session = uiSessions.remove(player.getUniqueId());
 		if (session == null) return;
 
+		removeFromIndex(uiSessionsByShopkeeper, session.getShopkeeper(), session);
+		removeFromIndex(uiSessionsByUIType, session.getUIType(), session);
+
+		// Inventory events cause no overhead while there are no UI sessions. This is done before
+		// the UI handler is informed, because the UI handler might start a new UI session.
+		if (uiSessions.isEmpty()) {
+			uiListener.unregisterInventoryEventHandlers();
+		}
+
 		this.onSessionEnded(session, closeEvent);
 	}
 
@@ -306,16 +367,15 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 	@Override
 	public void abortUISessions() {
 		// Copy to prevent concurrent modifications:
-		new ArrayList<>(this.getUISessions()).forEach(SKUISession::abort);
+		new ArrayList<>(this.getUISessions()).forEach(this::abort);
 		assert uiSessions.isEmpty();
+		assert uiSessionsByShopkeeper.isEmpty() && uiSessionsByUIType.isEmpty();
 	}
 
 	@Override
 	public void abortUISessions(Shopkeeper shopkeeper) {
 		// Note: The returned collection is already a copy.
-		this.getUISessions(shopkeeper).forEach(uiSession -> {
-			uiSession.abort();
-		});
+		this.getUISessions(shopkeeper).forEach(this::abort);
 	}
 
 	@Override
@@ -330,12 +390,39 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType>
 		});
 	}
 
-	private void deactivateUIs(Shopkeeper shopkeeper) {
-		assert shopkeeper != null;
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getShopkeeper() == shopkeeper) {
-				uiSession.deactivateUI();
-			}
+	/**
+	 * Similar to {@link #abortUISessionsDelayed(Shopkeeper)}, but for multiple shopkeepers at once.
+	 * <p>
+	 * This only schedules a single task for the delayed aborting of the UI sessions of all the given
+	 * shopkeepers.
+	 * 
+	 * @param shopkeepers
+	 *            the shopkeepers, not <code>null</code>
+	 */
+	public void abortUISessionsDelayed(Collection<? extends Shopkeeper> shopkeepers) {
+		Validate.notNull(shopkeepers, "shopkeepers is null");
+		if (shopkeepers.isEmpty() || uiSessions.isEmpty()) return;
+
+		Set<Shopkeeper> shopkeeperSet = new HashSet<>(shopkeepers);
+
+		// Deactivate currently active UIs for these shopkeepers:
+		boolean found = false;
+		for (Shopkeeper shopkeeper : shopkeeperSet) {
+			found |= this.deactivateUIs(shopkeeper);
+		}
+		if (!found) return;
+
+		SchedulerUtils.runTaskOrOmit(plugin, () -> {
+			shopkeeperSet.forEach(this::abortUISessions);
 		});
 	}
+
+	// Returns true if the shopkeeper has any UI sessions.
+	private boolean deactivateUIs(Shopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		Set<SKUISession> sessions = uiSessionsByShopkeeper.get(shopkeeper);
+		if (sessions == null) return false;
+		sessions.forEach(SKUISession::deactivateUI);
+		return true;
+	}
 }
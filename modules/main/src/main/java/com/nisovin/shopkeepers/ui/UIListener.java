@@ -1,10 +1,12 @@
 package com.nisovin.shopkeepers.ui;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -54,6 +56,15 @@ class UIListener implements Listener {
 	private final ShopkeepersPlugin plugin;
 	private final SKUIRegistry uiRegistry;
 	private final Set<Class<? extends Event>> handledEventTypes = new HashSet<>();
+	// The classes at which we register the handlers for the handled types of inventory events:
+	private final List<Class<? extends Event>> eventRegistrationClasses = new ArrayList<>();
+
+	// The inventory event handlers are only registered while there are UI sessions. They are
+	// registered for this separate listener instance, so that they can be unregistered
+	// independently of the other event handlers of this listener.
+	private final Listener inventoryEventListener = new Listener() {
+	};
+	private boolean inventoryEventHandlersRegistered = false;
 
 	// Stores the UI session (or NO_UI_SESSION) that handles the currently processed inventory
 	// event.
@@ -83,16 +94,20 @@ class UIListener implements Listener {
 
 	void onDisable() {
 		HandlerList.unregisterAll(this);
+		HandlerList.unregisterAll(inventoryEventListener);
+		inventoryEventHandlersRegistered = false;
 		handledEventTypes.clear(); // Reset
+		eventRegistrationClasses.clear(); // Reset
 	}
 
-	// Note: It is safe to dynamically register event handlers for new types of not yet handled
-	// events: Bukkit takes a snapshot of the currently registered event handlers when it calls an
-	// event. Even if an event of the particular type is already being processed by the server, and
-	// has already passed the early event priority phase without having been noticed by this
-	// listener and accounted for in the eventHandlerStack, our newly registered event handlers
+	// Note: It is safe to dynamically register and unregister event handlers for the handled types
+	// of inventory events: Bukkit takes a snapshot of the currently registered event handlers when
+	// it calls an event. Even if an event of the particular type is already being processed by the
+	// server, and has already passed the early event priority phase without having been noticed by
+	// this listener and accounted for in the eventHandlerStack, our newly registered event handlers
 	// won't be called yet for this particular event instance, not even during the late event
-	// priority phase.
+	// priority phase. Similarly, if our event handlers are unregistered while an event is being
+	// processed, our late event handler is still called for this event instance.
 	void registerEventType(Class<? extends InventoryEvent> eventClass) {
 		Validate.notNull(eventClass, "eventClass is null");
 		if (handledEventTypes.contains(eventClass)) return; // Already handled
@@ -103,13 +118,20 @@ class UIListener implements Listener {
 		// Also remember the original event class for faster lookups in the future:
 		handledEventTypes.add(eventClass);
 
+		eventRegistrationClasses.add(registrationClass);
+		if (inventoryEventHandlersRegistered) {
+			this.registerEventHandlers(registrationClass);
+		}
+	}
+
+	private void registerEventHandlers(Class<? extends Event> registrationClass) {
 		// Register two new event handlers, at low and high priority, for the specified event type,
 		// and any other parent event types that share the same registration class. Just in case
 		// that the registration class is unexpectedly a parent instead of a subclass of
 		// InventoryEvent, the created event executors filter for InventoryEvent.
 		Bukkit.getPluginManager().registerEvent(
 				registrationClass,
-				this,
+				inventoryEventListener,
 				EventPriority.LOW,
 				EventUtils.eventExecutor(InventoryEvent.class, this::onInventoryEventEarly),
 				plugin,
@@ -120,7 +142,7 @@ class UIListener implements Listener {
 		// might want to react to that (see for example the TradingHandler).
 		Bukkit.getPluginManager().registerEvent(
 				registrationClass,
-				this,
+				inventoryEventListener,
 				EventPriority.HIGH,
 				EventUtils.eventExecutor(InventoryEvent.class, this::onInventoryEventLate),
 				plugin,
@@ -128,6 +150,32 @@ class UIListener implements Listener {
 		);
 	}
 
+	/**
+	 * Registers the event handlers for all handled types of inventory events, if they are not
+	 * already registered.
+	 * <p>
+	 * This is expected to be called before a new UI session is started.
+	 */
+	void registerInventoryEventHandlers() {
+		if (inventoryEventHandlersRegistered) return;
+		inventoryEventHandlersRegistered = true;
+		eventRegistrationClasses.forEach(this::registerEventHandlers);
+	}
+
+	/**
+	 * Unregisters the event handlers for all handled types of inventory events, so that inventory
+	 * events cause no overhead while there are no UI sessions.
+	 * <p>
+	 * This is expected to be called once the last UI session has ended.
+	 */
+	void unregisterInventoryEventHandlers() {
+		if (!inventoryEventHandlersRegistered) return;
+		inventoryEventHandlersRegistered = false;
+		eventRegistrationClasses.forEach(registrationClass -> {
+			EventUtils.getHandlerList(registrationClass).unregister(inventoryEventListener);
+		});
+	}
+
 	private @Nullable SKUISession getUISession(HumanEntity human) {
 		if (human.getType() != EntityType.PLAYER) return null;
 		Player player = (Player) human;
@@ -270,6 +318,8 @@ class UIListener implements Listener {
 	void onPlayerInteract(PlayerInteractEvent event) {
 		// Ignore our own fake interact event:
 		if (event instanceof TestPlayerInteractEvent) return;
+		// Skip the session lookup if there are no UI sessions:
+		if (uiRegistry.getUISessionCount() == 0) return;
 
 		// When a player interacts with a shopkeeper entity while holding an item in hand, we may
 		// first receive the entity interaction event, which starts a UI session, and then the
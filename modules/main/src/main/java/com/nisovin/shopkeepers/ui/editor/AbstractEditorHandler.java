@@ -962,11 +962,15 @@ public abstract class AbstractEditorHandler extends UIHandler {
 			recipes.add(TradingRecipeDraft.EMPTY);
 		}
 
-		// Replace recipes:
+		// Replace the recipes that have changed:
+		// Unmodified recipes are skipped when the recipes are saved later.
 		for (int column = 0; column < TRADES_COLUMNS; column++) {
 			TradingRecipeDraft recipeDraft = this.getTradingRecipe(inventory, column);
 			int recipeIndex = startIndex + column;
+			if (recipeDraft.areItemsEqual(recipes.get(recipeIndex))) continue;
+
 			recipes.set(recipeIndex, recipeDraft);
+			editorSession.setRecipeModified(recipeIndex);
 		}
 	}
 
@@ -981,6 +985,14 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		// Save the current editor page from the UI to the session:
 		this.saveEditorPage(editorSession);
 
+		// The merchant's offers might have changed while the editor was open: Unmodified trading
+		// recipe drafts are re-read from the current offers, so that they don't revert these
+		// changes.
+		List<TradingRecipeDraft> recipes = editorSession.getRecipes();
+		if (recipes instanceof LazyTradingRecipeDrafts) {
+			((LazyTradingRecipeDrafts<?>) recipes).refreshUnmodified();
+		}
+
 		// Save the recipes from the session:
 		this.saveRecipes(editorSession);
 	}
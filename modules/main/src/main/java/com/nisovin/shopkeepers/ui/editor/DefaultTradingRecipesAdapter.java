@@ -3,6 +3,7 @@ package com.nisovin.shopkeepers.ui.editor;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntPredicate;
 
 import org.bukkit.entity.Player;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -37,9 +38,6 @@ public abstract class DefaultTradingRecipesAdapter<@NonNull O> implements Tradin
 	@Override
 	public abstract List<TradingRecipeDraft> getTradingRecipes();
 
-	// TODO Maybe keep track of which TradingRecipeDrafts have actually been edited (i.e. clicked at
-	// in the editor or marked as 'dirty' by some other mean), and then avoid creating offers and
-	// comparing items for them.
 	// TODO When creating new offers, we can reuse the items of the trading recipe draft. Currently,
 	// these items are copied most of the time.
 	/**
@@ -51,8 +49,26 @@ public abstract class DefaultTradingRecipesAdapter<@NonNull O> implements Tradin
 	 */
 	@Override
 	public int updateTradingRecipes(Player player, List<? extends TradingRecipeDraft> recipes) {
+		return this.updateTradingRecipes(player, recipes, index -> true);
+	}
+
+	/**
+	 * See {@link TradingRecipesAdapter#updateTradingRecipes(Player, List, IntPredicate)}.
+	 * <p>
+	 * Unmodified trading recipe drafts that correspond to one of the merchant's current offers are
+	 * skipped: The merchant's current offer is kept, without creating and comparing a new offer.
+	 * All other trading recipe drafts are handled like in
+	 * {@link #updateTradingRecipes(Player, List)}.
+	 */
+	@Override
+	public int updateTradingRecipes(
+			Player player,
+			List<? extends TradingRecipeDraft> recipes,
+			IntPredicate isModified
+	) {
 		Validate.notNull(player, "player is null");
 		Validate.notNull(recipes, "recipes is null");
+		Validate.notNull(isModified, "isModified is null");
 		assert this.getOffers() != null && !CollectionUtils.containsNull(this.getOffers());
 
 		List<@Nullable O> newOffers = new ArrayList<>(this.getOffers());
@@ -60,6 +76,12 @@ public abstract class DefaultTradingRecipesAdapter<@NonNull O> implements Tradin
 		int changedOffers = 0;
 		boolean clearedAtLeastOneOffer = false;
 		for (int index = 0; index < recipes.size(); index++) {
+			if (index < oldOffersSize && !isModified.test(index)) {
+				// Keep the old offer. This also avoids accessing the (possibly lazily created)
+				// trading recipe draft.
+				continue;
+			}
+
 			TradingRecipeDraft recipe = recipes.get(index);
 			Validate.notNull(recipe, "recipes contains null");
 			// Null if invalid:
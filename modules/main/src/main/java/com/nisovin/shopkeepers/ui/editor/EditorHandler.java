@@ -249,7 +249,8 @@ public abstract class EditorHandler extends AbstractEditorHandler implements Sho
 		Player player = editorSession.getPlayer();
 		int changedOffers = tradingRecipesAdapter.updateTradingRecipes(
 				player,
-				editorSession.getRecipes()
+				editorSession.getRecipes(),
+				editorSession::isRecipeModified
 		);
 		if (changedOffers == 0) {
 			Log.debug(() -> shopkeeper.getLogPrefix() + "No offers have changed.");
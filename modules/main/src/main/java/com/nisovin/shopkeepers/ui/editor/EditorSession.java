@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.ui.editor;
 
+import java.util.BitSet;
 import java.util.List;
 
 import org.bukkit.entity.Player;
@@ -16,6 +17,8 @@ public class EditorSession {
 
 	private final UISession uiSession;
 	private final List<TradingRecipeDraft> recipes;
+	// The indices of the trading recipe drafts that have been modified in the editor:
+	private final BitSet modifiedRecipes = new BitSet();
 	private final Inventory inventory;
 	private int currentPage = 1;
 
@@ -60,4 +63,19 @@ public class EditorSession {
 	public final List<TradingRecipeDraft> getRecipes() {
 		return recipes;
 	}
+
+	/**
+	 * Checks if the trading recipe draft at the specified index has been modified in the editor.
+	 * 
+	 * @param index
+	 *            the index of the trading recipe draft
+	 * @return <code>true</code> if the trading recipe draft has been modified
+	 */
+	public final boolean isRecipeModified(int index) {
+		return modifiedRecipes.get(index);
+	}
+
+	void setRecipeModified(int index) {
+		modifiedRecipes.set(index);
+	}
 }
@@ -0,0 +1,177 @@
+package com.nisovin.shopkeepers.ui.editor;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A modifiable list of {@link TradingRecipeDraft}s that only creates the trading recipe drafts for
+ * the given source elements (e.g. the merchant's offers) once they are accessed for the first time.
+ * <p>
+ * The editor only accesses the trading recipe drafts of the pages that are actually viewed, and the
+ * {@link DefaultTradingRecipesAdapter} skips the trading recipe drafts that have not been modified.
+ * For merchants with many offers, this avoids creating trading recipe drafts (and copying their
+ * items) for all offers whenever the editor is opened.
+ * <p>
+ * Appending and replacing elements is cheap. Any other structural modification creates all
+ * remaining trading recipe drafts first.
+ * <p>
+ * The source elements may change while the editor is open. Before the trading recipe drafts are
+ * saved, {@link #refreshUnmodified()} re-reads the trading recipe drafts that have not been
+ * replaced from the current source elements, so that they don't revert these changes.
+ *
+ * @param <S>
+ *            the type of the source elements
+ */
+public final class LazyTradingRecipeDrafts<@NonNull S>
+		extends AbstractList<TradingRecipeDraft> implements RandomAccess {
+
+	private final Supplier<? extends List<? extends S>> sourcesSupplier;
+	// Snapshot of the source elements: Index-based, matches the first entries of the drafts list.
+	private List<? extends S> sources;
+	// The number of initial source elements, and therefore of the drafts that are based on them:
+	private final int sourcesCount;
+	private final Function<? super S, ? extends TradingRecipeDraft> draftFactory;
+	// Contains null for trading recipe drafts that have not yet been created:
+	private final List<@Nullable TradingRecipeDraft> drafts;
+	// The indices of the source-based drafts that have been replaced:
+	private final BitSet replaced = new BitSet();
+	// Whether all drafts have been created, and the sources are therefore no longer used:
+	private boolean allCreated = false;
+	// Whether the drafts were inserted or removed, so that the drafts no longer match the indices
+	// of the source elements:
+	private boolean shifted = false;
+
+	/**
+	 * Creates a new {@link LazyTradingRecipeDrafts}.
+	 * <p>
+	 * The source elements are immediately retrieved from the given supplier and copied. The
+	 * supplier is invoked again by {@link #refreshUnmodified()}. The draft factory is expected to
+	 * not return <code>null</code>.
+	 *
+	 * @param sourcesSupplier
+	 *            provides the current source elements, not <code>null</code>
+	 * @param draftFactory
+	 *            creates the trading recipe draft for a source element, not <code>null</code>
+	 */
+	public LazyTradingRecipeDrafts(
+			Supplier<? extends List<? extends S>> sourcesSupplier,
+			Function<? super S, ? extends TradingRecipeDraft> draftFactory
+	) {
+		Validate.notNull(sourcesSupplier, "sourcesSupplier is null");
+		Validate.notNull(draftFactory, "draftFactory is null");
+		this.sourcesSupplier = sourcesSupplier;
+		this.sources = this.getCurrentSources();
+		this.sourcesCount = sources.size();
+		this.draftFactory = draftFactory;
+		// With heuristic initial capacity:
+		this.drafts = new ArrayList<>(sourcesCount + 8);
+		for (int i = 0; i < sourcesCount; i++) {
+			drafts.add(null);
+		}
+	}
+
+	private List<? extends S> getCurrentSources() {
+		List<? extends S> currentSources = Validate.State.notNull(
+				sourcesSupplier.get(),
+				"sourcesSupplier returned null"
+		);
+		return new ArrayList<>(currentSources);
+	}
+
+	@Override
+	public int size() {
+		return drafts.size();
+	}
+
+	@Override
+	public TradingRecipeDraft get(int index) {
+		TradingRecipeDraft draft = drafts.get(index);
+		if (draft == null) {
+			// Only the entries for the source elements can be null:
+			draft = Validate.State.notNull(
+					draftFactory.apply(sources.get(index)),
+					"draftFactory returned null"
+			);
+			drafts.set(index, draft);
+		}
+		return draft;
+	}
+
+	@Override
+	public TradingRecipeDraft set(int index, TradingRecipeDraft draft) {
+		Validate.notNull(draft, "draft is null");
+		// Returns the previous draft, which might need to be created first:
+		TradingRecipeDraft previousDraft = this.get(index);
+		drafts.set(index, draft);
+		replaced.set(index);
+		return previousDraft;
+	}
+
+	@Override
+	public void add(int index, TradingRecipeDraft draft) {
+		Validate.notNull(draft, "draft is null");
+		if (index != drafts.size()) {
+			// Inserting shifts the indices of the subsequent elements:
+			this.createAll();
+			shifted = true;
+		}
+		drafts.add(index, draft);
+		modCount++;
+	}
+
+	@Override
+	public TradingRecipeDraft remove(int index) {
+		this.createAll();
+		shifted = true;
+		modCount++;
+		return Validate.State.notNull(drafts.remove(index), "draft is null");
+	}
+
+	/**
+	 * Re-reads the trading recipe drafts that are based on the source elements and that have not
+	 * been {@link #set(int, TradingRecipeDraft) replaced} from the current source elements.
+	 * <p>
+	 * The re-read trading recipe drafts are again only created once they are accessed. If the
+	 * source element of such a trading recipe draft no longer exists, the trading recipe draft is
+	 * replaced with {@link TradingRecipeDraft#EMPTY}. Drafts that were appended to this list are
+	 * not affected.
+	 * <p>
+	 * This has no effect if trading recipe drafts have been inserted or removed, since the drafts
+	 * then no longer match the indices of the source elements.
+	 */
+	public void refreshUnmodified() {
+		if (shifted) return;
+
+		sources = this.getCurrentSources();
+		int currentSourcesCount = sources.size();
+		for (int index = 0; index < sourcesCount; index++) {
+			if (replaced.get(index)) continue;
+
+			if (index < currentSourcesCount) {
+				drafts.set(index, null); // Lazily re-created
+			} else {
+				drafts.set(index, TradingRecipeDraft.EMPTY);
+			}
+		}
+		allCreated = false;
+	}
+
+	private void createAll() {
+		if (allCreated) return;
+		for (int index = 0; index < sourcesCount; index++) {
+			this.get(index);
+		}
+		allCreated = true;
+	}
+}
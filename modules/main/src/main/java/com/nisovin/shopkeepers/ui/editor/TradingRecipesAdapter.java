@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.ui.editor;
 
 import java.util.List;
+import java.util.function.IntPredicate;
 
 import org.bukkit.entity.Player;
 
@@ -28,6 +29,10 @@ public interface TradingRecipesAdapter {
 	 * Gets the list of {@link TradingRecipeDraft}s to show in the editor.
 	 * <p>
 	 * The returned list has to be modifiable: It is not copied, but edited directly.
+	 * <p>
+	 * The editor only accesses the trading recipe drafts that are actually viewed or modified. To
+	 * avoid creating trading recipe drafts for all offers up front, the returned list can create
+	 * its elements lazily, for example via {@link LazyTradingRecipeDrafts}.
 	 * 
 	 * @return the trading recipe drafts
 	 */
@@ -51,4 +56,34 @@ public interface TradingRecipesAdapter {
 	 *         offers changed
 	 */
 	public int updateTradingRecipes(Player player, List<? extends TradingRecipeDraft> recipes);
+
+	/**
+	 * Updates the merchant's offers based on the given {@link TradingRecipeDraft}s from the editor,
+	 * similar to {@link #updateTradingRecipes(Player, List)}.
+	 * <p>
+	 * Trading recipe drafts that have not been modified in the editor still match the merchant's
+	 * corresponding offers at the time the editor was opened. Implementations can skip these trading
+	 * recipe drafts and keep the merchant's corresponding offers, without accessing these trading
+	 * recipe drafts.
+	 * <p>
+	 * By default, this ignores the given modification information and delegates to
+	 * {@link #updateTradingRecipes(Player, List)}.
+	 * 
+	 * @param player
+	 *            the editing player, not <code>null</code>
+	 * @param recipes
+	 *            the trading recipe drafts from the editor, not <code>null</code>
+	 * @param isModified
+	 *            checks if the trading recipe draft at a given index has been modified in the
+	 *            editor, not <code>null</code>
+	 * @return the (estimate) number of merchant offers that were changed, or <code>0</code> if no
+	 *         offers changed
+	 */
+	public default int updateTradingRecipes(
+			Player player,
+			List<? extends TradingRecipeDraft> recipes,
+			IntPredicate isModified
+	) {
+		return this.updateTradingRecipes(player, recipes);
+	}
 }
@@ -33,12 +33,12 @@ import com.nisovin.shopkeepers.api.ui.UISession;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.config.Settings;
-import com.nisovin.shopkeepers.currency.Currencies;
-import com.nisovin.shopkeepers.currency.Currency;
+import com.nisovin.shopkeepers.currency.CurrencyTransactionPlanner;
 import com.nisovin.shopkeepers.debug.Debug;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.TradingRecipesCache;
 import com.nisovin.shopkeepers.ui.AbstractShopkeeperUIHandler;
 import com.nisovin.shopkeepers.ui.AbstractUIType;
 import com.nisovin.shopkeepers.ui.state.UIState;
@@ -131,9 +131,9 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		// Create and open the trading window:
 		Player player = uiSession.getPlayer();
-		Shopkeeper shopkeeper = this.getShopkeeper();
+		AbstractShopkeeper shopkeeper = this.getShopkeeper();
 		String title = this.getInventoryTitle();
-		List<? extends TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
+		List<? extends TradingRecipe> recipes = shopkeeper.getCachedTradingRecipes(player);
 		if (recipes.isEmpty()) {
 			this.debugNotOpeningUI(player, "Shopkeeper has no offers.");
 			TextUtils.sendMessage(player, Messages.cannotTradeNoOffers);
@@ -175,16 +175,51 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		merchant.setRecipes(merchantRecipes);
 	}
 
+	// Returns a new modifiable list. If the given recipes are the shopkeeper's currently cached
+	// trading recipes, the merchant recipes are only created once and then reused: The merchant
+	// copies the merchant recipes when they are set, so they are not affected by the trading.
+	// The cache is shared by all trading handlers of the shopkeeper and therefore only stores the
+	// default merchant recipes: Handlers that create custom merchant recipes bypass the cache.
 	protected List<MerchantRecipe> createMerchantRecipes(
 			List<? extends TradingRecipe> recipes
 	) {
+		@Nullable TradingRecipesCache cache = null;
+		if (!OVERRIDES_CREATE_MERCHANT_RECIPE.get(this.getClass())) {
+			cache = this.getShopkeeper().getTradingRecipesCache();
+			List<? extends MerchantRecipe> cachedMerchantRecipes = cache.getMerchantRecipes(recipes);
+			if (cachedMerchantRecipes != null) {
+				return new ArrayList<>(cachedMerchantRecipes);
+			}
+		}
+
 		List<MerchantRecipe> merchantRecipes = new ArrayList<>();
 		for (TradingRecipe recipe : recipes) {
 			merchantRecipes.add(this.createMerchantRecipe(recipe));
 		}
+		if (cache != null) {
+			cache.setMerchantRecipes(recipes, merchantRecipes);
+		}
 		return merchantRecipes;
 	}
 
+	// Whether the trading handler class overrides createMerchantRecipe(TradingRecipe):
+	private static final ClassValue<Boolean> OVERRIDES_CREATE_MERCHANT_RECIPE = new ClassValue<>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			Class<?> clazz = type;
+			while (clazz != null && clazz != TradingHandler.class) {
+				try {
+					clazz.getDeclaredMethod("createMerchantRecipe", TradingRecipe.class);
+					return true;
+				} catch (NoSuchMethodException e) {
+					// Check the super class:
+					clazz = clazz.getSuperclass();
+				}
+			}
+			return false;
+		}
+	};
+
 	protected MerchantRecipe createMerchantRecipe(TradingRecipe recipe) {
 		return MerchantUtils.createMerchantRecipe(recipe); // Default
 	}
@@ -207,8 +242,8 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		Merchant merchant = merchantInventory.getMerchant();
 		List<MerchantRecipe> oldMerchantRecipes = merchant.getRecipes();
 
-		Shopkeeper shopkeeper = this.getShopkeeper();
-		List<? extends TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
+		AbstractShopkeeper shopkeeper = this.getShopkeeper();
+		List<? extends TradingRecipe> recipes = shopkeeper.getCachedTradingRecipes(player);
 		List<MerchantRecipe> newMerchantRecipes = this.createMerchantRecipes(recipes);
 		if (MerchantUtils.MERCHANT_RECIPES_IGNORE_USES_EXCEPT_BLOCKED.equals(
 				oldMerchantRecipes,
@@ -1175,28 +1210,15 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		return InventoryUtils.addItems(contents, receivedItem, amountAfterTaxes);
 	}
 
+	// Returns the amount of currency that couldn't be added, or 0 on success.
 	protected int addCurrencyItems(@ReadOnly @Nullable ItemStack @ReadWrite [] contents, int amount) {
 		if (amount <= 0) return 0;
 
-		int remaining = amount;
 		// TODO Always store the currency in the most compressed form possible, regardless of
 		// 'highCurrencyMinCost'?
-		if (Currencies.isHighCurrencyEnabled() && remaining > Settings.highCurrencyMinCost) {
-			Currency highCurrency = Currencies.getHigh();
-			// Note: This rounds down, so the remaining amount cannot end up negative after
-			// subtracting the high currency value.
-			int highCurrencyAmount = (remaining / highCurrency.getValue());
-			if (highCurrencyAmount > 0) {
-				ItemStack currencyItems = Currencies.getHigh().getItemData().createItemStack(highCurrencyAmount);
-				int remainingHighCurrency = InventoryUtils.addItems(contents, currencyItems);
-				assert remainingHighCurrency >= 0 && remainingHighCurrency <= highCurrencyAmount;
-				remaining -= (highCurrencyAmount - remainingHighCurrency) * highCurrency.getValue();
-				assert remaining >= 0;
-				if (remaining <= 0) return 0;
-			}
-		}
-
-		ItemStack currencyItems = Currencies.getBase().getItemData().createItemStack(remaining);
-		return InventoryUtils.addItems(contents, currencyItems);
+		CurrencyTransactionPlanner transactionPlanner = new CurrencyTransactionPlanner(contents);
+		int remaining = transactionPlanner.planAddition(amount);
+		transactionPlanner.apply();
+		return remaining;
 	}
 }
@@ -39,6 +39,7 @@ import com.nisovin.shopkeepers.ui.editor.AbstractEditorHandler;
 import com.nisovin.shopkeepers.ui.editor.ActionButton;
 import com.nisovin.shopkeepers.ui.editor.Button;
 import com.nisovin.shopkeepers.ui.editor.DefaultTradingRecipesAdapter;
+import com.nisovin.shopkeepers.ui.editor.LazyTradingRecipeDrafts;
 import com.nisovin.shopkeepers.ui.editor.EditorSession;
 import com.nisovin.shopkeepers.ui.state.UIState;
 import com.nisovin.shopkeepers.ui.villager.VillagerUIHelper;
@@ -77,9 +78,11 @@ public final class VillagerEditorHandler extends AbstractEditorHandler {
 		@Override
 		public List<TradingRecipeDraft> getTradingRecipes() {
 			assert villager.isValid();
-			List<MerchantRecipe> merchantRecipes = villager.getRecipes();
-			var recipes = MerchantUtils.createTradingRecipeDrafts(merchantRecipes);
-			return recipes;
+			// The drafts are only created once they are accessed by the editor:
+			return new LazyTradingRecipeDrafts<>(
+					villager::getRecipes,
+					MerchantUtils::createTradingRecipeDraft
+			);
 		}
 
 		@Override
@@ -811,7 +814,8 @@ public final class VillagerEditorHandler extends AbstractEditorHandler {
 
 		int changedTrades = tradingRecipesAdapter.updateTradingRecipes(
 				player,
-				editorSession.getRecipes()
+				editorSession.getRecipes(),
+				editorSession::isRecipeModified
 		);
 		if (changedTrades == 0) {
 			// No changes:
@@ -0,0 +1,64 @@
+package com.nisovin.shopkeepers.util.bukkit;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+
+/**
+ * Packs chunk coordinates into primitive <code>long</code> keys, e.g. for the lookup in a
+ * {@link com.nisovin.shopkeepers.util.java.Long2ObjectMap}.
+ * <p>
+ * The keys do not include the world. Maps that use these keys are therefore expected to be
+ * per-world.
+ */
+public final class ChunkKeys {
+
+	/**
+	 * Gets the key for the specified chunk coordinates.
+	 *
+	 * @param chunkX
+	 *            the chunk x coordinate
+	 * @param chunkZ
+	 *            the chunk z coordinate
+	 * @return the key
+	 */
+	public static long getKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the key for the given {@link ChunkCoords}.
+	 * <p>
+	 * The world name of the chunk coordinates is ignored.
+	 *
+	 * @param chunkCoords
+	 *            the chunk coordinates, not <code>null</code>
+	 * @return the key
+	 */
+	public static long getKey(ChunkCoords chunkCoords) {
+		return getKey(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
+	}
+
+	/**
+	 * Gets the chunk x coordinate from the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the chunk x coordinate
+	 */
+	public static int getChunkX(long key) {
+		return (int) (key >> 32);
+	}
+
+	/**
+	 * Gets the chunk z coordinate from the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the chunk z coordinate
+	 */
+	public static int getChunkZ(long key) {
+		return (int) key;
+	}
+
+	private ChunkKeys() {
+	}
+}
@@ -10,21 +10,37 @@ import org.checkerframework.checker.nullness.qual.NonNull;
  */
 public class SignUtils {
 
-	public static void setBothSidesGlowingText(Sign sign, boolean glowingText) {
-		sign.getSide(Side.FRONT).setGlowingText(glowingText);
-		sign.getSide(Side.BACK).setGlowingText(glowingText);
+	// The following methods only modify the given sign state if its current state differs, and
+	// return whether the sign state has changed. This allows callers to skip unnecessary block
+	// updates.
+
+	public static boolean setBothSidesGlowingText(Sign sign, boolean glowingText) {
+		boolean changed = setGlowingText(sign.getSide(Side.FRONT), glowingText);
+		changed |= setGlowingText(sign.getSide(Side.BACK), glowingText);
+		return changed;
+	}
+
+	public static boolean setGlowingText(SignSide signSide, boolean glowingText) {
+		if (signSide.isGlowingText() == glowingText) return false;
+		signSide.setGlowingText(glowingText);
+		return true;
 	}
 
-	public static void setBothSidesText(Sign sign, @NonNull String[] lines) {
-		setLines(sign.getSide(Side.FRONT), lines);
-		setLines(sign.getSide(Side.BACK), lines);
+	public static boolean setBothSidesText(Sign sign, @NonNull String[] lines) {
+		boolean changed = setLines(sign.getSide(Side.FRONT), lines);
+		changed |= setLines(sign.getSide(Side.BACK), lines);
+		return changed;
 	}
 
-	public static void setLines(SignSide signSide, @NonNull String[] lines) {
-		signSide.setLine(0, lines[0]);
-		signSide.setLine(1, lines[1]);
-		signSide.setLine(2, lines[2]);
-		signSide.setLine(3, lines[3]);
+	public static boolean setLines(SignSide signSide, @NonNull String[] lines) {
+		boolean changed = false;
+		for (int i = 0; i < 4; i++) {
+			String line = lines[i];
+			if (line.equals(signSide.getLine(i))) continue;
+			signSide.setLine(i, line);
+			changed = true;
+		}
+		return changed;
 	}
 
 	private SignUtils() {
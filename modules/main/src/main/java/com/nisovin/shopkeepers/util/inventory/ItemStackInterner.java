@@ -0,0 +1,146 @@
+package com.nisovin.shopkeepers.util.inventory;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.nullness.qual.PolyNull;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A pool of shared {@link UnmodifiableItemStack}s.
+ * <p>
+ * Equal item stacks that are interned via the same pool share a single
+ * {@link UnmodifiableItemStack} instance. Item stacks are looked up via their hash code and
+ * equality, which compares the item type, amount, and metadata. Comparisons of interned item
+ * stacks can therefore often short-circuit on identity.
+ * <p>
+ * The pool only stores its own copies of the interned item stacks. These copies are never
+ * modified and only exposed as {@link UnmodifiableItemStack}. Subsequent changes to the item stacks
+ * that were passed to the pool do not affect the interned item stacks.
+ * <p>
+ * The pool only weakly references the interned item stacks: Once they are no longer used, they
+ * are automatically removed from the pool.
+ */
+public final class ItemStackInterner {
+
+	// Keys: The pooled item stacks. Values: The unmodifiable views of these item stacks.
+	// The pooled item stacks are only strongly referenced by their unmodifiable views, which are
+	// only weakly referenced by the pool. Once the unmodifiable view is no longer used, the pooled
+	// item stack becomes weakly reachable and its entry is removed from the pool.
+	private final Map<ItemStack, WeakReference<UnmodifiableItemStack>> items = new WeakHashMap<>();
+
+	private long hits = 0L;
+	private long misses = 0L;
+
+	public ItemStackInterner() {
+	}
+
+	/**
+	 * Gets the shared {@link UnmodifiableItemStack} for the given item stack.
+	 * <p>
+	 * If the pool does not yet contain an equal item stack, a copy of the given item stack is
+	 * added to the pool.
+	 * <p>
+	 * Empty item stacks are not pooled, but only copied.
+	 *
+	 * @param itemStack
+	 *            the item stack, can be <code>null</code>, not modified
+	 * @return the shared unmodifiable item stack, or <code>null</code> if the given item stack is
+	 *         <code>null</code>
+	 */
+	public @PolyNull UnmodifiableItemStack intern(@ReadOnly @PolyNull ItemStack itemStack) {
+		if (itemStack == null) return null;
+		if (ItemUtils.isEmpty(itemStack)) {
+			return ItemUtils.nonNullUnmodifiableClone(itemStack);
+		}
+		return this.internNonEmpty(itemStack);
+	}
+
+	/**
+	 * Gets the shared {@link UnmodifiableItemStack} for the given unmodifiable item stack.
+	 * <p>
+	 * This returns the given unmodifiable item stack itself if it is already pooled. Otherwise, if
+	 * the pool does not yet contain an equal item stack, a copy of the given item stack is added to
+	 * the pool: The given unmodifiable item stack might be a view on an item stack that is still
+	 * modified by someone else.
+	 * <p>
+	 * Empty item stacks are not pooled, but returned as is.
+	 *
+	 * @param itemStack
+	 *            the unmodifiable item stack, can be <code>null</code>
+	 * @return the shared unmodifiable item stack, or <code>null</code> if the given item stack is
+	 *         <code>null</code>
+	 */
+	public @PolyNull UnmodifiableItemStack intern(@PolyNull UnmodifiableItemStack itemStack) {
+		if (itemStack == null) return null;
+		if (ItemUtils.isEmpty(itemStack)) return itemStack;
+		// Not modified or exposed:
+		return this.internNonEmpty(ItemUtils.asItemStack(itemStack));
+	}
+
+	private synchronized UnmodifiableItemStack internNonEmpty(@ReadOnly ItemStack itemStack) {
+		assert !ItemUtils.isEmpty(itemStack);
+		WeakReference<UnmodifiableItemStack> reference = items.get(itemStack);
+		if (reference != null) {
+			@Nullable UnmodifiableItemStack interned = reference.get();
+			if (interned != null) {
+				hits++;
+				return interned;
+			}
+		}
+
+		misses++;
+		// Copied, so that subsequent changes to the given item stack do not affect the pool:
+		ItemStack pooledItemStack = itemStack.clone();
+		UnmodifiableItemStack interned = UnmodifiableItemStack.ofNonNull(pooledItemStack);
+		items.put(pooledItemStack, new WeakReference<>(interned));
+		return interned;
+	}
+
+	/**
+	 * Checks if the given {@link UnmodifiableItemStack} is the shared instance of this pool.
+	 *
+	 * @param itemStack
+	 *            the unmodifiable item stack, not <code>null</code>
+	 * @return <code>true</code> if the item stack is pooled
+	 */
+	public synchronized boolean isInterned(UnmodifiableItemStack itemStack) {
+		Validate.notNull(itemStack, "itemStack is null");
+		ItemStack internalItemStack = ItemUtils.asItemStack(itemStack); // Not modified or exposed
+		WeakReference<UnmodifiableItemStack> reference = items.get(internalItemStack);
+		return reference != null && reference.get() == itemStack;
+	}
+
+	/**
+	 * Removes all item stacks from the pool and resets the statistics.
+	 * <p>
+	 * Item stacks that were interned before are not shared with subsequently interned item stacks.
+	 */
+	public synchronized void clear() {
+		items.clear();
+		hits = 0L;
+		misses = 0L;
+	}
+
+	// The number of item stacks in the pool that are still in use.
+	public synchronized int getSize() {
+		return items.size();
+	}
+
+	// The number of interned item stacks that reused a pooled item stack instead of creating a new
+	// copy.
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	// The number of interned item stacks that were copied into the pool.
+	public synchronized long getMisses() {
+		return misses;
+	}
+}
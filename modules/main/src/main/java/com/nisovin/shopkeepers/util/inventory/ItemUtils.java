@@ -968,6 +968,8 @@ public final class ItemUtils {
 		if (item == null) return false;
 		if (item.getType() != dataType) return false; // Also returns false if dataType is null
 		if (data == null || data.isEmpty()) return true;
+		// Avoid creating a copy of the item's metadata if it cannot contain the data:
+		if (!item.hasItemMeta()) return false;
 		return matchesData(item.getItemMeta(), data, matchPartialLists);
 	}
 
@@ -1,7 +1,12 @@
 package com.nisovin.shopkeepers.util.java;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
@@ -17,6 +22,9 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -37,6 +45,9 @@ public final class FileUtils {
 	 */
 	public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("uuuu-MM-DD_HH-mm-ss");
 
+	// The buffer size of GZIP compressed file streams:
+	private static final int GZIP_BUFFER_SIZE = 8192;
+
 	/**
 	 * Checks if the specified file is {@link Files#isWritable(Path) writable} and throws an
 	 * {@link IOException} if this is not the case.
@@ -383,6 +394,61 @@ public final class FileUtils {
 		}
 	}
 
+	/**
+	 * Checks if the given input starts with the header of the GZIP file format.
+	 * <p>
+	 * This only reads and then resets the first bytes of the given input.
+	 * 
+	 * @param input
+	 *            the input, has to {@link InputStream#markSupported() support} marks
+	 * @return <code>true</code> if the input is GZIP compressed
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static boolean isGzipCompressed(InputStream input) throws IOException {
+		Validate.isTrue(input.markSupported(), "input does not support marks");
+		input.mark(2);
+		try {
+			int byte1 = input.read();
+			int byte2 = input.read();
+			if (byte1 == -1 || byte2 == -1) return false;
+			int magic = (byte2 << 8) | byte1;
+			return magic == GZIPInputStream.GZIP_MAGIC;
+		} finally {
+			input.reset();
+		}
+	}
+
+	/**
+	 * Opens a buffered reader to read text from the file at the given path.
+	 * <p>
+	 * If the file is GZIP compressed, which is detected based on the file's contents, the content
+	 * is decompressed while it is read. Otherwise, this behaves like
+	 * {@link Files#newBufferedReader(Path, Charset)}.
+	 * 
+	 * @param path
+	 *            the file path
+	 * @param cs
+	 *            the charset to use for decoding
+	 * @return the buffered reader
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public static BufferedReader newDecompressingReader(Path path, Charset cs) throws IOException {
+		InputStream input = new BufferedInputStream(Files.newInputStream(path));
+		try {
+			if (isGzipCompressed(input)) {
+				input = new GZIPInputStream(input, GZIP_BUFFER_SIZE);
+			}
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+		// Like Files#newBufferedReader, this decoder throws exceptions when it encounters invalid
+		// data:
+		return new BufferedReader(new InputStreamReader(input, cs.newDecoder()));
+	}
+
 	/**
 	 * Gets the path to a sibling of the given file path by appending {@code .tmp}.
 	 * 
@@ -451,6 +517,79 @@ public final class FileUtils {
 			Charset charset,
 			Logger logger,
 			@Nullable Path basePath
+	) throws IOException {
+		writeSafely(path, tempPath -> {
+			try (Writer writer = Files.newBufferedWriter(tempPath, charset)) {
+				writer.write(content);
+			}
+		}, logger, basePath);
+	}
+
+	/**
+	 * Safely writes the given text to a GZIP compressed file at the specified path.
+	 * <p>
+	 * This uses the same procedure as {@link #writeSafely(Path, String, Charset, Logger, Path)},
+	 * but compresses the text before it is written to the temporary file.
+	 * 
+	 * @param path
+	 *            the file path
+	 * @param content
+	 *            the file content
+	 * @param charset
+	 *            the {@link Charset}
+	 * @param compressionLevel
+	 *            the {@link Deflater#setLevel(int) compression level}, between
+	 *            {@link Deflater#NO_COMPRESSION} and {@link Deflater#BEST_COMPRESSION}
+	 * @param logger
+	 *            the {@link Logger} to use for certain warnings
+	 * @param basePath
+	 *            if specified, any error or warning messages that include path strings will use the
+	 *            path relative to this base path instead
+	 * @throws IOException
+	 *             if the operation fails
+	 */
+	public static void writeSafelyCompressed(
+			Path path,
+			String content,
+			Charset charset,
+			int compressionLevel,
+			Logger logger,
+			@Nullable Path basePath
+	) throws IOException {
+		Validate.isTrue(compressionLevel >= Deflater.NO_COMPRESSION
+				&& compressionLevel <= Deflater.BEST_COMPRESSION,
+				"compressionLevel is out of bounds");
+		writeSafely(path, tempPath -> {
+			OutputStream output = Files.newOutputStream(tempPath);
+			GZIPOutputStream gzipOutput;
+			try {
+				gzipOutput = new GZIPOutputStream(output, GZIP_BUFFER_SIZE) {
+					{
+						def.setLevel(compressionLevel);
+					}
+				};
+			} catch (IOException e) {
+				output.close();
+				throw e;
+			}
+			try (Writer writer = new BufferedWriter(
+					new OutputStreamWriter(gzipOutput, charset.newEncoder())
+			)) {
+				writer.write(content);
+			}
+		}, logger, basePath);
+	}
+
+	@FunctionalInterface
+	private interface TempFileWriter {
+		void write(Path tempPath) throws IOException;
+	}
+
+	private static void writeSafely(
+			Path path,
+			TempFileWriter tempFileWriter,
+			Logger logger,
+			@Nullable Path basePath
 	) throws IOException {
 		var tempPath = getTempSibling(path);
 		assert tempPath != null;
@@ -473,8 +612,8 @@ public final class FileUtils {
 		}
 
 		// Create new temporary file and write data to it:
-		try (Writer writer = Files.newBufferedWriter(tempPath, charset)) {
-			writer.write(content);
+		try {
+			tempFileWriter.write(tempPath);
 		} catch (IOException e) {
 			throw new IOException("Could not write temporary file ("
 					+ relativize(basePath, tempPath) + "): " + ThrowableUtils.getDescription(e), e);
@@ -0,0 +1,287 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+
+/**
+ * A hash map with primitive <code>long</code> keys.
+ * <p>
+ * In contrast to a {@link java.util.HashMap} with {@link Long} keys, or keys of some other wrapper
+ * type, this map does not need to allocate or hash key objects for lookups. The entries are stored
+ * in parallel arrays via open addressing with linear probing.
+ * <p>
+ * <code>null</code> values are not supported. The iteration order is undefined. Not thread-safe.
+ *
+ * @param <V>
+ *            the value type
+ */
+public final class Long2ObjectMap<V> {
+
+	/**
+	 * Consumes the entries of a {@link Long2ObjectMap}.
+	 *
+	 * @param <V>
+	 *            the value type
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+
+		/**
+		 * Consumes the given entry.
+		 *
+		 * @param key
+		 *            the key
+		 * @param value
+		 *            the value, not <code>null</code>
+		 */
+		public void accept(long key, V value);
+	}
+
+	private static final int MIN_CAPACITY = 16; // Power of two
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// The capacity of the arrays is a power of two, and at most half of the slots are in use. This
+	// keeps the probe sequences short.
+	private long[] keys;
+	private @Nullable Object[] values; // Null for empty slots
+	private int mask; // capacity - 1
+	private int size = 0;
+
+	/**
+	 * Creates a new empty {@link Long2ObjectMap}.
+	 */
+	public Long2ObjectMap() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * Creates a new empty {@link Long2ObjectMap} that can hold the given number of entries without
+	 * having to resize.
+	 *
+	 * @param expectedSize
+	 *            the expected number of entries, not negative
+	 */
+	public Long2ObjectMap(int expectedSize) {
+		Validate.isTrue(expectedSize >= 0, "expectedSize is negative");
+		int capacity = getCapacity(expectedSize);
+		this.keys = new long[capacity];
+		this.values = new @Nullable Object[capacity];
+		this.mask = capacity - 1;
+	}
+
+	private static int getCapacity(int size) {
+		// Twice the size, rounded up to the next power of two:
+		long minCapacity = Math.max(MIN_CAPACITY, 2L * size);
+		if (minCapacity >= MAX_CAPACITY) return MAX_CAPACITY;
+		return Integer.highestOneBit((int) minCapacity - 1) << 1;
+	}
+
+	// Spreads the bits of the key, since the keys are often packed pairs of small integers.
+	private static int hash(long key) {
+		long hash = (key ^ (key >>> 32)) * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32);
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if this map is empty.
+	 *
+	 * @return <code>true</code> if this map is empty
+	 */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	// Returns the slot of the given key, or -1 if the key is not contained.
+	private int findSlot(long key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) return slot;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if this map contains an entry for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return <code>true</code> if this map contains the key
+	 */
+	public boolean containsKey(long key) {
+		return this.findSlot(key) != -1;
+	}
+
+	/**
+	 * Gets the value for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the value, or <code>null</code> if there is no entry for the key
+	 */
+	public @Nullable V get(long key) {
+		int slot = this.findSlot(key);
+		if (slot == -1) return null;
+		return Unsafe.cast(values[slot]);
+	}
+
+	/**
+	 * Sets the value for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the previous value, or <code>null</code> if there was no entry for the key
+	 * @throws IllegalStateException
+	 *             if the key is new and the map has reached its maximum capacity
+	 */
+	public @Nullable V put(long key, V value) {
+		Validate.notNull(value, "value is null");
+		int slot = hash(key) & mask;
+		@Nullable Object previousValue;
+		while ((previousValue = values[slot]) != null) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return Unsafe.cast(previousValue);
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// At the maximum capacity, we keep at least one slot empty so that the probe sequences
+		// terminate:
+		Validate.State.isTrue(size < values.length - 1, "The map is full!");
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		if (2 * size > values.length) {
+			this.resize(values.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the value for the given key, or creates and inserts it via the given mapping function if
+	 * there is no entry for the key yet.
+	 *
+	 * @param key
+	 *            the key
+	 * @param mappingFunction
+	 *            the function that creates the value, not <code>null</code>, and not expected to
+	 *            modify this map
+	 * @return the value, not <code>null</code>
+	 */
+	public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+		V value = this.get(key);
+		if (value == null) {
+			value = mappingFunction.apply(key);
+			Validate.State.notNull(value, "mappingFunction returned null");
+			this.put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Removes the entry for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the removed value, or <code>null</code> if there was no entry for the key
+	 */
+	public @Nullable V remove(long key) {
+		int slot = this.findSlot(key);
+		if (slot == -1) return null;
+
+		@Nullable Object value = values[slot];
+		this.shiftBack(slot);
+		size--;
+		return Unsafe.cast(value);
+	}
+
+	// Fills the given freed slot by moving back subsequent entries of the same probe sequence, so
+	// that lookups do not require tombstones.
+	private void shiftBack(int freeSlot) {
+		int slot = freeSlot;
+		while (true) {
+			slot = (slot + 1) & mask;
+			@Nullable Object value = values[slot];
+			if (value == null) break;
+
+			int homeSlot = hash(keys[slot]) & mask;
+			// Skip the entry if its home slot lies cyclically within (freeSlot, slot]:
+			if (freeSlot <= slot
+					? (freeSlot < homeSlot && homeSlot <= slot)
+					: (freeSlot < homeSlot || homeSlot <= slot)) {
+				continue;
+			}
+
+			keys[freeSlot] = keys[slot];
+			values[freeSlot] = value;
+			freeSlot = slot;
+		}
+		values[freeSlot] = null;
+	}
+
+	private void resize(int newCapacity) {
+		// Note: Beyond the maximum capacity, we accept a higher load factor.
+		if (newCapacity > MAX_CAPACITY) return;
+
+		long[] oldKeys = keys;
+		@Nullable Object[] oldValues = values;
+		keys = new long[newCapacity];
+		values = new @Nullable Object[newCapacity];
+		mask = newCapacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			@Nullable Object value = oldValues[i];
+			if (value == null) continue;
+
+			long key = oldKeys[i];
+			int slot = hash(key) & mask;
+			while (values[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			values[slot] = value;
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		if (size == 0) return;
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Passes all entries to the given consumer.
+	 * <p>
+	 * The consumer is not allowed to modify this map.
+	 *
+	 * @param consumer
+	 *            the consumer, not <code>null</code>
+	 */
+	public void forEach(EntryConsumer<? super V> consumer) {
+		Validate.notNull(consumer, "consumer is null");
+		@Nullable Object[] values = this.values;
+		for (int i = 0; i < values.length; i++) {
+			@Nullable Object value = values[i];
+			if (value == null) continue;
+			consumer.accept(keys[i], Unsafe.cast(value));
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.nisovin.shopkeepers.container;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class ContainerStockSummaryTests extends AbstractBukkitTest {
+
+	// Similar to a normal item stack, but with a different hash code, like the item stacks of other
+	// ItemStack implementations (e.g. CraftItemStack).
+	private static class OtherHashItemStack extends ItemStack {
+
+		OtherHashItemStack(Material type, int amount) {
+			super(type, amount);
+		}
+
+		@Override
+		public int hashCode() {
+			return ~super.hashCode();
+		}
+	}
+
+	private static ItemStack createNamedItem(Material type, int amount, String displayName) {
+		ItemStack itemStack = new ItemStack(type, amount);
+		ItemMeta itemMeta = Unsafe.assertNonNull(itemStack.getItemMeta());
+		itemMeta.setDisplayName(displayName);
+		itemStack.setItemMeta(itemMeta);
+		return itemStack;
+	}
+
+	@Test
+	public void testEmpty() {
+		Assert.assertSame(
+				ContainerStockSummary.EMPTY,
+				ContainerStockSummary.of(new ItemStack[] { null, new ItemStack(Material.AIR) })
+		);
+		Assert.assertTrue(ContainerStockSummary.EMPTY.isEmpty());
+		Assert.assertEquals(0, ContainerStockSummary.EMPTY.getAmount(new ItemStack(Material.DIRT)));
+		Assert.assertFalse(ContainerStockSummary.EMPTY.contains(Material.DIRT));
+	}
+
+	@Test
+	public void testCombinesSimilarItems() {
+		ItemStack namedDiamond = createNamedItem(Material.DIAMOND, 2, "Named");
+		ContainerStockSummary summary = ContainerStockSummary.of(new ItemStack[] {
+				new ItemStack(Material.DIAMOND, 5),
+				null,
+				new ItemStack(Material.DIRT, 64),
+				namedDiamond,
+				new ItemStack(Material.DIAMOND, 3)
+		});
+
+		Assert.assertFalse(summary.isEmpty());
+		// Preserves the order of the encountered items, and each item has an amount of 1:
+		List<ItemStack> items = new ArrayList<>(summary.getItems());
+		Assert.assertEquals(3, items.size());
+		Assert.assertTrue(items.get(0).isSimilar(new ItemStack(Material.DIAMOND)));
+		Assert.assertTrue(items.get(1).isSimilar(new ItemStack(Material.DIRT)));
+		Assert.assertTrue(items.get(2).isSimilar(namedDiamond));
+		items.forEach(item -> Assert.assertEquals(1, item.getAmount()));
+
+		Assert.assertEquals(8, summary.getAmount(new ItemStack(Material.DIAMOND, 1)));
+		Assert.assertEquals(8, summary.getAmount(new ItemStack(Material.DIAMOND, 64)));
+		Assert.assertEquals(2, summary.getAmount(createNamedItem(Material.DIAMOND, 1, "Named")));
+		Assert.assertEquals(0, summary.getAmount(createNamedItem(Material.DIAMOND, 1, "Other")));
+		Assert.assertEquals(64, summary.getAmount(new ItemStack(Material.DIRT)));
+		Assert.assertEquals(0, summary.getAmount(new ItemStack(Material.STONE)));
+		Assert.assertEquals(
+				10,
+				summary.getAmount(itemStack -> itemStack.getType() == Material.DIAMOND)
+		);
+	}
+
+	@Test
+	public void testMatchesItemsWithDifferentHashCodes() {
+		ContainerStockSummary summary = ContainerStockSummary.of(new ItemStack[] {
+				new ItemStack(Material.DIAMOND, 5),
+				new OtherHashItemStack(Material.DIAMOND, 3)
+		});
+
+		Assert.assertEquals(1, summary.getItems().size());
+		Assert.assertEquals(8, summary.getAmount(new ItemStack(Material.DIAMOND)));
+		Assert.assertEquals(8, summary.getAmount(new OtherHashItemStack(Material.DIAMOND, 1)));
+		Assert.assertTrue(summary.containsAtLeast(
+				UnmodifiableItemStack.ofNonNull(new OtherHashItemStack(Material.DIAMOND, 1)),
+				8
+		));
+	}
+
+	@Test
+	public void testContainsAtLeast() {
+		ContainerStockSummary summary = ContainerStockSummary.of(new ItemStack[] {
+				new ItemStack(Material.DIAMOND, 5),
+				new ItemStack(Material.DIAMOND, 3)
+		});
+		UnmodifiableItemStack diamond = UnmodifiableItemStack.ofNonNull(
+				new ItemStack(Material.DIAMOND, 2)
+		);
+		Assert.assertTrue(summary.containsAtLeast(diamond, 8));
+		Assert.assertFalse(summary.containsAtLeast(diamond, 9));
+		UnmodifiableItemStack dirt = UnmodifiableItemStack.ofNonNull(new ItemStack(Material.DIRT));
+		Assert.assertFalse(summary.containsAtLeast(dirt, 1));
+		Assert.assertTrue(summary.containsAtLeast(dirt, 0));
+	}
+
+	@Test
+	public void testContainsType() {
+		ContainerStockSummary summary = ContainerStockSummary.of(new ItemStack[] {
+				createNamedItem(Material.WRITABLE_BOOK, 1, "Book")
+		});
+		Assert.assertTrue(summary.contains(Material.WRITABLE_BOOK));
+		Assert.assertFalse(summary.contains(Material.WRITTEN_BOOK));
+	}
+}
@@ -0,0 +1,125 @@
+package com.nisovin.shopkeepers.container.tracking;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
+import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+
+public class ShopContainerTrackerTests extends AbstractBukkitTest {
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(Plugin.class.getMethod("isEnabled"), (proxy, args) -> true);
+		}
+	}.newProxy();
+
+	private static final BlockLocation CONTAINER = new BlockLocation("world", 0, 64, 0);
+	private static final BlockLocation OTHER_CONTAINER = new BlockLocation("world", 5, 64, 0);
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+	private final ShopContainerTracker tracker = new ShopContainerTracker(
+			PLUGIN,
+			new ProtectedContainers(Unsafe.uncheckedNull())
+	);
+	private @Nullable ItemStack[] contents = new ItemStack[] {
+			new ItemStack(Material.DIAMOND, 5)
+	};
+	private int contentsReads = 0;
+
+	@After
+	public void tearDown() {
+		tracker.onDisable();
+		scheduler.cancelAllTasks();
+	}
+
+	private ContainerStockSummary getSummary(BlockLocation containerLocation) {
+		return tracker.getStockSummary(containerLocation, () -> {
+			contentsReads++;
+			return contents;
+		});
+	}
+
+	@Test
+	public void testReusesSummaryUntilChanged() {
+		ContainerStockSummary summary = this.getSummary(CONTAINER);
+		Assert.assertEquals(5, summary.getAmount(new ItemStack(Material.DIAMOND)));
+		Assert.assertSame(summary, this.getSummary(CONTAINER));
+		Assert.assertEquals(1, contentsReads);
+
+		// The event is called before the contents change:
+		tracker.onContainerChanged(CONTAINER);
+		ContainerStockSummary summaryDuringEvent = this.getSummary(CONTAINER);
+		Assert.assertNotSame(summary, summaryDuringEvent);
+		Assert.assertEquals(2, contentsReads);
+		Assert.assertEquals(1, scheduler.getPendingTaskCount());
+
+		// The contents change after the event, and the summary is recreated during the next tick:
+		contents = new ItemStack[] { new ItemStack(Material.DIAMOND, 2) };
+		Assert.assertSame(summaryDuringEvent, this.getSummary(CONTAINER));
+		scheduler.tick();
+		ContainerStockSummary summaryAfterTick = this.getSummary(CONTAINER);
+		Assert.assertNotSame(summaryDuringEvent, summaryAfterTick);
+		Assert.assertEquals(2, summaryAfterTick.getAmount(new ItemStack(Material.DIAMOND)));
+		Assert.assertEquals(3, contentsReads);
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testChangesAreTrackedPerContainer() {
+		ContainerStockSummary summary = this.getSummary(CONTAINER);
+		ContainerStockSummary otherSummary = this.getSummary(OTHER_CONTAINER);
+		Assert.assertEquals(2, contentsReads);
+
+		tracker.onContainerChanged(OTHER_CONTAINER);
+		Assert.assertSame(summary, this.getSummary(CONTAINER));
+		Assert.assertNotSame(otherSummary, this.getSummary(OTHER_CONTAINER));
+		Assert.assertEquals(3, contentsReads);
+	}
+
+	@Test
+	public void testIgnoresUntrackedContainers() {
+		tracker.onContainerChanged(CONTAINER);
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testMultipleChangesScheduleOneTask() {
+		this.getSummary(CONTAINER);
+		this.getSummary(OTHER_CONTAINER);
+		tracker.onContainerChanged(CONTAINER);
+		tracker.onContainerChanged(CONTAINER);
+		tracker.onContainerChanged(OTHER_CONTAINER);
+		Assert.assertEquals(1, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testContainerRemoved() {
+		ContainerStockSummary summary = this.getSummary(CONTAINER);
+		tracker.onContainerChanged(CONTAINER);
+		ContainerStockSummary summaryDuringEvent = this.getSummary(CONTAINER);
+		tracker.onContainerRemoved(CONTAINER);
+
+		// The state is recreated on demand:
+		ContainerStockSummary newSummary = this.getSummary(CONTAINER);
+		Assert.assertNotSame(summary, newSummary);
+		Assert.assertNotSame(summaryDuringEvent, newSummary);
+		Assert.assertEquals(3, contentsReads);
+
+		// The pending change of the removed container does not affect the new state:
+		scheduler.tick();
+		Assert.assertSame(newSummary, this.getSummary(CONTAINER));
+		Assert.assertEquals(3, contentsReads);
+	}
+}
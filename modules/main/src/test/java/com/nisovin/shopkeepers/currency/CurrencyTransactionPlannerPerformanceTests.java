@@ -0,0 +1,93 @@
+package com.nisovin.shopkeepers.currency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.PerformanceTests;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+/**
+ * Compares the {@link CurrencyTransactionPlanner} with the previous slot by slot currency removal
+ * and addition.
+ */
+public class CurrencyTransactionPlannerPerformanceTests extends AbstractBukkitTest {
+
+	private static final Logger LOGGER = Logger.getLogger(
+			CurrencyTransactionPlannerPerformanceTests.class.getCanonicalName()
+	);
+
+	private static final int CONTAINERS = 100;
+	private static final int WARMUP_COUNT = 10000;
+	private static final int TEST_COUNT = 200000;
+
+	@Test
+	public void testCurrencyTransactionPerformance() {
+		LOGGER.info("Testing currency transaction performance:");
+		Random random = new Random(42L);
+		List<@Nullable ItemStack[]> containers = new ArrayList<>();
+		for (int i = 0; i < CONTAINERS; i++) {
+			containers.add(CurrencyTransactionPlannerTests.createRandomContents(random));
+		}
+		Currency baseCurrency = Currencies.getBase();
+		Currency highCurrency = Currencies.getHigh();
+		int[] index = { 0 };
+		int[] result = { 0 };
+
+		PerformanceTests.testPerformance("  ", "Slot by slot removal", WARMUP_COUNT, TEST_COUNT,
+				() -> {
+					@Nullable ItemStack[] contents = containers.get(index[0]).clone();
+					index[0] = (index[0] + 1) % containers.size();
+					result[0] += SlotwiseCurrencyTransactions.removeCurrency(
+							contents,
+							100,
+							baseCurrency,
+							highCurrency
+					);
+				});
+
+		PerformanceTests.testPerformance("  ", "Planned removal", WARMUP_COUNT, TEST_COUNT, () -> {
+			@Nullable ItemStack[] contents = containers.get(index[0]).clone();
+			index[0] = (index[0] + 1) % containers.size();
+			CurrencyTransactionPlanner planner = new CurrencyTransactionPlanner(
+					contents,
+					baseCurrency,
+					highCurrency
+			);
+			result[0] += planner.planRemoval(100);
+			planner.apply();
+		});
+
+		PerformanceTests.testPerformance("  ", "Slot by slot addition", WARMUP_COUNT, TEST_COUNT,
+				() -> {
+					@Nullable ItemStack[] contents = containers.get(index[0]).clone();
+					index[0] = (index[0] + 1) % containers.size();
+					result[0] += SlotwiseCurrencyTransactions.addCurrencyItems(
+							contents,
+							100,
+							baseCurrency,
+							highCurrency
+					);
+				});
+
+		PerformanceTests.testPerformance("  ", "Planned addition", WARMUP_COUNT, TEST_COUNT, () -> {
+			@Nullable ItemStack[] contents = containers.get(index[0]).clone();
+			index[0] = (index[0] + 1) % containers.size();
+			CurrencyTransactionPlanner planner = new CurrencyTransactionPlanner(
+					contents,
+					baseCurrency,
+					highCurrency
+			);
+			result[0] += planner.planAddition(100);
+			planner.apply();
+		});
+
+		// Prevents the transactions from being optimized away:
+		LOGGER.info("  Result: " + result[0]);
+	}
+}
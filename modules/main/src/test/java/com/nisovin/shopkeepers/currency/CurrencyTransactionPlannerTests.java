@@ -0,0 +1,196 @@
+package com.nisovin.shopkeepers.currency;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class CurrencyTransactionPlannerTests extends AbstractBukkitTest {
+
+	private static final int ITERATIONS = 2000;
+
+	private static ItemStack withLore(ItemStack itemStack, String lore) {
+		ItemMeta itemMeta = Unsafe.castNonNull(itemStack.getItemMeta());
+		itemMeta.setLore(Arrays.asList(lore));
+		itemStack.setItemMeta(itemMeta);
+		return itemStack;
+	}
+
+	/**
+	 * Creates random container contents with currency items, currency items with additional item
+	 * data (which match the currency, but are not similar to it), other items, and empty slots.
+	 */
+	static @Nullable ItemStack[] createRandomContents(Random random) {
+		Currency baseCurrency = Currencies.getBase();
+		Currency highCurrency = Currencies.getHigh();
+		int size = 9 * (1 + random.nextInt(6));
+		@Nullable ItemStack[] contents = new @Nullable ItemStack[size];
+		for (int slot = 0; slot < size; slot++) {
+			int amount = 1 + random.nextInt(64);
+			int type = random.nextInt(20);
+			@Nullable ItemStack itemStack;
+			if (type < 6) {
+				itemStack = null;
+			} else if (type < 7) {
+				itemStack = new ItemStack(Material.AIR);
+			} else if (type < 11) {
+				itemStack = baseCurrency.getItemData().createItemStack(amount);
+			} else if (type < 14) {
+				itemStack = highCurrency.getItemData().createItemStack(amount);
+			} else if (type < 15) {
+				itemStack = withLore(baseCurrency.getItemData().createItemStack(amount), "Lore");
+			} else if (type < 16) {
+				itemStack = withLore(highCurrency.getItemData().createItemStack(amount), "Lore");
+			} else {
+				Material otherType = random.nextBoolean() ? Material.DIRT : Material.STONE;
+				itemStack = new ItemStack(otherType, amount);
+			}
+			contents[slot] = itemStack;
+		}
+		return contents;
+	}
+
+	private static @Nullable ItemStack[] copyItems(@Nullable ItemStack[] contents) {
+		return Arrays.stream(contents)
+				.map(itemStack -> itemStack != null ? itemStack.clone() : null)
+				.toArray(ItemStack[]::new);
+	}
+
+	private static void testRemoval(
+			@Nullable ItemStack[] contents,
+			int amount,
+			@Nullable Currency highCurrency
+	) {
+		Currency baseCurrency = Currencies.getBase();
+		@Nullable ItemStack[] originalItems = copyItems(contents);
+
+		@Nullable ItemStack[] expectedContents = contents.clone();
+		int expectedRemaining = SlotwiseCurrencyTransactions.removeCurrency(
+				expectedContents,
+				amount,
+				baseCurrency,
+				highCurrency
+		);
+
+		@Nullable ItemStack[] actualContents = contents.clone();
+		CurrencyTransactionPlanner planner = new CurrencyTransactionPlanner(
+				actualContents,
+				baseCurrency,
+				highCurrency
+		);
+		int actualRemaining = planner.planRemoval(amount);
+		// The contents are only modified when the plan is applied:
+		Assert.assertArrayEquals(contents, actualContents);
+		planner.apply();
+
+		String message = "Removing " + amount + " from " + Arrays.toString(originalItems);
+		Assert.assertEquals(message, expectedRemaining, actualRemaining);
+		Assert.assertArrayEquals(message, expectedContents, actualContents);
+		// The original items were not modified:
+		Assert.assertArrayEquals(originalItems, contents);
+	}
+
+	private static void testAddition(
+			@Nullable ItemStack[] contents,
+			int amount,
+			@Nullable Currency highCurrency
+	) {
+		Currency baseCurrency = Currencies.getBase();
+		@Nullable ItemStack[] originalItems = copyItems(contents);
+
+		@Nullable ItemStack[] expectedContents = contents.clone();
+		int expectedRemaining = SlotwiseCurrencyTransactions.addCurrencyItems(
+				expectedContents,
+				amount,
+				baseCurrency,
+				highCurrency
+		);
+
+		@Nullable ItemStack[] actualContents = contents.clone();
+		CurrencyTransactionPlanner planner = new CurrencyTransactionPlanner(
+				actualContents,
+				baseCurrency,
+				highCurrency
+		);
+		int actualRemaining = planner.planAddition(amount);
+		planner.apply();
+
+		String message = "Adding " + amount + " to " + Arrays.toString(originalItems);
+		Assert.assertEquals(message, expectedRemaining, actualRemaining);
+		Assert.assertArrayEquals(message, expectedContents, actualContents);
+		Assert.assertArrayEquals(originalItems, contents);
+	}
+
+	@Test
+	public void testRemovalMatchesSlotwiseRemoval() {
+		Random random = new Random(42L);
+		for (int i = 0; i < ITERATIONS; i++) {
+			@Nullable ItemStack[] contents = createRandomContents(random);
+			int amount = random.nextInt(1000);
+			testRemoval(contents, amount, Currencies.getHigh());
+			testRemoval(contents, amount, null);
+		}
+	}
+
+	@Test
+	public void testAdditionMatchesSlotwiseAddition() {
+		Random random = new Random(43L);
+		for (int i = 0; i < ITERATIONS; i++) {
+			@Nullable ItemStack[] contents = createRandomContents(random);
+			int amount = random.nextInt(3000);
+			testAddition(contents, amount, Currencies.getHigh());
+			testAddition(contents, amount, null);
+		}
+	}
+
+	@Test
+	public void testRemovalWithChange() {
+		Currency baseCurrency = Currencies.getBase();
+		Currency highCurrency = Currencies.getHigh();
+		@Nullable ItemStack[] contents = new @Nullable ItemStack[] {
+				baseCurrency.getItemData().createItemStack(2),
+				null,
+				highCurrency.getItemData().createItemStack(1)
+		};
+		CurrencyTransactionPlanner planner = new CurrencyTransactionPlanner(
+				contents,
+				baseCurrency,
+				highCurrency
+		);
+		// The base currency is not sufficient: The high currency item is removed, and the change
+		// is added back.
+		int change = highCurrency.getValue() - 3;
+		Assert.assertEquals(0, planner.planRemoval(5));
+		planner.apply();
+		Assert.assertArrayEquals(new @Nullable ItemStack[] {
+				baseCurrency.getItemData().createItemStack(change),
+				null,
+				null
+		}, contents);
+	}
+
+	@Test
+	public void testRemovalWithoutSpaceForChange() {
+		Currency baseCurrency = Currencies.getBase();
+		Currency highCurrency = Currencies.getHigh();
+		@Nullable ItemStack[] contents = new @Nullable ItemStack[] {
+				highCurrency.getItemData().createItemStack(2),
+				new ItemStack(Material.DIRT)
+		};
+		CurrencyTransactionPlanner planner = new CurrencyTransactionPlanner(
+				contents,
+				baseCurrency,
+				highCurrency
+		);
+		// There is no empty slot for the change:
+		Assert.assertEquals(-(highCurrency.getValue() - 1), planner.planRemoval(1));
+	}
+}
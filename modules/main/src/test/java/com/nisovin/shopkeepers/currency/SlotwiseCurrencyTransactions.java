@@ -0,0 +1,158 @@
+package com.nisovin.shopkeepers.currency;
+
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.annotations.ReadWrite;
+import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+/**
+ * The previous slot by slot implementations of the currency removal and addition of player shop
+ * trades, which check the slot items again in each pass.
+ * <p>
+ * Used as reference for the results of the {@link CurrencyTransactionPlanner}.
+ */
+final class SlotwiseCurrencyTransactions {
+
+	// Returns the amount of currency that couldn't be removed, 0 on full success, negative if too
+	// much was removed.
+	static int removeCurrency(
+			@ReadOnly @Nullable ItemStack @ReadWrite [] contents,
+			int amount,
+			Currency baseCurrency,
+			@Nullable Currency highCurrency
+	) {
+		if (amount == 0) return 0;
+		int remaining = amount;
+
+		// First pass: Remove as much low currency as available from partial stacks.
+		// Second pass: Remove as much low currency as available from full stacks.
+		for (int k = 0; k < 2; k++) {
+			for (int slot = 0; slot < contents.length; slot++) {
+				ItemStack itemStack = contents[slot];
+				if (!baseCurrency.getItemData().matches(itemStack)) continue;
+				assert itemStack != null;
+
+				// Second pass, or the ItemStack is a partial one:
+				int itemAmount = itemStack.getAmount();
+				if (k == 1 || itemAmount < itemStack.getMaxStackSize()) {
+					int newAmount = (itemAmount - remaining);
+					if (newAmount > 0) {
+						// Copy the item before modifying it:
+						itemStack = itemStack.clone();
+						contents[slot] = itemStack;
+						itemStack.setAmount(newAmount);
+						remaining = 0;
+						break;
+					} else {
+						contents[slot] = null;
+						remaining = -newAmount;
+						if (newAmount == 0) {
+							break;
+						}
+					}
+				}
+			}
+			if (remaining == 0) break;
+		}
+		if (remaining == 0) return 0;
+
+		if (highCurrency == null) {
+			// We couldn't remove all currency:
+			return remaining;
+		}
+
+		int remainingHigh = (int) Math.ceil((double) remaining / highCurrency.getValue());
+		// We rounded the high currency up, so if this is negative now, it represents the remaining
+		// change which needs to be added back:
+		remaining -= (remainingHigh * highCurrency.getValue());
+		assert remaining <= 0;
+
+		// First pass: Remove high currency from partial stacks.
+		// Second pass: Remove high currency from full stacks.
+		for (int k = 0; k < 2; k++) {
+			for (int slot = 0; slot < contents.length; slot++) {
+				ItemStack itemStack = contents[slot];
+				if (!highCurrency.getItemData().matches(itemStack)) continue;
+				assert itemStack != null;
+
+				// Second pass, or the ItemStack is a partial one:
+				int itemAmount = itemStack.getAmount();
+				if (k == 1 || itemAmount < itemStack.getMaxStackSize()) {
+					int newAmount = (itemAmount - remainingHigh);
+					if (newAmount > 0) {
+						// Copy the item before modifying it:
+						itemStack = itemStack.clone();
+						contents[slot] = itemStack;
+						itemStack.setAmount(newAmount);
+						remainingHigh = 0;
+						break;
+					} else {
+						contents[slot] = null;
+						remainingHigh = -newAmount;
+						if (newAmount == 0) {
+							break;
+						}
+					}
+				}
+			}
+			if (remainingHigh == 0) break;
+		}
+
+		remaining += (remainingHigh * highCurrency.getValue());
+		if (remaining >= 0) {
+			return remaining;
+		}
+		assert remaining < 0; // We have some change left
+		remaining = -remaining; // The change is now represented as positive value
+
+		// Add the remaining change into empty slots (all partial slots have already been cleared
+		// above):
+		int maxStackSize = baseCurrency.getMaxStackSize();
+		for (int slot = 0; slot < contents.length; slot++) {
+			ItemStack itemStack = contents[slot];
+			if (!ItemUtils.isEmpty(itemStack)) continue;
+
+			int stackSize = Math.min(remaining, maxStackSize);
+			contents[slot] = baseCurrency.getItemData().createItemStack(stackSize);
+			remaining -= stackSize;
+			if (remaining == 0) break;
+		}
+		// We removed too much, represent as negative value:
+		remaining = -remaining;
+		return remaining;
+	}
+
+	// Returns the amount of currency that couldn't be added, or 0 on success.
+	static int addCurrencyItems(
+			@ReadOnly @Nullable ItemStack @ReadWrite [] contents,
+			int amount,
+			Currency baseCurrency,
+			@Nullable Currency highCurrency
+	) {
+		if (amount <= 0) return 0;
+
+		int remaining = amount;
+		if (highCurrency != null && remaining > Settings.highCurrencyMinCost) {
+			// Note: This rounds down, so the remaining amount cannot end up negative after
+			// subtracting the high currency value.
+			int highCurrencyAmount = (remaining / highCurrency.getValue());
+			if (highCurrencyAmount > 0) {
+				ItemStack currencyItems = highCurrency.getItemData()
+						.createItemStack(highCurrencyAmount);
+				int remainingHighCurrency = InventoryUtils.addItems(contents, currencyItems);
+				remaining -= (highCurrencyAmount - remainingHighCurrency) * highCurrency.getValue();
+				if (remaining <= 0) return 0;
+			}
+		}
+
+		ItemStack currencyItems = baseCurrency.getItemData().createItemStack(remaining);
+		return InventoryUtils.addItems(contents, currencyItems);
+	}
+
+	private SlotwiseCurrencyTransactions() {
+	}
+}
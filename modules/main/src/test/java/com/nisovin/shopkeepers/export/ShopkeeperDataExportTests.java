@@ -0,0 +1,138 @@
+package com.nisovin.shopkeepers.export;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistrySnapshot.Entry;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+
+public class ShopkeeperDataExportTests extends AbstractBukkitTest {
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(Plugin.class.getMethod("isEnabled"), (proxy, args) -> true);
+		}
+	}.newProxy();
+
+	// The records are not captured from the shopkeeper.
+	private static class TestShopkeeper extends AbstractShopkeeper {
+
+		@Override
+		public AbstractShopType<?> getType() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean hasTradingRecipes(@Nullable Player player) {
+			return false;
+		}
+
+		@Override
+		public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+			return Collections.emptyList();
+		}
+	}
+
+	private static final ShopkeeperExportRecord RECORD = new ShopkeeperExportRecord(
+			new ProxyHandler<Entry>(Entry.class) {
+			}.newProxy(),
+			null,
+			List.of(),
+			null
+	);
+
+	private static class FailingFormatter implements ShopkeeperExportFormatter {
+
+		private final RuntimeException error = new IllegalStateException("Formatting failed!");
+
+		@Override
+		public @Nullable String getHeader() {
+			return null;
+		}
+
+		@Override
+		public String format(ShopkeeperExportRecord record) {
+			throw error;
+		}
+	}
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+	private @Nullable Path exportsFolder = null;
+	private int capturedRecords = 0;
+
+	@After
+	public void tearDown() throws IOException {
+		scheduler.cancelAllTasks();
+		Path exportsFolder = this.exportsFolder;
+		if (exportsFolder != null) {
+			try (Stream<Path> files = Files.list(exportsFolder)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(exportsFolder);
+		}
+	}
+
+	@Test
+	public void testWriteFailureStopsCapturing() throws IOException {
+		Path exportsFolder = Files.createTempDirectory("shopkeepers-exports");
+		this.exportsFolder = exportsFolder;
+		Path file = exportsFolder.resolve("export.csv");
+
+		// More shopkeepers than fit into the queue of pending records:
+		List<AbstractShopkeeper> shopkeepers = Collections.nCopies(5000, new TestShopkeeper());
+		FailingFormatter formatter = new FailingFormatter();
+		ShopkeeperDataExport export = new ShopkeeperDataExport(
+				PLUGIN,
+				shopkeepers,
+				ExportFormat.CSV,
+				file,
+				shopkeeper -> {
+					capturedRecords++;
+					return RECORD;
+				},
+				formatter
+		);
+		export.start();
+		// The capturing continues during the next ticks:
+		Assert.assertTrue(capturedRecords < shopkeepers.size());
+		int initialCapturedRecords = capturedRecords;
+
+		// Runs the writer, which fails to format the first record:
+		scheduler.tick();
+		Assert.assertEquals(initialCapturedRecords, capturedRecords);
+		Assert.assertFalse(export.getFuture().isDone());
+
+		// The failure is handled on the main thread:
+		scheduler.tick();
+		Assert.assertSame(formatter.error, export.getFuture().exceptionNow());
+		// The capture task has been stopped:
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+		scheduler.tick(5);
+		Assert.assertEquals(initialCapturedRecords, capturedRecords);
+
+		// The partially written data has been discarded:
+		Assert.assertFalse(Files.exists(file));
+		try (Stream<Path> files = Files.list(exportsFolder)) {
+			Assert.assertEquals(0L, files.count());
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package com.nisovin.shopkeepers.export;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistrySnapshot.Entry;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.ItemRecord;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.OfferRecord;
+import com.nisovin.shopkeepers.export.ShopkeeperExportRecord.StockRecord;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+import com.nisovin.shopkeepers.util.json.JsonUtils;
+import com.nisovin.shopkeepers.util.yaml.YamlUtils;
+
+public class ShopkeeperExportFormatterTests extends AbstractBukkitTest {
+
+	private static final UUID SHOP_UUID = UUID.fromString("8a3e3d5c-0e1b-4a5f-9a6e-0b1e2c3d4e5f");
+	private static final UUID OWNER_UUID = UUID.fromString("1f2e3d4c-5b6a-4789-8a9b-0c1d2e3f4a5b");
+
+	private static class TestEntry implements Entry {
+
+		@Override
+		public int getId() {
+			return 7;
+		}
+
+		@Override
+		public UUID getUniqueId() {
+			return SHOP_UUID;
+		}
+
+		@Override
+		public String getShopTypeId() {
+			return "shopkeepers:selling";
+		}
+
+		@Override
+		public String getShopObjectTypeId() {
+			return "shopkeepers:villager";
+		}
+
+		@Override
+		public String getName() {
+			return "Shop, \"quoted\"";
+		}
+
+		@Override
+		public boolean isPlayerShop() {
+			return true;
+		}
+
+		@Override
+		public @Nullable UUID getOwnerUUID() {
+			return OWNER_UUID;
+		}
+
+		@Override
+		public @Nullable String getOwnerName() {
+			return "Owner";
+		}
+
+		@Override
+		public boolean isVirtual() {
+			return false;
+		}
+
+		@Override
+		public @Nullable String getWorldName() {
+			return "world";
+		}
+
+		@Override
+		public int getX() {
+			return 10;
+		}
+
+		@Override
+		public int getY() {
+			return 64;
+		}
+
+		@Override
+		public int getZ() {
+			return -20;
+		}
+
+		@Override
+		public @Nullable ChunkCoords getChunkCoords() {
+			return ChunkCoords.fromBlock("world", 10, -20);
+		}
+	}
+
+	private final ItemStack item1 = new ItemStack(Material.EMERALD, 3);
+	private final ItemStack resultItem = TestItemStacks.createItemStackComplete();
+	private final ItemStack stockItem = TestItemStacks.createItemStackDisplayName();
+
+	private ShopkeeperExportRecord createRecord(boolean stockKnown) {
+		List<OfferRecord> offers = new ArrayList<>();
+		offers.add(new OfferRecord(
+				ItemRecord.capture(item1),
+				null,
+				ItemRecord.capture(resultItem),
+				stockKnown ? false : null,
+				stockKnown ? 5 : null
+		));
+
+		@Nullable List<StockRecord> stock = null;
+		if (stockKnown) {
+			stock = new ArrayList<>();
+			stock.add(new StockRecord(ItemRecord.capture(stockItem), 5));
+		}
+
+		Map<String, Object> savedData = new LinkedHashMap<>();
+		savedData.put("name", "Shop");
+		savedData.put("offers", List.of(Map.of("item", item1)));
+		savedData.put("hireCost", List.of(resultItem));
+		Map<String, @Nullable Object> data = ShopkeeperExportRecord.toExportedShopkeeperData(
+				savedData
+		);
+		return new ShopkeeperExportRecord(new TestEntry(), data, offers, stock);
+	}
+
+	@Test
+	public void testExportedShopkeeperData() {
+		Map<? extends String, ?> data = Unsafe.assertNonNull(
+				this.createRecord(true).getShopkeeperData()
+		);
+		// The offers are omitted:
+		Assert.assertEquals(List.of("name", "hireCost"), new ArrayList<>(data.keySet()));
+		// Items are converted into plain data:
+		List<?> hireCost = (List<?>) Unsafe.assertNonNull(data.get("hireCost"));
+		Assert.assertTrue(hireCost.get(0) instanceof Map);
+	}
+
+	@Test
+	public void testJsonRoundTrip() {
+		ShopkeeperExportFormatter formatter = ShopkeeperExportFormatter.create(ExportFormat.NDJSON);
+		Assert.assertNull(formatter.getHeader());
+		String line = formatter.format(this.createRecord(true));
+		Assert.assertTrue(line.endsWith("\n"));
+		Assert.assertEquals(1, line.split("\n").length);
+
+		// Deserializes the contained item stacks:
+		Map<String, Object> json = Unsafe.assertNonNull(JsonUtils.fromJson(line));
+		Assert.assertEquals(7, ((Number) json.get("id")).intValue());
+		Assert.assertEquals(SHOP_UUID.toString(), json.get("uuid"));
+		Assert.assertEquals("Shop, \"quoted\"", json.get("name"));
+		Assert.assertEquals(OWNER_UUID.toString(), json.get("owner_uuid"));
+		Assert.assertEquals("world", json.get("world"));
+		Assert.assertEquals(-20, ((Number) json.get("z")).intValue());
+
+		List<?> offers = (List<?>) Unsafe.assertNonNull(json.get("offers"));
+		Assert.assertEquals(1, offers.size());
+		Map<?, ?> offer = (Map<?, ?>) offers.get(0);
+		Assert.assertEquals(item1, offer.get("item1"));
+		Assert.assertNull(offer.get("item2"));
+		Assert.assertEquals(resultItem, offer.get("result_item"));
+		Assert.assertEquals(false, offer.get("out_of_stock"));
+
+		List<?> stock = (List<?>) Unsafe.assertNonNull(json.get("stock"));
+		Map<?, ?> stockEntry = (Map<?, ?>) stock.get(0);
+		Assert.assertEquals(stockItem, stockEntry.get("item"));
+		Assert.assertEquals(5, ((Number) stockEntry.get("amount")).intValue());
+
+		Map<?, ?> data = (Map<?, ?>) Unsafe.assertNonNull(json.get("data"));
+		Assert.assertFalse(data.containsKey("offers"));
+		Assert.assertEquals(List.of(resultItem), data.get("hireCost"));
+	}
+
+	@Test
+	public void testJsonWithoutStock() {
+		ShopkeeperExportFormatter formatter = ShopkeeperExportFormatter.create(ExportFormat.NDJSON);
+		Map<String, Object> json = Unsafe.assertNonNull(
+				JsonUtils.fromJson(formatter.format(this.createRecord(false)))
+		);
+		Assert.assertFalse(json.containsKey("stock"));
+		List<?> offers = (List<?>) Unsafe.assertNonNull(json.get("offers"));
+		Assert.assertFalse(((Map<?, ?>) offers.get(0)).containsKey("out_of_stock"));
+	}
+
+	// Parses a single CSV record in which all fields are quoted.
+	private static List<String> parseCsvRecord(String record) {
+		Assert.assertTrue(record.endsWith("\n"));
+		String line = record.substring(0, record.length() - 1);
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		int index = 0;
+		while (index < line.length()) {
+			Assert.assertEquals('"', line.charAt(index));
+			index++;
+			while (true) {
+				char c = line.charAt(index);
+				if (c == '"') {
+					if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+						field.append('"');
+						index += 2;
+						continue;
+					}
+					index++;
+					break;
+				}
+				field.append(c);
+				index++;
+			}
+			fields.add(field.toString());
+			field.setLength(0);
+			if (index < line.length()) {
+				Assert.assertEquals(',', line.charAt(index));
+				index++;
+			}
+		}
+		return fields;
+	}
+
+	private static ItemStack parseItem(String type, String amount, String metadata) {
+		Map<String, Object> itemData = new LinkedHashMap<>();
+		itemData.put("type", type);
+		itemData.put("amount", Integer.parseInt(amount));
+		Map<String, Object> parsedMetadata = Unsafe.assertNonNull(YamlUtils.fromYaml(metadata));
+		itemData.putAll(parsedMetadata);
+		return ItemStack.deserialize(itemData);
+	}
+
+	@Test
+	public void testCsvRoundTrip() {
+		ShopkeeperExportFormatter formatter = ShopkeeperExportFormatter.create(ExportFormat.CSV);
+		List<String> header = parseCsvRecord(Unsafe.assertNonNull(formatter.getHeader()));
+		String record = formatter.format(this.createRecord(true));
+		// All offers and all item metadata fit into a single line:
+		Assert.assertEquals(1, record.split("\n").length);
+		List<String> fields = parseCsvRecord(record);
+		Assert.assertEquals(header.size(), fields.size());
+
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int i = 0; i < header.size(); i++) {
+			values.put(header.get(i), fields.get(i));
+		}
+		Assert.assertEquals("7", values.get("shop_id"));
+		Assert.assertEquals(SHOP_UUID.toString(), values.get("shop_uuid"));
+		Assert.assertEquals("Shop, \"quoted\"", values.get("shop_name"));
+		Assert.assertEquals("world", values.get("shop_world"));
+		Assert.assertEquals("-20", values.get("shop_z"));
+		Assert.assertEquals(OWNER_UUID.toString(), values.get("shop_owner_uuid"));
+		Assert.assertEquals("0", values.get("offer_index"));
+		Assert.assertEquals(item1, parseItem(
+				Unsafe.assertNonNull(values.get("item1_type")),
+				Unsafe.assertNonNull(values.get("item1_amount")),
+				Unsafe.assertNonNull(values.get("item1_metadata"))
+		));
+		Assert.assertEquals("", values.get("item2_type"));
+		Assert.assertEquals(resultItem, parseItem(
+				Unsafe.assertNonNull(values.get("result_item_type")),
+				Unsafe.assertNonNull(values.get("result_item_amount")),
+				Unsafe.assertNonNull(values.get("result_item_metadata"))
+		));
+		Assert.assertEquals("false", values.get("out_of_stock"));
+		Assert.assertEquals("5", values.get("result_item_stock"));
+	}
+
+	@Test
+	public void testCsvWithoutStockAndOffers() {
+		ShopkeeperExportFormatter formatter = ShopkeeperExportFormatter.create(ExportFormat.CSV);
+		List<String> fields = parseCsvRecord(formatter.format(this.createRecord(false)));
+		// out_of_stock and result_item_stock:
+		Assert.assertEquals("", fields.get(fields.size() - 2));
+		Assert.assertEquals("", fields.get(fields.size() - 1));
+
+		ShopkeeperExportRecord withoutOffers = new ShopkeeperExportRecord(
+				new TestEntry(),
+				null,
+				List.of(),
+				null
+		);
+		fields = parseCsvRecord(formatter.format(withoutOffers));
+		Assert.assertEquals("7", fields.get(0));
+		// offer_index:
+		Assert.assertEquals("", fields.get(11));
+	}
+}
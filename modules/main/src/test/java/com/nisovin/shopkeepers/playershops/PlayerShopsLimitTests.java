@@ -0,0 +1,220 @@
+package com.nisovin.shopkeepers.playershops;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+
+public class PlayerShopsLimitTests extends AbstractBukkitTest {
+
+	/**
+	 * A player stub with a modifiable set of permissions that counts its permission checks.
+	 */
+	private static class TestPlayer {
+
+		private final Set<String> permissions = new HashSet<>();
+		private int permissionChecks = 0;
+		// Invoked during permission checks:
+		private @Nullable Runnable onPermissionCheck = null;
+		private final Player player;
+
+		TestPlayer(int index) {
+			UUID uniqueId = new UUID(0L, index);
+			String name = "Player" + index;
+			this.player = new ProxyHandler<Player>(Player.class) {
+				@Override
+				protected void setupMethodHandlers() throws Exception {
+					this.addHandler(Player.class.getMethod("getUniqueId"), (proxy, args) -> {
+						return uniqueId;
+					});
+					this.addHandler(Player.class.getMethod("getName"), (proxy, args) -> {
+						return name;
+					});
+					// Readable assertion messages:
+					this.addHandler(Object.class.getMethod("toString"), (proxy, args) -> {
+						return name;
+					});
+					this.addHandler(
+							Player.class.getMethod("hasPermission", String.class),
+							(proxy, args) -> {
+								assert args != null;
+								permissionChecks++;
+								Runnable onPermissionCheck = TestPlayer.this.onPermissionCheck;
+								if (onPermissionCheck != null) {
+									onPermissionCheck.run();
+								}
+								return permissions.contains(String.valueOf(args[0]));
+							}
+					);
+				}
+			}.newProxy();
+		}
+	}
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+	}.newProxy();
+
+	private int previousMaxShopsPerPlayer;
+	private String previousMaxShopsPermOptions = "";
+
+	private long nanoTime = 0L;
+	private PlayerShopsLimit playerShopsLimit = Unsafe.uncheckedNull();
+
+	@Before
+	public void setup() {
+		previousMaxShopsPerPlayer = Settings.maxShopsPerPlayer;
+		previousMaxShopsPermOptions = Settings.maxShopsPermOptions;
+		this.setMaxShopsSettings(5, "10,20");
+		playerShopsLimit = new PlayerShopsLimit(PLUGIN, () -> nanoTime);
+	}
+
+	@After
+	public void cleanup() {
+		this.setMaxShopsSettings(previousMaxShopsPerPlayer, previousMaxShopsPermOptions);
+	}
+
+	private void setMaxShopsSettings(int maxShopsPerPlayer, String maxShopsPermOptions) {
+		Settings.maxShopsPerPlayer = maxShopsPerPlayer;
+		Settings.maxShopsPermOptions = maxShopsPermOptions;
+		PlayerShopsLimit.updateMaxShopsPermissions(invalidPermissionOption -> {
+			Assert.fail("Invalid max shops permission option: " + invalidPermissionOption);
+		});
+	}
+
+	private void assertCacheStatistics(long hits, long misses) {
+		Assert.assertEquals("cache hits", hits, playerShopsLimit.getCacheHits());
+		Assert.assertEquals("cache misses", misses, playerShopsLimit.getCacheMisses());
+	}
+
+	@Test
+	public void testCachedLimit() {
+		TestPlayer testPlayer = new TestPlayer(1);
+		testPlayer.permissions.add("shopkeeper.maxshops.10");
+
+		Assert.assertEquals(10, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		int permissionChecks = testPlayer.permissionChecks;
+		Assert.assertTrue(permissionChecks > 0);
+		this.assertCacheStatistics(0, 1);
+
+		// The cached limit is used, even if the permissions have changed in the meantime:
+		testPlayer.permissions.add("shopkeeper.maxshops.20");
+		Assert.assertEquals(10, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		Assert.assertEquals(permissionChecks, testPlayer.permissionChecks);
+		this.assertCacheStatistics(1, 1);
+		Assert.assertEquals(1, playerShopsLimit.getCacheSize());
+
+		// Other players are cached separately:
+		TestPlayer otherPlayer = new TestPlayer(2);
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(otherPlayer.player));
+		this.assertCacheStatistics(1, 2);
+		Assert.assertEquals(2, playerShopsLimit.getCacheSize());
+	}
+
+	@Test
+	public void testCacheExpiration() {
+		TestPlayer testPlayer = new TestPlayer(1);
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+
+		testPlayer.permissions.add("shopkeeper.maxshops.20");
+		nanoTime += TimeUnit.SECONDS.toNanos(1);
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		this.assertCacheStatistics(1, 1);
+
+		nanoTime += TimeUnit.MINUTES.toNanos(1);
+		Assert.assertEquals(20, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		this.assertCacheStatistics(1, 2);
+	}
+
+	@Test
+	public void testInvalidation() {
+		TestPlayer testPlayer = new TestPlayer(1);
+		TestPlayer otherPlayer = new TestPlayer(2);
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(otherPlayer.player));
+		testPlayer.permissions.add("shopkeeper.maxshops.10");
+		otherPlayer.permissions.add("shopkeeper.maxshops.10");
+
+		// Only invalidates the cached limit of the specific player:
+		playerShopsLimit.invalidateMaxShopsLimit(testPlayer.player);
+		Assert.assertEquals(10, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(otherPlayer.player));
+
+		playerShopsLimit.invalidateMaxShopsLimits();
+		Assert.assertEquals(0, playerShopsLimit.getCacheSize());
+		Assert.assertEquals(10, playerShopsLimit.getMaxShopsLimit(otherPlayer.player));
+		this.assertCacheStatistics(1, 4);
+	}
+
+	@Test
+	public void testInvalidationDuringLimitResolution() {
+		TestPlayer testPlayer = new TestPlayer(1);
+		TestPlayer otherPlayer = new TestPlayer(2);
+		// E.g. a permission plugin invalidates the limits asynchronously:
+		testPlayer.onPermissionCheck = () -> {
+			playerShopsLimit.invalidateMaxShopsLimit(otherPlayer.player);
+		};
+
+		// The resolved limit might already be outdated and is therefore not cached:
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		Assert.assertEquals(0, playerShopsLimit.getCacheSize());
+
+		testPlayer.onPermissionCheck = null;
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+		Assert.assertEquals(1, playerShopsLimit.getCacheSize());
+		this.assertCacheStatistics(0, 2);
+	}
+
+	@Test
+	public void testInvalidationOnPlayerEvents() {
+		TestPlayer testPlayer = new TestPlayer(1);
+		Player player = testPlayer.player;
+
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(player));
+		testPlayer.permissions.add("shopkeeper.maxshops.10");
+		playerShopsLimit.onPlayerJoin(new PlayerJoinEvent(player, ""));
+		Assert.assertEquals(10, playerShopsLimit.getMaxShopsLimit(player));
+
+		testPlayer.permissions.add("shopkeeper.maxshops.20");
+		playerShopsLimit.onPlayerChangedWorld(new PlayerChangedWorldEvent(
+				player,
+				Unsafe.uncheckedNull()
+		));
+		Assert.assertEquals(20, playerShopsLimit.getMaxShopsLimit(player));
+
+		playerShopsLimit.onPlayerQuit(new PlayerQuitEvent(player, ""));
+		Assert.assertEquals(0, playerShopsLimit.getCacheSize());
+		this.assertCacheStatistics(0, 3);
+	}
+
+	@Test
+	public void testInvalidationOnSettingsUpdate() {
+		TestPlayer testPlayer = new TestPlayer(1);
+		testPlayer.permissions.add("shopkeeper.maxshops.30");
+		Assert.assertEquals(5, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+
+		// Config reload:
+		this.setMaxShopsSettings(5, "10,20,30");
+		Assert.assertEquals(30, playerShopsLimit.getMaxShopsLimit(testPlayer.player));
+
+		this.setMaxShopsSettings(-1, "10,20,30");
+		int maxShopsLimit = playerShopsLimit.getMaxShopsLimit(testPlayer.player);
+		Assert.assertEquals(Integer.MAX_VALUE, maxShopsLimit);
+		this.assertCacheStatistics(0, 3);
+	}
+}
@@ -0,0 +1,242 @@
+package com.nisovin.shopkeepers.playershops;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.user.User;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
+
+public class ShopOwnerNameUpdatesTests extends AbstractBukkitTest {
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(Plugin.class.getMethod("isEnabled"), (proxy, args) -> true);
+		}
+	}.newProxy();
+
+	private static final int TASK_PERIOD_TICKS = ShopOwnerNameUpdates.UPDATE_TASK_PERIOD_TICKS;
+	private static final int UPDATES_PER_EXECUTION = ShopOwnerNameUpdates.UPDATES_PER_EXECUTION;
+
+	// A player shop that only stores its owner name.
+	private static class TestShop {
+
+		private String ownerName;
+		private final PlayerShopkeeper shopkeeper;
+
+		TestShop(UUID ownerId, String ownerName) {
+			this.ownerName = ownerName;
+			this.shopkeeper = new ProxyHandler<PlayerShopkeeper>(PlayerShopkeeper.class) {
+				@Override
+				protected void setupMethodHandlers() throws Exception {
+					this.addHandler(
+							PlayerShopkeeper.class.getMethod("getOwnerName"),
+							(proxy, args) -> TestShop.this.ownerName
+					);
+					this.addHandler(
+							PlayerShopkeeper.class.getMethod("setOwner", UUID.class, String.class),
+							(proxy, args) -> {
+								assert args != null;
+								Assert.assertEquals(ownerId, args[0]);
+								TestShop.this.ownerName = String.valueOf(args[1]);
+								return null;
+							}
+					);
+				}
+			}.newProxy();
+		}
+	}
+
+	private static User createUser(UUID uniqueId, String lastKnownName) {
+		return new ProxyHandler<User>(User.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(User.class.getMethod("getUniqueId"), (proxy, args) -> uniqueId);
+				this.addHandler(
+						User.class.getMethod("getLastKnownName"),
+						(proxy, args) -> lastKnownName
+				);
+			}
+		}.newProxy();
+	}
+
+	private static Player createPlayer(UUID uniqueId, String name) {
+		return new ProxyHandler<Player>(Player.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(Player.class.getMethod("getUniqueId"), (proxy, args) -> uniqueId);
+				this.addHandler(Player.class.getMethod("getName"), (proxy, args) -> name);
+				this.addHandler(Player.class.getMethod("isOnline"), (proxy, args) -> true);
+			}
+		}.newProxy();
+	}
+
+	private static UUID getPlayerId(int index) {
+		return new UUID(0L, index);
+	}
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+	private final Map<UUID, List<TestShop>> shopsByOwner = new HashMap<>();
+	private int delayedSaves = 0;
+	private final ShopOwnerNameUpdates updates = new ShopOwnerNameUpdates(
+			PLUGIN,
+			playerId -> {
+				List<TestShop> shops = shopsByOwner.getOrDefault(playerId, Collections.emptyList());
+				List<PlayerShopkeeper> shopkeepers = new ArrayList<>();
+				shops.forEach(shop -> shopkeepers.add(shop.shopkeeper));
+				return shopkeepers;
+			},
+			() -> delayedSaves++
+	);
+	private final TaskQueueStatistics statistics = updates.getUpdateQueueStatistics();
+
+	@Before
+	public void setup() {
+		updates.startUpdateQueue();
+	}
+
+	@After
+	public void cleanup() {
+		updates.onDisable();
+		scheduler.cancelAllTasks();
+	}
+
+	private TestShop addShop(UUID ownerId, String ownerName) {
+		TestShop shop = new TestShop(ownerId, ownerName);
+		shopsByOwner.computeIfAbsent(ownerId, key -> new ArrayList<>()).add(shop);
+		updates.onShopOwnerAdded(createUser(ownerId, ownerName));
+		return shop;
+	}
+
+	private void join(UUID playerId, String playerName) {
+		updates.onPlayerJoin(new PlayerJoinEvent(createPlayer(playerId, playerName), ""));
+	}
+
+	@Test
+	public void testUnchangedNamesAreNotQueued() {
+		UUID ownerId = getPlayerId(1);
+		this.addShop(ownerId, "Owner");
+		this.join(ownerId, "Owner");
+		// Players without shops:
+		this.join(getPlayerId(2), "Other");
+		Assert.assertEquals(0, statistics.getPendingCount());
+
+		scheduler.tick();
+		Assert.assertEquals(0, delayedSaves);
+	}
+
+	@Test
+	public void testUpdatesAreDeduplicated() {
+		UUID ownerId = getPlayerId(1);
+		TestShop shop1 = this.addShop(ownerId, "OldName");
+		TestShop shop2 = this.addShop(ownerId, "OldName");
+
+		this.join(ownerId, "NewName1");
+		this.join(ownerId, "NewName2");
+		Assert.assertEquals(1, statistics.getPendingCount());
+		Assert.assertEquals(1, statistics.getMaxPendingCount());
+
+		// The most recent name is applied:
+		scheduler.tick();
+		Assert.assertEquals(0, statistics.getPendingCount());
+		Assert.assertEquals("NewName2", shop1.ownerName);
+		Assert.assertEquals("NewName2", shop2.ownerName);
+		Assert.assertEquals(1, delayedSaves);
+
+		// The shops store the player's current name now:
+		this.join(ownerId, "NewName2");
+		Assert.assertEquals(0, statistics.getPendingCount());
+	}
+
+	@Test
+	public void testUpdatesPerExecution() {
+		int owners = UPDATES_PER_EXECUTION + 2;
+		List<TestShop> shops = new ArrayList<>();
+		for (int i = 0; i < owners; i++) {
+			shops.add(this.addShop(getPlayerId(i), "OldName" + i));
+		}
+		for (int i = 0; i < owners; i++) {
+			this.join(getPlayerId(i), "NewName" + i);
+		}
+		Assert.assertEquals(owners, statistics.getPendingCount());
+		Assert.assertEquals(owners, statistics.getMaxPendingCount());
+
+		scheduler.tick();
+		Assert.assertEquals(owners - UPDATES_PER_EXECUTION, statistics.getPendingCount());
+		for (int i = 0; i < owners; i++) {
+			String expectedName = (i < UPDATES_PER_EXECUTION ? "NewName" : "OldName") + i;
+			Assert.assertEquals(expectedName, shops.get(i).ownerName);
+		}
+
+		// The remaining updates are processed during the next execution:
+		scheduler.tick(TASK_PERIOD_TICKS - 1);
+		Assert.assertEquals(owners - UPDATES_PER_EXECUTION, statistics.getPendingCount());
+		scheduler.tick();
+		Assert.assertEquals(0, statistics.getPendingCount());
+		for (int i = 0; i < owners; i++) {
+			Assert.assertEquals("NewName" + i, shops.get(i).ownerName);
+		}
+		// The max pending count is retained:
+		Assert.assertEquals(owners, statistics.getMaxPendingCount());
+		Assert.assertEquals(owners, delayedSaves);
+	}
+
+	@Test
+	public void testInconsistentOwnerNamesAreUpdated() {
+		UUID ownerId = getPlayerId(1);
+		TestShop shop1 = this.addShop(ownerId, "Name");
+		TestShop shop2 = this.addShop(ownerId, "OtherName");
+
+		this.join(ownerId, "Name");
+		Assert.assertEquals(1, statistics.getPendingCount());
+		scheduler.tick();
+		Assert.assertEquals("Name", shop1.ownerName);
+		Assert.assertEquals("Name", shop2.ownerName);
+	}
+
+	@Test
+	public void testOwnersWithoutShopsAreForgotten() {
+		UUID ownerId = getPlayerId(1);
+		User owner = createUser(ownerId, "Owner");
+		updates.onShopOwnerAdded(owner);
+		updates.onShopOwnerAdded(owner);
+		Assert.assertEquals(1, updates.getKnownShopOwnerCount());
+
+		updates.onShopOwnerRemoved(owner);
+		Assert.assertEquals(1, updates.getKnownShopOwnerCount());
+		updates.onShopOwnerRemoved(owner);
+		Assert.assertEquals(0, updates.getKnownShopOwnerCount());
+
+		this.join(ownerId, "NewName");
+		Assert.assertEquals(0, statistics.getPendingCount());
+	}
+
+	@Test
+	public void testShutdownResetsStatistics() {
+		UUID ownerId = getPlayerId(1);
+		this.addShop(ownerId, "OldName");
+		this.join(ownerId, "NewName");
+		Assert.assertEquals(1, statistics.getPendingCount());
+
+		updates.onDisable();
+		Assert.assertEquals(0, statistics.getPendingCount());
+		Assert.assertEquals(0, statistics.getMaxPendingCount());
+		Assert.assertEquals(0, updates.getKnownShopOwnerCount());
+	}
+}
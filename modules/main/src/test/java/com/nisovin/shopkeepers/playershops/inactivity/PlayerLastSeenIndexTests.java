@@ -0,0 +1,201 @@
+package com.nisovin.shopkeepers.playershops.inactivity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+
+public class PlayerLastSeenIndexTests extends AbstractBukkitTest {
+
+	private static final UUID PLAYER_1 = new UUID(0L, 1L);
+	private static final UUID PLAYER_2 = new UUID(0L, 2L);
+
+	private static Plugin createPlugin(Path dataFolder) {
+		return new ProxyHandler<Plugin>(Plugin.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(Plugin.class.getMethod("isEnabled"), (proxy, args) -> true);
+				this.addHandler(Plugin.class.getMethod("getDataFolder"), (proxy, args) -> {
+					return dataFolder.toFile();
+				});
+			}
+		}.newProxy();
+	}
+
+	private static Player createPlayer(UUID uniqueId) {
+		return new ProxyHandler<Player>(Player.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(Player.class.getMethod("getUniqueId"), (proxy, args) -> {
+					return uniqueId;
+				});
+				this.addHandler(
+						Player.class.getMethod("hasMetadata", String.class),
+						(proxy, args) -> false
+				);
+			}
+		}.newProxy();
+	}
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+	private Path dataFolder = Unsafe.uncheckedNull();
+	private Plugin plugin = Unsafe.uncheckedNull();
+	private PlayerLastSeenIndex index = Unsafe.uncheckedNull();
+
+	@Before
+	public void setup() throws IOException {
+		dataFolder = Files.createTempDirectory("shopkeepers-data");
+		plugin = createPlugin(dataFolder);
+		index = new PlayerLastSeenIndex(plugin);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		scheduler.cancelAllTasks();
+		try (Stream<Path> files = Files.walk(dataFolder)) {
+			List<Path> sortedFiles = files.sorted(Comparator.reverseOrder()).toList();
+			for (Path file : sortedFiles) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private Path getIndexFile() {
+		return dataFolder.resolve("data").resolve("last-seen.txt");
+	}
+
+	// Loads the saved index into a new index instance.
+	private PlayerLastSeenIndex loadSavedIndex() {
+		PlayerLastSeenIndex loadedIndex = new PlayerLastSeenIndex(plugin);
+		loadedIndex.load();
+		return loadedIndex;
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		index.update(PLAYER_1, 1000L);
+		index.update(PLAYER_2, 2000L);
+		index.saveIfDirty(false);
+		Assert.assertTrue(Files.exists(this.getIndexFile()));
+
+		PlayerLastSeenIndex loadedIndex = this.loadSavedIndex();
+		Assert.assertEquals(2, loadedIndex.getSize());
+		Assert.assertEquals(1000L, loadedIndex.getLastSeen(PLAYER_1));
+		Assert.assertEquals(2000L, loadedIndex.getLastSeen(PLAYER_2));
+	}
+
+	@Test
+	public void testAsyncSave() {
+		index.update(PLAYER_1, 1000L);
+		index.saveIfDirty(true);
+		Assert.assertFalse(Files.exists(this.getIndexFile()));
+
+		scheduler.tick();
+		Assert.assertEquals(1000L, this.loadSavedIndex().getLastSeen(PLAYER_1));
+	}
+
+	@Test
+	public void testLoadIgnoresInvalidEntries() throws IOException {
+		Path indexFile = this.getIndexFile();
+		Files.createDirectories(indexFile.getParent());
+		Files.write(indexFile, List.of(
+				"invalid",
+				"not-a-uuid 1000",
+				PLAYER_1 + " not-a-number",
+				"",
+				PLAYER_2 + " 2000"
+		), StandardCharsets.UTF_8);
+
+		index.load();
+		Assert.assertEquals(1, index.getSize());
+		Assert.assertEquals(0L, index.getLastSeen(PLAYER_1));
+		Assert.assertEquals(2000L, index.getLastSeen(PLAYER_2));
+	}
+
+	@Test
+	public void testJoinAndQuitUpdateLastSeen() {
+		Player player = createPlayer(PLAYER_1);
+
+		long beforeJoin = System.currentTimeMillis();
+		index.onPlayerJoin(new PlayerJoinEvent(player, ""));
+		long joined = index.getLastSeen(PLAYER_1);
+		Assert.assertTrue(joined >= beforeJoin && joined <= System.currentTimeMillis());
+
+		index.onPlayerQuit(new PlayerQuitEvent(player, ""));
+		long quit = index.getLastSeen(PLAYER_1);
+		Assert.assertTrue(quit >= joined && quit <= System.currentTimeMillis());
+
+		// Other players are not affected:
+		Assert.assertEquals(0L, index.getLastSeen(PLAYER_2));
+	}
+
+	@Test
+	public void testOlderTimestampsAreIgnored() {
+		index.update(PLAYER_1, 2000L);
+		index.update(PLAYER_1, 1000L);
+		Assert.assertEquals(2000L, index.getLastSeen(PLAYER_1));
+
+		// Unknown timestamps are ignored:
+		index.update(PLAYER_2, 0L);
+		Assert.assertEquals(1, index.getSize());
+	}
+
+	@Test
+	public void testIsSeenAfter() {
+		index.update(PLAYER_1, 1000L);
+		Assert.assertTrue(index.isSeenAfter(PLAYER_1, 999L));
+		Assert.assertFalse(index.isSeenAfter(PLAYER_1, 1000L));
+		Assert.assertFalse(index.isSeenAfter(PLAYER_1, 2000L));
+
+		// Unknown players are not seen after any time:
+		Assert.assertFalse(index.isSeenAfter(PLAYER_2, 0L));
+	}
+
+	@Test
+	public void testFailedSaveIsRetried() throws IOException {
+		// The index file cannot be written while its parent directory is blocked by a file:
+		Path blockingFile = this.getIndexFile().getParent();
+		Files.createFile(blockingFile);
+
+		index.update(PLAYER_1, 1000L);
+		index.saveIfDirty(true);
+		scheduler.tick();
+
+		Files.delete(blockingFile);
+		// The index is still dirty:
+		index.saveIfDirty(true);
+		scheduler.tick();
+		Assert.assertEquals(1000L, this.loadSavedIndex().getLastSeen(PLAYER_1));
+	}
+
+	@Test
+	public void testOutdatedSnapshotIsNotWritten() {
+		index.update(PLAYER_1, 1000L);
+		index.saveIfDirty(true);
+
+		// A more recent snapshot is written before the pending async save, e.g. during disable:
+		index.update(PLAYER_1, 2000L);
+		index.saveIfDirty(false);
+
+		scheduler.tick();
+		Assert.assertEquals(2000L, this.loadSavedIndex().getLastSeen(PLAYER_1));
+	}
+}
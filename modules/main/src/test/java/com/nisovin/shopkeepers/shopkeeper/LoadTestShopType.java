@@ -0,0 +1,47 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shop types of the {@link LoadTestShopkeeper}s.
+ * <p>
+ * These shop types only provide the identifiers of the shopkeepers. They are not registered, and
+ * cannot create or load shopkeepers.
+ */
+public final class LoadTestShopType extends AbstractShopType<LoadTestShopkeeper> {
+
+	public static final LoadTestShopType ADMIN = new LoadTestShopType("admin");
+	public static final LoadTestShopType SELLING = new LoadTestShopType("sell");
+
+	private LoadTestShopType(String identifier) {
+		super(identifier, Collections.emptyList(), null, LoadTestShopkeeper.class);
+	}
+
+	@Override
+	public String getDisplayName() {
+		return identifier;
+	}
+
+	@Override
+	public String getDescription() {
+		return "";
+	}
+
+	@Override
+	public String getSetupDescription() {
+		return "";
+	}
+
+	@Override
+	public List<? extends String> getTradeSetupDescription() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	protected LoadTestShopkeeper createNewShopkeeper() {
+		// Load test shopkeepers are initialized with the data that the load test has loaded:
+		throw new UnsupportedOperationException("Load test shopkeepers are not created via their"
+				+ " shop type!");
+	}
+}
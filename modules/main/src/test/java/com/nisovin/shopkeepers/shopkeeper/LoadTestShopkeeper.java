@@ -0,0 +1,111 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+
+/**
+ * A shopkeeper for load tests that only holds the state that is loaded from the synthetic save
+ * data.
+ * <p>
+ * Shopkeepers are usually initialized via their shop type, which requires a running plugin. This
+ * shopkeeper is instead initialized via {@link AbstractShopkeeper#initForTesting}, and does not
+ * have a shop object. Its {@link LoadTestShopType} only provides the shop type identifier.
+ */
+public final class LoadTestShopkeeper extends AbstractShopkeeper {
+
+	// Null for admin shops:
+	private final @Nullable BlockLocation container;
+	private final int offerCount;
+	private @Nullable Runnable tickAction = null;
+	private int ticks = 0;
+
+	public LoadTestShopkeeper(
+			int id,
+			UUID uniqueId,
+			BlockLocation location,
+			String name,
+			@Nullable BlockLocation container,
+			int offerCount
+	) {
+		this.container = container;
+		this.offerCount = offerCount;
+		this.initForTesting(id, uniqueId, location, name);
+	}
+
+	@Override
+	public LoadTestShopType getType() {
+		return this.isPlayerShop() ? LoadTestShopType.SELLING : LoadTestShopType.ADMIN;
+	}
+
+	@Override
+	public boolean hasTradingRecipes(@Nullable Player player) {
+		return offerCount > 0;
+	}
+
+	@Override
+	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+		return Collections.emptyList();
+	}
+
+	public boolean isPlayerShop() {
+		return container != null;
+	}
+
+	public @Nullable BlockLocation getContainer() {
+		return container;
+	}
+
+	public int getOfferCount() {
+		return offerCount;
+	}
+
+	// TICKING
+
+	/**
+	 * Sets the action that is run each time this shopkeeper is ticked.
+	 *
+	 * @param tickAction
+	 *            the tick action, or <code>null</code>
+	 */
+	public void setTickAction(@Nullable Runnable tickAction) {
+		this.tickAction = tickAction;
+	}
+
+	public int getTicks() {
+		return ticks;
+	}
+
+	// There is no shop object to inform:
+
+	@Override
+	protected void onStartTicking() {
+	}
+
+	@Override
+	protected void onStopTicking() {
+	}
+
+	@Override
+	protected void onTickStart() {
+	}
+
+	@Override
+	protected void onTick() {
+		ticks++;
+		Runnable tickAction = this.tickAction;
+		if (tickAction != null) {
+			tickAction.run();
+		}
+	}
+
+	@Override
+	protected void onTickEnd() {
+	}
+}
@@ -0,0 +1,133 @@
+package com.nisovin.shopkeepers.shopkeeper.player.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
+import org.bukkit.inventory.meta.BookMeta.Generation;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.container.ContainerStockSummary;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class ContainerBookIndexTests extends AbstractBukkitTest {
+
+	private static ItemStack createBook(@Nullable String title, Generation generation) {
+		ItemStack itemStack = new ItemStack(Material.WRITTEN_BOOK);
+		BookMeta bookMeta = Unsafe.castNonNull(itemStack.getItemMeta());
+		bookMeta.setTitle(title);
+		bookMeta.setAuthor("Author");
+		bookMeta.setGeneration(generation);
+		bookMeta.setPages("Page 1", "Page 2");
+		itemStack.setItemMeta(bookMeta);
+		return itemStack;
+	}
+
+	private static ItemStack createBook(String title) {
+		return createBook(title, Generation.ORIGINAL);
+	}
+
+	// Each call creates a new summary, as if the container contents might have changed:
+	private static ContainerStockSummary createContainer(@Nullable ItemStack... contents) {
+		// Copied, so that the summary does not depend on the given items:
+		@Nullable ItemStack[] contentsCopy = Arrays.stream(contents)
+				.map(itemStack -> itemStack != null ? itemStack.clone() : null)
+				.toArray(ItemStack[]::new);
+		return ContainerStockSummary.of(contentsCopy);
+	}
+
+	@Test
+	public void testBooksByTitle() {
+		ContainerBookIndex index = new ContainerBookIndex();
+		ItemStack bookA = createBook("A");
+		ItemStack otherBookA = createBook("A", Generation.COPY_OF_ORIGINAL);
+		ItemStack bookB = createBook("B");
+		ContainerStockSummary container = createContainer(
+				new ItemStack(Material.WRITABLE_BOOK),
+				bookB,
+				null,
+				createBook(null),
+				createBook("Tattered", Generation.TATTERED),
+				bookA,
+				otherBookA,
+				new ItemStack(Material.DIRT)
+		);
+
+		Map<? extends String, ? extends ItemStack> booksByTitle = index.getBooksByTitle(container);
+		// Preserves the order of the books, omits books without title and books that cannot be
+		// copied, and only contains the first book with a specific title:
+		Assert.assertEquals(Arrays.asList("B", "A"), new ArrayList<>(booksByTitle.keySet()));
+		Assert.assertTrue(bookA.isSimilar(booksByTitle.get("A")));
+		Assert.assertTrue(bookB.isSimilar(booksByTitle.get("B")));
+		Assert.assertEquals(1, index.getRebuilds());
+
+		// Same summary:
+		Assert.assertSame(booksByTitle, index.getBooksByTitle(container));
+		Assert.assertEquals(1, index.getRebuilds());
+	}
+
+	@Test
+	public void testNewSummary() {
+		ContainerBookIndex index = new ContainerBookIndex();
+		ItemStack bookA = createBook("A");
+		ItemStack bookB = createBook("B");
+		ContainerStockSummary container = createContainer(bookA, bookB);
+		Map<? extends String, ? extends ItemStack> booksByTitle = index.getBooksByTitle(container);
+		Assert.assertEquals(1, index.getRebuilds());
+
+		// The books are looked up again for every new summary, even if the books are the same:
+		ContainerStockSummary newContainer = createContainer(bookA, bookB);
+		Map<? extends String, ? extends ItemStack> newBooksByTitle = index.getBooksByTitle(
+				newContainer
+		);
+		Assert.assertEquals(booksByTitle.keySet(), newBooksByTitle.keySet());
+		Assert.assertEquals(2, index.getRebuilds());
+
+		// Empty containers do not replace the cached books:
+		Assert.assertTrue(index.getBooksByTitle(ContainerStockSummary.EMPTY).isEmpty());
+		Assert.assertSame(newBooksByTitle, index.getBooksByTitle(newContainer));
+		Assert.assertEquals(2, index.getRebuilds());
+
+		// Containers without written books:
+		Assert.assertTrue(index.getBooksByTitle(
+				createContainer(new ItemStack(Material.DIRT))
+		).isEmpty());
+		Assert.assertEquals(3, index.getRebuilds());
+	}
+
+	@Test
+	public void testChangedBooks() {
+		ContainerBookIndex index = new ContainerBookIndex();
+		ItemStack bookA = createBook("A");
+		ItemStack bookB = createBook("B");
+		index.getBooksByTitle(createContainer(bookA, bookB));
+		Assert.assertEquals(1, index.getRebuilds());
+
+		// Removed book:
+		Map<? extends String, ? extends ItemStack> booksByTitle = index.getBooksByTitle(
+				createContainer(bookA)
+		);
+		Assert.assertEquals(1, booksByTitle.size());
+		Assert.assertEquals(2, index.getRebuilds());
+
+		// Changed book contents with the same title:
+		ItemStack changedBookA = bookA.clone();
+		BookMeta bookMeta = Unsafe.castNonNull(changedBookA.getItemMeta());
+		bookMeta.addPage("Page 3");
+		changedBookA.setItemMeta(bookMeta);
+		booksByTitle = index.getBooksByTitle(createContainer(changedBookA));
+		Assert.assertTrue(changedBookA.isSimilar(booksByTitle.get("A")));
+		Assert.assertEquals(3, index.getRebuilds());
+
+		// Changed order:
+		booksByTitle = index.getBooksByTitle(createContainer(bookB, changedBookA));
+		Assert.assertEquals(Arrays.asList("B", "A"), new ArrayList<>(booksByTitle.keySet()));
+		Assert.assertEquals(4, index.getRebuilds());
+	}
+}
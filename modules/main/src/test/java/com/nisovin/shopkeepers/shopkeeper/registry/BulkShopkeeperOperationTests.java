@@ -0,0 +1,173 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+
+public class BulkShopkeeperOperationTests extends AbstractBukkitTest {
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+	}.newProxy();
+
+	// The inputs are the chunk x coordinates.
+	private static class TestOperation extends BulkShopkeeperOperation<Integer, Integer> {
+
+		private final List<List<Integer>> processedBatches = new ArrayList<>();
+		private final List<Boolean> ends = new ArrayList<>();
+		private int cancelAfterBatches = -1;
+
+		TestOperation(List<Integer> inputs, long tickBudgetNanos) {
+			super(PLUGIN, inputs, tickBudgetNanos);
+		}
+
+		@Override
+		protected @Nullable ChunkCoords getChunkCoords(Integer input) {
+			if (input < 0) return null;
+			return new ChunkCoords("world", input, 0);
+		}
+
+		@Override
+		protected void processBatch(List<? extends Integer> batch) {
+			processedBatches.add(new ArrayList<>(batch));
+			if (processedBatches.size() == cancelAfterBatches) {
+				this.cancel();
+			}
+		}
+
+		@Override
+		protected Integer getResult() {
+			return processedBatches.stream().mapToInt(List::size).sum();
+		}
+
+		@Override
+		protected void onEnd(boolean cancelled) {
+			ends.add(cancelled);
+		}
+	}
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+
+	@After
+	public void tearDown() {
+		scheduler.cancelAllTasks();
+	}
+
+	@Test
+	public void testGroupsInputsByChunk() {
+		// Without tick budget: One batch per tick.
+		TestOperation operation = new TestOperation(List.of(1, 2, 1, -1, 2, 3, -1), 0L);
+		CompletableFuture<Integer> future = operation.getFuture();
+		operation.start();
+
+		// The first batch is processed immediately:
+		Assert.assertEquals(List.of(List.of(1, 1)), operation.processedBatches);
+		Assert.assertFalse(future.isDone());
+		Assert.assertEquals(1, scheduler.getPendingTaskCount());
+
+		scheduler.tick();
+		Assert.assertEquals(List.of(2, 2), operation.processedBatches.get(1));
+		scheduler.tick();
+		Assert.assertEquals(List.of(-1, -1), operation.processedBatches.get(2));
+		Assert.assertFalse(future.isDone());
+
+		scheduler.tick();
+		Assert.assertEquals(List.of(3), operation.processedBatches.get(3));
+		Assert.assertTrue(future.isDone());
+		Assert.assertEquals(Integer.valueOf(7), future.join());
+		Assert.assertEquals(List.of(false), operation.ends);
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testSplitsLargeChunks() {
+		int inputCount = 2 * BulkShopkeeperOperation.MAX_BATCH_SIZE + 1;
+		TestOperation operation = new TestOperation(Collections.nCopies(inputCount, 0), 0L);
+		operation.start();
+		scheduler.tick(5);
+
+		Assert.assertEquals(3, operation.processedBatches.size());
+		Assert.assertEquals(
+				BulkShopkeeperOperation.MAX_BATCH_SIZE,
+				operation.processedBatches.get(0).size()
+		);
+		Assert.assertEquals(1, operation.processedBatches.get(2).size());
+		Assert.assertEquals(Integer.valueOf(inputCount), operation.getFuture().join());
+	}
+
+	@Test
+	public void testProcessesBatchesWithinTickBudget() {
+		// The tick budget is not used up by these few inputs:
+		TestOperation operation = new TestOperation(List.of(1, 2, 3), Long.MAX_VALUE);
+		operation.start();
+
+		Assert.assertEquals(3, operation.processedBatches.size());
+		Assert.assertTrue(operation.getFuture().isDone());
+		Assert.assertEquals(List.of(false), operation.ends);
+		// No task is scheduled:
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testEmptyInputs() {
+		TestOperation operation = new TestOperation(List.of(), 0L);
+		operation.start();
+
+		Assert.assertTrue(operation.processedBatches.isEmpty());
+		Assert.assertEquals(Integer.valueOf(0), operation.getFuture().join());
+		Assert.assertEquals(List.of(false), operation.ends);
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testCancel() {
+		TestOperation operation = new TestOperation(List.of(1, 2, 3), 0L);
+		CompletableFuture<Integer> future = operation.getFuture();
+		operation.start();
+		scheduler.tick();
+		Assert.assertEquals(2, operation.processedBatches.size());
+
+		operation.cancel();
+		Assert.assertTrue(future.isCancelled());
+		Assert.assertEquals(List.of(true), operation.ends);
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+
+		// The remaining inputs are not processed:
+		scheduler.tick(3);
+		Assert.assertEquals(2, operation.processedBatches.size());
+
+		// Cancelling again has no effect:
+		operation.cancel();
+		Assert.assertEquals(List.of(true), operation.ends);
+	}
+
+	@Test
+	public void testCancelDuringBatch() {
+		TestOperation operation = new TestOperation(List.of(1, 2, 3), Long.MAX_VALUE);
+		operation.cancelAfterBatches = 2;
+		operation.start();
+
+		Assert.assertEquals(2, operation.processedBatches.size());
+		Assert.assertTrue(operation.getFuture().isCancelled());
+		Assert.assertEquals(List.of(true), operation.ends);
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStartTwice() {
+		TestOperation operation = new TestOperation(List.of(1), 0L);
+		operation.start();
+		operation.start();
+	}
+}
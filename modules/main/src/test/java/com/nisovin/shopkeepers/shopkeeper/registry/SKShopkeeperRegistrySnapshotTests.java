@@ -0,0 +1,295 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistrySnapshot.SKEntry;
+
+public class SKShopkeeperRegistrySnapshotTests {
+
+	private static final @Nullable String[] WORLDS = {
+			"world", "world_nether", "world_the_end", null
+	};
+	private static final @Nullable UUID[] OWNERS = {
+			new UUID(0L, 1L), new UUID(0L, 2L), new UUID(0L, 3L), null
+	};
+	private static final String[] NAMES = {
+			"", "Shop", "shop", "§aShop", "Bob's shop", "  bob's  shop ", "Alice"
+	};
+	// Small coordinate ranges, so that shopkeepers share chunks and locations:
+	private static final int MAX_XZ = 40;
+	private static final int MIN_Y = 60;
+	private static final int MAX_Y = 62;
+
+	private static final int STEPS = 200;
+	private static final int MAX_CHANGES_PER_STEP = 10;
+
+	private static SKEntry createEntry(
+			int id,
+			@Nullable UUID ownerUUID,
+			String name,
+			@Nullable String worldName,
+			int x,
+			int y,
+			int z
+	) {
+		return new SKEntry(
+				id,
+				new UUID(1L, id),
+				(ownerUUID != null) ? "selling" : "admin",
+				"villager",
+				name,
+				ownerUUID,
+				(ownerUUID != null) ? "Owner" + ownerUUID.getLeastSignificantBits() : null,
+				worldName,
+				x,
+				y,
+				z
+		);
+	}
+
+	private static <T> T randomElement(Random random, T[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static int randomCoordinate(Random random) {
+		return random.nextInt(2 * MAX_XZ + 1) - MAX_XZ;
+	}
+
+	private static SKEntry createRandomEntry(Random random, int id) {
+		return createEntry(
+				id,
+				randomElement(random, OWNERS),
+				randomElement(random, NAMES),
+				randomElement(random, WORLDS),
+				randomCoordinate(random),
+				MIN_Y + random.nextInt(MAX_Y - MIN_Y + 1),
+				randomCoordinate(random)
+		);
+	}
+
+	// Moves the shopkeeper to a random location, possibly in another world, and possibly changes
+	// its name.
+	private static SKEntry moveRandomly(Random random, SKEntry entry) {
+		return createEntry(
+				entry.getId(),
+				entry.getOwnerUUID(),
+				random.nextBoolean() ? entry.getName() : randomElement(random, NAMES),
+				randomElement(random, WORLDS),
+				randomCoordinate(random),
+				MIN_Y + random.nextInt(MAX_Y - MIN_Y + 1),
+				randomCoordinate(random)
+		);
+	}
+
+	private static Set<SKEntry> toSet(Collection<? extends SKEntry> entries) {
+		Set<SKEntry> set = new HashSet<>(entries);
+		// No duplicates:
+		Assert.assertEquals(entries.size(), set.size());
+		return set;
+	}
+
+	private static void assertSameLookups(
+			SKShopkeeperRegistrySnapshot expected,
+			SKShopkeeperRegistrySnapshot actual,
+			int maxId
+	) {
+		Assert.assertEquals(expected.getVersion(), actual.getVersion());
+		Assert.assertEquals(
+				toSet(expected.getAllShopkeepers()),
+				toSet(actual.getAllShopkeepers())
+		);
+
+		// Includes the ids of removed shopkeepers:
+		for (int id = 1; id <= maxId; id++) {
+			Assert.assertSame(expected.getShopkeeperById(id), actual.getShopkeeperById(id));
+			UUID uniqueId = new UUID(1L, id);
+			Assert.assertSame(
+					expected.getShopkeeperByUniqueId(uniqueId),
+					actual.getShopkeeperByUniqueId(uniqueId)
+			);
+		}
+
+		for (@Nullable UUID ownerUUID : OWNERS) {
+			if (ownerUUID == null) continue;
+			Assert.assertEquals(
+					toSet(expected.getPlayerShopkeepersByOwner(ownerUUID)),
+					toSet(actual.getPlayerShopkeepersByOwner(ownerUUID))
+			);
+		}
+
+		for (String name : NAMES) {
+			Assert.assertEquals(
+					toSet(expected.getShopkeepersByName(name)),
+					toSet(actual.getShopkeepersByName(name))
+			);
+		}
+
+		Assert.assertEquals(
+				new HashSet<>(expected.getWorldsWithShopkeepers()),
+				new HashSet<>(actual.getWorldsWithShopkeepers())
+		);
+		for (@Nullable String worldName : WORLDS) {
+			if (worldName == null) continue;
+			Assert.assertEquals(
+					toSet(expected.getShopkeepersInWorld(worldName)),
+					toSet(actual.getShopkeepersInWorld(worldName))
+			);
+
+			int minChunk = ChunkCoords.fromBlock(-MAX_XZ);
+			int maxChunk = ChunkCoords.fromBlock(MAX_XZ);
+			for (int chunkX = minChunk; chunkX <= maxChunk; chunkX++) {
+				for (int chunkZ = minChunk; chunkZ <= maxChunk; chunkZ++) {
+					ChunkCoords chunkCoords = new ChunkCoords(worldName, chunkX, chunkZ);
+					Assert.assertEquals(
+							toSet(expected.getShopkeepersInChunk(chunkCoords)),
+							toSet(actual.getShopkeepersInChunk(chunkCoords))
+					);
+				}
+			}
+		}
+
+		// The locations of all current shopkeepers:
+		for (SKEntry entry : expected.getAllShopkeepers()) {
+			@Nullable String worldName = entry.getWorldName();
+			if (worldName == null) continue;
+			int x = entry.getX();
+			int y = entry.getY();
+			int z = entry.getZ();
+			Set<SKEntry> atLocation = toSet(actual.getShopkeepersAtLocation(worldName, x, y, z));
+			Assert.assertTrue(atLocation.contains(entry));
+			Assert.assertEquals(
+					toSet(expected.getShopkeepersAtLocation(worldName, x, y, z)),
+					atLocation
+			);
+		}
+	}
+
+	private static void testRandomChanges(long seed) {
+		Random random = new Random(seed);
+		// Linked Map: Preserves the order in which the shopkeepers were added.
+		Map<Integer, SKEntry> current = new LinkedHashMap<>();
+		SKShopkeeperRegistrySnapshot snapshot = SKShopkeeperRegistrySnapshot.EMPTY;
+		int nextId = 1;
+
+		for (int step = 1; step <= STEPS; step++) {
+			List<SKEntry> updatedEntries = new ArrayList<>();
+			List<Integer> removedIds = new ArrayList<>();
+			// Each shopkeeper is changed at most once per step, like in the registry:
+			Set<Integer> changedIds = new HashSet<>();
+			int changes = 1 + random.nextInt(MAX_CHANGES_PER_STEP);
+			for (int i = 0; i < changes; i++) {
+				int operation = random.nextInt(3);
+				if (operation == 0 || current.isEmpty()) {
+					// Add:
+					SKEntry entry = createRandomEntry(random, nextId++);
+					changedIds.add(entry.getId());
+					updatedEntries.add(entry);
+					current.put(entry.getId(), entry);
+					continue;
+				}
+
+				List<Integer> ids = new ArrayList<>(current.keySet());
+				int id = ids.get(random.nextInt(ids.size()));
+				if (!changedIds.add(id)) continue;
+				if (operation == 1) {
+					// Move:
+					SKEntry entry = moveRandomly(random, current.get(id));
+					updatedEntries.add(entry);
+					current.put(id, entry);
+				} else {
+					// Remove:
+					removedIds.add(id);
+					current.remove(id);
+				}
+			}
+			// Removing unknown shopkeepers has no effect:
+			if (random.nextInt(10) == 0) {
+				removedIds.add(nextId + 1000);
+			}
+
+			snapshot = snapshot.withChanges(step, updatedEntries, removedIds);
+			SKShopkeeperRegistrySnapshot rebuilt = new SKShopkeeperRegistrySnapshot(
+					step,
+					current.values()
+			);
+			assertSameLookups(rebuilt, snapshot, nextId - 1);
+		}
+	}
+
+	@Test
+	public void testRandomChanges() {
+		for (long seed = 0; seed < 20; seed++) {
+			testRandomChanges(seed);
+		}
+	}
+
+	@Test
+	public void testMoveToAnotherWorld() {
+		SKEntry entry = createEntry(1, null, "Shop", "world", 0, 64, 0);
+		SKShopkeeperRegistrySnapshot snapshot = SKShopkeeperRegistrySnapshot.EMPTY.withChanges(
+				1L,
+				List.of(entry),
+				List.of()
+		);
+
+		SKEntry movedEntry = createEntry(1, null, "Shop", "world_nether", 0, 64, 0);
+		snapshot = snapshot.withChanges(2L, List.of(movedEntry), List.of());
+		Assert.assertEquals(1, snapshot.getAllShopkeepers().size());
+		Assert.assertSame(movedEntry, snapshot.getShopkeeperById(1));
+		Assert.assertEquals(
+				List.of("world_nether"),
+				List.copyOf(snapshot.getWorldsWithShopkeepers())
+		);
+		Assert.assertTrue(snapshot.getShopkeepersInWorld("world").isEmpty());
+		Assert.assertTrue(snapshot.getShopkeepersAtLocation("world", 0, 64, 0).isEmpty());
+		Assert.assertEquals(
+				List.of(movedEntry),
+				List.copyOf(snapshot.getShopkeepersAtLocation("world_nether", 0, 64, 0))
+		);
+		Assert.assertEquals(
+				List.of(movedEntry),
+				List.copyOf(snapshot.getShopkeepersByName("shop"))
+		);
+
+		// Becomes virtual:
+		SKEntry virtualEntry = createEntry(1, null, "Shop", null, 0, 0, 0);
+		snapshot = snapshot.withChanges(3L, List.of(virtualEntry), List.of());
+		Assert.assertSame(virtualEntry, snapshot.getShopkeeperById(1));
+		Assert.assertTrue(snapshot.getWorldsWithShopkeepers().isEmpty());
+
+		snapshot = snapshot.withChanges(4L, List.of(), List.of(1));
+		Assert.assertTrue(snapshot.getAllShopkeepers().isEmpty());
+		Assert.assertNull(snapshot.getShopkeeperById(1));
+	}
+
+	@Test
+	public void testUnchangedWorldsAreShared() {
+		SKEntry entry1 = createEntry(1, null, "Shop", "world", 0, 64, 0);
+		SKEntry entry2 = createEntry(2, null, "Shop", "world_nether", 0, 64, 0);
+		SKShopkeeperRegistrySnapshot snapshot = new SKShopkeeperRegistrySnapshot(
+				1L,
+				List.of(entry1, entry2)
+		);
+		Collection<? extends SKEntry> netherShopkeepers = snapshot.getShopkeepersInWorld(
+				"world_nether"
+		);
+
+		SKEntry movedEntry1 = createEntry(1, null, "Shop", "world", 100, 64, 100);
+		snapshot = snapshot.withChanges(2L, List.of(movedEntry1), List.of());
+		Assert.assertSame(netherShopkeepers, snapshot.getShopkeepersInWorld("world_nether"));
+		Assert.assertSame(movedEntry1, snapshot.getShopkeeperById(1));
+	}
+}
@@ -0,0 +1,214 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+
+public class ShopkeeperCompletionIndexTests {
+
+	private static final String[] NAMES = {
+			"", "Shop", "shop", "Shopkeeper", "§aShop", "Shop  of Bob", "Bob", "Bobby", "bob's shop",
+			"Alice", "  alice  ", "&cNot a color", "Zed", "§l"
+	};
+
+	private static final class TestShopkeeper {
+
+		private final int id;
+		private final UUID uniqueId;
+		private String name;
+
+		TestShopkeeper(int id, UUID uniqueId, String name) {
+			this.id = id;
+			this.uniqueId = uniqueId;
+			this.name = name;
+		}
+	}
+
+	// Only supports the methods that are used by the completion index.
+	private static Shopkeeper createShopkeeper(TestShopkeeper data) {
+		return new ProxyHandler<Shopkeeper>(Shopkeeper.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(Shopkeeper.class.getMethod("getId"), (proxy, args) -> {
+					return data.id;
+				});
+				this.addHandler(Shopkeeper.class.getMethod("getUniqueId"), (proxy, args) -> {
+					return data.uniqueId;
+				});
+				this.addHandler(Shopkeeper.class.getMethod("getName"), (proxy, args) -> {
+					return data.name;
+				});
+				// Readable assertion messages:
+				this.addHandler(Object.class.getMethod("toString"), (proxy, args) -> {
+					return "Shopkeeper " + data.id;
+				});
+			}
+		}.newProxy();
+	}
+
+	// The previous stream based prefix matching:
+
+	private static Set<Shopkeeper> findByIdPrefix(
+			List<Shopkeeper> shopkeepers,
+			String idPrefix,
+			Predicate<? super Shopkeeper> filter
+	) {
+		return shopkeepers.stream()
+				.filter(filter)
+				.filter(shopkeeper -> String.valueOf(shopkeeper.getId()).startsWith(idPrefix))
+				.collect(Collectors.toSet());
+	}
+
+	private static Set<Shopkeeper> findByUniqueIdPrefix(
+			List<Shopkeeper> shopkeepers,
+			String uuidPrefix,
+			Predicate<? super Shopkeeper> filter
+	) {
+		String normalizedUUIDPrefix = uuidPrefix.toLowerCase(Locale.ROOT);
+		return shopkeepers.stream()
+				.filter(filter)
+				.filter(shopkeeper -> {
+					return shopkeeper.getUniqueId().toString().startsWith(normalizedUUIDPrefix);
+				})
+				.collect(Collectors.toSet());
+	}
+
+	private static Set<Shopkeeper> findByNamePrefix(
+			List<Shopkeeper> shopkeepers,
+			String namePrefix,
+			Predicate<? super Shopkeeper> filter
+	) {
+		String normalizedNamePrefix = StringUtils.normalize(TextUtils.stripColor(namePrefix));
+		return shopkeepers.stream()
+				.filter(filter)
+				.filter(shopkeeper -> {
+					String name = TextUtils.stripColor(shopkeeper.getName());
+					if (name.isEmpty()) return false;
+					String normalized = StringUtils.normalize(name);
+					return normalized.startsWith(normalizedNamePrefix);
+				})
+				.collect(Collectors.toSet());
+	}
+
+	private static void assertSameResults(
+			ShopkeeperCompletionIndex index,
+			List<Shopkeeper> shopkeepers,
+			List<String> prefixes
+	) {
+		Predicate<Shopkeeper> acceptAll = shopkeeper -> true;
+		Predicate<Shopkeeper> evenIds = shopkeeper -> shopkeeper.getId() % 2 == 0;
+		int noLimit = Integer.MAX_VALUE;
+		for (Predicate<Shopkeeper> filter : List.of(acceptAll, evenIds)) {
+			for (String prefix : prefixes) {
+				Assert.assertEquals(
+						"id prefix: " + prefix,
+						findByIdPrefix(shopkeepers, prefix, filter),
+						new HashSet<>(index.getShopkeepersByIdPrefix(prefix, filter, noLimit))
+				);
+				Assert.assertEquals(
+						"unique id prefix: " + prefix,
+						findByUniqueIdPrefix(shopkeepers, prefix, filter),
+						new HashSet<>(index.getShopkeepersByUniqueIdPrefix(prefix, filter, noLimit))
+				);
+				String normalizedNamePrefix = ShopkeeperCompletionIndex.normalizeName(prefix);
+				Assert.assertEquals(
+						"name prefix: " + prefix,
+						findByNamePrefix(shopkeepers, prefix, filter),
+						new HashSet<>(index.getShopkeepersByNamePrefix(
+								normalizedNamePrefix,
+								filter,
+								noLimit
+						))
+				);
+			}
+		}
+	}
+
+	private static List<String> getPrefixes(List<TestShopkeeper> shopkeepers) {
+		List<String> prefixes = new ArrayList<>(List.of(
+				"", "1", "2", "10", "99", "x", "a", "A", "b", "sh", "SHOP", "shop ", "shop o",
+				"§ash", "bob'", "&c", "zz"
+		));
+		for (TestShopkeeper shopkeeper : shopkeepers) {
+			String uniqueId = shopkeeper.uniqueId.toString();
+			prefixes.add(uniqueId.substring(0, 1));
+			prefixes.add(uniqueId.substring(0, 3).toUpperCase(Locale.ROOT));
+			prefixes.add(uniqueId);
+			prefixes.add(shopkeeper.name);
+		}
+		return prefixes;
+	}
+
+	@Test
+	public void testMatchesStreamBasedLookup() {
+		Random random = new Random(42L);
+		ShopkeeperCompletionIndex index = new ShopkeeperCompletionIndex();
+		List<TestShopkeeper> shopkeeperData = new ArrayList<>();
+		List<Shopkeeper> shopkeepers = new ArrayList<>();
+		for (int id = 1; id <= 250; id++) {
+			UUID uniqueId = new UUID(random.nextLong(), random.nextLong());
+			String name = NAMES[random.nextInt(NAMES.length)];
+			TestShopkeeper data = new TestShopkeeper(id, uniqueId, name);
+			Shopkeeper shopkeeper = createShopkeeper(data);
+			shopkeeperData.add(data);
+			shopkeepers.add(shopkeeper);
+			index.add(shopkeeper);
+		}
+		List<String> prefixes = getPrefixes(shopkeeperData);
+		assertSameResults(index, shopkeepers, prefixes);
+
+		// Rename some shopkeepers:
+		for (int i = 0; i < shopkeepers.size(); i += 3) {
+			shopkeeperData.get(i).name = NAMES[random.nextInt(NAMES.length)];
+			index.onNameChanged(shopkeepers.get(i));
+		}
+		assertSameResults(index, shopkeepers, prefixes);
+
+		// Remove some shopkeepers:
+		for (int i = shopkeepers.size() - 1; i >= 0; i -= 4) {
+			index.remove(shopkeepers.remove(i));
+			shopkeeperData.remove(i);
+		}
+		assertSameResults(index, shopkeepers, prefixes);
+
+		index.clear();
+		assertSameResults(index, new ArrayList<>(), prefixes);
+	}
+
+	@Test
+	public void testLimit() {
+		ShopkeeperCompletionIndex index = new ShopkeeperCompletionIndex();
+		for (int id = 1; id <= 100; id++) {
+			index.add(createShopkeeper(new TestShopkeeper(id, UUID.randomUUID(), "Shop " + id)));
+		}
+
+		Assert.assertEquals(20, index.getShopkeepersByIdPrefix("", shopkeeper -> true, 20).size());
+		Assert.assertEquals(0, index.getShopkeepersByIdPrefix("1", shopkeeper -> true, 0).size());
+		// 1, 10-19, 100:
+		Assert.assertEquals(12, index.getShopkeepersByIdPrefix("1", shopkeeper -> true, 20).size());
+		Assert.assertEquals(5, index.getShopkeepersByNamePrefix("shop", shopkeeper -> true, 5).size());
+
+		// Shopkeepers with equal names are sorted by id:
+		List<? extends Shopkeeper> result = index.getShopkeepersByNamePrefix(
+				"shop 1",
+				shopkeeper -> true,
+				3
+		);
+		Assert.assertEquals(3, result.size());
+		Assert.assertEquals("shop 1", ShopkeeperCompletionIndex.normalizeName(result.get(0).getName()));
+	}
+}
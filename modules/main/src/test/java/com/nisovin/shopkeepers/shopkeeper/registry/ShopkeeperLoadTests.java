@@ -0,0 +1,649 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
+import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
+import com.nisovin.shopkeepers.api.user.User;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.LoadTestShopType;
+import com.nisovin.shopkeepers.shopkeeper.LoadTestShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
+import com.nisovin.shopkeepers.shopkeeper.offers.SKPriceOffer;
+import com.nisovin.shopkeepers.shopkeeper.offers.SKTradeOffer;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTicker;
+import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTickers;
+import com.nisovin.shopkeepers.storage.migration.RawDataMigrations;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.LoadTestReport;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+import com.nisovin.shopkeepers.user.SKUser;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+import com.nisovin.shopkeepers.util.bukkit.ChunkKeys;
+import com.nisovin.shopkeepers.util.data.container.DataContainer;
+import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Long2ObjectMap;
+import com.nisovin.shopkeepers.util.java.MutableLong;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * A synthetic large-scale load test.
+ * <p>
+ * This generates a population of admin and player shops, with offers, containers, and owners,
+ * that is spread across several worlds, and then measures the writing and reading of their save
+ * data, their indexing by chunk and name, simulated chunk loads and unloads, their ticking, and
+ * queries. The durations and allocated bytes of each phase are logged and written as plain text
+ * and JSON report into the directory specified by the {@code shopkeepers.loadTest.reportDir}
+ * system property.
+ * <p>
+ * The plugin itself cannot be enabled on top of the server mock. This test therefore only drives
+ * the plugin components that can be set up without a running plugin:
+ * <ul>
+ * <li>The shopkeeper data and offers are serialized and loaded via their properties, and the save
+ * file is written via the same file utilities as the shopkeeper storage. But the
+ * {@link com.nisovin.shopkeepers.storage.SKShopkeeperStorage} and the shop types are not involved:
+ * The shopkeepers are not loaded via their shop type, but are {@link LoadTestShopkeeper}s without
+ * shop objects.
+ * <li>The shopkeepers are stored in the {@link ShopkeeperChunkMap} and the
+ * {@link ShopkeeperCompletionIndex}, but not in the shopkeeper registry.
+ * <li>The chunk loads and unloads are simulated. The
+ * {@link com.nisovin.shopkeepers.shopkeeper.activation.ShopkeeperChunkActivator} requires the
+ * plugin and is replaced by a minimal activation that only updates the activation state and
+ * ticking of the chunk's shopkeepers, without any activation delay and without spawning.
+ * <li>The active shopkeepers are ticked by the {@link ShopkeeperTicker}, via the mocked
+ * scheduler.
+ * </ul>
+ * <p>
+ * The phase names reflect what is actually measured: The phases for the save data, the chunk
+ * map, and the simulated chunk loads do not measure the shopkeeper storage, the shopkeeper
+ * registry, or the chunk activator.
+ * <p>
+ * This test is excluded from the regular tests. Run it via
+ * {@code ./gradlew :shopkeepers-main:loadTest}. The parameters can be configured via Gradle
+ * properties, e.g. {@code -PloadTest.shopkeepers=200000}.
+ */
+public class ShopkeeperLoadTests extends AbstractBukkitTest {
+
+	private static final Logger LOGGER = Logger.getLogger(
+			ShopkeeperLoadTests.class.getCanonicalName()
+	);
+
+	private static final String PROPERTY_PREFIX = "shopkeepers.loadTest.";
+
+	private static int getIntProperty(String key, int defaultValue) {
+		return Integer.getInteger(PROPERTY_PREFIX + key, defaultValue);
+	}
+
+	private static final String DATA_KEY_ADMIN_OFFERS = "recipes";
+	private static final String DATA_KEY_SELLING_OFFERS = "offers";
+	private static final String ADMIN_SHOP_TYPE_ID = LoadTestShopType.ADMIN.getIdentifier();
+	private static final String SELLING_SHOP_TYPE_ID = LoadTestShopType.SELLING.getIdentifier();
+
+	private static final Material[] ITEM_TYPES = {
+			Material.STONE, Material.DIRT, Material.OAK_LOG, Material.IRON_INGOT,
+			Material.GOLD_INGOT, Material.DIAMOND, Material.EMERALD, Material.BREAD,
+			Material.COOKED_BEEF, Material.ARROW, Material.TORCH, Material.REDSTONE
+	};
+	private static final String[] NAME_PARTS = {
+			"Shop", "Market", "Bob's", "Alice's", "Tools", "Food", "Blocks", "Ores", "General",
+			"Trader", "Bazaar", "Outpost"
+	};
+
+	// The size of the market area in chunks, in which a certain percentage of the shopkeepers is
+	// concentrated:
+	private static final int MARKET_CHUNK_SIZE = 8;
+	// The view distance in which the players load chunks:
+	private static final int VIEW_DISTANCE = 10;
+	private static final int MAX_SUGGESTIONS = 20;
+
+	// Parameters:
+	private final int shopkeeperCount = getIntProperty("shopkeepers", 50000);
+	private final int worldCount = getIntProperty("worlds", 4);
+	private final int playerShopPercentage = getIntProperty("playerShopPercentage", 70);
+	private final int marketPercentage = getIntProperty("marketPercentage", 30);
+	private final int shopkeepersPerChunk = getIntProperty("shopkeepersPerChunk", 4);
+	private final int maxOffers = getIntProperty("maxOffers", 8);
+	private final int playersPerWorld = getIntProperty("playersPerWorld", 25);
+	private final int movementSteps = getIntProperty("movementSteps", 200);
+	private final int ticks = getIntProperty("ticks", 1200);
+	private final int queries = getIntProperty("queries", 1000000);
+	private final long seed = Long.getLong(PROPERTY_PREFIX + "seed", 42L);
+
+	private final Random random = new Random(seed);
+	private final int chunkRadius;
+
+	private final Plugin plugin = new ProxyHandler<Plugin>(Plugin.class) {
+	}.newProxy();
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+	private final ShopkeeperChunkMap chunkMap = new ShopkeeperChunkMap();
+	private final ShopkeeperCompletionIndex completionIndex = new ShopkeeperCompletionIndex();
+	private final ShopkeeperTicker ticker = ShopkeeperTickers.createMainThreadTicker(
+			plugin,
+			() -> { }
+	);
+	private final List<LoadTestShopkeeper> shopkeepers = new ArrayList<>();
+	private final List<SimulatedWorld> worlds = new ArrayList<>();
+	private final MutableLong loadedContainers = new MutableLong();
+
+	public ShopkeeperLoadTests() {
+		// The shopkeepers outside the market area are spread evenly across a square of chunks:
+		int chunksPerWorld = Math.max(1, shopkeeperCount / (worldCount * shopkeepersPerChunk));
+		this.chunkRadius = Math.max(1, (int) Math.ceil(Math.sqrt(chunksPerWorld) / 2.0D));
+		for (int i = 0; i < worldCount; i++) {
+			worlds.add(new SimulatedWorld("world_" + i));
+		}
+	}
+
+	@After
+	public void tearDown() {
+		ticker.onDisable();
+		scheduler.cancelAllTasks();
+	}
+
+	/**
+	 * The chunks that are loaded by the simulated players of a world.
+	 */
+	private final class SimulatedWorld {
+
+		private final String worldName;
+		// Chunk key -> number of players that keep the chunk loaded:
+		private final Long2ObjectMap<int[]> loadedChunks = new Long2ObjectMap<>();
+		// The chunk positions of the players: [chunkX, chunkZ]
+		private final int[][] players;
+
+		SimulatedWorld(String worldName) {
+			this.worldName = worldName;
+			this.players = new int[playersPerWorld][];
+			for (int i = 0; i < playersPerWorld; i++) {
+				players[i] = new int[] { randomChunk(), randomChunk() };
+			}
+		}
+
+		// Returns the number of chunk load events.
+		int loadViewArea(int centerChunkX, int centerChunkZ) {
+			int loadedCount = 0;
+			int maxChunkX = centerChunkX + VIEW_DISTANCE;
+			int maxChunkZ = centerChunkZ + VIEW_DISTANCE;
+			for (int chunkX = centerChunkX - VIEW_DISTANCE; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = centerChunkZ - VIEW_DISTANCE; chunkZ <= maxChunkZ; chunkZ++) {
+					if (this.loadChunk(chunkX, chunkZ)) {
+						loadedCount++;
+					}
+				}
+			}
+			return loadedCount;
+		}
+
+		// Returns the number of chunk unload events.
+		int unloadViewArea(int centerChunkX, int centerChunkZ) {
+			int unloadedCount = 0;
+			int maxChunkX = centerChunkX + VIEW_DISTANCE;
+			int maxChunkZ = centerChunkZ + VIEW_DISTANCE;
+			for (int chunkX = centerChunkX - VIEW_DISTANCE; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = centerChunkZ - VIEW_DISTANCE; chunkZ <= maxChunkZ; chunkZ++) {
+					if (this.unloadChunk(chunkX, chunkZ)) {
+						unloadedCount++;
+					}
+				}
+			}
+			return unloadedCount;
+		}
+
+		// Returns true if the chunk was not loaded before.
+		private boolean loadChunk(int chunkX, int chunkZ) {
+			long chunkKey = ChunkKeys.getKey(chunkX, chunkZ);
+			int[] references = loadedChunks.get(chunkKey);
+			if (references != null) {
+				references[0]++;
+				return false;
+			}
+			loadedChunks.put(chunkKey, new int[] { 1 });
+			activateChunk(worldName, chunkX, chunkZ);
+			return true;
+		}
+
+		// Returns true if the chunk is no longer loaded.
+		private boolean unloadChunk(int chunkX, int chunkZ) {
+			long chunkKey = ChunkKeys.getKey(chunkX, chunkZ);
+			int[] references = Unsafe.assertNonNull(loadedChunks.get(chunkKey));
+			references[0]--;
+			if (references[0] > 0) return false;
+			loadedChunks.remove(chunkKey);
+			deactivateChunk(worldName, chunkX, chunkZ);
+			return true;
+		}
+
+		boolean isChunkLoaded(int chunkX, int chunkZ) {
+			return loadedChunks.containsKey(ChunkKeys.getKey(chunkX, chunkZ));
+		}
+	}
+
+	private int randomChunk() {
+		return random.nextInt(2 * chunkRadius) - chunkRadius;
+	}
+
+	// Keeps the players within the populated area:
+	private int clampChunk(int chunk) {
+		return Math.max(-chunkRadius, Math.min(chunkRadius, chunk));
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		LOGGER.info("Running the shopkeeper load test:");
+		LoadTestReport report = new LoadTestReport("Shopkeepers load test");
+		report.addParameter("shopkeepers", shopkeeperCount);
+		report.addParameter("worlds", worldCount);
+		report.addParameter("playerShopPercentage", playerShopPercentage);
+		report.addParameter("marketPercentage", marketPercentage);
+		report.addParameter("shopkeepersPerChunk", shopkeepersPerChunk);
+		report.addParameter("chunkRadius", chunkRadius);
+		report.addParameter("maxOffers", maxOffers);
+		report.addParameter("playersPerWorld", playersPerWorld);
+		report.addParameter("viewDistance", VIEW_DISTANCE);
+		report.addParameter("movementSteps", movementSteps);
+		report.addParameter("ticks", ticks);
+		report.addParameter("queries", queries);
+		report.addParameter("seed", seed);
+
+		// Resets the ticking groups before the shopkeepers are created:
+		ticker.onEnable();
+		Path tempDirectory = Files.createTempDirectory("shopkeepers-load-test");
+		Path saveFile = tempDirectory.resolve("save.yml");
+		try {
+			BukkitConfigDataStore saveData = BukkitConfigDataStore.ofNewYamlConfig();
+			report.measure("save data: generate", () -> this.generateSaveData(saveData));
+			report.measure("save data: serialize and write file", () -> {
+				String data = saveData.saveToString();
+				FileUtils.writeSafely(
+						saveFile,
+						data,
+						StandardCharsets.UTF_8,
+						Log.getLogger(),
+						tempDirectory
+				);
+				return shopkeeperCount;
+			});
+			report.addParameter("saveFileBytes", Files.size(saveFile));
+
+			report.measure("save data: read and load", () -> this.reload(saveFile));
+			Assert.assertEquals(shopkeeperCount, shopkeepers.size());
+			this.setupContainerChecks();
+
+			report.measure("chunk map and completion index: add", () -> {
+				shopkeepers.forEach(shopkeeper -> {
+					chunkMap.addShopkeeper(shopkeeper);
+					completionIndex.add(shopkeeper);
+				});
+				return shopkeepers.size();
+			});
+
+			report.measure("simulated chunk loads: initial", () -> {
+				int chunkEvents = 0;
+				for (SimulatedWorld world : worlds) {
+					for (int[] player : world.players) {
+						chunkEvents += world.loadViewArea(player[0], player[1]);
+					}
+				}
+				return chunkEvents;
+			});
+			report.addParameter("activeShopkeepersInitially", this.countActiveShopkeepers());
+
+			report.measure("simulated chunk loads: player movement", this::movePlayers);
+			report.measure("shopkeeper ticker: ticking", this::tick);
+			report.measure("chunk map and completion index: queries", this::query);
+
+			report.measure("simulated chunk unloads: all", () -> {
+				int chunkEvents = 0;
+				for (SimulatedWorld world : worlds) {
+					for (int[] player : world.players) {
+						chunkEvents += world.unloadViewArea(player[0], player[1]);
+					}
+					Assert.assertTrue(world.loadedChunks.isEmpty());
+				}
+				return chunkEvents;
+			});
+			Assert.assertEquals(0, this.countActiveShopkeepers());
+			// The world tickers stop after their next tick:
+			scheduler.tick(ShopkeeperTicker.TICKING_PERIOD_TICKS);
+			Assert.assertEquals(0, scheduler.getPendingTaskCount());
+
+			report.measure("chunk map and completion index: remove", () -> {
+				shopkeepers.forEach(shopkeeper -> {
+					chunkMap.removeShopkeeper(shopkeeper);
+					completionIndex.remove(shopkeeper);
+				});
+				return shopkeepers.size();
+			});
+			Assert.assertTrue(chunkMap.getWorldsWithShopkeepers().isEmpty());
+		} finally {
+			FileUtils.deleteIfExists(saveFile);
+			FileUtils.deleteIfExists(FileUtils.getTempSibling(saveFile));
+			FileUtils.deleteIfExists(tempDirectory);
+		}
+
+		LOGGER.info(report.toText());
+		String reportDir = System.getProperty(PROPERTY_PREFIX + "reportDir");
+		if (reportDir != null) {
+			report.writeTo(Paths.get(reportDir), "load-test-report");
+		}
+	}
+
+	// GENERATION
+
+	private BlockLocation randomLocation(String worldName) {
+		int chunkX;
+		int chunkZ;
+		if (random.nextInt(100) < marketPercentage) {
+			chunkX = random.nextInt(MARKET_CHUNK_SIZE) - MARKET_CHUNK_SIZE / 2;
+			chunkZ = random.nextInt(MARKET_CHUNK_SIZE) - MARKET_CHUNK_SIZE / 2;
+		} else {
+			chunkX = this.randomChunk();
+			chunkZ = this.randomChunk();
+		}
+		int x = (chunkX << 4) + random.nextInt(16);
+		int y = 64 + random.nextInt(16);
+		int z = (chunkZ << 4) + random.nextInt(16);
+		return new BlockLocation(worldName, x, y, z);
+	}
+
+	private ItemStack randomItem() {
+		Material type = ITEM_TYPES[random.nextInt(ITEM_TYPES.length)];
+		// Note: All of these item types stack up to 64.
+		return new ItemStack(type, 1 + random.nextInt(64));
+	}
+
+	private String randomName() {
+		return NAME_PARTS[random.nextInt(NAME_PARTS.length)] + " "
+				+ NAME_PARTS[random.nextInt(NAME_PARTS.length)];
+	}
+
+	// Uses the same data layout as the shopkeeper storage.
+	private int generateSaveData(BukkitConfigDataStore saveData) {
+		for (int id = 1; id <= shopkeeperCount; id++) {
+			String worldName = worlds.get(random.nextInt(worlds.size())).worldName;
+			BlockLocation location = this.randomLocation(worldName);
+			boolean playerShop = (random.nextInt(100) < playerShopPercentage);
+			int offerCount = random.nextInt(maxOffers + 1);
+
+			String key = String.valueOf(id);
+			ShopkeeperData shopkeeperData = ShopkeeperData.ofNonNull(saveData.createContainer(key));
+			UUID uniqueId = new UUID(random.nextLong(), random.nextLong());
+			shopkeeperData.set(AbstractShopkeeper.UNIQUE_ID, uniqueId);
+			shopkeeperData.set(AbstractShopkeeper.NAME, this.randomName());
+			shopkeeperData.set(AbstractShopkeeper.LOCATION, location);
+			DataContainer objectData = shopkeeperData.createContainer("object");
+
+			if (playerShop) {
+				shopkeeperData.set(AbstractShopkeeper.SHOP_TYPE_ID, SELLING_SHOP_TYPE_ID);
+				objectData.set("type", "sign");
+				int ownerIndex = random.nextInt(Math.max(1, shopkeeperCount / 10));
+				User owner = SKUser.of(new UUID(0L, ownerIndex), "Player" + ownerIndex);
+				shopkeeperData.set(AbstractPlayerShopkeeper.OWNER, owner);
+				// The container below the shop:
+				shopkeeperData.set(AbstractPlayerShopkeeper.CONTAINER, new BlockLocation(
+						location.getX(),
+						location.getY() - 1,
+						location.getZ()
+				));
+
+				List<PriceOffer> offers = new ArrayList<>(offerCount);
+				for (int i = 0; i < offerCount; i++) {
+					offers.add(new SKPriceOffer(this.randomItem(), 1 + random.nextInt(64)));
+				}
+				SKPriceOffer.saveOffers(
+						shopkeeperData.getDataValue(DATA_KEY_SELLING_OFFERS),
+						offers
+				);
+			} else {
+				shopkeeperData.set(AbstractShopkeeper.SHOP_TYPE_ID, ADMIN_SHOP_TYPE_ID);
+				objectData.set("type", "villager");
+
+				List<TradeOffer> offers = new ArrayList<>(offerCount);
+				for (int i = 0; i < offerCount; i++) {
+					@Nullable ItemStack item2 = random.nextBoolean() ? this.randomItem() : null;
+					offers.add(new SKTradeOffer(this.randomItem(), this.randomItem(), item2));
+				}
+				SKTradeOffer.saveOffers(shopkeeperData.getDataValue(DATA_KEY_ADMIN_OFFERS), offers);
+			}
+		}
+		return shopkeeperCount;
+	}
+
+	// RELOAD
+
+	// Loads the data that the shopkeepers would load from the save file.
+	private int reload(Path saveFile) throws Exception {
+		String content;
+		try (Reader reader = Files.newBufferedReader(saveFile, StandardCharsets.UTF_8)) {
+			content = FileUtils.read(reader);
+		}
+		String migratedContent = RawDataMigrations.applyMigrations(content);
+		BukkitConfigDataStore saveData = BukkitConfigDataStore.ofNewYamlConfig();
+		saveData.loadFromString(migratedContent);
+
+		int offerCount = 0;
+		for (String key : saveData.getKeys()) {
+			int id = Integer.parseInt(key);
+			DataContainer container = Unsafe.assertNonNull(saveData.getContainer(key));
+			ShopkeeperData shopkeeperData = ShopkeeperData.ofNonNull(container);
+			String shopTypeId = shopkeeperData.get(AbstractShopkeeper.SHOP_TYPE_ID);
+			UUID uniqueId = shopkeeperData.get(AbstractShopkeeper.UNIQUE_ID);
+			BlockLocation location = shopkeeperData.get(AbstractShopkeeper.LOCATION);
+			String name = shopkeeperData.get(AbstractShopkeeper.NAME);
+
+			@Nullable BlockLocation containerLocation = null;
+			List<?> offers;
+			if (SELLING_SHOP_TYPE_ID.equals(shopTypeId)) {
+				// Loads and validates the owner:
+				shopkeeperData.get(AbstractPlayerShopkeeper.OWNER);
+				BlockLocation containerCoords = shopkeeperData.get(
+						AbstractPlayerShopkeeper.CONTAINER
+				);
+				containerLocation = new BlockLocation(
+						location.getWorldName(),
+						containerCoords.getX(),
+						containerCoords.getY(),
+						containerCoords.getZ()
+				);
+				offers = SKPriceOffer.loadOffers(
+						shopkeeperData.getDataValue(DATA_KEY_SELLING_OFFERS)
+				);
+			} else {
+				offers = SKTradeOffer.loadOffers(
+						shopkeeperData.getDataValue(DATA_KEY_ADMIN_OFFERS)
+				);
+			}
+			offerCount += offers.size();
+
+			shopkeepers.add(new LoadTestShopkeeper(
+					id,
+					uniqueId,
+					location,
+					name,
+					containerLocation,
+					offers.size()
+			));
+		}
+		LOGGER.info("  Loaded " + shopkeepers.size() + " shopkeepers with " + offerCount
+				+ " offers.");
+		return shopkeepers.size();
+	}
+
+	// ACTIVATION
+
+	// Activates the shopkeepers of a loaded chunk, like the chunk activator, but without delay and
+	// without spawning them.
+	private void activateChunk(String worldName, int chunkX, int chunkZ) {
+		ChunkShopkeepers chunkShopkeepers = chunkMap.getChunkShopkeepers(worldName, chunkX, chunkZ);
+		if (chunkShopkeepers == null) return;
+
+		List<? extends AbstractShopkeeper> shopkeepers = chunkShopkeepers.getShopkeepersSnapshot();
+		shopkeepers.forEach(shopkeeper -> shopkeeper.setActive(true));
+		shopkeepers.forEach(ticker::startTicking);
+	}
+
+	private void deactivateChunk(String worldName, int chunkX, int chunkZ) {
+		ChunkShopkeepers chunkShopkeepers = chunkMap.getChunkShopkeepers(worldName, chunkX, chunkZ);
+		if (chunkShopkeepers == null) return;
+
+		List<? extends AbstractShopkeeper> shopkeepers = chunkShopkeepers.getShopkeepersSnapshot();
+		shopkeepers.forEach(shopkeeper -> shopkeeper.setActive(false));
+		shopkeepers.forEach(ticker::stopTicking);
+	}
+
+	private int countActiveShopkeepers() {
+		int count = 0;
+		for (LoadTestShopkeeper shopkeeper : shopkeepers) {
+			if (shopkeeper.isActive()) {
+				Assert.assertTrue(shopkeeper.isTicking());
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// Moves each player one chunk per step, loading and unloading the chunks at the edges of the
+	// view area.
+	private int movePlayers() {
+		int chunkEvents = 0;
+		int[][] directions = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+		for (int step = 0; step < movementSteps; step++) {
+			for (SimulatedWorld world : worlds) {
+				for (int[] player : world.players) {
+					int[] direction = directions[random.nextInt(directions.length)];
+					int oldChunkX = player[0];
+					int oldChunkZ = player[1];
+					int newChunkX = this.clampChunk(oldChunkX + direction[0]);
+					int newChunkZ = this.clampChunk(oldChunkZ + direction[1]);
+					chunkEvents += world.loadViewArea(newChunkX, newChunkZ);
+					chunkEvents += world.unloadViewArea(oldChunkX, oldChunkZ);
+					player[0] = newChunkX;
+					player[1] = newChunkZ;
+				}
+			}
+		}
+		return chunkEvents;
+	}
+
+	// TICKING
+
+	// Player shops check whether the chunk of their container is loaded.
+	private void setupContainerChecks() {
+		for (LoadTestShopkeeper shopkeeper : shopkeepers) {
+			BlockLocation container = shopkeeper.getContainer();
+			if (container == null) continue;
+
+			String worldName = Unsafe.assertNonNull(shopkeeper.getWorldName());
+			SimulatedWorld world = worlds.stream()
+					.filter(simulatedWorld -> simulatedWorld.worldName.equals(worldName))
+					.findAny()
+					.get();
+			int containerChunkX = ChunkCoords.fromBlock(container.getX());
+			int containerChunkZ = ChunkCoords.fromBlock(container.getZ());
+			shopkeeper.setTickAction(() -> {
+				if (world.isChunkLoaded(containerChunkX, containerChunkZ)) {
+					loadedContainers.increment(1);
+				}
+			});
+		}
+	}
+
+	// Runs the ticks of the server, during which the shopkeeper ticker ticks the active
+	// shopkeepers.
+	private long tick() {
+		long previousTicks = this.countShopkeeperTicks();
+		scheduler.tick(ticks);
+		long tickedShopkeepers = this.countShopkeeperTicks() - previousTicks;
+		LOGGER.info("  Ticked shopkeepers: " + tickedShopkeepers
+				+ ", loaded containers: " + loadedContainers.getValue());
+		return tickedShopkeepers;
+	}
+
+	private long countShopkeeperTicks() {
+		long count = 0;
+		for (LoadTestShopkeeper shopkeeper : shopkeepers) {
+			count += shopkeeper.getTicks();
+		}
+		return count;
+	}
+
+	// QUERIES
+
+	// Queries shopkeepers by chunk, by location, and by id and name prefixes.
+	private int query() {
+		int results = 0;
+		for (int i = 0; i < queries; i++) {
+			LoadTestShopkeeper target = shopkeepers.get(random.nextInt(shopkeepers.size()));
+			String worldName = Unsafe.assertNonNull(target.getWorldName());
+			switch (i % 4) {
+			case 0: {
+				ChunkCoords chunkCoords = Unsafe.assertNonNull(target.getChunkCoords());
+				ChunkShopkeepers chunkShopkeepers = chunkMap.getChunkShopkeepers(chunkCoords);
+				results += Unsafe.assertNonNull(chunkShopkeepers).getShopkeepers().size();
+				break;
+			}
+			case 1: {
+				int x = target.getX();
+				int y = target.getY();
+				int z = target.getZ();
+				ChunkShopkeepers chunkShopkeepers = chunkMap.getChunkShopkeepers(
+						worldName,
+						ChunkCoords.fromBlock(x),
+						ChunkCoords.fromBlock(z)
+				);
+				assert chunkShopkeepers != null;
+				for (AbstractShopkeeper shopkeeper : chunkShopkeepers.getShopkeepers()) {
+					if (shopkeeper.getX() != x || shopkeeper.getY() != y) continue;
+					if (shopkeeper.getZ() != z) continue;
+					results++;
+				}
+				break;
+			}
+			case 2: {
+				String idPrefix = String.valueOf(target.getId());
+				idPrefix = idPrefix.substring(0, Math.min(idPrefix.length(), 2));
+				results += completionIndex.getShopkeepersByIdPrefix(
+						idPrefix,
+						shopkeeper -> true,
+						MAX_SUGGESTIONS
+				).size();
+				break;
+			}
+			default: {
+				String name = ShopkeeperCompletionIndex.normalizeName(target.getName());
+				String namePrefix = name.substring(0, Math.min(name.length(), 3));
+				results += completionIndex.getShopkeepersByNamePrefix(
+						namePrefix,
+						shopkeeper -> worldName.equals(shopkeeper.getWorldName()),
+						MAX_SUGGESTIONS
+				).size();
+				break;
+			}
+			}
+		}
+		LOGGER.info("  Query results: " + results);
+		return queries;
+	}
+}
@@ -0,0 +1,264 @@
+package com.nisovin.shopkeepers.shopkeeper.ticking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+
+public class ShopkeeperTickerTests extends AbstractBukkitTest {
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+	}.newProxy();
+
+	// Records the ticks of the shopkeeper. Does not have a shop object.
+	private static class TestShopkeeper extends AbstractShopkeeper {
+
+		private int ticks = 0;
+		private @Nullable Runnable onTick = null;
+
+		@Override
+		public AbstractShopType<?> getType() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean hasTradingRecipes(@Nullable Player player) {
+			return false;
+		}
+
+		@Override
+		public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		protected void onStartTicking() {
+		}
+
+		@Override
+		protected void onStopTicking() {
+		}
+
+		@Override
+		protected void onTickStart() {
+		}
+
+		@Override
+		protected void onTick() {
+			ticks++;
+			Runnable onTick = this.onTick;
+			if (onTick != null) {
+				onTick.run();
+			}
+		}
+
+		@Override
+		protected void onTickEnd() {
+		}
+	}
+
+	// The scheduled tasks are run manually by the tests.
+	private static class TestWorldTask implements WorldTickScheduler.ScheduledTask {
+
+		private final Runnable task;
+		private boolean cancelled = false;
+
+		TestWorldTask(Runnable task) {
+			this.task = task;
+		}
+
+		void run() {
+			Assert.assertFalse(cancelled);
+			task.run();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+	}
+
+	// World name -> current task:
+	private final Map<String, TestWorldTask> worldTasks = new LinkedHashMap<>();
+	private final List<String> startedWorlds = new ArrayList<>();
+	private int delayedSaves = 0;
+
+	private final ShopkeeperTicker ticker = new ShopkeeperTicker(
+			PLUGIN,
+			(plugin, worldName, task, delayTicks, periodTicks) -> {
+				TestWorldTask worldTask = new TestWorldTask(task);
+				worldTasks.put(worldName, worldTask);
+				startedWorlds.add(worldName);
+				return worldTask;
+			},
+			() -> delayedSaves++
+	);
+
+	@Before
+	public void setUp() {
+		// Resets the ticking groups: The next four shopkeepers use the ticking groups 0 to 3.
+		ticker.onEnable();
+	}
+
+	@After
+	public void tearDown() {
+		ticker.onDisable();
+	}
+
+	private static TestShopkeeper createShopkeeper(String worldName) {
+		TestShopkeeper shopkeeper = new TestShopkeeper();
+		shopkeeper.setLastChunkCoords(new ChunkCoords(worldName, 0, 0));
+		return shopkeeper;
+	}
+
+	private TestShopkeeper startTicking(String worldName) {
+		TestShopkeeper shopkeeper = createShopkeeper(worldName);
+		ticker.startTicking(shopkeeper);
+		Assert.assertTrue(shopkeeper.isTicking());
+		return shopkeeper;
+	}
+
+	private TestWorldTask getWorldTask(String worldName) {
+		return Unsafe.assertNonNull(worldTasks.get(worldName));
+	}
+
+	// Runs the world task once per ticking group.
+	private void tickAllGroups(String worldName) {
+		for (int i = 0; i < ShopkeeperTicker.TICKING_GROUPS; i++) {
+			this.getWorldTask(worldName).run();
+		}
+	}
+
+	@Test
+	public void testWorldsAreTickedSeparately() {
+		List<TestShopkeeper> world1 = new ArrayList<>();
+		List<TestShopkeeper> world2 = new ArrayList<>();
+		for (int i = 0; i < ShopkeeperTicker.TICKING_GROUPS; i++) {
+			world1.add(this.startTicking("world1"));
+			world2.add(this.startTicking("world2"));
+		}
+		Assert.assertEquals(List.of("world1", "world2"), startedWorlds);
+
+		this.tickAllGroups("world1");
+		world1.forEach(shopkeeper -> Assert.assertEquals(1, shopkeeper.ticks));
+		world2.forEach(shopkeeper -> Assert.assertEquals(0, shopkeeper.ticks));
+	}
+
+	@Test
+	public void testTickingGroupsAreSpreadAcrossTicks() {
+		// Consecutive shopkeepers use consecutive ticking groups:
+		TestShopkeeper shopkeeper1 = this.startTicking("world");
+		TestShopkeeper shopkeeper2 = this.startTicking("world");
+		Assert.assertEquals(0, shopkeeper1.getTickingGroup());
+		Assert.assertEquals(1, shopkeeper2.getTickingGroup());
+
+		TestWorldTask worldTask = this.getWorldTask("world");
+		worldTask.run();
+		Assert.assertEquals(1, shopkeeper1.ticks);
+		Assert.assertEquals(0, shopkeeper2.ticks);
+
+		worldTask.run();
+		Assert.assertEquals(1, shopkeeper1.ticks);
+		Assert.assertEquals(1, shopkeeper2.ticks);
+
+		this.tickAllGroups("world");
+		Assert.assertEquals(2, shopkeeper1.ticks);
+		Assert.assertEquals(2, shopkeeper2.ticks);
+	}
+
+	@Test
+	public void testEmptyWorldsStopTicking() {
+		TestShopkeeper shopkeeper = this.startTicking("world");
+		TestWorldTask worldTask = this.getWorldTask("world");
+
+		ticker.stopTicking(shopkeeper);
+		Assert.assertFalse(shopkeeper.isTicking());
+		// The world ticker is removed after its next tick:
+		Assert.assertFalse(worldTask.cancelled);
+		worldTask.run();
+		Assert.assertTrue(worldTask.cancelled);
+		Assert.assertEquals(0, shopkeeper.ticks);
+
+		// Ticking the world again starts a new task:
+		ticker.startTicking(shopkeeper);
+		Assert.assertEquals(List.of("world", "world"), startedWorlds);
+		Assert.assertNotSame(worldTask, this.getWorldTask("world"));
+	}
+
+	@Test
+	public void testShopkeeperMovedToAnotherWorld() {
+		TestShopkeeper shopkeeper = this.startTicking("world1");
+		TestShopkeeper other = this.startTicking("world1");
+
+		// The shopkeeper has already moved when it stops ticking:
+		shopkeeper.setLastChunkCoords(new ChunkCoords("world2", 5, 5));
+		ticker.stopTicking(shopkeeper);
+		ticker.startTicking(shopkeeper);
+		Assert.assertEquals(List.of("world1", "world2"), startedWorlds);
+
+		// The shopkeeper is no longer ticked by its previous world:
+		this.tickAllGroups("world1");
+		Assert.assertEquals(0, shopkeeper.ticks);
+		Assert.assertEquals(1, other.ticks);
+
+		this.tickAllGroups("world2");
+		Assert.assertEquals(1, shopkeeper.ticks);
+
+		// The previous world stops ticking once it is empty:
+		ticker.stopTicking(other);
+		TestWorldTask world1Task = this.getWorldTask("world1");
+		world1Task.run();
+		Assert.assertTrue(world1Task.cancelled);
+		Assert.assertFalse(this.getWorldTask("world2").cancelled);
+	}
+
+	@Test
+	public void testTickingChangesDuringTickAreDeferred() {
+		TestShopkeeper shopkeeper = this.startTicking("world");
+		TestShopkeeper added = createShopkeeper("world");
+		shopkeeper.onTick = () -> {
+			ticker.stopTicking(shopkeeper);
+			ticker.startTicking(added);
+		};
+
+		TestWorldTask worldTask = this.getWorldTask("world");
+		worldTask.run();
+		Assert.assertFalse(shopkeeper.isTicking());
+		Assert.assertTrue(added.isTicking());
+		// The world still has a ticking shopkeeper:
+		Assert.assertFalse(worldTask.cancelled);
+
+		this.tickAllGroups("world");
+		Assert.assertEquals(1, shopkeeper.ticks);
+		Assert.assertEquals(1, added.ticks);
+	}
+
+	@Test
+	public void testDirtyShopkeepersTriggerDelayedSave() {
+		TestShopkeeper shopkeeper = this.startTicking("world");
+		TestWorldTask worldTask = this.getWorldTask("world");
+		worldTask.run();
+		Assert.assertEquals(0, delayedSaves);
+
+		shopkeeper.onTick = shopkeeper::markDirty;
+		this.tickAllGroups("world");
+		Assert.assertEquals(1, delayedSaves);
+	}
+}
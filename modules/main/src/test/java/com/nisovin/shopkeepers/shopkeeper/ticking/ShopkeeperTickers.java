@@ -0,0 +1,27 @@
+package com.nisovin.shopkeepers.shopkeeper.ticking;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Creates {@link ShopkeeperTicker}s for tests outside of this package.
+ */
+public final class ShopkeeperTickers {
+
+	/**
+	 * Creates a new {@link ShopkeeperTicker} that ticks the worlds via tasks on the server's main
+	 * thread, i.e. via the mocked scheduler.
+	 *
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 * @param saveDelayed
+	 *            triggers a delayed save after ticks in which shopkeepers were marked as dirty, not
+	 *            <code>null</code>
+	 * @return the shopkeeper ticker, not <code>null</code>
+	 */
+	public static ShopkeeperTicker createMainThreadTicker(Plugin plugin, Runnable saveDelayed) {
+		return new ShopkeeperTicker(plugin, WorldTickScheduler.MAIN_THREAD, saveDelayed);
+	}
+
+	private ShopkeeperTickers() {
+	}
+}
@@ -0,0 +1,185 @@
+package com.nisovin.shopkeepers.shopobjects.block.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+
+public class BlockShopChecksTests extends AbstractBukkitTest {
+
+	private static final Plugin PLUGIN = new ProxyHandler<Plugin>(Plugin.class) {
+	}.newProxy();
+
+	private static final int SWEEP_PERIOD_TICKS = BlockShopChecks.SWEEP_PERIOD_TICKS;
+	private static final int MAX_CHECKS_PER_TICK = BlockShopChecks.MAX_CHECKS_PER_TICK;
+
+	private static class TestBlockShop {
+
+		private final ChunkCoords chunkCoords;
+		private boolean spawned = false;
+		private boolean active = true;
+		private int activeChecks = 0;
+
+		TestBlockShop(int chunkX) {
+			this.chunkCoords = new ChunkCoords("world", chunkX, 0);
+		}
+	}
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+	private final List<TestBlockShop> checkedBlockShops = new ArrayList<>();
+	private final BlockShopChecks<TestBlockShop> checks = new BlockShopChecks<>(
+			PLUGIN,
+			blockShop -> blockShop.spawned,
+			blockShop -> {
+				blockShop.activeChecks++;
+				return blockShop.active;
+			},
+			checkedBlockShops::add
+	);
+
+	@Before
+	public void setUp() {
+		checks.onEnable();
+	}
+
+	@After
+	public void tearDown() {
+		checks.onDisable();
+		scheduler.cancelAllTasks();
+	}
+
+	private TestBlockShop spawn(int chunkX) {
+		TestBlockShop blockShop = new TestBlockShop(chunkX);
+		blockShop.spawned = true;
+		checks.onSpawned(blockShop, blockShop.chunkCoords);
+		return blockShop;
+	}
+
+	private List<TestBlockShop> spawn(int count, int chunkX) {
+		List<TestBlockShop> blockShops = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			blockShops.add(this.spawn(chunkX));
+		}
+		return blockShops;
+	}
+
+	private static int getActiveChecks(List<TestBlockShop> blockShops) {
+		return blockShops.stream().mapToInt(blockShop -> blockShop.activeChecks).sum();
+	}
+
+	@Test
+	public void testQueuedChecksAreDeferredAndBudgeted() {
+		List<TestBlockShop> blockShops = this.spawn(MAX_CHECKS_PER_TICK + 2, 0);
+		blockShops.forEach(checks::queueCheck);
+		// Queuing the same block shop again has no effect:
+		checks.queueCheck(blockShops.get(0));
+		// Block events are called before the block changes:
+		Assert.assertTrue(checkedBlockShops.isEmpty());
+
+		scheduler.tick();
+		Assert.assertEquals(blockShops.subList(0, MAX_CHECKS_PER_TICK), checkedBlockShops);
+
+		scheduler.tick();
+		Assert.assertEquals(blockShops, checkedBlockShops);
+
+		scheduler.tick();
+		Assert.assertEquals(blockShops.size(), checkedBlockShops.size());
+		// The queued checks do not check whether the blocks are still active:
+		Assert.assertEquals(0, getActiveChecks(blockShops));
+	}
+
+	@Test
+	public void testChecksOfUnspawnedOrDespawnedShopsAreSkipped() {
+		TestBlockShop unspawned = new TestBlockShop(0);
+		checks.queueCheck(unspawned);
+
+		TestBlockShop despawned = this.spawn(0);
+		checks.queueCheck(despawned);
+		despawned.spawned = false;
+		checks.onDespawned(despawned, despawned.chunkCoords);
+
+		TestBlockShop spawned = this.spawn(1);
+		checks.queueCheck(spawned);
+
+		scheduler.tick();
+		Assert.assertEquals(List.of(spawned), checkedBlockShops);
+	}
+
+	@Test
+	public void testSweepIsSpreadAcrossSweepPeriod() {
+		// Three block shops per tick, one block shop per chunk:
+		int budget = 3;
+		List<TestBlockShop> blockShops = new ArrayList<>();
+		for (int chunkX = 0; chunkX < budget * SWEEP_PERIOD_TICKS; chunkX++) {
+			blockShops.add(this.spawn(chunkX));
+		}
+
+		// The first sweep starts after one sweep period:
+		scheduler.tick(SWEEP_PERIOD_TICKS - 1);
+		Assert.assertEquals(0, getActiveChecks(blockShops));
+
+		scheduler.tick();
+		Assert.assertEquals(budget, getActiveChecks(blockShops));
+		scheduler.tick();
+		Assert.assertEquals(2 * budget, getActiveChecks(blockShops));
+
+		// Each block shop is checked once per sweep:
+		scheduler.tick(SWEEP_PERIOD_TICKS - 2);
+		for (TestBlockShop blockShop : blockShops) {
+			Assert.assertEquals(1, blockShop.activeChecks);
+		}
+		Assert.assertTrue(checkedBlockShops.isEmpty());
+
+		// The next sweep starts right away:
+		scheduler.tick();
+		Assert.assertEquals(blockShops.size() + budget, getActiveChecks(blockShops));
+	}
+
+	@Test
+	public void testSweepProcessesWholeChunks() {
+		// The budget is one block shop per tick, but the chunks are not split:
+		List<TestBlockShop> chunk1 = this.spawn(SWEEP_PERIOD_TICKS, 1);
+		List<TestBlockShop> chunk2 = this.spawn(2, 2);
+
+		scheduler.tick(SWEEP_PERIOD_TICKS);
+		int firstChunkChecks = getActiveChecks(chunk1) + getActiveChecks(chunk2);
+		Assert.assertTrue(firstChunkChecks == chunk1.size() || firstChunkChecks == chunk2.size());
+
+		scheduler.tick();
+		Assert.assertEquals(chunk1.size() + chunk2.size(),
+				getActiveChecks(chunk1) + getActiveChecks(chunk2));
+	}
+
+	@Test
+	public void testSweepQueuesInactiveShops() {
+		List<TestBlockShop> blockShops = this.spawn(MAX_CHECKS_PER_TICK + 1, 0);
+		blockShops.forEach(blockShop -> blockShop.active = false);
+		TestBlockShop active = this.spawn(0);
+
+		scheduler.tick(SWEEP_PERIOD_TICKS);
+		Assert.assertEquals(blockShops.subList(0, MAX_CHECKS_PER_TICK), checkedBlockShops);
+
+		scheduler.tick();
+		Assert.assertEquals(blockShops, checkedBlockShops);
+		Assert.assertFalse(checkedBlockShops.contains(active));
+	}
+
+	@Test
+	public void testDespawnedShopsAreNotSwept() {
+		TestBlockShop blockShop = this.spawn(0);
+		blockShop.spawned = false;
+		checks.onDespawned(blockShop, blockShop.chunkCoords);
+
+		scheduler.tick(SWEEP_PERIOD_TICKS + 1);
+		Assert.assertEquals(0, blockShop.activeChecks);
+	}
+}
@@ -0,0 +1,311 @@
+package com.nisovin.shopkeepers.shopobjects.living;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+
+public class PacketEntityTrackerTests extends AbstractBukkitTest {
+
+	private static final int VIEW_DISTANCE = 32;
+
+	private static class WorldMock extends ProxyHandler<World> {
+
+		private final String name;
+		private final List<Player> players = new ArrayList<>();
+
+		WorldMock(String name) {
+			super(World.class);
+			this.name = name;
+		}
+
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(World.class.getMethod("getName"), (proxy, args) -> name);
+			this.addHandler(World.class.getMethod("getPlayers"), (proxy, args) -> players);
+		}
+	}
+
+	private static class PlayerMock extends ProxyHandler<Player> {
+
+		private Location location = new Location(null, 0, 0, 0);
+
+		PlayerMock() {
+			super(Player.class);
+		}
+
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(Player.class.getMethod("getWorld"), (proxy, args) -> {
+				return location.getWorld();
+			});
+			this.addHandler(Player.class.getMethod("getLocation"), (proxy, args) -> {
+				return location.clone();
+			});
+			this.addHandler(
+					Player.class.getMethod("getLocation", Location.class),
+					(proxy, args) -> {
+						assert args != null;
+						Location target = Unsafe.castNonNull(args[0]);
+						target.setWorld(location.getWorld());
+						target.setX(location.getX());
+						target.setY(location.getY());
+						target.setZ(location.getZ());
+						return target;
+					}
+			);
+			this.addHandler(Player.class.getMethod("getEyeLocation"), (proxy, args) -> {
+				return location.clone().add(0, 1.5D, 0);
+			});
+		}
+	}
+
+	private static class EntityMock extends ProxyHandler<LivingEntity> {
+
+		private final Location location;
+
+		EntityMock(Location location) {
+			super(LivingEntity.class);
+			this.location = location;
+		}
+
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(LivingEntity.class.getMethod("getLocation"), (proxy, args) -> {
+				return location.clone();
+			});
+			this.addHandler(LivingEntity.class.getMethod("getEyeHeight"), (proxy, args) -> {
+				return 1.5D;
+			});
+		}
+	}
+
+	// Records the packets that would be sent to the players.
+	private static class NMSMock extends ProxyHandler<NMSCallProvider> {
+
+		private final List<String> shown = new ArrayList<>();
+		private final List<String> hidden = new ArrayList<>();
+		private final List<Entity> updated = new ArrayList<>();
+
+		NMSMock() {
+			super(NMSCallProvider.class);
+		}
+
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(
+					NMSCallProvider.class.getMethod("showPacketEntity", Player.class, Entity.class),
+					(proxy, args) -> {
+						assert args != null;
+						shown.add(args[0] + " " + args[1]);
+						return null;
+					}
+			);
+			this.addHandler(
+					NMSCallProvider.class.getMethod("hidePacketEntity", Player.class, Entity.class),
+					(proxy, args) -> {
+						assert args != null;
+						hidden.add(args[0] + " " + args[1]);
+						return null;
+					}
+			);
+			this.addHandler(
+					NMSCallProvider.class.getMethod(
+							"updatePacketEntity",
+							Collection.class,
+							Entity.class,
+							boolean.class
+					),
+					(proxy, args) -> {
+						assert args != null;
+						updated.add(Unsafe.castNonNull(args[1]));
+						return null;
+					}
+			);
+			this.addHandler(
+					NMSCallProvider.class.getMethod(
+							"setPacketEntityHeadRotation",
+							Collection.class,
+							Entity.class,
+							float.class,
+							float.class
+					),
+					(proxy, args) -> null
+			);
+		}
+	}
+
+	private int previousViewDistance;
+	private World world;
+	private World otherWorld;
+	private NMSMock nmsMock;
+	private NMSCallProvider nms;
+	private PacketEntityTracker tracker;
+
+	@Before
+	public void setUp() {
+		previousViewDistance = Settings.packetEntityViewDistance;
+		Settings.packetEntityViewDistance = VIEW_DISTANCE;
+		world = new WorldMock("world").newProxy();
+		otherWorld = new WorldMock("other").newProxy();
+		nmsMock = new NMSMock();
+		nms = nmsMock.newProxy();
+		tracker = new PacketEntityTracker(Unsafe.uncheckedNull(), () -> nms);
+	}
+
+	@After
+	public void tearDown() {
+		Settings.packetEntityViewDistance = previousViewDistance;
+	}
+
+	private static String shown(Player player, LivingEntity entity) {
+		return player + " " + entity;
+	}
+
+	private PlayerMock createPlayer(World world, double x, double z) {
+		PlayerMock playerMock = new PlayerMock();
+		playerMock.location = new Location(world, x, 64, z);
+		return playerMock;
+	}
+
+	private LivingEntity createEntity(World world, double x, double z) {
+		return new EntityMock(new Location(world, x, 64, z)).newProxy();
+	}
+
+	@Test
+	public void testShowsEntitiesInRange() {
+		PlayerMock nearbyMock = this.createPlayer(world, 10, 10);
+		Player nearby = nearbyMock.newProxy();
+		Player farAway = this.createPlayer(world, 500, 500).newProxy();
+		Player otherWorldPlayer = this.createPlayer(otherWorld, 0, 0).newProxy();
+
+		LivingEntity entity = this.createEntity(world, 0, 0);
+		tracker.addEntity("shop", entity);
+		tracker.updateVisibility(nearby);
+		tracker.updateVisibility(farAway);
+		tracker.updateVisibility(otherWorldPlayer);
+
+		Assert.assertEquals(List.of(shown(nearby, entity)), nmsMock.shown);
+		Assert.assertEquals(1, tracker.getEntityCount());
+		Assert.assertEquals(1, tracker.getViewerCount());
+
+		// Repeated visibility updates do not resend the entity:
+		tracker.updateVisibility(nearby);
+		Assert.assertEquals(1, nmsMock.shown.size());
+	}
+
+	@Test
+	public void testShowsAddedEntitiesToPlayersInWorld() {
+		WorldMock worldMock = new WorldMock("populated");
+		World populatedWorld = worldMock.newProxy();
+		Player nearby = this.createPlayer(populatedWorld, 20, 0).newProxy();
+		Player farAway = this.createPlayer(populatedWorld, 0, 200).newProxy();
+		worldMock.players.add(nearby);
+		worldMock.players.add(farAway);
+
+		LivingEntity entity = this.createEntity(populatedWorld, 0, 0);
+		tracker.addEntity("shop", entity);
+		Assert.assertEquals(List.of(shown(nearby, entity)), nmsMock.shown);
+	}
+
+	@Test
+	public void testHidesEntitiesOutOfRange() {
+		PlayerMock playerMock = this.createPlayer(world, 0, 0);
+		Player player = playerMock.newProxy();
+		LivingEntity entity1 = this.createEntity(world, 5, 5);
+		// Located in a different chunk:
+		LivingEntity entity2 = this.createEntity(world, 40, 0);
+		tracker.addEntity("shop1", entity1);
+		tracker.addEntity("shop2", entity2);
+		tracker.updateVisibility(player);
+		Assert.assertEquals(List.of(shown(player, entity1)), nmsMock.shown);
+
+		// Moving in range of the second entity, and out of range of the first entity:
+		playerMock.location = new Location(world, 60, 64, 0);
+		tracker.updateVisibility(player);
+		Assert.assertEquals(List.of(shown(player, entity1), shown(player, entity2)), nmsMock.shown);
+		Assert.assertEquals(List.of(shown(player, entity1)), nmsMock.hidden);
+
+		// Moving to a different world:
+		playerMock.location = new Location(otherWorld, 40, 64, 0);
+		tracker.updateVisibility(player);
+		Assert.assertEquals(
+				List.of(shown(player, entity1), shown(player, entity2)),
+				nmsMock.hidden
+		);
+		Assert.assertEquals(0, tracker.getViewerCount());
+	}
+
+	@Test
+	public void testRemoveEntity() {
+		Player player1 = this.createPlayer(world, 0, 0).newProxy();
+		Player player2 = this.createPlayer(world, 10, 0).newProxy();
+		LivingEntity entity = this.createEntity(world, 5, 0);
+		tracker.addEntity("shop", entity);
+		tracker.updateVisibility(player1);
+		tracker.updateVisibility(player2);
+		Assert.assertEquals(2, tracker.getViewerCount());
+
+		tracker.removeEntity("shop");
+		Assert.assertEquals(
+				List.of(shown(player1, entity), shown(player2, entity)),
+				nmsMock.hidden
+		);
+		Assert.assertEquals(0, tracker.getEntityCount());
+		Assert.assertEquals(0, tracker.getViewerCount());
+
+		// Removing the entity again has no effect:
+		tracker.removeEntity("shop");
+		Assert.assertEquals(2, nmsMock.hidden.size());
+	}
+
+	@Test
+	public void testHideAllResetsViewers() {
+		Player player = this.createPlayer(world, 0, 0).newProxy();
+		LivingEntity entity = this.createEntity(world, 5, 0);
+		tracker.addEntity("shop", entity);
+		tracker.updateVisibility(player);
+
+		// E.g. on respawn: The client already discarded the entity.
+		tracker.hideAll(player);
+		Assert.assertEquals(0, tracker.getViewerCount());
+		Assert.assertTrue(nmsMock.hidden.isEmpty());
+
+		// The entity is shown again:
+		tracker.updateVisibility(player);
+		Assert.assertEquals(2, nmsMock.shown.size());
+	}
+
+	@Test
+	public void testUpdatesViewedEntitiesOnce() {
+		Player player1 = this.createPlayer(world, 0, 0).newProxy();
+		Player player2 = this.createPlayer(world, 10, 0).newProxy();
+		LivingEntity viewedEntity = this.createEntity(world, 5, 0);
+		LivingEntity unviewedEntity = this.createEntity(world, 1000, 0);
+		tracker.addEntity("shop1", viewedEntity);
+		tracker.addEntity("shop2", unviewedEntity);
+		tracker.updateVisibility(player1);
+		tracker.updateVisibility(player2);
+
+		// The entity is seen by two players, but only updated once per tick:
+		tracker.updateEntities();
+		Assert.assertEquals(List.of(viewedEntity), nmsMock.updated);
+		tracker.updateEntities();
+		Assert.assertEquals(List.of(viewedEntity, viewedEntity), nmsMock.updated);
+	}
+}
@@ -0,0 +1,238 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.logging.NullLogger;
+
+public class SKShopkeeperStorageTests {
+
+	private static final Logger LOGGER = NullLogger.getInstance();
+
+	private Path directory;
+	private Path saveFile;
+	private Path compressedSaveFile;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("shopkeepers-storage-test");
+		saveFile = directory.resolve("save.yml");
+		compressedSaveFile = directory.resolve("save.yml.gz");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path path : (Iterable<Path>) files::iterator) {
+				FileUtils.deleteIfExists(path);
+			}
+		}
+		FileUtils.deleteIfExists(directory);
+	}
+
+	private static void createFile(Path path, long lastModifiedMillis) throws IOException {
+		createFile(path, "data", lastModifiedMillis);
+	}
+
+	private static void createFile(Path path, String content, long lastModifiedMillis)
+			throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(path, FileTime.from(lastModifiedMillis, TimeUnit.MILLISECONDS));
+	}
+
+	private static String read(Path path) throws IOException {
+		try (Reader reader = FileUtils.newDecompressingReader(path, StandardCharsets.UTF_8)) {
+			return FileUtils.read(reader);
+		}
+	}
+
+	// Saves the given data like the storage does after the save file format has been switched to
+	// the compressed format.
+	private void saveCompressed(String data) throws IOException {
+		SKShopkeeperStorage.prepareSaveFileSwitch(compressedSaveFile, saveFile, LOGGER);
+		FileUtils.writeSafelyCompressed(
+				compressedSaveFile,
+				data,
+				StandardCharsets.UTF_8,
+				6,
+				LOGGER,
+				null
+		);
+		SKShopkeeperStorage.deletePreviousSaveFile(saveFile, LOGGER);
+	}
+
+	private Path findSaveFileToLoad() {
+		Path saveFileToLoad = SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile);
+		Assert.assertNotNull(saveFileToLoad);
+		assert saveFileToLoad != null;
+		return saveFileToLoad;
+	}
+
+	@Test
+	public void testNoSaveFile() {
+		Assert.assertNull(SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile));
+	}
+
+	@Test
+	public void testSwitchSaveFileFormat() throws IOException {
+		createFile(saveFile, 1000L);
+		// Switched to the compressed format: Loads the previous, uncompressed save file.
+		Assert.assertEquals(
+				saveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+		Assert.assertEquals(
+				saveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(saveFile, compressedSaveFile)
+		);
+	}
+
+	@Test
+	public void testBothSaveFilesExist() throws IOException {
+		// A save was interrupted before it could remove the previous save file:
+		createFile(saveFile, 1000L);
+		createFile(compressedSaveFile, 2000L);
+		Assert.assertEquals(
+				compressedSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+		Assert.assertEquals(
+				compressedSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(saveFile, compressedSaveFile)
+		);
+	}
+
+	@Test
+	public void testTempSaveFiles() throws IOException {
+		// A save was interrupted after it removed the save file, but before it could rename the
+		// temporary save file:
+		Path compressedTempSaveFile = FileUtils.getTempSibling(compressedSaveFile);
+		createFile(compressedTempSaveFile, 1000L);
+		Assert.assertEquals(
+				compressedTempSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+		Assert.assertEquals(
+				compressedTempSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(saveFile, compressedSaveFile)
+		);
+
+		// The temporary save file of the current format is preferred:
+		Path tempSaveFile = FileUtils.getTempSibling(saveFile);
+		createFile(tempSaveFile, 1000L);
+		Assert.assertEquals(
+				tempSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(saveFile, compressedSaveFile)
+		);
+
+		// The temporary save file is preferred over an older previous save file:
+		createFile(saveFile, 500L);
+		Assert.assertEquals(
+				compressedTempSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+
+		// But not over a more recent previous save file:
+		createFile(saveFile, 2000L);
+		Assert.assertEquals(
+				saveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+
+		// Temporary save files are ignored if both save files exist:
+		createFile(compressedSaveFile, 500L);
+		Assert.assertEquals(
+				saveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+		Files.delete(saveFile);
+		Assert.assertEquals(
+				compressedSaveFile,
+				SKShopkeeperStorage.findSaveFileToLoad(compressedSaveFile, saveFile)
+		);
+	}
+
+	@Test
+	public void testSwitchSaveFileFormatOnSave() throws IOException {
+		createFile(saveFile, "old", 1000L);
+
+		// The previous save file becomes the current save file before the new data is written:
+		SKShopkeeperStorage.prepareSaveFileSwitch(compressedSaveFile, saveFile, LOGGER);
+		Assert.assertFalse(Files.exists(saveFile));
+		Assert.assertEquals(compressedSaveFile, this.findSaveFileToLoad());
+		Assert.assertEquals("old", read(compressedSaveFile));
+
+		// A save that is interrupted while it writes the temporary save file does not affect the
+		// loaded data:
+		Path compressedTempSaveFile = FileUtils.getTempSibling(compressedSaveFile);
+		createFile(compressedTempSaveFile, "incomplete", System.currentTimeMillis());
+		Assert.assertEquals(compressedSaveFile, this.findSaveFileToLoad());
+
+		this.saveCompressed("new");
+		Assert.assertFalse(Files.exists(compressedTempSaveFile));
+		Assert.assertEquals(compressedSaveFile, this.findSaveFileToLoad());
+		Assert.assertEquals("new", read(compressedSaveFile));
+	}
+
+	@Test
+	public void testSwitchSaveFileFormatWithMoreRecentTempSaveFile() throws IOException {
+		// A previous compressed save was interrupted after it removed the compressed save file,
+		// and the outdated uncompressed save file could not be removed:
+		createFile(saveFile, "outdated", 1000L);
+		Path compressedTempSaveFile = FileUtils.getTempSibling(compressedSaveFile);
+		createFile(compressedTempSaveFile, "latest", 2000L);
+		Assert.assertEquals(compressedTempSaveFile, this.findSaveFileToLoad());
+
+		// The temporary save file is kept:
+		SKShopkeeperStorage.prepareSaveFileSwitch(compressedSaveFile, saveFile, LOGGER);
+		Assert.assertEquals("latest", read(compressedTempSaveFile));
+		Assert.assertEquals("outdated", read(saveFile));
+
+		this.saveCompressed("new");
+		Assert.assertFalse(Files.exists(saveFile));
+		Assert.assertFalse(Files.exists(compressedTempSaveFile));
+		Assert.assertEquals("new", read(compressedSaveFile));
+	}
+
+	@Test
+	public void testSwitchSaveFileFormatWithOutdatedTempSaveFile() throws IOException {
+		Path compressedTempSaveFile = FileUtils.getTempSibling(compressedSaveFile);
+		createFile(compressedTempSaveFile, "outdated", 1000L);
+		createFile(saveFile, "latest", 2000L);
+		Assert.assertEquals(saveFile, this.findSaveFileToLoad());
+
+		SKShopkeeperStorage.prepareSaveFileSwitch(compressedSaveFile, saveFile, LOGGER);
+		Assert.assertEquals(compressedSaveFile, this.findSaveFileToLoad());
+		Assert.assertEquals("latest", read(compressedSaveFile));
+	}
+
+	@Test
+	public void testPreviousSaveFileRemovalFailure() throws IOException {
+		// The previous save file cannot be removed:
+		Files.createDirectory(saveFile);
+		Path nestedFile = saveFile.resolve("nested");
+		createFile(nestedFile, 1000L);
+		Path tempSaveFile = FileUtils.getTempSibling(saveFile);
+		createFile(tempSaveFile, 1000L);
+		try {
+			// Does not throw an exception:
+			SKShopkeeperStorage.deletePreviousSaveFile(saveFile, LOGGER);
+			Assert.assertTrue(Files.exists(saveFile));
+		} finally {
+			FileUtils.deleteIfExists(nestedFile);
+		}
+	}
+}
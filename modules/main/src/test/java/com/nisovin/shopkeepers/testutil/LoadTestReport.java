@@ -0,0 +1,246 @@
+package com.nisovin.shopkeepers.testutil;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+/**
+ * Measures the phases of a load test, and reports their durations and allocated bytes as plain
+ * text and JSON.
+ * <p>
+ * The allocated bytes are measured via the thread allocation counters of the JVM, if these are
+ * supported. Otherwise, they are reported as {@code -1}.
+ */
+public final class LoadTestReport {
+
+	private static final Logger LOGGER = Logger.getLogger(LoadTestReport.class.getCanonicalName());
+
+	/**
+	 * The measurements of a single phase.
+	 */
+	public static final class Phase {
+
+		private final String name;
+		private final long durationNanos;
+		private final long allocatedBytes; // -1 if not supported
+		private final long operations;
+
+		Phase(String name, long durationNanos, long allocatedBytes, long operations) {
+			this.name = name;
+			this.durationNanos = durationNanos;
+			this.allocatedBytes = allocatedBytes;
+			this.operations = operations;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getDurationMillis() {
+			return durationNanos / 1_000_000.0D;
+		}
+
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		public long getOperations() {
+			return operations;
+		}
+
+		public double getOperationsPerSecond() {
+			if (durationNanos <= 0) return 0.0D;
+			return operations * 1_000_000_000.0D / durationNanos;
+		}
+	}
+
+	private final String name;
+	private final Map<String, Object> parameters = new LinkedHashMap<>();
+	private final List<Phase> phases = new ArrayList<>();
+
+	public LoadTestReport(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Adds a parameter of the load test to the report.
+	 *
+	 * @param key
+	 *            the parameter key
+	 * @param value
+	 *            the parameter value, either a number or converted to a string
+	 */
+	public void addParameter(String key, Object value) {
+		parameters.put(key, value);
+	}
+
+	public List<? extends Phase> getPhases() {
+		return phases;
+	}
+
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean) {
+			if (sunThreadMXBean.isThreadAllocatedMemorySupported()
+					&& sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+				return sunThreadMXBean.getCurrentThreadAllocatedBytes();
+			}
+		}
+		return -1L;
+	}
+
+	/**
+	 * Runs and measures a phase.
+	 * <p>
+	 * Only the allocations of the current thread are measured.
+	 *
+	 * @param phaseName
+	 *            the phase name
+	 * @param phase
+	 *            the phase, returns the number of performed operations
+	 * @return the measured phase
+	 * @throws Exception
+	 *             if the phase fails
+	 */
+	public Phase measure(String phaseName, Callable<? extends Number> phase) throws Exception {
+		long startAllocatedBytes = getAllocatedBytes();
+		long startNanos = System.nanoTime();
+		long operations = phase.call().longValue();
+		long durationNanos = System.nanoTime() - startNanos;
+		long endAllocatedBytes = getAllocatedBytes();
+		long allocatedBytes = -1L;
+		if (startAllocatedBytes != -1L && endAllocatedBytes != -1L) {
+			allocatedBytes = endAllocatedBytes - startAllocatedBytes;
+		}
+
+		Phase result = new Phase(phaseName, durationNanos, allocatedBytes, operations);
+		phases.add(result);
+		LOGGER.info(String.format(Locale.ROOT, "  %s: %.1f ms, %d operations, %.1f MiB allocated",
+				phaseName,
+				result.getDurationMillis(),
+				operations,
+				allocatedBytes / (1024.0D * 1024.0D)
+		));
+		return result;
+	}
+
+	public String toText() {
+		StringBuilder text = new StringBuilder();
+		text.append(name).append('\n');
+		for (Entry<String, Object> parameter : parameters.entrySet()) {
+			text.append("  ").append(parameter.getKey()).append(": ").append(parameter.getValue())
+					.append('\n');
+		}
+		text.append('\n');
+		text.append(String.format(Locale.ROOT, "%-40s %12s %14s %14s %16s%n",
+				"Phase", "Time (ms)", "Operations", "Ops/s", "Allocated (B)"));
+		for (Phase phase : phases) {
+			text.append(String.format(Locale.ROOT, "%-40s %12.1f %14d %14.0f %16d%n",
+					phase.getName(),
+					phase.getDurationMillis(),
+					phase.getOperations(),
+					phase.getOperationsPerSecond(),
+					phase.getAllocatedBytes()
+			));
+		}
+		return text.toString();
+	}
+
+	private static String toJsonString(String value) {
+		StringBuilder json = new StringBuilder(value.length() + 2);
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		json.append('"');
+		return json.toString();
+	}
+
+	private static String toJsonValue(Object value) {
+		if (value instanceof Number || value instanceof Boolean) {
+			return value.toString();
+		}
+		return toJsonString(String.valueOf(value));
+	}
+
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"name\": ").append(toJsonString(name)).append(",\n");
+		json.append("  \"parameters\": {");
+		boolean first = true;
+		for (Entry<String, Object> parameter : parameters.entrySet()) {
+			json.append(first ? "\n" : ",\n");
+			first = false;
+			json.append("    ").append(toJsonString(parameter.getKey())).append(": ")
+					.append(toJsonValue(parameter.getValue()));
+		}
+		json.append(first ? "},\n" : "\n  },\n");
+		json.append("  \"phases\": [");
+		first = true;
+		for (Phase phase : phases) {
+			json.append(first ? "\n" : ",\n");
+			first = false;
+			json.append(String.format(Locale.ROOT,
+					"    {\"name\": %s, \"durationMillis\": %.3f, \"operations\": %d, "
+							+ "\"operationsPerSecond\": %.1f, \"allocatedBytes\": %d}",
+					toJsonString(phase.getName()),
+					phase.getDurationMillis(),
+					phase.getOperations(),
+					phase.getOperationsPerSecond(),
+					phase.getAllocatedBytes()
+			));
+		}
+		json.append(first ? "]\n" : "\n  ]\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	/**
+	 * Writes the report as plain text and JSON files into the given directory.
+	 *
+	 * @param directory
+	 *            the directory, created if it does not exist yet
+	 * @param fileName
+	 *            the file name without extension
+	 * @throws IOException
+	 *             if the files cannot be written
+	 */
+	public void writeTo(Path directory, String fileName) throws IOException {
+		Files.createDirectories(directory);
+		Path textFile = directory.resolve(fileName + ".txt");
+		Path jsonFile = directory.resolve(fileName + ".json");
+		Files.writeString(textFile, this.toText(), StandardCharsets.UTF_8);
+		Files.writeString(jsonFile, this.toJson(), StandardCharsets.UTF_8);
+		LOGGER.info("Load test report written to " + textFile.toAbsolutePath() + " and "
+				+ jsonFile.getFileName());
+	}
+}
@@ -3,6 +3,7 @@ package com.nisovin.shopkeepers.testutil;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,11 +14,19 @@ import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 
 /**
  * Base class that handled as proxies.
+ * <p>
+ * The {@link Object} methods {@link Object#equals(Object) equals}, {@link Object#hashCode()
+ * hashCode}, and {@link Object#toString() toString} of the proxies are based on their identity,
+ * unless handlers are set up for them. This allows the proxies to be used as map keys.
+ * <p>
+ * Handlers are matched by the name and parameter types of their method. Methods that the proxied
+ * interface inherits from several parent interfaces are therefore handled regardless of the parent
+ * interface that the handled method is looked up from.
  *
  * @param <T>
  *            the proxied type
  */
-abstract class ProxyHandler<@NonNull T> implements InvocationHandler {
+public abstract class ProxyHandler<@NonNull T> implements InvocationHandler {
 
 	@FunctionalInterface
 	public interface MethodHandler<@NonNull T> {
@@ -60,9 +69,41 @@ abstract class ProxyHandler<@NonNull T> implements InvocationHandler {
 			@Nullable Object @Nullable [] args
 	) {
 		MethodHandler<@NonNull T> handler = methodHandlers.get(method);
+		if (handler == null) {
+			handler = this.findHandler(method);
+			if (handler != null) {
+				// Cache the handler for subsequent invocations:
+				methodHandlers.put(method, handler);
+			}
+		}
 		if (handler != null) {
 			return handler.handle(Unsafe.castNonNull(proxy), args);
 		}
+		if (method.getDeclaringClass() == Object.class) {
+			switch (method.getName()) {
+			case "equals":
+				assert args != null;
+				return (proxy == args[0]);
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return proxiedInterface.getSimpleName() + "@"
+						+ Integer.toHexString(System.identityHashCode(proxy));
+			default:
+				break;
+			}
+		}
 		throw new UnsupportedOperationException(String.valueOf(method));
 	}
+
+	private @Nullable MethodHandler<@NonNull T> findHandler(Method method) {
+		for (Map.Entry<Method, MethodHandler<@NonNull T>> entry : methodHandlers.entrySet()) {
+			Method handledMethod = entry.getKey();
+			if (!handledMethod.getName().equals(method.getName())) continue;
+			if (Arrays.equals(handledMethod.getParameterTypes(), method.getParameterTypes())) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
 }
@@ -0,0 +1,233 @@
+package com.nisovin.shopkeepers.testutil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+
+/**
+ * Mocks the {@link BukkitScheduler} of the {@link ServerMock}.
+ * <p>
+ * The scheduled tasks are only run when the tests explicitly {@link #tick() advance} the
+ * scheduler's tick. Asynchronous tasks are run on the test thread as well, during the tick in which
+ * they are due.
+ */
+public final class SchedulerMock extends ProxyHandler<BukkitScheduler> {
+
+	private static final SchedulerMock INSTANCE = new SchedulerMock();
+
+	/**
+	 * Gets the scheduler mock that is used by the server mock.
+	 *
+	 * @return the scheduler mock
+	 */
+	public static SchedulerMock getInstance() {
+		return INSTANCE;
+	}
+
+	private final class TaskMock implements BukkitTask {
+
+		private final int taskId;
+		private final Plugin owner;
+		private final Runnable runnable;
+		private final long period; // Not repeated if 0
+		private long nextTick;
+		private boolean cancelled = false;
+
+		TaskMock(int taskId, Plugin owner, Runnable runnable, long delay, long period) {
+			this.taskId = taskId;
+			this.owner = owner;
+			this.runnable = runnable;
+			this.period = period;
+			// Tasks without delay run during the next tick:
+			this.nextTick = currentTick + Math.max(1L, delay);
+		}
+
+		@Override
+		public int getTaskId() {
+			return taskId;
+		}
+
+		@Override
+		public Plugin getOwner() {
+			return owner;
+		}
+
+		@Override
+		public boolean isSync() {
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			tasks.remove(taskId);
+		}
+	}
+
+	private final Map<Integer, TaskMock> tasks = new LinkedHashMap<>();
+	private int nextTaskId = 1;
+	private long currentTick = 0L;
+
+	private SchedulerMock() {
+		super(BukkitScheduler.class);
+	}
+
+	@Override
+	protected void setupMethodHandlers() throws Exception {
+		this.addHandler(
+				BukkitScheduler.class.getMethod("runTask", Plugin.class, Runnable.class),
+				(proxy, args) -> {
+					assert args != null;
+					return this.schedule(args[0], args[1], 0L, 0L);
+				}
+		);
+		this.addHandler(
+				BukkitScheduler.class.getMethod(
+						"runTaskLater",
+						Plugin.class,
+						Runnable.class,
+						long.class
+				),
+				(proxy, args) -> {
+					assert args != null;
+					long delay = (long) Unsafe.assertNonNull(args[2]);
+					return this.schedule(args[0], args[1], delay, 0L);
+				}
+		);
+		this.addHandler(
+				BukkitScheduler.class.getMethod(
+						"runTaskTimer",
+						Plugin.class,
+						Runnable.class,
+						long.class,
+						long.class
+				),
+				(proxy, args) -> {
+					assert args != null;
+					long delay = (long) Unsafe.assertNonNull(args[2]);
+					long period = Math.max(1L, (long) Unsafe.assertNonNull(args[3]));
+					return this.schedule(args[0], args[1], delay, period);
+				}
+		);
+		this.addHandler(
+				BukkitScheduler.class.getMethod(
+						"runTaskLaterAsynchronously",
+						Plugin.class,
+						Runnable.class,
+						long.class
+				),
+				(proxy, args) -> {
+					assert args != null;
+					long delay = (long) Unsafe.assertNonNull(args[2]);
+					return this.schedule(args[0], args[1], delay, 0L);
+				}
+		);
+		this.addHandler(
+				BukkitScheduler.class.getMethod("cancelTask", int.class),
+				(proxy, args) -> {
+					assert args != null;
+					TaskMock task = tasks.get((int) Unsafe.assertNonNull(args[0]));
+					if (task != null) {
+						task.cancel();
+					}
+					return null;
+				}
+		);
+		this.addHandler(
+				BukkitScheduler.class.getMethod("cancelTasks", Plugin.class),
+				(proxy, args) -> {
+					assert args != null;
+					new ArrayList<>(tasks.values()).forEach(task -> {
+						if (task.getOwner() == args[0]) {
+							task.cancel();
+						}
+					});
+					return null;
+				}
+		);
+	}
+
+	private BukkitTask schedule(
+			Object plugin,
+			Object runnable,
+			long delay,
+			long period
+	) {
+		TaskMock task = new TaskMock(
+				nextTaskId++,
+				Unsafe.castNonNull(plugin),
+				Unsafe.castNonNull(runnable),
+				delay,
+				period
+		);
+		tasks.put(task.getTaskId(), task);
+		return task;
+	}
+
+	/**
+	 * Advances the current tick by one and runs the tasks that are due, in the order in which they
+	 * were scheduled.
+	 */
+	public void tick() {
+		currentTick++;
+		List<TaskMock> dueTasks = new ArrayList<>();
+		for (TaskMock task : tasks.values()) {
+			if (task.nextTick <= currentTick) {
+				dueTasks.add(task);
+			}
+		}
+		for (TaskMock task : dueTasks) {
+			// Skip tasks that have been cancelled by previously run tasks:
+			if (task.isCancelled()) continue;
+
+			if (task.period > 0L) {
+				task.nextTick = currentTick + task.period;
+			} else {
+				tasks.remove(task.getTaskId());
+			}
+			task.runnable.run();
+		}
+	}
+
+	/**
+	 * Runs {@link #tick()} the given number of times.
+	 *
+	 * @param ticks
+	 *            the number of ticks
+	 */
+	public void tick(int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			this.tick();
+		}
+	}
+
+	/**
+	 * Gets the number of scheduled tasks that have neither been run nor been cancelled yet.
+	 *
+	 * @return the number of pending tasks
+	 */
+	public int getPendingTaskCount() {
+		return tasks.size();
+	}
+
+	/**
+	 * Cancels all scheduled tasks.
+	 * <p>
+	 * Tests that schedule tasks are expected to call this after each test.
+	 */
+	public void cancelAllTasks() {
+		new ArrayList<>(tasks.values()).forEach(TaskMock::cancel);
+	}
+}
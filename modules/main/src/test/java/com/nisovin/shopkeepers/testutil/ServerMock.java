@@ -9,11 +9,16 @@ import org.bukkit.Keyed;
 import org.bukkit.Material;
 import org.bukkit.Registry;
 import org.bukkit.Server;
+import org.bukkit.command.SimpleCommandMap;
 import org.bukkit.craftbukkit.v1_20_R4.CraftRegistry;
 import org.bukkit.craftbukkit.v1_20_R4.block.data.CraftBlockData;
 import org.bukkit.craftbukkit.v1_20_R4.inventory.CraftItemFactory;
 import org.bukkit.craftbukkit.v1_20_R4.util.CraftMagicNumbers;
 import org.bukkit.craftbukkit.v1_20_R4.util.Versioning;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.SimplePluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -73,6 +78,8 @@ class ServerMock extends ProxyHandler<Server> {
 	}
 
 	private final Map<Class<?>, Registry<?>> registers = new HashMap<>();
+	private @Nullable PluginManager pluginManager;
+	private final BukkitScheduler scheduler = SchedulerMock.getInstance().newProxy();
 
 	private ServerMock() {
 		super(Server.class);
@@ -111,6 +118,25 @@ class ServerMock extends ProxyHandler<Server> {
 			return logger;
 		});
 
+		this.addHandler(Server.class.getMethod("getPluginManager"), (proxy, args) -> {
+			// Lazily set up, because this requires the server proxy:
+			PluginManager pluginManager = this.pluginManager;
+			if (pluginManager == null) {
+				pluginManager = new SimplePluginManager(proxy, new SimpleCommandMap(proxy));
+				this.pluginManager = pluginManager;
+			}
+			return pluginManager;
+		});
+
+		this.addHandler(Server.class.getMethod("getScheduler"), (proxy, args) -> {
+			return scheduler;
+		});
+
+		// The tests are expected to run on the "main thread":
+		this.addHandler(Server.class.getMethod("isPrimaryThread"), (proxy, args) -> {
+			return true;
+		});
+
 		this.addHandler(Server.class.getMethod("getUnsafe"), (proxy, args) -> {
 			return CraftMagicNumbers.INSTANCE;
 		});
@@ -0,0 +1,182 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.testutil.SchedulerMock;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics.Entry;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics.Grouping;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeStatistics.Page;
+
+public class SQLiteTradeLoggerTests extends AbstractBukkitTest {
+
+	private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+	private static final UUID SHOP_A = UUID.fromString("3c1f2a9e-8d4b-4c7a-9e2f-1a2b3c4d5e6f");
+	private static final UUID SHOP_B = UUID.fromString("7d2e3f4a-5b6c-4d7e-8f9a-0b1c2d3e4f5a");
+
+	// The setup and the saves are executed synchronously while the plugin is disabled.
+	private boolean pluginEnabled = false;
+	private final Plugin plugin = new ProxyHandler<Plugin>(Plugin.class) {
+		@Override
+		protected void setupMethodHandlers() throws Exception {
+			this.addHandler(Plugin.class.getMethod("isEnabled"), (proxy, args) -> {
+				return pluginEnabled;
+			});
+			this.addHandler(Plugin.class.getMethod("getDataFolder"), (proxy, args) -> {
+				return new File("shopkeepers-test");
+			});
+		}
+	}.newProxy();
+
+	private final SchedulerMock scheduler = SchedulerMock.getInstance();
+
+	private String connectionURL = "";
+	// The shared in-memory database only exists as long as it has an open connection:
+	private Connection connection = Unsafe.uncheckedNull();
+
+	@Before
+	public void setUp() throws SQLException {
+		connectionURL = "jdbc:sqlite:file:trade-log-test-" + DATABASE_COUNTER.incrementAndGet()
+				+ "?mode=memory&cache=shared";
+		connection = DriverManager.getConnection(connectionURL);
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		scheduler.cancelAllTasks();
+		connection.close();
+	}
+
+	private SQLiteTradeLogger createLogger(boolean statisticsEnabled) {
+		return new SQLiteTradeLogger(plugin, connectionURL, statisticsEnabled);
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private void insertTrade(UUID shopId, String resultItemType, int resultAmount, int tradeCount)
+			throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO trade "
+				+ "(timestamp, player_uuid, player_name, shop_uuid, shop_type, shop_x, shop_y, "
+				+ "shop_z, item_1_type, item_1_amount, item_1_metadata, result_item_type, "
+				+ "result_item_amount, result_item_metadata, trade_count) "
+				+ "VALUES (?, ?, 'Player', ?, 'admin', 0, 0, 0, 'EMERALD', 1, '', ?, ?, '', ?)")) {
+			statement.setString(1, Instant.now().toString());
+			statement.setString(2, UUID.randomUUID().toString());
+			statement.setString(3, shopId.toString());
+			statement.setString(4, resultItemType);
+			statement.setInt(5, resultAmount);
+			statement.setInt(6, tradeCount);
+			statement.executeUpdate();
+		}
+	}
+
+	private boolean statisticsTableExists() throws SQLException {
+		try (	Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT 1 FROM sqlite_master "
+						+ "WHERE type = 'table' AND name = '" + SQLiteTradeLogger.STATS_TABLE_NAME
+						+ "'")) {
+			return resultSet.next();
+		}
+	}
+
+	private Page query(SQLiteTradeStatistics statistics, Grouping grouping, int page, int size) {
+		pluginEnabled = true;
+		CompletableFuture<Page> future = statistics.query(grouping, 7, page, size);
+		// Async query and sync completion:
+		scheduler.tick(2);
+		Assert.assertTrue(future.isDone());
+		return future.join();
+	}
+
+	@Test
+	public void testStatisticsAreCalculatedDuringSetup() throws SQLException {
+		SQLiteTradeLogger logger = this.createLogger(true);
+		this.insertTrade(SHOP_A, "DIAMOND", 2, 3);
+		this.insertTrade(SHOP_A, "DIAMOND", 1, 1);
+		this.insertTrade(SHOP_B, "APPLE", 16, 1);
+		// Not available before the setup has completed:
+		Assert.assertNull(logger.getStatistics());
+
+		logger.setup();
+		Assert.assertTrue(logger.isLoggingTrades());
+		Assert.assertTrue(this.statisticsTableExists());
+		SQLiteTradeStatistics statistics = Unsafe.assertNonNull(logger.getStatistics());
+
+		List<? extends Entry> items = this.query(statistics, Grouping.ITEM, 1, 10).getEntries();
+		Assert.assertEquals(2, items.size());
+		Assert.assertEquals("APPLE", items.get(0).getKey());
+		Assert.assertEquals(16L, items.get(0).getResultItemCount());
+		Assert.assertEquals("DIAMOND", items.get(1).getKey());
+		Assert.assertEquals(4L, items.get(1).getTradeCount());
+		Assert.assertEquals(7L, items.get(1).getResultItemCount());
+
+		Page shops = this.query(statistics, Grouping.SHOP, 1, 1);
+		Assert.assertTrue(shops.hasNextPage());
+		Assert.assertEquals(SHOP_A.toString(), shops.getEntries().get(0).getKey());
+		shops = this.query(statistics, Grouping.SHOP, 2, 1);
+		Assert.assertFalse(shops.hasNextPage());
+		Assert.assertEquals(SHOP_B.toString(), shops.getEntries().get(0).getKey());
+	}
+
+	@Test
+	public void testStatisticsSetupFailureOnlyDisablesStatistics() throws SQLException {
+		SQLiteTradeLogger logger = this.createLogger(true);
+		SQLiteTradeStatistics statistics = logger.statistics;
+		// Creating the statistics table fails:
+		this.execute("CREATE VIEW " + SQLiteTradeLogger.STATS_TABLE_NAME + " AS SELECT 1");
+
+		logger.setup();
+		Assert.assertTrue(logger.isLoggingTrades());
+		Assert.assertNull(logger.getStatistics());
+
+		// Queries are rejected:
+		pluginEnabled = true;
+		CompletableFuture<Page> future = statistics.query(Grouping.DAY, 7, 1, 10);
+		Assert.assertTrue(future.isCompletedExceptionally());
+		Assert.assertEquals(0, scheduler.getPendingTaskCount());
+	}
+
+	@Test
+	public void testQueryBeforeSetupIsRejected() {
+		SQLiteTradeLogger logger = this.createLogger(true);
+		pluginEnabled = true;
+		CompletableFuture<Page> future = logger.statistics.query(Grouping.SHOP, 1, 1, 10);
+		Assert.assertTrue(future.isCompletedExceptionally());
+	}
+
+	@Test
+	public void testDisabledStatisticsAreDropped() throws SQLException {
+		this.createLogger(true).setup();
+		Assert.assertTrue(this.statisticsTableExists());
+
+		SQLiteTradeLogger logger = this.createLogger(false);
+		logger.setup();
+		Assert.assertTrue(logger.isLoggingTrades());
+		Assert.assertNull(logger.getStatistics());
+		Assert.assertFalse(this.statisticsTableExists());
+	}
+}
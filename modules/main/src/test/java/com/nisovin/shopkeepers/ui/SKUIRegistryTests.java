@@ -0,0 +1,215 @@
+package com.nisovin.shopkeepers.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.ui.UITestUtils.TestShopkeeperUIHandler;
+import com.nisovin.shopkeepers.ui.UITestUtils.TestUIHandler;
+
+public class SKUIRegistryTests extends AbstractBukkitTest {
+
+	private static final List<? extends AbstractUIType> UI_TYPES = Arrays.asList(
+			UITestUtils.TEST_UI_TYPE,
+			UITestUtils.OTHER_TEST_UI_TYPE
+	);
+
+	private static Set<SKUISession> filterSessions(
+			SKUIRegistry uiRegistry,
+			@Nullable AbstractShopkeeper shopkeeper,
+			@Nullable AbstractUIType uiType
+	) {
+		Set<SKUISession> sessions = new HashSet<>();
+		for (SKUISession session : uiRegistry.getUISessions()) {
+			if (shopkeeper != null && session.getShopkeeper() != shopkeeper) continue;
+			if (uiType != null && session.getUIType() != uiType) continue;
+			sessions.add(session);
+		}
+		return sessions;
+	}
+
+	// Compares the indexed lookups with a scan of all UI sessions.
+	private static void assertConsistent(
+			SKUIRegistry uiRegistry,
+			List<? extends Player> players,
+			List<? extends AbstractShopkeeper> shopkeepers
+	) {
+		Assert.assertEquals(uiRegistry.getUISessions().size(), uiRegistry.getUISessionCount());
+		for (Player player : players) {
+			SKUISession session = uiRegistry.getUISession(player);
+			if (session != null) {
+				Assert.assertTrue(session.isValid());
+				Assert.assertSame(player, session.getPlayer());
+			}
+		}
+
+		for (AbstractUIType uiType : UI_TYPES) {
+			Assert.assertEquals(
+					filterSessions(uiRegistry, null, uiType),
+					new HashSet<>(uiRegistry.getUISessions(uiType))
+			);
+		}
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			Assert.assertEquals(
+					filterSessions(uiRegistry, shopkeeper, null),
+					new HashSet<>(uiRegistry.getUISessions(shopkeeper))
+			);
+			for (AbstractUIType uiType : UI_TYPES) {
+				Assert.assertEquals(
+						filterSessions(uiRegistry, shopkeeper, uiType),
+						new HashSet<>(uiRegistry.getUISessions(shopkeeper, uiType))
+				);
+			}
+		}
+	}
+
+	private static boolean openTestUI(SKUIRegistry uiRegistry, Player player) {
+		return uiRegistry.requestUI(new TestUIHandler(UITestUtils.TEST_UI_TYPE), player);
+	}
+
+	// Counts the event handlers that the given plugin has registered via the plugin manager of the
+	// server mock.
+	private static int getRegisteredHandlerCount(HandlerList handlerList, Plugin plugin) {
+		int count = 0;
+		for (RegisteredListener listener : handlerList.getRegisteredListeners()) {
+			if (listener.getPlugin() == plugin) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void assertInventoryEventHandlersRegistered(Plugin plugin, boolean registered) {
+		// Each handled event type is handled at two event priorities:
+		int expectedCount = registered ? 2 : 0;
+		HandlerList clickHandlers = InventoryClickEvent.getHandlerList();
+		HandlerList dragHandlers = InventoryDragEvent.getHandlerList();
+		Assert.assertEquals(expectedCount, getRegisteredHandlerCount(clickHandlers, plugin));
+		Assert.assertEquals(expectedCount, getRegisteredHandlerCount(dragHandlers, plugin));
+	}
+
+	@Test
+	public void testInventoryEventHandlersAreOnlyRegisteredDuringSessions() {
+		ShopkeepersPlugin plugin = UITestUtils.createPlugin();
+		SKUIRegistry uiRegistry = new SKUIRegistry(plugin);
+		Player player1 = UITestUtils.createPlayer(1);
+		Player player2 = UITestUtils.createPlayer(2);
+		try {
+			assertInventoryEventHandlersRegistered(plugin, false);
+
+			Assert.assertTrue(openTestUI(uiRegistry, player1));
+			assertInventoryEventHandlersRegistered(plugin, true);
+
+			// The event handlers are only registered once:
+			Assert.assertTrue(openTestUI(uiRegistry, player2));
+			assertInventoryEventHandlersRegistered(plugin, true);
+
+			uiRegistry.endUISession(player1, null);
+			assertInventoryEventHandlersRegistered(plugin, true);
+
+			// The last UI session ended:
+			uiRegistry.endUISession(player2, null);
+			assertInventoryEventHandlersRegistered(plugin, false);
+
+			// The event handlers are registered again for the next UI session:
+			Assert.assertTrue(openTestUI(uiRegistry, player1));
+			assertInventoryEventHandlersRegistered(plugin, true);
+
+			SKUISession session = Unsafe.assertNonNull(uiRegistry.getUISession(player1));
+			uiRegistry.abort(session);
+			assertInventoryEventHandlersRegistered(plugin, false);
+		} finally {
+			HandlerList.unregisterAll(plugin);
+		}
+	}
+
+	@Test
+	public void testIndicesStayConsistent() {
+		Random random = new Random(42L);
+		SKUIRegistry uiRegistry = new SKUIRegistry(UITestUtils.createPlugin());
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			players.add(UITestUtils.createPlayer(i));
+		}
+		List<AbstractShopkeeper> shopkeepers = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			shopkeepers.add(UITestUtils.createShopkeeper());
+		}
+		// Also includes the deleted shopkeepers:
+		List<AbstractShopkeeper> allShopkeepers = new ArrayList<>(shopkeepers);
+
+		for (int step = 0; step < 2000; step++) {
+			Player player = players.get(random.nextInt(players.size()));
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				// Open a UI:
+				// Simulates the closing of the previous UI, since the player stub does not call the
+				// inventory close event:
+				uiRegistry.endUISession(player, null);
+				AbstractUIType uiType = UI_TYPES.get(random.nextInt(UI_TYPES.size()));
+				UIHandler uiHandler;
+				if (!shopkeepers.isEmpty() && random.nextBoolean()) {
+					int index = random.nextInt(shopkeepers.size());
+					AbstractShopkeeper shopkeeper = shopkeepers.get(index);
+					uiHandler = new TestShopkeeperUIHandler(uiType, shopkeeper);
+				} else {
+					uiHandler = new TestUIHandler(uiType);
+				}
+				Assert.assertTrue(uiRegistry.requestUI(uiHandler, player));
+				Assert.assertNotNull(uiRegistry.getUISession(player));
+			} else if (operation < 7) {
+				// Close the UI:
+				SKUISession session = uiRegistry.getUISession(player);
+				uiRegistry.endUISession(player, null);
+				Assert.assertNull(uiRegistry.getUISession(player));
+				if (session != null) {
+					Assert.assertFalse(session.isValid());
+				}
+			} else if (operation < 9) {
+				// Abort the UI:
+				SKUISession session = uiRegistry.getUISession(player);
+				if (session != null) {
+					uiRegistry.abort(session);
+					Assert.assertFalse(session.isValid());
+					Assert.assertNull(uiRegistry.getUISession(player));
+				}
+			} else if (!shopkeepers.isEmpty() && random.nextInt(10) == 0) {
+				// Delete a shopkeeper:
+				int index = random.nextInt(shopkeepers.size());
+				AbstractShopkeeper shopkeeper = shopkeepers.remove(index);
+				uiRegistry.abortUISessions(shopkeeper);
+				Assert.assertTrue(uiRegistry.getUISessions(shopkeeper).isEmpty());
+			} else {
+				// Replace the deleted shopkeepers:
+				while (shopkeepers.size() < 5) {
+					AbstractShopkeeper shopkeeper = UITestUtils.createShopkeeper();
+					shopkeepers.add(shopkeeper);
+					allShopkeepers.add(shopkeeper);
+				}
+			}
+
+			assertConsistent(uiRegistry, players, allShopkeepers);
+		}
+
+		uiRegistry.abortUISessions();
+		Assert.assertEquals(0, uiRegistry.getUISessionCount());
+		assertConsistent(uiRegistry, players, allShopkeepers);
+	}
+}
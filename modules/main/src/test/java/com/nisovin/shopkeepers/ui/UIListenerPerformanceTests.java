@@ -0,0 +1,171 @@
+package com.nisovin.shopkeepers.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.inventory.InventoryType.SlotType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.PerformanceTests;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.ui.UITestUtils.TestUIHandler;
+
+/**
+ * Measures the overhead of the {@link UIListener} for floods of inventory events, with and without
+ * open UI sessions.
+ * <p>
+ * The events are dispatched via Bukkit's {@link PluginManager}, similar to how the server calls
+ * them.
+ */
+public class UIListenerPerformanceTests extends AbstractBukkitTest {
+
+	private static final Logger LOGGER = Logger.getLogger(
+			UIListenerPerformanceTests.class.getCanonicalName()
+	);
+
+	private static final int PLAYERS = 100;
+	private static final int WARMUP_COUNT = 10000;
+	private static final int TEST_COUNT = 1000000;
+
+	private static Inventory createInventory() {
+		return new ProxyHandler<Inventory>(Inventory.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(Inventory.class.getMethod("getSize"), (proxy, args) -> {
+					return 27;
+				});
+				this.addHandler(Inventory.class.getMethod("getType"), (proxy, args) -> {
+					return InventoryType.CHEST;
+				});
+			}
+		}.newProxy();
+	}
+
+	private static class TestInventoryView extends InventoryView {
+
+		private final Player player;
+		private final Inventory topInventory = createInventory();
+		private final Inventory bottomInventory = createInventory();
+
+		TestInventoryView(Player player) {
+			this.player = player;
+		}
+
+		@Override
+		public Inventory getTopInventory() {
+			return topInventory;
+		}
+
+		@Override
+		public Inventory getBottomInventory() {
+			return bottomInventory;
+		}
+
+		@Override
+		public HumanEntity getPlayer() {
+			return player;
+		}
+
+		@Override
+		public InventoryType getType() {
+			return InventoryType.CHEST;
+		}
+
+		@Override
+		public String getTitle() {
+			return "Test";
+		}
+
+		@Override
+		public String getOriginalTitle() {
+			return "Test";
+		}
+
+		@Override
+		public void setTitle(String title) {
+		}
+	}
+
+	private static List<Event> createEvents(List<? extends Player> players) {
+		List<Event> events = new ArrayList<>();
+		ItemStack cursor = new ItemStack(Material.STONE);
+		for (Player player : players) {
+			InventoryView view = new TestInventoryView(player);
+			events.add(new InventoryClickEvent(
+					view,
+					SlotType.CONTAINER,
+					0,
+					ClickType.LEFT,
+					InventoryAction.PICKUP_ALL
+			));
+			events.add(new InventoryDragEvent(
+					view,
+					null,
+					cursor,
+					false,
+					Collections.singletonMap(0, cursor)
+			));
+		}
+		return events;
+	}
+
+	private static void testEventFlood(String testName, List<? extends Event> events) {
+		PluginManager pluginManager = Bukkit.getPluginManager();
+		int[] index = { 0 };
+		PerformanceTests.testPerformance("  ", testName, WARMUP_COUNT, TEST_COUNT, () -> {
+			Event event = events.get(index[0]);
+			index[0] = (index[0] + 1) % events.size();
+			pluginManager.callEvent(event);
+		});
+	}
+
+	@Test
+	public void testInventoryEventFloodPerformance() {
+		LOGGER.info("Testing UIListener inventory event performance:");
+		SKUIRegistry uiRegistry = new SKUIRegistry(UITestUtils.createPlugin());
+		List<Player> players = new ArrayList<>(PLAYERS);
+		for (int i = 0; i < PLAYERS; i++) {
+			players.add(UITestUtils.createPlayer(i));
+		}
+		List<Event> events = createEvents(players);
+
+		testEventFlood("no UI sessions", events);
+
+		for (int sessionCount : new int[] { 1, 10, PLAYERS }) {
+			for (int i = 0; i < sessionCount; i++) {
+				Assert.assertTrue(uiRegistry.requestUI(
+						new TestUIHandler(UITestUtils.TEST_UI_TYPE),
+						players.get(i)
+				));
+			}
+			Assert.assertEquals(sessionCount, uiRegistry.getUISessionCount());
+
+			testEventFlood(sessionCount + " UI sessions (" + sessionCount + " of " + PLAYERS
+					+ " players)", events);
+
+			uiRegistry.abortUISessions();
+			Assert.assertEquals(0, uiRegistry.getUISessionCount());
+		}
+
+		// The inventory event handlers are unregistered again:
+		testEventFlood("no UI sessions (after closing all UI sessions)", events);
+	}
+}
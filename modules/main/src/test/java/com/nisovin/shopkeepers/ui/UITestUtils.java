@@ -0,0 +1,181 @@
+package com.nisovin.shopkeepers.ui;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryEvent;
+import org.bukkit.inventory.InventoryView;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.events.ShopkeeperAddedEvent;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.ui.UISession;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.ProxyHandler;
+import com.nisovin.shopkeepers.ui.state.UIState;
+
+/**
+ * Minimal plugin, player, shopkeeper, and UI handler stubs for testing the {@link SKUIRegistry}
+ * without a running server.
+ */
+final class UITestUtils {
+
+	static final AbstractUIType TEST_UI_TYPE = new AbstractUIType("test-ui", null) {
+	};
+	static final AbstractUIType OTHER_TEST_UI_TYPE = new AbstractUIType("other-test-ui", null) {
+	};
+
+	private static final Set<? extends Class<? extends InventoryEvent>> INVENTORY_EVENTS
+			= Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+					InventoryClickEvent.class,
+					InventoryDragEvent.class
+			)));
+
+	/**
+	 * A UI handler that can always be opened.
+	 */
+	static class TestUIHandler extends UIHandler {
+
+		TestUIHandler(AbstractUIType uiType) {
+			super(uiType);
+		}
+
+		@Override
+		public boolean canAccess(Player player, boolean silent) {
+			return true;
+		}
+
+		@Override
+		protected boolean openWindow(UISession uiSession, UIState uiState) {
+			return true;
+		}
+
+		@Override
+		protected boolean isWindow(InventoryView view) {
+			return true;
+		}
+
+		// Registers the default inventory event types, since the UI listener is not enabled
+		// during tests.
+		@Override
+		protected Set<? extends Class<? extends InventoryEvent>> getAdditionalInventoryEvents() {
+			return INVENTORY_EVENTS;
+		}
+	}
+
+	/**
+	 * A shopkeeper UI handler that can always be opened.
+	 */
+	static class TestShopkeeperUIHandler extends AbstractShopkeeperUIHandler {
+
+		TestShopkeeperUIHandler(AbstractUIType uiType, AbstractShopkeeper shopkeeper) {
+			super(uiType, shopkeeper);
+		}
+
+		@Override
+		public boolean canAccess(Player player, boolean silent) {
+			return true;
+		}
+
+		@Override
+		protected boolean openWindow(UISession uiSession, UIState uiState) {
+			return true;
+		}
+
+		@Override
+		protected boolean isWindow(InventoryView view) {
+			return true;
+		}
+
+		@Override
+		protected Set<? extends Class<? extends InventoryEvent>> getAdditionalInventoryEvents() {
+			return INVENTORY_EVENTS;
+		}
+	}
+
+	static ShopkeepersPlugin createPlugin() {
+		return new ProxyHandler<ShopkeepersPlugin>(ShopkeepersPlugin.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(ShopkeepersPlugin.class.getMethod("isEnabled"), (proxy, args) -> {
+					return true;
+				});
+				this.addHandler(ShopkeepersPlugin.class.getMethod("getName"), (proxy, args) -> {
+					return "Shopkeepers";
+				});
+			}
+		}.newProxy();
+	}
+
+	static Player createPlayer(int index) {
+		UUID uniqueId = new UUID(0L, index);
+		String name = "Player" + index;
+		return new ProxyHandler<Player>(Player.class) {
+			@Override
+			protected void setupMethodHandlers() throws Exception {
+				this.addHandler(Player.class.getMethod("getType"), (proxy, args) -> {
+					return EntityType.PLAYER;
+				});
+				this.addHandler(Player.class.getMethod("getUniqueId"), (proxy, args) -> {
+					return uniqueId;
+				});
+				this.addHandler(Player.class.getMethod("getName"), (proxy, args) -> {
+					return name;
+				});
+				this.addHandler(Player.class.getMethod("isValid"), (proxy, args) -> {
+					return true;
+				});
+				this.addHandler(Player.class.getMethod("closeInventory"), (proxy, args) -> {
+					// Any UI session is ended by the caller.
+					return null;
+				});
+			}
+		}.newProxy();
+	}
+
+	/**
+	 * Creates a shopkeeper that is only sufficiently set up to be associated with UI sessions.
+	 * <p>
+	 * The returned shopkeeper is already {@link AbstractShopkeeper#isValid() valid}.
+	 *
+	 * @return the shopkeeper
+	 */
+	static AbstractShopkeeper createShopkeeper() {
+		AbstractShopkeeper shopkeeper = new AbstractShopkeeper() {
+			@Override
+			public AbstractShopType<?> getType() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public boolean hasTradingRecipes(@Nullable Player player) {
+				return false;
+			}
+
+			@Override
+			public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+				return Collections.emptyList();
+			}
+
+			@Override
+			protected void onAdded(ShopkeeperAddedEvent.Cause cause) {
+				// There is no shop object.
+			}
+		};
+		shopkeeper.informAdded(ShopkeeperAddedEvent.Cause.LOADED);
+		return shopkeeper;
+	}
+
+	private UITestUtils() {
+	}
+}
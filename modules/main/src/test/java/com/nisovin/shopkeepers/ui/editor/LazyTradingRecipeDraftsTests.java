@@ -0,0 +1,87 @@
+package com.nisovin.shopkeepers.ui.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class LazyTradingRecipeDraftsTests extends AbstractBukkitTest {
+
+	private static TradingRecipeDraft createDraft(int amount) {
+		return new TradingRecipeDraft(new ItemStack(Material.DIAMOND, amount), null, null);
+	}
+
+	private static int getAmount(TradingRecipeDraft draft) {
+		return Unsafe.assertNonNull(draft.getResultItem()).getAmount();
+	}
+
+	private final List<Integer> offers = new ArrayList<>(List.of(1, 2, 3));
+	private final List<Integer> createdDrafts = new ArrayList<>();
+
+	private LazyTradingRecipeDrafts<Integer> createDrafts() {
+		return new LazyTradingRecipeDrafts<>(() -> offers, offer -> {
+			createdDrafts.add(offer);
+			return createDraft(offer);
+		});
+	}
+
+	@Test
+	public void testDraftsAreCreatedLazily() {
+		LazyTradingRecipeDrafts<Integer> drafts = this.createDrafts();
+		Assert.assertEquals(3, drafts.size());
+		Assert.assertTrue(createdDrafts.isEmpty());
+
+		Assert.assertEquals(2, getAmount(drafts.get(1)));
+		Assert.assertEquals(2, getAmount(drafts.get(1)));
+		Assert.assertEquals(List.of(2), createdDrafts);
+
+		// Appending does not create the other drafts:
+		drafts.add(TradingRecipeDraft.EMPTY);
+		Assert.assertEquals(4, drafts.size());
+		Assert.assertEquals(List.of(2), createdDrafts);
+
+		// Removing creates all remaining drafts:
+		drafts.remove(3);
+		Assert.assertEquals(List.of(2, 1, 3), createdDrafts);
+	}
+
+	@Test
+	public void testRefreshUnmodifiedDrafts() {
+		LazyTradingRecipeDrafts<Integer> drafts = this.createDrafts();
+		drafts.get(0);
+		drafts.set(1, createDraft(20));
+		drafts.add(createDraft(40));
+
+		// The offers change while the editor is open:
+		offers.set(0, 10);
+		offers.set(1, 11);
+		offers.remove(2);
+		drafts.refreshUnmodified();
+
+		Assert.assertEquals(4, drafts.size());
+		// Re-read from the current offer:
+		Assert.assertEquals(10, getAmount(drafts.get(0)));
+		// Replaced drafts and appended drafts are kept:
+		Assert.assertEquals(20, getAmount(drafts.get(1)));
+		Assert.assertEquals(40, getAmount(drafts.get(3)));
+		// The offer no longer exists:
+		Assert.assertSame(TradingRecipeDraft.EMPTY, drafts.get(2));
+	}
+
+	@Test
+	public void testRefreshIgnoredAfterShift() {
+		LazyTradingRecipeDrafts<Integer> drafts = this.createDrafts();
+		drafts.remove(0);
+		offers.set(1, 10);
+		drafts.refreshUnmodified();
+		Assert.assertEquals(2, drafts.size());
+		Assert.assertEquals(2, getAmount(drafts.get(0)));
+	}
+}
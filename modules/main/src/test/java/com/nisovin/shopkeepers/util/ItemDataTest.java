@@ -6,6 +6,7 @@ import org.bukkit.Material;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -277,4 +278,36 @@ public class ItemDataTest extends AbstractItemStackSerializationTest<@Nullable S
 				itemData.matches(new ItemData(differentItemData))
 		);
 	}
+
+	// Fails if its item meta is retrieved.
+	private static ItemStack createItemStackWithoutMetaAccess(Material type) {
+		return new ItemStack(type) {
+			@Override
+			public @Nullable ItemMeta getItemMeta() {
+				throw new AssertionError("Unexpected item meta retrieval");
+			}
+		};
+	}
+
+	@Test
+	public void testItemDataMatchesRejectsWithoutItemMeta() {
+		ItemData itemData = new ItemData(TestItemStacks.createItemStackDisplayName());
+
+		// Rejected by their type or their missing item data, without retrieving their item meta:
+		Assert.assertFalse(
+				"!ItemData#matches(different item type)",
+				itemData.matches(createItemStackWithoutMetaAccess(Material.IRON_SWORD))
+		);
+		Assert.assertFalse(
+				"!ItemData#matches(item without item data)",
+				itemData.matches(createItemStackWithoutMetaAccess(Material.DIAMOND_SWORD))
+		);
+
+		// Item data without any data of its own matches items without item data:
+		ItemData plainItemData = new ItemData(Material.DIAMOND_SWORD);
+		Assert.assertTrue(
+				"ItemData#matches(item without item data)",
+				plainItemData.matches(createItemStackWithoutMetaAccess(Material.DIAMOND_SWORD))
+		);
+	}
 }
@@ -0,0 +1,113 @@
+package com.nisovin.shopkeepers.util.inventory;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
+import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.shopkeeper.offers.OfferItems;
+import com.nisovin.shopkeepers.shopkeeper.offers.SKPriceOffer;
+import com.nisovin.shopkeepers.shopkeeper.offers.SKTradeOffer;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+
+public class ItemStackInternerTests extends AbstractBukkitTest {
+
+	private static void setDisplayName(ItemStack itemStack, String displayName) {
+		ItemMeta itemMeta = Unsafe.castNonNull(itemStack.getItemMeta());
+		itemMeta.setDisplayName(displayName);
+		itemStack.setItemMeta(itemMeta);
+	}
+
+	@Test
+	public void testEqualItemsShareInstance() {
+		ItemStackInterner interner = new ItemStackInterner();
+		UnmodifiableItemStack interned = interner.intern(TestItemStacks.createItemStackComplete());
+		Assert.assertSame(interned, interner.intern(TestItemStacks.createItemStackComplete()));
+		Assert.assertSame(interned, interner.intern(UnmodifiableItemStack.ofNonNull(
+				TestItemStacks.createItemStackComplete()
+		)));
+		// Already interned instances are returned as is:
+		Assert.assertSame(interned, interner.intern(interned));
+		Assert.assertTrue(interner.isInterned(interned));
+		Assert.assertEquals(1, interner.getSize());
+		Assert.assertEquals(3, interner.getHits());
+		Assert.assertEquals(1, interner.getMisses());
+
+		// Different amount or metadata:
+		ItemStack otherAmount = TestItemStacks.createItemStackComplete();
+		otherAmount.setAmount(otherAmount.getAmount() + 1);
+		Assert.assertNotSame(interned, interner.intern(otherAmount));
+		ItemStack otherMeta = TestItemStacks.createItemStackComplete();
+		setDisplayName(otherMeta, "Other");
+		Assert.assertNotSame(interned, interner.intern(otherMeta));
+		Assert.assertEquals(3, interner.getMisses());
+	}
+
+	@Test
+	public void testInternedItemsAreNotMutable() {
+		ItemStackInterner interner = new ItemStackInterner();
+		ItemStack itemStack = new ItemStack(Material.DIAMOND, 2);
+		UnmodifiableItemStack interned = interner.intern(itemStack);
+		// The pool does not store the given item stack itself:
+		Assert.assertNotSame(itemStack, ItemUtils.asItemStack(interned));
+
+		// Changes to the given item stack do not affect the interned item stack:
+		setDisplayName(itemStack, "Changed");
+		itemStack.setAmount(1);
+		Assert.assertEquals(new ItemStack(Material.DIAMOND, 2), interned.copy());
+		Assert.assertSame(interned, interner.intern(new ItemStack(Material.DIAMOND, 2)));
+
+		// Changes to copies of the interned item stack do not affect the interned item stack:
+		ItemStack copy = interned.copy();
+		copy.setAmount(3);
+		Assert.assertEquals(2, interned.getAmount());
+
+		// The given unmodifiable view might still be changed through its underlying item stack:
+		ItemStack viewedItemStack = new ItemStack(Material.EMERALD, 5);
+		UnmodifiableItemStack view = UnmodifiableItemStack.ofNonNull(viewedItemStack);
+		UnmodifiableItemStack internedView = interner.intern(view);
+		Assert.assertNotSame(view, internedView);
+		viewedItemStack.setAmount(1);
+		Assert.assertEquals(5, internedView.getAmount());
+		Assert.assertFalse(interner.isInterned(view));
+	}
+
+	@Test
+	public void testEmptyItemsAreNotPooled() {
+		ItemStackInterner interner = new ItemStackInterner();
+		Assert.assertNull(interner.intern((ItemStack) null));
+		Assert.assertNull(interner.intern((UnmodifiableItemStack) null));
+		ItemStack air = new ItemStack(Material.AIR);
+		UnmodifiableItemStack internedAir = interner.intern(air);
+		Assert.assertNotSame(air, ItemUtils.asItemStack(internedAir));
+		Assert.assertEquals(0, interner.getSize());
+		Assert.assertEquals(0, interner.getMisses());
+	}
+
+	@Test
+	public void testOffersShareItems() {
+		ItemStack itemStack = TestItemStacks.createItemStackComplete();
+		PriceOffer priceOffer1 = new SKPriceOffer(itemStack, 1);
+		PriceOffer priceOffer2 = new SKPriceOffer(UnmodifiableItemStack.ofNonNull(itemStack), 2);
+		Assert.assertSame(priceOffer1.getItem(), priceOffer2.getItem());
+		Assert.assertTrue(OfferItems.getInterner().isInterned(priceOffer1.getItem()));
+
+		TradeOffer tradeOffer = new SKTradeOffer(
+				new ItemStack(Material.DIAMOND),
+				TestItemStacks.createItemStackComplete(),
+				null
+		);
+		Assert.assertSame(priceOffer1.getItem(), tradeOffer.getItem1());
+		Assert.assertNull(tradeOffer.getItem2());
+
+		// Changes to the given item stack do not affect the offers:
+		itemStack.setAmount(itemStack.getAmount() + 1);
+		Assert.assertEquals(TestItemStacks.createItemStackComplete(), priceOffer1.getItem().copy());
+	}
+}
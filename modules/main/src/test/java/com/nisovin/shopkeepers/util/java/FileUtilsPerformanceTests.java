@@ -0,0 +1,134 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.logging.NullLogger;
+
+/**
+ * Compares the time to save and load compressed and uncompressed save files of different sizes.
+ */
+public class FileUtilsPerformanceTests {
+
+	private static final Logger LOGGER = Logger.getLogger(
+			FileUtilsPerformanceTests.class.getCanonicalName()
+	);
+
+	private static final int[] SHOPKEEPER_COUNTS = { 1000, 10000, 50000 };
+	// -1: Uncompressed
+	private static final int[] COMPRESSION_LEVELS = { -1, 1, 6, 9 };
+	private static final int WARMUP_COUNT = 2;
+	private static final int TEST_COUNT = 5;
+
+	private static final String[] ITEM_TYPES = {
+			"DIAMOND", "EMERALD", "IRON_INGOT", "GOLD_INGOT", "DIAMOND_SWORD", "BREAD"
+	};
+
+	// Mimics the structure of the shopkeeper save data.
+	private static String createSaveData(int shopkeepers, Random random) {
+		StringBuilder data = new StringBuilder();
+		data.append("data-version: 4|3955\n");
+		for (int id = 1; id <= shopkeepers; id++) {
+			data.append("'").append(id).append("':\n");
+			data.append("  uniqueId: ").append(new UUID(random.nextLong(), id)).append('\n');
+			data.append("  type: sell\n");
+			data.append("  world: world\n");
+			data.append("  x: ").append(random.nextInt(10000)).append('\n');
+			data.append("  y: 64\n");
+			data.append("  z: ").append(random.nextInt(10000)).append('\n');
+			data.append("  object:\n");
+			data.append("    type: villager\n");
+			data.append("  offers:\n");
+			int offers = 1 + random.nextInt(8);
+			for (int offer = 1; offer <= offers; offer++) {
+				data.append("    '").append(offer).append("':\n");
+				data.append("      item:\n");
+				data.append("        ==: org.bukkit.inventory.ItemStack\n");
+				data.append("        v: 3955\n");
+				data.append("        type: ").append(ITEM_TYPES[random.nextInt(ITEM_TYPES.length)])
+						.append('\n');
+				data.append("        amount: ").append(1 + random.nextInt(64)).append('\n');
+				data.append("      price: ").append(1 + random.nextInt(100)).append('\n');
+			}
+		}
+		return data.toString();
+	}
+
+	private static void save(Path file, String data, int compressionLevel) throws IOException {
+		Logger logger = NullLogger.getInstance();
+		if (compressionLevel < 0) {
+			FileUtils.writeSafely(file, data, StandardCharsets.UTF_8, logger, null);
+		} else {
+			FileUtils.writeSafelyCompressed(
+					file,
+					data,
+					StandardCharsets.UTF_8,
+					compressionLevel,
+					logger,
+					null
+			);
+		}
+	}
+
+	private static String load(Path file) throws IOException {
+		try (Reader reader = FileUtils.newDecompressingReader(file, StandardCharsets.UTF_8)) {
+			return FileUtils.read(reader);
+		}
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.2f", nanos / 1000000.0D);
+	}
+
+	@Test
+	public void testSaveFileCompressionPerformance() throws IOException {
+		LOGGER.info("Testing save file compression performance:");
+		Path directory = Files.createTempDirectory("shopkeepers-file-utils-performance-test");
+		Path file = directory.resolve("save.yml");
+		try {
+			for (int shopkeepers : SHOPKEEPER_COUNTS) {
+				String data = createSaveData(shopkeepers, new Random(42L));
+				for (int compressionLevel : COMPRESSION_LEVELS) {
+					long saveNanos = 0L;
+					long loadNanos = 0L;
+					for (int i = 0; i < WARMUP_COUNT + TEST_COUNT; i++) {
+						long start = System.nanoTime();
+						save(file, data, compressionLevel);
+						long saved = System.nanoTime();
+						String loaded = load(file);
+						long end = System.nanoTime();
+						Assert.assertEquals(data, loaded);
+						if (i >= WARMUP_COUNT) {
+							saveNanos += (saved - start);
+							loadNanos += (end - saved);
+						}
+					}
+
+					String compression = "none";
+					if (compressionLevel >= 0) {
+						compression = "level " + compressionLevel;
+					}
+					LOGGER.info("  " + shopkeepers + " shopkeepers, compression " + compression
+							+ ": " + Files.size(file) + " bytes (uncompressed: "
+							+ data.length() + " chars), save: "
+							+ formatMillis(saveNanos / TEST_COUNT) + " ms, load: "
+							+ formatMillis(loadNanos / TEST_COUNT) + " ms");
+				}
+			}
+		} finally {
+			FileUtils.deleteIfExists(file);
+			FileUtils.deleteIfExists(FileUtils.getTempSibling(file));
+			FileUtils.deleteIfExists(directory);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.logging.NullLogger;
+
+public class FileUtilsTests {
+
+	private static final Logger LOGGER = NullLogger.getInstance();
+
+	// Note: FileUtils#read normalizes line separators and terminates each line with '\n'.
+	private static String createContent(int lines) {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			content.append("'").append(i).append("':\n");
+			content.append("  type: sell\n");
+			content.append("  name: Shopkeeper äöü ").append(i).append('\n');
+		}
+		return content.toString();
+	}
+
+	private static String readFile(Path path) throws IOException {
+		try (Reader reader = FileUtils.newDecompressingReader(path, StandardCharsets.UTF_8)) {
+			return FileUtils.read(reader);
+		}
+	}
+
+	private static boolean isGzipCompressed(Path path) throws IOException {
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+			return FileUtils.isGzipCompressed(input);
+		}
+	}
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("shopkeepers-file-utils-test");
+		file = directory.resolve("save.yml.gz");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path path : (Iterable<Path>) files::iterator) {
+				FileUtils.deleteIfExists(path);
+			}
+		}
+		FileUtils.deleteIfExists(directory);
+	}
+
+	@Test
+	public void testCompressedRoundTrip() throws IOException {
+		String content = createContent(1000);
+		for (int level = 0; level <= 9; level++) {
+			FileUtils.writeSafelyCompressed(
+					file,
+					content,
+					StandardCharsets.UTF_8,
+					level,
+					LOGGER,
+					directory
+			);
+			Assert.assertTrue(isGzipCompressed(file));
+			Assert.assertEquals(content, readFile(file));
+			Assert.assertFalse(Files.exists(FileUtils.getTempSibling(file)));
+		}
+
+		// The repetitive content is compressed:
+		FileUtils.writeSafelyCompressed(file, content, StandardCharsets.UTF_8, 6, LOGGER, null);
+		long compressedSize = Files.size(file);
+		Path plainFile = directory.resolve("save.yml");
+		FileUtils.writeSafely(plainFile, content, StandardCharsets.UTF_8, LOGGER, null);
+		Assert.assertTrue(compressedSize < Files.size(plainFile));
+	}
+
+	@Test
+	public void testDetectsPlainFiles() throws IOException {
+		String content = createContent(100);
+		Path plainFile = directory.resolve("save.yml");
+		FileUtils.writeSafely(plainFile, content, StandardCharsets.UTF_8, LOGGER, null);
+		Assert.assertFalse(isGzipCompressed(plainFile));
+		Assert.assertEquals(content, readFile(plainFile));
+
+		// Plain content written to a file with the extension of compressed files:
+		FileUtils.writeSafely(file, content, StandardCharsets.UTF_8, LOGGER, null);
+		Assert.assertEquals(content, readFile(file));
+
+		// Files shorter than the GZIP header:
+		Files.write(plainFile, new byte[0]);
+		Assert.assertEquals("", readFile(plainFile));
+		Files.write(plainFile, new byte[] { 'a' });
+		Assert.assertEquals("a\n", readFile(plainFile));
+	}
+
+	@Test
+	public void testExistingTempFileIsDeleted() throws IOException {
+		String oldContent = createContent(10);
+		FileUtils.writeSafelyCompressed(file, oldContent, StandardCharsets.UTF_8, 6, LOGGER, null);
+
+		// An interrupted previous write attempt left behind a partially written temporary file:
+		Path tempFile = FileUtils.getTempSibling(file);
+		byte[] compressed = Files.readAllBytes(file);
+		Files.write(tempFile, Arrays.copyOf(compressed, compressed.length / 2));
+
+		String newContent = createContent(20);
+		FileUtils.writeSafelyCompressed(file, newContent, StandardCharsets.UTF_8, 6, LOGGER, null);
+		Assert.assertEquals(newContent, readFile(file));
+		Assert.assertFalse(Files.exists(tempFile));
+	}
+
+	@Test
+	public void testExistingTempFileWithoutDestination() throws IOException {
+		// An interrupted previous write attempt removed the old file, but did not rename the
+		// temporary file yet:
+		String oldContent = createContent(10);
+		Path tempFile = FileUtils.getTempSibling(file);
+		FileUtils.writeSafelyCompressed(file, oldContent, StandardCharsets.UTF_8, 6, LOGGER, null);
+		Files.move(file, tempFile);
+		Assert.assertEquals(oldContent, readFile(tempFile));
+
+		String newContent = createContent(20);
+		FileUtils.writeSafelyCompressed(file, newContent, StandardCharsets.UTF_8, 6, LOGGER, null);
+		Assert.assertEquals(newContent, readFile(file));
+		Assert.assertFalse(Files.exists(tempFile));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCompressionLevel() throws IOException {
+		FileUtils.writeSafelyCompressed(file, "", StandardCharsets.UTF_8, 10, LOGGER, null);
+	}
+}
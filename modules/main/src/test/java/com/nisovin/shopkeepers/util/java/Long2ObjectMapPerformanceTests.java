@@ -0,0 +1,91 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.PerformanceTests;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.ChunkKeys;
+import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+
+/**
+ * Compares chunk lookups in a {@link Long2ObjectMap} with chunk lookups in a {@link HashMap} with
+ * {@link ChunkCoords} keys.
+ */
+public class Long2ObjectMapPerformanceTests {
+
+	private static final Logger LOGGER = Logger.getLogger(
+			Long2ObjectMapPerformanceTests.class.getCanonicalName()
+	);
+
+	private static final String WORLD_NAME = "world";
+	// Chunks with shopkeepers within a 64x64 chunk area:
+	private static final int CHUNK_RADIUS = 32;
+	private static final int WARMUP_COUNT = 100000;
+	private static final int TEST_COUNT = 10000000;
+
+	@Test
+	public void testChunkLookupPerformance() {
+		LOGGER.info("Testing chunk lookup performance:");
+		Map<ChunkCoords, Object> hashMap = new HashMap<>();
+		Long2ObjectMap<Object> long2ObjectMap = new Long2ObjectMap<>();
+		for (int chunkX = -CHUNK_RADIUS; chunkX < CHUNK_RADIUS; chunkX++) {
+			for (int chunkZ = -CHUNK_RADIUS; chunkZ < CHUNK_RADIUS; chunkZ++) {
+				// Only every second chunk contains shopkeepers:
+				if (((chunkX + chunkZ) & 1) != 0) continue;
+
+				Object value = new Object();
+				hashMap.put(new ChunkCoords(WORLD_NAME, chunkX, chunkZ), value);
+				long2ObjectMap.put(ChunkKeys.getKey(chunkX, chunkZ), value);
+			}
+		}
+		Assert.assertEquals(hashMap.size(), long2ObjectMap.size());
+
+		// The looked up chunks, including chunks without shopkeepers:
+		List<int[]> chunks = new ArrayList<>();
+		for (int chunkX = -CHUNK_RADIUS; chunkX < CHUNK_RADIUS; chunkX += 3) {
+			for (int chunkZ = -CHUNK_RADIUS; chunkZ < CHUNK_RADIUS; chunkZ += 5) {
+				chunks.add(new int[] { chunkX, chunkZ });
+			}
+		}
+		int[] index = { 0 };
+		int[] hits = { 0 };
+
+		PerformanceTests.testPerformance("  ", "HashMap (new ChunkCoords)", WARMUP_COUNT,
+				TEST_COUNT, () -> {
+					int[] chunk = chunks.get(index[0]);
+					index[0] = (index[0] + 1) % chunks.size();
+					if (hashMap.get(new ChunkCoords(WORLD_NAME, chunk[0], chunk[1])) != null) {
+						hits[0]++;
+					}
+				});
+
+		MutableChunkCoords sharedChunkCoords = new MutableChunkCoords();
+		PerformanceTests.testPerformance("  ", "HashMap (shared MutableChunkCoords)", WARMUP_COUNT,
+				TEST_COUNT, () -> {
+					int[] chunk = chunks.get(index[0]);
+					index[0] = (index[0] + 1) % chunks.size();
+					sharedChunkCoords.set(WORLD_NAME, chunk[0], chunk[1]);
+					if (hashMap.get(sharedChunkCoords) != null) {
+						hits[0]++;
+					}
+				});
+
+		PerformanceTests.testPerformance("  ", "Long2ObjectMap", WARMUP_COUNT, TEST_COUNT, () -> {
+			int[] chunk = chunks.get(index[0]);
+			index[0] = (index[0] + 1) % chunks.size();
+			if (long2ObjectMap.get(ChunkKeys.getKey(chunk[0], chunk[1])) != null) {
+				hits[0]++;
+			}
+		});
+
+		// Prevents the lookups from being optimized away:
+		LOGGER.info("  Hits: " + hits[0]);
+	}
+}
@@ -0,0 +1,112 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.bukkit.ChunkKeys;
+
+public class Long2ObjectMapTests {
+
+	private static void assertSameEntries(Map<Long, String> expected, Long2ObjectMap<String> map) {
+		Assert.assertEquals(expected.size(), map.size());
+		Assert.assertEquals(expected.isEmpty(), map.isEmpty());
+		expected.forEach((key, value) -> {
+			Assert.assertTrue(map.containsKey(key));
+			Assert.assertEquals(value, map.get(key));
+		});
+		Map<Long, String> actual = new HashMap<>();
+		map.forEach((key, value) -> {
+			Assert.assertNull("Duplicate key: " + key, actual.put(key, value));
+		});
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testBasicOperations() {
+		Long2ObjectMap<String> map = new Long2ObjectMap<>();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(0L));
+		Assert.assertNull(map.put(0L, "a"));
+		Assert.assertEquals("a", map.put(0L, "b"));
+		Assert.assertEquals("b", map.get(0L));
+		Assert.assertFalse(map.containsKey(1L));
+		Assert.assertEquals("c", map.computeIfAbsent(-1L, key -> "c"));
+		Assert.assertEquals("c", map.computeIfAbsent(-1L, key -> "d"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("b", map.remove(0L));
+		Assert.assertNull(map.remove(0L));
+		Assert.assertEquals(1, map.size());
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(-1L));
+	}
+
+	@Test
+	public void testMatchesHashMap() {
+		Random random = new Random(42L);
+		Map<Long, String> expected = new HashMap<>();
+		Long2ObjectMap<String> map = new Long2ObjectMap<>();
+		for (int step = 0; step < 20000; step++) {
+			// A small range of chunk coordinates, so that keys are frequently reused:
+			int chunkX = random.nextInt(64) - 32;
+			int chunkZ = random.nextInt(64) - 32;
+			long key = ChunkKeys.getKey(chunkX, chunkZ);
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				String value = chunkX + "," + chunkZ + "#" + step;
+				Assert.assertEquals(expected.put(key, value), map.put(key, value));
+			} else if (operation < 9) {
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				Assert.assertEquals(expected.get(key), map.get(key));
+			}
+
+			if (step % 1000 == 0) {
+				assertSameEntries(expected, map);
+			}
+		}
+		assertSameEntries(expected, map);
+
+		// Remove all entries again:
+		for (Long key : expected.keySet()) {
+			Assert.assertNotNull(map.remove(key));
+		}
+		expected.clear();
+		assertSameEntries(expected, map);
+	}
+
+	@Test
+	public void testCollidingKeys() {
+		// Keys that only differ in their high bits, and removals from the middle of probe sequences:
+		Map<Long, String> expected = new HashMap<>();
+		Long2ObjectMap<String> map = new Long2ObjectMap<>(1000);
+		for (long i = 0; i < 500; i++) {
+			long key = i << 40;
+			expected.put(key, "value" + i);
+			map.put(key, "value" + i);
+		}
+		assertSameEntries(expected, map);
+		for (long i = 0; i < 500; i += 3) {
+			long key = i << 40;
+			Assert.assertEquals(expected.remove(key), map.remove(key));
+		}
+		assertSameEntries(expected, map);
+	}
+
+	@Test
+	public void testChunkKeys() {
+		int[] coordinates = { 0, 1, -1, 1875000, -1875000, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		for (int chunkX : coordinates) {
+			for (int chunkZ : coordinates) {
+				long key = ChunkKeys.getKey(chunkX, chunkZ);
+				Assert.assertEquals(chunkX, ChunkKeys.getChunkX(key));
+				Assert.assertEquals(chunkZ, ChunkKeys.getChunkZ(key));
+			}
+		}
+		Assert.assertNotEquals(ChunkKeys.getKey(1, -1), ChunkKeys.getKey(-1, 1));
+	}
+}
@@ -1,8 +1,13 @@
 package com.nisovin.shopkeepers.compat.v1_21_R2;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.bukkit.ExplosionResult;
+import org.bukkit.NamespacedKey;
 import org.bukkit.craftbukkit.v1_21_R1.entity.CraftAbstractVillager;
 import org.bukkit.craftbukkit.v1_21_R1.entity.CraftEntity;
 import org.bukkit.craftbukkit.v1_21_R1.entity.CraftLivingEntity;
@@ -26,6 +31,7 @@ import org.bukkit.inventory.Merchant;
 import org.bukkit.inventory.MerchantInventory;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.mojang.datafixers.util.Pair;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
@@ -35,16 +41,33 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 import net.minecraft.core.component.DataComponentMap;
 import net.minecraft.core.component.DataComponentPredicate;
+import net.minecraft.core.component.DataComponents;
 import net.minecraft.core.component.PatchedDataComponentMap;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.Tag;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundMoveEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.network.protocol.game.ClientboundRotateHeadPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEquipmentPacket;
+import net.minecraft.network.syncher.SynchedEntityData;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.entity.ai.goal.GoalSelector;
 import net.minecraft.world.entity.ai.goal.LookAtPlayerGoal;
+import net.minecraft.world.item.component.CustomData;
 import net.minecraft.world.item.trading.MerchantOffers;
+import net.minecraft.world.phys.Vec3;
 
 public final class NMSHandler implements NMSCallProvider {
 
+	// The custom data tag in which Bukkit stores the item's persistent data:
+	private static final String BUKKIT_VALUES_TAG = "PublicBukkitValues";
+
 	private final Field craftItemStackHandleField;
 
 	public NMSHandler() throws Exception {
@@ -243,6 +266,134 @@ public final class NMSHandler implements NMSCallProvider {
 		return itemNBT.toString();
 	}
 
+	@Override
+	public @Nullable Boolean hasPersistentDataKey(ItemStack itemStack, NamespacedKey key) {
+		// Avoid copying non-Craft item stacks:
+		if (!(itemStack instanceof CraftItemStack)) return null;
+
+		net.minecraft.world.item.ItemStack nmsItem = asNMSItemStack(itemStack);
+		CustomData customData = nmsItem.get(DataComponents.CUSTOM_DATA);
+		if (customData == null) return false;
+
+		// Read-only access to the custom data, without copying it:
+		CompoundTag bukkitValues = customData.getUnsafe().getCompound(BUKKIT_VALUES_TAG);
+		return bukkitValues.contains(key.toString());
+	}
+
+	@Override
+	public @Nullable Integer getItemDataHash(ItemStack itemStack) {
+		// Avoid copying non-Craft item stacks:
+		if (!(itemStack instanceof CraftItemStack)) return null;
+
+		net.minecraft.world.item.ItemStack nmsItem = asNMSItemStack(itemStack);
+		return net.minecraft.world.item.ItemStack.hashItemAndComponents(nmsItem);
+	}
+
+	// PACKET ENTITIES
+
+	@Override
+	public boolean supportsPacketEntities() {
+		return true;
+	}
+
+	private static void sendPacket(Player player, Packet<?> packet) {
+		((CraftPlayer) player).getHandle().connection.send(packet);
+	}
+
+	private static void sendPacket(Collection<? extends Player> players, Packet<?> packet) {
+		for (Player player : players) {
+			sendPacket(player, packet);
+		}
+	}
+
+	private static byte toPackedRotation(float degrees) {
+		return (byte) Mth.floor(degrees * 256.0F / 360.0F);
+	}
+
+	@Override
+	public void showPacketEntity(Player player, Entity entity) {
+		net.minecraft.world.entity.Entity mcEntity = ((CraftEntity) entity).getHandle();
+		sendPacket(player, new ClientboundAddEntityPacket(
+				mcEntity.getId(),
+				mcEntity.getUUID(),
+				mcEntity.getX(),
+				mcEntity.getY(),
+				mcEntity.getZ(),
+				mcEntity.getXRot(),
+				mcEntity.getYRot(),
+				mcEntity.getType(),
+				0,
+				Vec3.ZERO,
+				mcEntity.getYHeadRot()
+		));
+		sendFullEntityState(Collections.singletonList(player), mcEntity);
+	}
+
+	@Override
+	public void hidePacketEntity(Player player, Entity entity) {
+		sendPacket(player, new ClientboundRemoveEntitiesPacket(entity.getEntityId()));
+	}
+
+	@Override
+	public void updatePacketEntity(
+			Collection<? extends Player> players,
+			Entity entity,
+			boolean fullUpdate
+	) {
+		net.minecraft.world.entity.Entity mcEntity = ((CraftEntity) entity).getHandle();
+		// This also clears the dirty state:
+		List<SynchedEntityData.DataValue<?>> dirtyData = mcEntity.getEntityData().packDirty();
+		if (players.isEmpty()) return;
+
+		if (fullUpdate) {
+			sendFullEntityState(players, mcEntity);
+		} else if (dirtyData != null) {
+			sendPacket(players, new ClientboundSetEntityDataPacket(mcEntity.getId(), dirtyData));
+		}
+	}
+
+	private static void sendFullEntityState(
+			Collection<? extends Player> players,
+			net.minecraft.world.entity.Entity mcEntity
+	) {
+		List<SynchedEntityData.DataValue<?>> entityData = mcEntity.getEntityData().getNonDefaultValues();
+		if (entityData != null) {
+			sendPacket(players, new ClientboundSetEntityDataPacket(mcEntity.getId(), entityData));
+		}
+
+		if (mcEntity instanceof net.minecraft.world.entity.LivingEntity mcLivingEntity) {
+			// We send all slots, including empty ones, to also clear any previously sent items:
+			List<Pair<EquipmentSlot, net.minecraft.world.item.ItemStack>> equipment = new ArrayList<>();
+			for (EquipmentSlot slot : EquipmentSlot.values()) {
+				equipment.add(Pair.of(slot, mcLivingEntity.getItemBySlot(slot).copy()));
+			}
+			sendPacket(players, new ClientboundSetEquipmentPacket(mcEntity.getId(), equipment));
+		}
+	}
+
+	@Override
+	public void setPacketEntityHeadRotation(
+			Collection<? extends Player> players,
+			Entity entity,
+			float yaw,
+			float pitch
+	) {
+		net.minecraft.world.entity.Entity mcEntity = ((CraftEntity) entity).getHandle();
+		// Remember the rotation for subsequent spawn packets:
+		mcEntity.setYHeadRot(yaw);
+		mcEntity.setXRot(pitch);
+		if (players.isEmpty()) return;
+
+		// The body rotation remains unchanged:
+		sendPacket(players, new ClientboundMoveEntityPacket.Rot(
+				mcEntity.getId(),
+				toPackedRotation(mcEntity.getYRot()),
+				toPackedRotation(pitch),
+				true
+		));
+		sendPacket(players, new ClientboundRotateHeadPacket(mcEntity, toPackedRotation(yaw)));
+	}
+
 	// MC 1.21+ TODO Can be removed once we only support Bukkit 1.21+
 
 	@Override